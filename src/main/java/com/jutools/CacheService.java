@@ -2,6 +2,7 @@ package com.jutools;
 
 import com.jutools.cache.Cache;
 import com.jutools.cache.Loader;
+import com.jutools.cache.Weigher;
 
 /**
  * 캐시 서비스 클래스<br>
@@ -46,5 +47,48 @@ public class CacheService {
 	public static <T> Cache<T> create(Loader<T> loader) throws Exception {
 		return create(loader, 10 * 60 * 1000);
 	}
+	
+	/**
+	 * 최대 개수가 제한된 캐시 객체 생성<br>
+	 * 최대 개수를 넘을 경우 W-TinyLFU 정책에 따라 데이터를 제거함
+	 * 
+	 * @param loader 캐시 데이터 공급 객체
+	 * @param retainTime 캐시 보유기간, 단위: millisecond
+	 * @param cleanUpPeriod 캐시 정리 주기
+	 * @param maximumSize 최대 개수
+	 * @return 캐시 객체
+	 */
+	public static <T> Cache<T> create(Loader<T> loader, long retainTime, String cleanUpPeriod, long maximumSize) throws Exception {
+		
+		if(maximumSize < 1) {
+			throw new IllegalArgumentException("maximum size must be greater than 0:" + maximumSize);
+		}
+		
+		return new Cache<>(loader, retainTime, cleanUpPeriod, maximumSize, null);
+	}
+	
+	/**
+	 * 최대 무게가 제한된 캐시 객체 생성<br>
+	 * 최대 무게를 넘을 경우 W-TinyLFU 정책에 따라 데이터를 제거함
+	 * 
+	 * @param loader 캐시 데이터 공급 객체
+	 * @param retainTime 캐시 보유기간, 단위: millisecond
+	 * @param cleanUpPeriod 캐시 정리 주기
+	 * @param maximumWeight 최대 무게
+	 * @param weigher 데이터 무게 계산 객체
+	 * @return 캐시 객체
+	 */
+	public static <T> Cache<T> create(Loader<T> loader, long retainTime, String cleanUpPeriod, long maximumWeight, Weigher<? super T> weigher) throws Exception {
+		
+		if(maximumWeight < 1) {
+			throw new IllegalArgumentException("maximum weight must be greater than 0:" + maximumWeight);
+		}
+		
+		if(weigher == null) {
+			throw new NullPointerException("weigher is null.");
+		}
+		
+		return new Cache<>(loader, retainTime, cleanUpPeriod, maximumWeight, weigher);
+	}
 
 }
@@ -1,37 +1,119 @@
 package com.jutools;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
- * 크론잡 수행 클래스
+ * 크론잡 수행 클래스<br>
+ * -> 크론잡은 스케줄러(CronScheduler)의 타이머 스레드에서 관리되며, 잡은 스케줄러의 스레드 pool 에서 수행됨<br>
+ * -> 이전 수행이 끝나지 않았을 때의 처리(OverlapPolicy)와
+ *    수행 시간보다 늦게 수행될 때의 처리(MisfirePolicy)를 설정할 수 있음<br>
+ * -> 잡에서 발생한 예외는 실패 횟수로 기록되고 오류 처리 객체(setErrorHandler)에 전달됨,
+ *    오류 처리 객체가 없을 경우 수행 스레드의 uncaught exception handler 에 전달됨
  * 
  * @author jmsohn
  */
 public class CronJob {
 	
+	/**
+	 * 이전 수행이 끝나지 않았을 때 수행 시간이 된 경우의 처리 방식
+	 * 
+	 * @author jmsohn
+	 */
+	public static enum OverlapPolicy {
+		
+		/** 수행하지 않음 */
+		SKIP,
+		
+		/** 이전 수행이 끝난 후 한번 수행함 - 대기 중인 수행이 있을 경우 합쳐짐 */
+		QUEUE,
+		
+		/** 동시에 수행함 */
+		CONCURRENT
+	}
+	
+	/**
+	 * 수행 시간보다 지연 허용 시간 이상 늦게 수행될 경우의 처리 방식<br>
+	 * 지연되어 지나간 여러 수행 시간은 하나로 합쳐짐
+	 * 
+	 * @author jmsohn
+	 */
+	public static enum MisfirePolicy {
+		
+		/** 바로 한번 수행함 */
+		FIRE_NOW,
+		
+		/** 수행하지 않고 다음 수행 시간을 기다림 */
+		SKIP
+	}
+	
 	/** 크론 시간 표현식 */
 	private CronExp cronExp;
 	/** 수행할 잡 */
 	private Runnable job;
 	
-	/** 크론 쓰레드 객체 */
-	private Thread cronThread;
-	/** 잡 쓰레드 객체 */
-	private Thread jobThread;
+	/** 크론잡 스케줄러 */
+	@Getter
+	private CronScheduler scheduler = CronScheduler.getDefault();
+	
+	/** 이전 수행이 끝나지 않았을 때의 처리 방식 */
+	@Getter
+	private volatile OverlapPolicy overlapPolicy = OverlapPolicy.CONCURRENT;
+	
+	/** 늦게 수행될 때의 처리 방식 */
+	@Getter
+	private volatile MisfirePolicy misfirePolicy = MisfirePolicy.FIRE_NOW;
+	
+	/** 수행 통계 */
+	@Getter
+	private Metrics metrics = new Metrics();
+	
+	/** 잡에서 발생한 예외의 처리 객체 - null 일 경우 수행 스레드의 uncaught exception handler 를 사용함 */
+	@Getter
+	private volatile Thread.UncaughtExceptionHandler errorHandler;
+	
+	/** 수행 중인 잡 개수 - 이 객체로 동기화함 */
+	private int running = 0;
+	
+	/** 이전 수행이 끝난 후 수행할 잡이 있는지 여부 - OverlapPolicy.QUEUE 일 경우 사용 */
+	private boolean pending = false;
+	
+	/** 대기 중인 수행의 기준 시간 */
+	private long pendingBaseTime;
+	
+	/** 잡을 수행 중인 스레드 목록 - 중지 시 인터럽트하기 위함 */
+	private Set<Thread> runningThreads = new HashSet<>();
+	
+	/** 실행 차수 - 실행 시 마다 증가하며, 중지 후 다시 실행된 경우 이전 실행의 등록을 구분하기 위함 */
+	@Getter(AccessLevel.PACKAGE)
+	private volatile long generation = 0;
 	
 	/** 현재 기준 실행 시간 */
 	@Getter
-	private long currentBaseTime = -1;
+	private volatile long currentBaseTime = -1;
 	/** 다음 작업 시간: 중지되어 있을 경우 -1 */
 	@Getter
-	private long nextTime;
+	@Setter(AccessLevel.PACKAGE)
+	private volatile long nextTime;
 	
 	/** 크론잡 중단 여부 */
 	@Getter
@@ -50,66 +132,299 @@ public class CronJob {
 	}
 	
 	/**
-	 * cron job 수행
+	 * cron job 수행<br>
+	 * 이미 수행 중인 경우 무시함
+	 */
+	public synchronized void run() {
+		
+		if(this.stop == false) {
+			return;
+		}
+		
+		// 중단 상태 변경 후 스케줄러에 등록
+		this.stop = false;
+		this.generation++;
+		
+		try {
+			this.nextTime = this.scheduler.schedule(this);
+		} catch(RuntimeException ex) {
+			this.stop = true;
+			throw ex;
+		}
+	}
+	
+	/**
+	 * 주어진 스케줄러로 cron job 수행
+	 * 
+	 * @param scheduler 크론잡 스케줄러
 	 */
-	public void run() {
+	public void run(CronScheduler scheduler) {
+		
+		this.setScheduler(scheduler);
+		this.run();
+	}
+
+	/**
+	 * 현재 작업 중지, 예약도 중지됨 
+	 */
+	public synchronized void stop() {
+		
+		this.nextTime = -1;
+		this.stop = true;
+		
+		this.scheduler.cancel(this);
 		
-		this.cronThread = new Thread(new Runnable() {
+		// 수행 중인 잡 인터럽트
+		synchronized(this.runningThreads) {
+			for(Thread thread: this.runningThreads) {
+				thread.interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * 크론잡 스케줄러 설정<br>
+	 * 수행 중인 경우 중지 후 설정하고 다시 수행함
+	 * 
+	 * @param scheduler 크론잡 스케줄러
+	 */
+	public synchronized void setScheduler(CronScheduler scheduler) {
+		
+		if(scheduler == null) {
+			throw new NullPointerException("scheduler is null.");
+		}
+		
+		if(this.scheduler == scheduler) {
+			return;
+		}
+		
+		boolean isRunning = (this.stop == false);
+		if(isRunning == true) {
+			this.stop();
+		}
+		
+		this.scheduler = scheduler;
+		
+		if(isRunning == true) {
+			this.run();
+		}
+	}
+	
+	/**
+	 * 이전 수행이 끝나지 않았을 때의 처리 방식 설정
+	 * 
+	 * @param overlapPolicy 처리 방식
+	 */
+	public void setOverlapPolicy(OverlapPolicy overlapPolicy) {
+		
+		if(overlapPolicy == null) {
+			throw new NullPointerException("overlap policy is null.");
+		}
+		
+		this.overlapPolicy = overlapPolicy;
+	}
+	
+	/**
+	 * 잡에서 발생한 예외의 처리 객체 설정
+	 * 
+	 * @param errorHandler 예외 처리 객체 - null 일 경우 수행 스레드의 uncaught exception handler 를 사용함
+	 */
+	public void setErrorHandler(Thread.UncaughtExceptionHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+	
+	/**
+	 * 늦게 수행될 때의 처리 방식 설정
+	 * 
+	 * @param misfirePolicy 처리 방식
+	 */
+	public void setMisfirePolicy(MisfirePolicy misfirePolicy) {
+		
+		if(misfirePolicy == null) {
+			throw new NullPointerException("misfire policy is null.");
+		}
+		
+		this.misfirePolicy = misfirePolicy;
+	}
+	
+	/**
+	 * 수행 시간이 되었을 때 스케줄러의 타이머 스레드에서 호출됨<br>
+	 * 처리 방식에 따라 스케줄러의 스레드 pool 에 잡 수행을 요청함
+	 * 
+	 * @param scheduler 크론잡 스케줄러
+	 * @param baseTime 수행 시간
+	 * @param misfire 지연 허용 시간 이상 늦게 수행되는지 여부
+	 */
+	void fire(CronScheduler scheduler, long baseTime, boolean misfire) {
+		
+		// 늦게 수행되는 경우 처리
+		if(misfire == true) {
+			
+			this.metrics.misfireCount.incrementAndGet();
+			
+			if(this.misfirePolicy == MisfirePolicy.SKIP) {
+				return;
+			}
+		}
+		
+		// 이전 수행이 끝나지 않은 경우 처리
+		synchronized(this) {
 			
-			@Override
-			public void run() {
+			if(this.stop == true) {
+				return;
+			}
+			
+			if(this.running > 0) {
 				
-				while(stop == false && Thread.currentThread().isInterrupted() == false) {
+				if(this.overlapPolicy == OverlapPolicy.SKIP) {
 					
-					try {
-						
-						// 다음 수행 시간까지 대기
-						nextTime = cronExp.getNextTimeInMillis();
-						Thread.sleep(nextTime - System.currentTimeMillis());
-						
-						// 최근 시간을 설정
-						currentBaseTime = nextTime;
-						
-						// 잡 수행
-						jobThread = new Thread(job);
-						jobThread.start();
-						
-					} catch(InterruptedException iex) {
-						
-						// 인터럽트 발생시 종료 처리
-						stop = true;
-						Thread.currentThread().interrupt();
+					this.metrics.skipCount.incrementAndGet();
+					return;
+					
+				} else if(this.overlapPolicy == OverlapPolicy.QUEUE) {
+					
+					// 이미 대기 중인 수행이 있으면 합쳐짐
+					if(this.pending == true) {
+						this.metrics.skipCount.incrementAndGet();
 					}
+					
+					this.pending = true;
+					this.pendingBaseTime = baseTime;
+					
+					return;
 				}
 			}
-		});
+			
+			this.running++;
+		}
 		
-		// 다음 시작 시간을 미리 설정함,
-		// thread 가 완전히 시작되기 전에 nextTime을 가져가는 경우 nextTime 이 0이 되는 것을 방지하기 위함
-		this.nextTime = cronExp.getNextTimeInMillis();
-		this.cronThread.start();
+		// 잡 수행 요청
+		this.submit(scheduler, baseTime);
+	}
+	
+	/**
+	 * 스케줄러의 스레드 pool 에 잡 수행 요청<br>
+	 * 스레드 pool 의 대기 큐가 가득 차서 거부된 경우 수행하지 않은 것으로 기록함
+	 * 
+	 * @param scheduler 크론잡 스케줄러
+	 * @param baseTime 수행 시간
+	 */
+	private void submit(CronScheduler scheduler, long baseTime) {
 		
-		// 중단 상태 변경
-		this.stop = false;
+		try {
+			
+			scheduler.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					execute(scheduler, baseTime);
+				}
+			});
+			
+		} catch(RuntimeException ex) {
+			
+			// 스케줄러 종료 또는 대기 큐 초과로 수행 요청이 거부된 경우
+			synchronized(this) {
+				this.pending = false;
+				this.running--;
+			}
+			
+			if(ex instanceof RejectedExecutionException && scheduler.isShutdown() == false) {
+				this.metrics.skipCount.incrementAndGet();
+				return;
+			}
+			
+			throw ex;
+		}
 	}
-
+	
 	/**
-	 * 현재 작업 중지, 예약도 중지됨 
+	 * 잡 수행 및 수행 통계 기록<br>
+	 * 수행 후 대기 중인 수행이 있을 경우 이어서 수행을 요청함
+	 * 
+	 * @param scheduler 크론잡 스케줄러
+	 * @param baseTime 수행 시간
 	 */
-	public void stop() {
+	private void execute(CronScheduler scheduler, long baseTime) {
 		
-		this.nextTime = -1;
-		this.stop = true;
+		Thread current = Thread.currentThread();
 		
-		if(this.jobThread != null) {
-			this.jobThread.interrupt();
+		synchronized(this.runningThreads) {
+			this.runningThreads.add(current);
 		}
 		
-		if(this.cronThread != null) {
-			this.cronThread.interrupt();
+		this.currentBaseTime = baseTime;
+		long start = System.nanoTime();
+		
+		try {
+			
+			this.job.run();
+			
+		} catch(Throwable ex) {
+			
+			this.metrics.failureCount.incrementAndGet();
+			this.handleError(current, ex);
+			
+		} finally {
+			
+			this.metrics.record(System.nanoTime() - start);
+			
+			// 수행 스레드 목록에서 삭제 후, 스레드 pool 에서 재사용되므로 인터럽트 상태 초기화
+			synchronized(this.runningThreads) {
+				this.runningThreads.remove(current);
+				Thread.interrupted();
+			}
+			
+			// 대기 중인 수행 확인
+			long nextBaseTime = -1;
+			
+			synchronized(this) {
+				
+				if(this.pending == true && this.stop == false) {
+					nextBaseTime = this.pendingBaseTime;
+				} else {
+					this.running--;
+				}
+				
+				this.pending = false;
+			}
+			
+			if(nextBaseTime >= 0) {
+				this.submit(scheduler, nextBaseTime);
+			}
 		}
 	}
 	
+	/**
+	 * 잡에서 발생한 예외를 오류 처리 객체에 전달<br>
+	 * 오류 처리 객체가 없을 경우 수행 스레드의 uncaught exception handler(기본: default handler 또는 stderr 출력)에 전달함
+	 * 
+	 * @param current 잡 수행 스레드
+	 * @param ex 발생한 예외
+	 */
+	private void handleError(Thread current, Throwable ex) {
+		
+		Thread.UncaughtExceptionHandler handler = this.errorHandler;
+		if(handler == null) {
+			handler = current.getUncaughtExceptionHandler();
+		}
+		
+		try {
+			handler.uncaughtException(current, ex);
+		} catch(Throwable handlerEx) {
+			// 다음 수행에 영향을 주지 않도록 무시함
+		}
+	}
+	
+	/**
+	 * 설정된 크론 시간 표현식 객체 반환
+	 * 
+	 * @return 크론 시간 표현식 객체
+	 */
+	CronExp getCronExpObj() {
+		return this.cronExp;
+	}
+	
 	/**
 	 * 크론 시간 표현식 설정
 	 * 
@@ -159,6 +474,116 @@ public class CronJob {
 		return builder.toString();
 	}
 	
+	/**
+	 * 크론잡 수행 통계
+	 * 
+	 * @author jmsohn
+	 */
+	public static class Metrics {
+		
+		/** 수행 횟수 */
+		private AtomicLong runCount = new AtomicLong(0);
+		
+		/** 실패(예외 발생) 횟수 */
+		private AtomicLong failureCount = new AtomicLong(0);
+		
+		/** 이전 수행이 끝나지 않았거나 스레드 pool 의 대기 큐가 가득 차서 수행하지 않은 횟수 */
+		private AtomicLong skipCount = new AtomicLong(0);
+		
+		/** 늦게 수행된 횟수 */
+		private AtomicLong misfireCount = new AtomicLong(0);
+		
+		/** 전체 수행 시간(ns) */
+		private AtomicLong totalRunTime = new AtomicLong(0);
+		
+		/** 최대 수행 시간(ns) */
+		private AtomicLong maxRunTime = new AtomicLong(0);
+		
+		/** 마지막 수행 시간(ns) */
+		private AtomicLong lastRunTime = new AtomicLong(0);
+		
+		/**
+		 * 수행 기록
+		 * 
+		 * @param runTime 수행 시간(ns)
+		 */
+		private void record(long runTime) {
+			
+			this.runCount.incrementAndGet();
+			this.totalRunTime.addAndGet(runTime);
+			this.maxRunTime.accumulateAndGet(runTime, Math::max);
+			this.lastRunTime.set(runTime);
+		}
+		
+		/**
+		 * @return 수행 횟수
+		 */
+		public long getRunCount() {
+			return this.runCount.get();
+		}
+		
+		/**
+		 * @return 실패(예외 발생) 횟수
+		 */
+		public long getFailureCount() {
+			return this.failureCount.get();
+		}
+		
+		/**
+		 * @return 이전 수행이 끝나지 않았거나 스레드 pool 의 대기 큐가 가득 차서 수행하지 않은 횟수
+		 */
+		public long getSkipCount() {
+			return this.skipCount.get();
+		}
+		
+		/**
+		 * @return 늦게 수행된 횟수
+		 */
+		public long getMisfireCount() {
+			return this.misfireCount.get();
+		}
+		
+		/**
+		 * @return 전체 수행 시간(ns)
+		 */
+		public long getTotalRunTime() {
+			return this.totalRunTime.get();
+		}
+		
+		/**
+		 * @return 최대 수행 시간(ns)
+		 */
+		public long getMaxRunTime() {
+			return this.maxRunTime.get();
+		}
+		
+		/**
+		 * @return 마지막 수행 시간(ns)
+		 */
+		public long getLastRunTime() {
+			return this.lastRunTime.get();
+		}
+		
+		/**
+		 * @return 평균 수행 시간(ns), 수행 기록이 없을 경우 0
+		 */
+		public double getAverageRunTime() {
+			
+			long runCount = this.runCount.get();
+			return (runCount == 0)?0.0:(double)this.totalRunTime.get() / runCount;
+		}
+		
+		@Override
+		public String toString() {
+			return "Metrics[runCount=" + this.getRunCount()
+				+ ", failureCount=" + this.getFailureCount()
+				+ ", skipCount=" + this.getSkipCount()
+				+ ", misfireCount=" + this.getMisfireCount()
+				+ ", averageRunTime=" + this.getAverageRunTime()
+				+ ", maxRunTime=" + this.getMaxRunTime() + "]";
+		}
+	}
+	
 	/**
 	 * 크론 표현식 클래스<br>
 	 * Linux의 크론잡 표현과 동일함</br>
@@ -220,8 +645,7 @@ public class CronJob {
 				protected int[] makeTimeListByExpType(String exp, CronTimeUnit unit) throws Exception {
 					
 					// 문자열 내에 시간(숫자)을 찾아 목록에 추가 
-					Pattern fixedTimeP = Pattern.compile("[0-9]+");
-					Matcher fixedTimeM = fixedTimeP.matcher(exp);
+					Matcher fixedTimeM = FIXED_TIME_PATTERN.matcher(exp);
 					
 					ArrayList<Integer> timeList = new ArrayList<>();
 					while(fixedTimeM.find() == true) {
@@ -245,8 +669,7 @@ public class CronJob {
 				protected int[] makeTimeListByExpType(String exp, CronTimeUnit unit) throws Exception {
 					
 					// 범위의 최대값, 최소값을 추출
-					Pattern rangeP = Pattern.compile("(?<lower>[0-9]+)\\-(?<upper>[0-9]+)");
-					Matcher rangeM = rangeP.matcher(exp);
+					Matcher rangeM = RANGE_PATTERN.matcher(exp);
 					
 					if(rangeM.matches() == false) {
 						throw new Exception("invalid cron expression:" + exp);
@@ -281,8 +704,7 @@ public class CronJob {
 				protected int[] makeTimeListByExpType(String exp, CronTimeUnit unit) throws Exception {
 					
 					// 반복 주기(divider)를 문자열 내에서 찾음
-					Pattern repeatP = Pattern.compile("\\*(\\/(?<divider>[0-9]+))?");
-					Matcher repeatM = repeatP.matcher(exp);
+					Matcher repeatM = REPEAT_PATTERN.matcher(exp);
 					
 					if(repeatM.matches() == false) {
 						throw new Exception("invalid cron expression:" + exp);
@@ -373,20 +795,35 @@ public class CronJob {
 			}
 		}
 		
-		/** 크론 표현의 정규 표현식 문자열 */
-		private static String cronExpPStr;
+		/** 크론 표현의 정규 표현식 패턴 - 클래스 로딩시 한번만 컴파일함 */
+		private static final Pattern CRON_EXP_PATTERN;
+		
+		/** 고정된 시간 형태의 시간(숫자) 패턴 */
+		private static final Pattern FIXED_TIME_PATTERN = Pattern.compile("[0-9]+");
+		
+		/** 시간 범위 형태 패턴 */
+		private static final Pattern RANGE_PATTERN = Pattern.compile("(?<lower>[0-9]+)\\-(?<upper>[0-9]+)");
+		
+		/** 반복 형태 패턴 */
+		private static final Pattern REPEAT_PATTERN = Pattern.compile("\\*(\\/(?<divider>[0-9]+))?");
+		
+		/** 요일 계산용 월별 보정값(Sakamoto 방법) */
+		private static final int[] DAY_OF_WEEK_OFFSETS = {0, 3, 2, 5, 0, 3, 5, 1, 4, 6, 2, 4};
+		
+		/** 다음/이전 실행 시간 검색 최대 년수 - 실행 시간이 없는 표현식(ex. 2월 30일)의 무한 반복 방지 */
+		private static final int MAX_SEARCH_YEARS = 400;
 		
 		static {
 			
-			// 클래스 로딩시 크론 표현의 정규 표현식 문자열을 만듦
+			// 클래스 로딩시 크론 표현의 정규 표현식을 만듦
 			String timePStr = "[0-9]+(\\,[0-9]+)*|[0-9]+\\-[0-9]+|\\*(\\/[0-9]+)?";
-			CronExp.cronExpPStr = 
+			CRON_EXP_PATTERN = Pattern.compile(
 					"^((?<second>" + timePStr + ") )?"
 					+ "(?<min>" + timePStr + ") "
 					+ "(?<hour>" + timePStr + ") "
 					+ "(?<day>" + timePStr + ") "
 					+ "(?<month>" + timePStr + ") "
-					+ "(?<dayOfWeek>" + timePStr + ")$";
+					+ "(?<dayOfWeek>" + timePStr + ")$");
 		}
 		
 		/** 크론 시간 표현 원본 */
@@ -405,6 +842,19 @@ public class CronJob {
 		/** 요일 목록 : 0-7, 0과 7은 일요일, 1은 월요일, 6은 토요일 */
 		private int[] daysOfWeek;
 		
+		/** 초 bitmask - n 번째 bit 가 1 이면 n 초에 실행 */
+		private long secondMask;
+		/** 분 bitmask */
+		private long minMask;
+		/** 시간 bitmask */
+		private long hourMask;
+		/** 날짜 bitmask(1 ~ 31) */
+		private long dayMask;
+		/** 월 bitmask(1 ~ 12) */
+		private long monthMask;
+		/** 요일 bitmask(0-일요일 ~ 6-토요일), 7(일요일)은 0 으로 설정함 */
+		private long dayOfWeekMask;
+		
 		/**
 		 * 크론 표현식 객체 생성 메소드
 		 * 
@@ -422,10 +872,13 @@ public class CronJob {
 		 */
 		private CronExp(String cronExp) throws Exception {
 			
+			if(cronExp == null) {
+				throw new NullPointerException("cron expression is null.");
+			}
+			
 			this.cronExp = cronExp;
 			
-			Pattern cronExpP = Pattern.compile(CronExp.cronExpPStr);
-			Matcher cronExpM = cronExpP.matcher(cronExp);
+			Matcher cronExpM = CRON_EXP_PATTERN.matcher(cronExp);
 			
 			if(cronExpM.matches() == false) {
 				throw new Exception("invalid cron expression: " + cronExp);
@@ -443,6 +896,18 @@ public class CronJob {
 			this.days = TimeExpType.makeTimeList(cronExpM.group("day"), CronTimeUnit.DAY);
 			this.months = TimeExpType.makeTimeList(cronExpM.group("month"), CronTimeUnit.MONTH);
 			this.daysOfWeek = TimeExpType.makeTimeList(cronExpM.group("dayOfWeek"), CronTimeUnit.WEEK);
+			
+			// 시간 목록을 bitmask 로 변환
+			this.secondMask = toMask(this.seconds);
+			this.minMask = toMask(this.mins);
+			this.hourMask = toMask(this.hours);
+			this.dayMask = toMask(this.days);
+			this.monthMask = toMask(this.months);
+			this.dayOfWeekMask = toMask(this.daysOfWeek);
+			
+			if((this.dayOfWeekMask & (1L << 7)) != 0) {
+				this.dayOfWeekMask = (this.dayOfWeekMask & ~(1L << 7)) | 1L;
+			}
 		}
 		
 		/**
@@ -459,258 +924,454 @@ public class CronJob {
 		 * 기준 시간(baseTime)에서 가장 가까운 다음 실행 시간 반환
 		 * 
 		 * @param baseTime 기준 시간(단위: ms)
-		 * @return 가장 가까운 다음 실행 시간(단위: ms)
+		 * @return 가장 가까운 다음 실행 시간(단위: ms), 없을 경우 -1
 		 */
 		public long getNextTimeInMillis(long baseTime) {
-			
-			Calendar cal = new GregorianCalendar();
-			cal.setTimeInMillis(baseTime);
-			
-			return getNextTimeInMillis(cal);
+			return this.search(baseTime, ZoneId.systemDefault(), true);
 		}
 		
 		/**
 		 * 기준 시간(baseTime)에서 가장 가까운 다음 실행 시간 반환
 		 * 
 		 * @param baseTime 기준 시간
-		 * @return 가장 가까운 다음 실행 시간(단위: ms)
+		 * @return 가장 가까운 다음 실행 시간(단위: ms), 없을 경우 -1
 		 */
 		public long getNextTimeInMillis(Calendar baseTime) {
+			return this.search(baseTime.getTimeInMillis(), baseTime.getTimeZone().toZoneId(), true);
+		}
+		
+		/**
+		 * 기준 시간(baseTime)에서 가장 가까운 이전 실행 시간 반환
+		 * 
+		 * @param baseTime 기준 시간(단위: ms)
+		 * @return 가장 가까운 이전 실행 시간(단위: ms), 없을 경우 -1
+		 */
+		public long getPrevTimeInMillis(long baseTime) {
+			return this.search(baseTime, ZoneId.systemDefault(), false);
+		}
+		
+		/**
+		 * 기준 시간(baseTime) 이후의 가장 가까운 다음 실행 시간 반환
+		 * 
+		 * @param baseTime 기준 시간
+		 * @return 가장 가까운 다음 실행 시간, 없을 경우 null
+		 */
+		public ZonedDateTime getNextTime(ZonedDateTime baseTime) {
 			
-			// 시간 단위 별(초/분/시/일/월/년도, 요일 대신 년도) 현재 시간을 가져옴
-			int second = baseTime.get(Calendar.SECOND);
-			int min = baseTime.get(Calendar.MINUTE);
-			int hour = baseTime.get(Calendar.HOUR_OF_DAY);
-			int day = baseTime.get(Calendar.DAY_OF_MONTH);
-			int month = baseTime.get(Calendar.MONTH) + 1;
-			int year = baseTime.get(Calendar.YEAR);
+			if(baseTime == null) {
+				throw new NullPointerException("base time is null.");
+			}
 			
-			// 초의 다음 시간을 가져옴
-			NextTime secNext = this.getNextTime(second, true, this.seconds);
-			second = secNext.getTime();
+			long nextTime = this.search(baseTime.toInstant().toEpochMilli(), baseTime.getZone(), true);
+			return (nextTime < 0)?null:ZonedDateTime.ofInstant(Instant.ofEpochMilli(nextTime), baseTime.getZone());
+		}
+		
+		/**
+		 * 기준 시간(baseTime) 이전의 가장 가까운 이전 실행 시간 반환
+		 * 
+		 * @param baseTime 기준 시간
+		 * @return 가장 가까운 이전 실행 시간, 없을 경우 null
+		 */
+		public ZonedDateTime getPrevTime(ZonedDateTime baseTime) {
 			
-			// 분의 다음 시간을 가져옴
-			NextTime minNext = this.getNextTime(min, secNext.isRolled(), this.mins);
+			if(baseTime == null) {
+				throw new NullPointerException("base time is null.");
+			}
 			
-			// 분이 변경되면 초는 목록의 첫번째 분으로 설정
-			if(min != minNext.getTime()) {
-				
-				min = minNext.getTime();
-				second = this.seconds[0];
+			long prevTime = this.search(baseTime.toInstant().toEpochMilli(), baseTime.getZone(), false);
+			return (prevTime < 0)?null:ZonedDateTime.ofInstant(Instant.ofEpochMilli(prevTime), baseTime.getZone());
+		}
+		
+		/**
+		 * 기준 시간(from) 이후의 실행 시간 n 개 반환
+		 * 
+		 * @param from 기준 시간(단위: ms)
+		 * @param n 개수
+		 * @return 실행 시간 목록(단위: ms) - 실행 시간이 n 개가 안될 경우 있는 만큼만 반환함
+		 */
+		public long[] nextN(long from, int n) {
+			
+			if(n < 0) {
+				throw new IllegalArgumentException("n must be greater than or equal to 0:" + n);
 			}
 			
-			// 시의 다음 시간을 가져옴
-			NextTime hourNext = this.getNextTime(hour, minNext.isRolled(), this.hours);
+			ZoneId zone = ZoneId.systemDefault();
 			
-			// 시가 변경되면 분/초는 목록의 첫번째 분으로 설정
-			if(hour != hourNext.getTime()) {
-				
-				hour = hourNext.getTime();
-				min = this.mins[0];
-				second = this.seconds[0];
+			long[] times = new long[n];
+			int count = 0;
+			
+			long time = from;
+			while(count < n && (time = this.search(time, zone, true)) >= 0) {
+				times[count++] = time;
+			}
+			
+			return (count == n)?times:Arrays.copyOf(times, count);
+		}
+		
+		/**
+		 * 기준 시간(from) 이후의 실행 시간 n 개 반환
+		 * 
+		 * @param from 기준 시간
+		 * @param n 개수
+		 * @return 실행 시간 목록 - 실행 시간이 n 개가 안될 경우 있는 만큼만 반환함
+		 */
+		public List<ZonedDateTime> nextN(ZonedDateTime from, int n) {
+			
+			if(from == null) {
+				throw new NullPointerException("from is null.");
 			}
 			
-			// 날짜 및 월의 다음 시간을 가져옴
-			NextTime dayNext = null;
-			NextTime monthNext = null;
+			if(n < 0) {
+				throw new IllegalArgumentException("n must be greater than or equal to 0:" + n);
+			}
 			
-			// 다음 날짜가 존재하지 않는 날짜이면, 존재하는 날짜가 나올때 까지 while 문 반복
-			// ex) 2023.02.30이면 다시 다음 날짜를 가져와 검사
-			//
-			// 또한, 다음 날짜가 설정된 요일 목록에 없는 경우에도 다음 날짜를 다시 가져오도록 함 
-			boolean isHourRolled = hourNext.isRolled();
-			while(true) {
-				
-				dayNext = this.getNextTime(day, isHourRolled, this.days);
+			List<ZonedDateTime> times = new ArrayList<>(n);
+			
+			long time = from.toInstant().toEpochMilli();
+			while(times.size() < n && (time = this.search(time, from.getZone(), true)) >= 0) {
+				times.add(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), from.getZone()));
+			}
+			
+			return times;
+		}
+		
+		/**
+		 * from(포함) 부터 to(미포함) 사이의 실행 시간 목록 반환
+		 * 
+		 * @param from 시작 시간(단위: ms)
+		 * @param to 끝 시간(단위: ms)
+		 * @return 실행 시간 목록(단위: ms)
+		 */
+		public long[] firesBetween(long from, long to) {
+			
+			ZoneId zone = ZoneId.systemDefault();
+			
+			long[] times = new long[16];
+			int count = 0;
+			
+			long time = from - 1;
+			while((time = this.search(time, zone, true)) >= 0 && time < to) {
 				
-				// 일이 변경되면 시,분은 목록의 첫번째 시,분으로 설정
-				if(day != dayNext.getTime()) {
-					
-					day = dayNext.getTime();
-					hour = this.hours[0];
-					min = this.mins[0];
-					second = this.seconds[0];
+				if(count == times.length) {
+					times = Arrays.copyOf(times, count * 2);
 				}
 				
-				monthNext = this.getNextTime(month, dayNext.isRolled(), this.months);
-				
-				// 월이 변경되면 일,시,분은 목록의 첫번째 일,시,분으로 설정
-				if(month != monthNext.getTime()) {
-					
-					month = monthNext.getTime();
-					day = this.days[0];
-					hour = this.hours[0];
-					min = this.mins[0];
-					second = this.seconds[0];
-				}
+				times[count++] = time;
+			}
+			
+			return Arrays.copyOf(times, count);
+		}
+		
+		/**
+		 * from(포함) 부터 to(미포함) 사이의 실행 시간 목록 반환
+		 * 
+		 * @param from 시작 시간
+		 * @param to 끝 시간
+		 * @return 실행 시간 목록
+		 */
+		public List<ZonedDateTime> firesBetween(ZonedDateTime from, ZonedDateTime to) {
+			
+			if(from == null) {
+				throw new NullPointerException("from is null.");
+			}
+			
+			if(to == null) {
+				throw new NullPointerException("to is null.");
+			}
+			
+			List<ZonedDateTime> times = new ArrayList<>();
+			
+			long toTime = to.toInstant().toEpochMilli();
+			long time = from.toInstant().toEpochMilli() - 1;
+			
+			while((time = this.search(time, from.getZone(), true)) >= 0 && time < toTime) {
+				times.add(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), from.getZone()));
+			}
+			
+			return times;
+		}
+		
+		/**
+		 * 기준 시간의 다음 또는 이전 실행 시간 검색<br>
+		 * 기준 시간을 지역 시간으로 변환 후, 월 -> 일 -> 시 -> 분 -> 초 순으로 bitmask 에서 다음(이전) 값을 찾음<br>
+		 * 단위 별로 값이 없으면 상위 단위를 하나 올리고(내리고) 하위 단위를 처음(마지막)으로 설정하여 다시 찾음
+		 * 
+		 * @param baseTime 기준 시간(단위: ms)
+		 * @param zone 시간대
+		 * @param forward true 일 경우 다음 실행 시간, false 일 경우 이전 실행 시간
+		 * @return 실행 시간(단위: ms), 없을 경우 -1
+		 */
+		private long search(long baseTime, ZoneId zone, boolean forward) {
+			
+			// 기준 시간을 지역 시간으로 변환
+			LocalDateTime base = LocalDateTime.ofInstant(Instant.ofEpochMilli(baseTime), zone);
+			
+			int year = base.getYear();
+			int month = base.getMonthValue();
+			int day = base.getDayOfMonth();
+			int hour = base.getHour();
+			int min = base.getMinute();
+			int second = base.getSecond();
+			
+			// 다음 실행 시간은 다음 초부터, 이전 실행 시간은 ms 가 0 이면 이전 초부터 검색
+			if(forward == true) {
+				second++;
+			} else if(Math.floorMod(baseTime, 1000L) == 0) {
+				second--;
+			}
+			
+			int startYear = year;
+			
+			while(Math.abs(year - startYear) <= MAX_SEARCH_YEARS) {
 				
-				// 월이 한바퀴 돌아(roll) 월 목록의 처음으로 이동하면
-				// 년도를 하나 올림
-				if(monthNext.isRolled() == true) {
+				if(forward == true) {
+					
+					// 초/분/시가 범위를 넘은 경우 상위 단위로 올림
+					if(second > 59) { second = 0; min++; }
+					if(min > 59) { min = 0; hour++; }
+					if(hour > 23) { hour = 0; day++; }
+					if(month > 12) { month = 1; year++; day = 1; }
+					
+					// 월
+					int nextMonth = nextBit(this.monthMask, month);
+					if(nextMonth < 0) {
+						year++; month = 1; day = 1; hour = 0; min = 0; second = 0;
+						continue;
+					}
+					
+					if(nextMonth != month) {
+						month = nextMonth; day = 1; hour = 0; min = 0; second = 0;
+					}
+					
+					// 일 - 날짜와 요일이 모두 맞는 날짜
+					int nextDay = this.nextDay(year, month, day);
+					if(nextDay < 0) {
+						month++; day = 1; hour = 0; min = 0; second = 0;
+						continue;
+					}
+					
+					if(nextDay != day) {
+						day = nextDay; hour = 0; min = 0; second = 0;
+					}
+					
+					// 시
+					int nextHour = nextBit(this.hourMask, hour);
+					if(nextHour < 0) {
+						day++; hour = 0; min = 0; second = 0;
+						continue;
+					}
+					
+					if(nextHour != hour) {
+						hour = nextHour; min = 0; second = 0;
+					}
+					
+					// 분
+					int nextMin = nextBit(this.minMask, min);
+					if(nextMin < 0) {
+						hour++; min = 0; second = 0;
+						continue;
+					}
+					
+					if(nextMin != min) {
+						min = nextMin; second = 0;
+					}
+					
+					// 초
+					int nextSecond = nextBit(this.secondMask, second);
+					if(nextSecond < 0) {
+						min++; second = 0;
+						continue;
+					}
+					
+					second = nextSecond;
+					
+				} else {
+					
+					// 초/분/시가 범위를 넘은 경우 상위 단위로 내림
+					if(second < 0) { second = 59; min--; }
+					if(min < 0) { min = 59; hour--; }
+					if(hour < 0) { hour = 23; day--; }
+					if(month < 1) { month = 12; year--; day = 31; }
+					
+					// 월
+					int prevMonth = prevBit(this.monthMask, month);
+					if(prevMonth < 0) {
+						year--; month = 12; day = 31; hour = 23; min = 59; second = 59;
+						continue;
+					}
+					
+					if(prevMonth != month) {
+						month = prevMonth; day = 31; hour = 23; min = 59; second = 59;
+					}
+					
+					// 일 - 날짜와 요일이 모두 맞는 날짜
+					int prevDay = this.prevDay(year, month, day);
+					if(prevDay < 0) {
+						month--; day = 31; hour = 23; min = 59; second = 59;
+						continue;
+					}
 					
-					year++;
+					if(prevDay != day) {
+						day = prevDay; hour = 23; min = 59; second = 59;
+					}
+					
+					// 시
+					int prevHour = prevBit(this.hourMask, hour);
+					if(prevHour < 0) {
+						day--; hour = 23; min = 59; second = 59;
+						continue;
+					}
+					
+					if(prevHour != hour) {
+						hour = prevHour; min = 59; second = 59;
+					}
+					
+					// 분
+					int prevMin = prevBit(this.minMask, min);
+					if(prevMin < 0) {
+						hour--; min = 59; second = 59;
+						continue;
+					}
 					
-					month = this.months[0];
-					day = this.days[0];
-					hour = this.hours[0];
-					min = this.mins[0];
-					second = this.seconds[0];
+					if(prevMin != min) {
+						min = prevMin; second = 59;
+					}
+					
+					// 초
+					int prevSecond = prevBit(this.secondMask, second);
+					if(prevSecond < 0) {
+						min--; second = 59;
+						continue;
+					}
+					
+					second = prevSecond;
 				}
 				
-				// 다음 날짜가 존재하는 날짜이고 요일 목록에 있는 날짜이면 중단
-				if(DateUtil.isValidDate(year, month, day) == true && isValidDayOfWeek(year, month, day) == true) {
-					break;
-				} else {
-					// 다음 날짜로 이동
-					isHourRolled = true;
+				// 찾은 지역 시간을 ms 로 변환
+				// 일광 절약 시간(DST) 전환으로 기준 시간을 넘지 못한 경우 다음(이전) 초부터 다시 검색
+				long time = LocalDateTime.of(year, month, day, hour, min, second).atZone(zone).toInstant().toEpochMilli();
+				
+				if(forward == true && time > baseTime) {
+					return time;
+				} else if(forward == false && time < baseTime) {
+					return time;
 				}
+				
+				second += (forward == true)?1:-1;
 			}
 			
-			// 다음 날짜를 설정하고 long 값으로 반환
-			Calendar nextTime = new GregorianCalendar();
+			return -1;
+		}
+		
+		/**
+		 * 주어진 날짜 이후(포함) 날짜와 요일이 모두 맞는 가장 가까운 날짜 반환
+		 * 
+		 * @param year 년도
+		 * @param month 월(1~12)
+		 * @param day 시작 날짜 - 월의 마지막 날짜보다 클 수 있음
+		 * @return 날짜, 해당 월에 없을 경우 -1
+		 */
+		private int nextDay(int year, int month, int day) {
+			
+			int lastDay = Month.of(month).length(Year.isLeap(year));
 			
-			nextTime.set(Calendar.YEAR, year);
-			nextTime.set(Calendar.MONTH, month-1);
-			nextTime.set(Calendar.DAY_OF_MONTH, day);
-			nextTime.set(Calendar.HOUR_OF_DAY, hour);
-			nextTime.set(Calendar.MINUTE, min);
-			nextTime.set(Calendar.SECOND, second);
-			nextTime.set(Calendar.MILLISECOND, 0);
+			for(int candidate = nextBit(this.dayMask, day); candidate > 0 && candidate <= lastDay; candidate = nextBit(this.dayMask, candidate + 1)) {
+				
+				if((this.dayOfWeekMask & (1L << dayOfWeek(year, month, candidate))) != 0) {
+					return candidate;
+				}
+			}
 			
-			return nextTime.getTimeInMillis();
+			return -1;
 		}
 		
 		/**
-		 * 시간 단위 별(분/시/일/월/요일) 시간 목록 중<br>
-		 * 현재 시간(cur)가 가장 가까운 다음 시간 및 시간 목록의 처음으로 이동(roll)하였는지 여부 반환<br>
-		 * ex)<br>
-		 * 만일 timeList=[1,3,8] 이고, 현재 시간이 7 이면<br>
-		 * 가까운 다음 시간은 8이고, roll 여부는 false 임<br>
-		 * <br>
-		 * 만일 timeList=[1,3,8] 이고, 현재 시간이 9 이면<br>
-		 * 가까운 다음 시간은 1이고, roll 여부는 true 임<br>
+		 * 주어진 날짜 이전(포함) 날짜와 요일이 모두 맞는 가장 가까운 날짜 반환
 		 * 
-		 * @param cur 현재 시간 
-		 * @param isRolled 이전 시간 단위에서 roll이 있었는지 여부
-		 * @param timeList 시간 목록
-		 * @return 가장 가까운 시간과 시간 목록의 처음으로 이동(roll)하였는지 여부
+		 * @param year 년도
+		 * @param month 월(1~12)
+		 * @param day 시작 날짜 - 월의 마지막 날짜보다 클 수 있음
+		 * @return 날짜, 해당 월에 없을 경우 -1
 		 */
-		private NextTime getNextTime(int cur, boolean isRolled, int[] timeList) {
+		private int prevDay(int year, int month, int day) {
 			
-			// 시간 목록을 순회하면서, 시간 목록의 시간이 현재 시간과 같거나 큰 경우 처리함
-			for(int index = 0; index < timeList.length; index++) {
-				
-				int time = timeList[index];
+			int lastDay = Month.of(month).length(Year.isLeap(year));
+			
+			for(int candidate = prevBit(this.dayMask, Math.min(day, lastDay)); candidate > 0; candidate = prevBit(this.dayMask, candidate - 1)) {
 				
-				if(cur == time) {
-					
-					if(isRolled == true) {
-						if(index + 1 == timeList.length) {
-							
-							// 시간 목록의 시간과 현재 시간이 같고,
-							// 시간 목록에서 가장 가까운 시간이 시간 목록의 가장 마지막에 있고,
-							// 이전 시간 단위에서 roll이 있었던 경우
-							// ex)
-							// timeList=[1,3,8], cur의 시간 값이 8이고, 이전 시간에서 roll 이 true 인 경우
-							// 1, true를 반환함
-							return new NextTime(timeList[0], true);
-							
-						} else {
-							
-							// 시간 목록의 시간과 현재 시간이 같고,
-							// 시간 목록에서 가장 가까운 시간이 시간 목록의 가장 마지막이 아니고
-							// 이전 시간 단위에서 roll이 있었던 경우
-							// ex)
-							// timeList=[1,3,8], cur의 시간 값이 3이고, 이전 시간에서 roll 이 true 인 경우
-							// 8, false를 반환함
-							return new NextTime(timeList[index + 1], false);
-						}
-					} else {
-						
-						// 시간 목록의 시간과 현재 시간이 일치하면서,
-						// 이전 시간 단위에서 roll이 없었던 경우
-						// ex)
-						// timeList=[1,3,8], cur의 시간 값이 8이고, 이전 시간에서 roll 이 false 인 경우
-						// 8, false를 반환함
-						return new NextTime(timeList[index], false);
-					}
-					
-				} else if(cur < time) {
-					
-					// 시간 목록의 시간이 현재 시간보다 큰 경우
-					// ex)
-					// timeList=[1,3,8], cur의 시간 값이 6일 경우,
-					//   -> 이때는, 이전 시간 roll여부와 상관 없이, time 값(즉 timeList[index])을 설정함
-					//   -> 만일 cur 시간 값이 9일 경우, 1,3,8 중 9보다 큰값이 없기 때문에
-					//      for 문을 빠져 나가게 됨
-					// 8, false를 반환함
-					return new NextTime(timeList[index], false);
+				if((this.dayOfWeekMask & (1L << dayOfWeek(year, month, candidate))) != 0) {
+					return candidate;
 				}
 			}
 			
-			// 시간 목록의 시간이 현재 시간보다 같거나 큰 경우가 없는 경우
-			// ex)
-			// timeList=[1,3,8], cur의 시간 값이 9일 경우,
-			// 1, true를 반환함
-			return new NextTime(timeList[0], true);
+			return -1;
 		}
 		
 		/**
-		 * 다음 시간 클래스
+		 * 시간 목록을 bitmask 로 변환
 		 * 
-		 * @author jmsohn
+		 * @param timeList 시간 목록
+		 * @return bitmask
 		 */
-		@Getter
-		private class NextTime {
+		private static long toMask(int[] timeList) {
 			
-			/** 다음 시간 */
-			private int time;
-			/** roll(목록의 마지막에서 처음으로 이동) 여부 */
-			private boolean rolled;
+			long mask = 0;
+			for(int time: timeList) {
+				mask |= 1L << time;
+			}
 			
-			/**
-			 * 생성자
-			 * 
-			 * @param time 다음 시간
-			 * @param rolled roll 여부
-			 */
-			NextTime(int time, boolean rolled) {
-				this.time = time;
-				this.rolled = rolled;
+			return mask;
+		}
+		
+		/**
+		 * bitmask 에서 from 이상인 가장 작은 값 반환
+		 * 
+		 * @param mask bitmask
+		 * @param from 시작 값
+		 * @return 값, 없을 경우 -1
+		 */
+		private static int nextBit(long mask, int from) {
+			
+			if(from > 63) {
+				return -1;
 			}
+			
+			long masked = mask & (-1L << Math.max(0, from));
+			return (masked == 0)?-1:Long.numberOfTrailingZeros(masked);
 		}
 		
 		/**
-		 * 주어진 날짜가 설정된 요일 목록에 있는지 여부 반환<br>
-		 * 있으면 true, 없으면 false 
+		 * bitmask 에서 from 이하인 가장 큰 값 반환
+		 * 
+		 * @param mask bitmask
+		 * @param from 시작 값
+		 * @return 값, 없을 경우 -1
+		 */
+		private static int prevBit(long mask, int from) {
+			
+			if(from < 0) {
+				return -1;
+			}
+			
+			long masked = (from >= 63)?mask:mask & ((1L << (from + 1)) - 1);
+			return (masked == 0)?-1:63 - Long.numberOfLeadingZeros(masked);
+		}
+		
+		/**
+		 * 주어진 날짜의 요일 반환(Sakamoto 방법)
 		 * 
 		 * @param year 년도
 		 * @param month 월(1~12)
 		 * @param day 날짜
-		 * @return 요일 목록에 있는지 여부
+		 * @return 요일 - 0: 일요일 ~ 6: 토요일
 		 */
-		private boolean isValidDayOfWeek(int year, int month, int day) {
+		private static int dayOfWeek(int year, int month, int day) {
 			
-			// 주어진 날짜로 생성
-			Calendar cal = new GregorianCalendar(year, month-1, day);
-			
-			// Calendar의 요일은 1-일요일 ~ 7-토요일임
-			// cron 표현식에서는 0-일요일, 1-월요일 ~ 6-토요일, 7-일요일이기 떄문에 맞쳐주기 위해 1을 뺌
-			int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK) - 1;
-			
-			// 주어진 날짜의 요일이 대상 목록에 있는지 확인
-			for(int index = 0; index < this.daysOfWeek.length; index++) {
-				
-				if(dayOfWeek == this.daysOfWeek[index]) {
-					return true;
-				}
-				
-				if(dayOfWeek == 0 && this.daysOfWeek[index] == 7) {
-					return true;
-				}
+			if(month < 3) {
+				year--;
 			}
 			
-			return false;
+			return Math.floorMod(year + Math.floorDiv(year, 4) - Math.floorDiv(year, 100) + Math.floorDiv(year, 400) + DAY_OF_WEEK_OFFSETS[month - 1] + day, 7);
 		}
 		
 		/**
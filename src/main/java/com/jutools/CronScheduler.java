@@ -0,0 +1,393 @@
+package com.jutools;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * 크론잡 스케줄러<br>
+ * -> 여러 크론잡을 하나의 타이머 스레드에서 다음 수행 시간 순(priority queue)으로 관리하고,
+ *    수행 시간이 되면 최대 스레드 수가 제한된 스레드 pool 에서 잡을 수행함<br>
+ * -> 타이머 스레드는 등록된 크론잡이 있을 때만 동작하며, pool 의 스레드는 일정 시간 사용하지 않으면 종료됨<br>
+ * -> 스레드 pool 의 대기 큐는 크기가 제한되며, 대기 큐가 가득 차서 거부된 수행은 크론잡의 skipCount 로 기록됨<br>
+ * -> 별도로 지정하지 않은 크론잡은 기본 스케줄러(getDefault)를 사용함
+ * 
+ * @author jmsohn
+ */
+public class CronScheduler {
+	
+	/** pool 스레드의 유휴 유지 시간(ms) */
+	private static final long KEEP_ALIVE_TIME = 60 * 1000;
+	
+	/** 기본 지연 허용 시간(ms) - 수행 시간보다 이 시간 이상 늦게 수행될 경우 misfire 로 처리함 */
+	public static final long DEFAULT_MISFIRE_THRESHOLD = 1000;
+	
+	/** 기본 대기 큐 크기 - 스레드 pool 이 모두 사용 중일 때 수행을 기다릴 수 있는 잡 개수 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	
+	/** 기본 스케줄러 */
+	private static CronScheduler defaultScheduler;
+	
+	/** 스케줄러 일련 번호 - 스레드 명에 사용 */
+	private static final AtomicInteger SCHEDULER_SEQ = new AtomicInteger(0);
+	
+	/** 스케줄러 명 */
+	@Getter
+	private String name;
+	
+	/** 다음 수행 시간 순으로 정렬된 크론잡 목록 - 이 객체로 동기화함 */
+	private PriorityQueue<Entry> queue = new PriorityQueue<>();
+	
+	/** 등록 순서 번호 - 수행 시간이 같을 경우 등록 순서로 수행하기 위함 */
+	private long seq = 0;
+	
+	/** 타이머 스레드 - 등록된 크론잡이 없으면 종료되고, 등록 시 다시 생성됨 */
+	private Thread timerThread;
+	
+	/** 잡 수행 스레드 pool */
+	private ThreadPoolExecutor executor;
+	
+	/** 지연 허용 시간(ms) */
+	@Getter
+	private volatile long misfireThreshold = DEFAULT_MISFIRE_THRESHOLD;
+	
+	/** 종료 여부 */
+	@Getter
+	private volatile boolean shutdown = false;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param maxWorkers 잡 수행 최대 스레드 수
+	 */
+	public CronScheduler(int maxWorkers) {
+		this(maxWorkers, DEFAULT_QUEUE_CAPACITY);
+	}
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param maxWorkers 잡 수행 최대 스레드 수
+	 * @param queueCapacity 수행을 기다릴 수 있는 최대 잡 개수
+	 */
+	public CronScheduler(int maxWorkers, int queueCapacity) {
+		
+		if(maxWorkers < 1) {
+			throw new IllegalArgumentException("max workers must be greater than 0:" + maxWorkers);
+		}
+		
+		if(queueCapacity < 1) {
+			throw new IllegalArgumentException("queue capacity must be greater than 0:" + queueCapacity);
+		}
+		
+		this.name = "cron-scheduler-" + SCHEDULER_SEQ.incrementAndGet();
+		
+		AtomicInteger workerSeq = new AtomicInteger(0);
+		
+		this.executor = new ThreadPoolExecutor(
+			maxWorkers, maxWorkers,
+			KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<>(queueCapacity),
+			new ThreadFactory() {
+				
+				@Override
+				public Thread newThread(Runnable runnable) {
+					return new Thread(runnable, name + "-worker-" + workerSeq.incrementAndGet());
+				}
+			}
+		);
+		
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * 기본 스케줄러 반환<br>
+	 * 잡 수행 최대 스레드 수는 CPU 수의 2배(최소 4)
+	 * 
+	 * @return 기본 스케줄러
+	 */
+	public static synchronized CronScheduler getDefault() {
+		
+		if(defaultScheduler == null) {
+			defaultScheduler = new CronScheduler(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+		}
+		
+		return defaultScheduler;
+	}
+	
+	/**
+	 * 지연 허용 시간 설정
+	 * 
+	 * @param misfireThreshold 지연 허용 시간(ms)
+	 * @return 현재 객체
+	 */
+	public CronScheduler setMisfireThreshold(long misfireThreshold) {
+		
+		if(misfireThreshold < 0) {
+			throw new IllegalArgumentException("misfire threshold must be greater than or equal to 0:" + misfireThreshold);
+		}
+		
+		this.misfireThreshold = misfireThreshold;
+		
+		return this;
+	}
+	
+	/**
+	 * 크론잡 등록<br>
+	 * 현재 시간 이후의 다음 수행 시간에 수행되도록 등록함
+	 * 
+	 * @param job 등록할 크론잡
+	 * @return 다음 수행 시간
+	 */
+	long schedule(CronJob job) {
+		
+		if(job == null) {
+			throw new NullPointerException("job is null.");
+		}
+		
+		if(this.shutdown == true) {
+			throw new IllegalStateException("scheduler is shutdown.");
+		}
+		
+		long nextTime = job.getCronExpObj().getNextTimeInMillis();
+		if(nextTime < 0) {
+			throw new IllegalArgumentException("cron expression has no next time:" + job.getCronExp());
+		}
+		
+		synchronized(this.queue) {
+			
+			this.queue.add(new Entry(job, job.getGeneration(), nextTime, this.seq++));
+			
+			// 타이머 스레드가 없을 경우 생성
+			if(this.timerThread == null) {
+				
+				this.timerThread = new Thread(this::runTimer, this.name + "-timer");
+				this.timerThread.start();
+				
+			} else {
+				this.queue.notifyAll();
+			}
+		}
+		
+		return nextTime;
+	}
+	
+	/**
+	 * 크론잡 등록 취소
+	 * 
+	 * @param job 취소할 크론잡
+	 * @return 등록되어 있었는지 여부
+	 */
+	boolean cancel(CronJob job) {
+		
+		boolean removed = false;
+		
+		synchronized(this.queue) {
+			
+			Iterator<Entry> iter = this.queue.iterator();
+			while(iter.hasNext() == true) {
+				
+				if(iter.next().job == job) {
+					iter.remove();
+					removed = true;
+				}
+			}
+			
+			this.queue.notifyAll();
+		}
+		
+		return removed;
+	}
+	
+	/**
+	 * 잡 수행 요청<br>
+	 * 대기 큐가 가득 찬 경우 RejectedExecutionException 이 발생함
+	 * 
+	 * @param runnable 수행할 잡
+	 */
+	void execute(Runnable runnable) {
+		this.executor.execute(runnable);
+	}
+	
+	/**
+	 * 등록된 크론잡 개수 반환
+	 * 
+	 * @return 등록된 크론잡 개수
+	 */
+	public int size() {
+		
+		synchronized(this.queue) {
+			return this.queue.size();
+		}
+	}
+	
+	/**
+	 * 등록된 크론잡 목록 반환
+	 * 
+	 * @return 등록된 크론잡 목록
+	 */
+	public List<CronJob> getJobs() {
+		
+		List<CronJob> jobs = new ArrayList<>();
+		
+		synchronized(this.queue) {
+			for(Entry entry: this.queue) {
+				jobs.add(entry.job);
+			}
+		}
+		
+		return jobs;
+	}
+	
+	/**
+	 * 현재 수행 중인 잡 개수 반환
+	 * 
+	 * @return 수행 중인 잡 개수
+	 */
+	public int getActiveCount() {
+		return this.executor.getActiveCount();
+	}
+	
+	/**
+	 * 스레드 pool 에서 수행을 기다리는 잡 개수 반환
+	 * 
+	 * @return 수행을 기다리는 잡 개수
+	 */
+	public int getQueuedCount() {
+		return this.executor.getQueue().size();
+	}
+	
+	/**
+	 * 스케줄러 종료<br>
+	 * 등록된 크론잡을 모두 중지하고, 수행 중인 잡은 인터럽트함
+	 */
+	public void shutdown() {
+		
+		if(this == defaultScheduler) {
+			throw new IllegalStateException("default scheduler can't be shutdown.");
+		}
+		
+		this.shutdown = true;
+		
+		for(CronJob job: this.getJobs()) {
+			job.stop();
+		}
+		
+		this.executor.shutdownNow();
+	}
+	
+	/**
+	 * 타이머 스레드 수행<br>
+	 * 가장 빠른 수행 시간까지 대기 후, 수행 시간이 된 크론잡을 수행하고 다음 수행 시간으로 다시 등록함
+	 */
+	private void runTimer() {
+		
+		while(true) {
+			
+			Entry entry = null;
+			
+			synchronized(this.queue) {
+				
+				// 등록된 크론잡이 없으면 타이머 스레드 종료
+				if(this.queue.isEmpty() == true) {
+					this.timerThread = null;
+					return;
+				}
+				
+				// 가장 빠른 수행 시간까지 대기
+				// 대기 중 등록/취소되면 다시 확인함
+				long delay = this.queue.peek().nextTime - System.currentTimeMillis();
+				if(delay > 0) {
+					
+					try {
+						this.queue.wait(delay);
+					} catch(InterruptedException iex) {
+						this.timerThread = null;
+						Thread.currentThread().interrupt();
+						return;
+					}
+					
+					continue;
+				}
+				
+				entry = this.queue.poll();
+			}
+			
+			// 크론잡 수행 및 다음 수행 시간으로 다시 등록
+			// 지연되어 지나간 수행 시간은 건너뜀
+			long curTime = System.currentTimeMillis();
+			
+			try {
+				entry.job.fire(this, entry.nextTime, curTime - entry.nextTime > this.misfireThreshold);
+			} catch(Throwable ex) {
+				// 다른 크론잡 수행에 영향을 주지 않도록 무시함
+			}
+			
+			long nextTime = entry.job.getCronExpObj().getNextTimeInMillis(Math.max(entry.nextTime, curTime));
+			
+			synchronized(this.queue) {
+				
+				// 수행 중 중지되었거나 다시 시작된 경우, 다음 수행 시간이 없는 경우 다시 등록하지 않음
+				if(nextTime >= 0 && entry.job.isStop() == false && entry.job.getGeneration() == entry.generation) {
+					
+					entry.job.setNextTime(nextTime);
+					this.queue.add(new Entry(entry.job, entry.generation, nextTime, this.seq++));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 스케줄러에 등록된 크론잡 정보
+	 * 
+	 * @author jmsohn
+	 */
+	private static class Entry implements Comparable<Entry> {
+		
+		/** 크론잡 */
+		private CronJob job;
+		
+		/** 등록 시 크론잡의 실행 차수 */
+		private long generation;
+		
+		/** 다음 수행 시간 */
+		private long nextTime;
+		
+		/** 등록 순서 번호 */
+		private long seq;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param job 크론잡
+		 * @param generation 등록 시 크론잡의 실행 차수
+		 * @param nextTime 다음 수행 시간
+		 * @param seq 등록 순서 번호
+		 */
+		private Entry(CronJob job, long generation, long nextTime, long seq) {
+			this.job = job;
+			this.generation = generation;
+			this.nextTime = nextTime;
+			this.seq = seq;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			
+			int compare = Long.compare(this.nextTime, other.nextTime);
+			if(compare != 0) {
+				return compare;
+			}
+			
+			return Long.compare(this.seq, other.seq);
+		}
+	}
+}
@@ -0,0 +1,651 @@
+package com.jutools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import com.jutools.filetracker.LineSplitReader;
+import com.jutools.filetracker.SplitReader;
+
+import lombok.Getter;
+
+/**
+ * 여러 파일의 변경사항에 대해 추적(Tracking)하는 클래스<br>
+ * -> glob 패턴(ex. /var/log/app/*.log)에 맞는 파일들을 추적하며, 새로 생성된 파일도 자동으로 추적함<br>
+ * -> 하나의 WatchService 에 디렉토리 별로 한번씩만 등록하고, 하나의 감시 스레드에서 이벤트를 받음<br>
+ * -> 변경된 파일의 읽기는 스레드 pool 에서 수행하며, 파일 별로는 순서대로 하나씩 읽음<br>
+ * -> 파일 별로 끊어읽기 reader 와 읽기 buffer 를 생성하여 사용함<br>
+ * -> 파일 읽기 및 감시 중 발생한 오류는 오류 처리 객체(setErrorHandler)로 전달함
+ * 
+ * <pre>
+ * FileTrackerGroup group = FileTrackerGroup.create()
+ *   .add("/var/log/app/*.log")
+ *   .start((path, line) -> System.out.println(path + ":" + line));
+ * ...
+ * group.stop();
+ * </pre>
+ * 
+ * @author jmsohn
+ */
+public class FileTrackerGroup {
+	
+	// config 값
+	
+	/** 파일 별 끊어읽기 reader 생성 */
+	private Callable<SplitReader> readerFactory;
+	
+	/** 파일 읽기를 수행할 스레드 pool */
+	private ExecutorService executor;
+	
+	/** 스레드 pool 을 직접 생성했는지 여부 - 중지 시 종료함 */
+	private boolean isOwnExecutor;
+	
+	/** buffer의 크기 */
+	@Getter
+	private int bufferSize = 64 * 1024;
+	
+	/** tracking polling time(ms) */
+	@Getter
+	private long pollingTime = 1000;
+	
+	/** tracking 중지 여부 */
+	@Getter
+	private volatile boolean stop = true;
+	
+	// 내부 변수
+	
+	/** 파일 변경 사항을 확인하기 위한 watchService */
+	private WatchService watchSvc;
+	
+	/** 디렉토리 별 파일명 glob 패턴 목록 */
+	private Map<Path, List<PathMatcher>> patterns = new ConcurrentHashMap<>();
+	
+	/** 추적 중인 파일 목록 */
+	private Map<Path, TrackedFile> files = new ConcurrentHashMap<>();
+	
+	/** 변경사항 처리 action */
+	private volatile BiConsumer<Path, String> action;
+	
+	/** 오류 처리 객체(오류가 발생한 파일, 오류) - 감시 중 오류인 경우 파일은 null */
+	private volatile BiConsumer<Path, Exception> errorHandler;
+	
+	/** 감시 스레드 */
+	private Thread watchThread;
+	
+	/** 감시 스레드의 오류로 추적이 중지된 경우 해당 오류 */
+	@Getter
+	private volatile Exception failure;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param readerFactory 파일 별 끊어읽기 reader 생성
+	 * @param executor 파일 읽기를 수행할 스레드 pool, null 일 경우 CPU 개수(최대 4개) 만큼의 스레드 pool 을 생성함
+	 */
+	protected FileTrackerGroup(Callable<SplitReader> readerFactory, ExecutorService executor) throws Exception {
+		
+		if(readerFactory == null) {
+			readerFactory = LineSplitReader::new;
+		}
+		
+		this.readerFactory = readerFactory;
+		
+		if(executor == null) {
+			
+			this.executor = Executors.newFixedThreadPool(Math.min(4, Runtime.getRuntime().availableProcessors()));
+			this.isOwnExecutor = true;
+			
+		} else {
+			
+			this.executor = executor;
+			this.isOwnExecutor = false;
+		}
+	}
+	
+	/**
+	 * FileTrackerGroup 생성 메소드
+	 * 
+	 * @return 생성된 FileTrackerGroup
+	 */
+	public static FileTrackerGroup create() throws Exception {
+		return new FileTrackerGroup(null, null);
+	}
+	
+	/**
+	 * FileTrackerGroup 생성 메소드
+	 * 
+	 * @param readerFactory 파일 별 끊어읽기 reader 생성
+	 * @return 생성된 FileTrackerGroup
+	 */
+	public static FileTrackerGroup create(Callable<SplitReader> readerFactory) throws Exception {
+		return new FileTrackerGroup(readerFactory, null);
+	}
+	
+	/**
+	 * FileTrackerGroup 생성 메소드<br>
+	 * Java 21 이상에서는 Executors.newVirtualThreadPerTaskExecutor() 를 사용할 수 있음
+	 * 
+	 * @param readerFactory 파일 별 끊어읽기 reader 생성
+	 * @param executor 파일 읽기를 수행할 스레드 pool - 중지 시 종료하지 않음
+	 * @return 생성된 FileTrackerGroup
+	 */
+	public static FileTrackerGroup create(Callable<SplitReader> readerFactory, ExecutorService executor) throws Exception {
+		
+		if(executor == null) {
+			throw new NullPointerException("executor is null");
+		}
+		
+		return new FileTrackerGroup(readerFactory, executor);
+	}
+	
+	/**
+	 * 추적할 파일의 glob 패턴 추가<br>
+	 * -> 패턴은 파일명 부분에만 사용할 수 있음(ex. /var/log/app/*.log)<br>
+	 * -> 이미 있는 파일은 파일의 끝부터 추적하고, 이후 생성되는 파일은 처음부터 추적함
+	 * 
+	 * @param pattern 추적할 파일의 glob 패턴
+	 * @return 현재 객체
+	 */
+	public synchronized FileTrackerGroup add(String pattern) throws Exception {
+		
+		// 입력값 검증
+		if(pattern == null) {
+			throw new NullPointerException("pattern is null");
+		}
+		
+		// 디렉토리와 파일명 패턴으로 분리
+		// 주의) 패턴에 glob 문자가 있으면 Path 로 변환할 수 없는 경우가 있어 File 로 분리함
+		File patternFile = new File(pattern).getAbsoluteFile();
+		
+		Path dir = patternFile.getParentFile().toPath();
+		if(dir.toFile().isDirectory() == false) {
+			throw new Exception("directory is not exists:" + dir.toFile().getAbsolutePath());
+		}
+		
+		PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + patternFile.getName());
+		
+		// 디렉토리를 watchService 에 등록 - 디렉토리 별로 한번만 등록함
+		if(this.watchSvc == null) {
+			this.watchSvc = dir.getFileSystem().newWatchService();
+		}
+		
+		if(this.patterns.containsKey(dir) == false) {
+			
+			dir.register(
+				this.watchSvc
+				, StandardWatchEventKinds.ENTRY_CREATE
+				, StandardWatchEventKinds.ENTRY_DELETE
+				, StandardWatchEventKinds.ENTRY_MODIFY
+			);
+			
+			this.patterns.put(dir, new CopyOnWriteArrayList<>());
+		}
+		
+		this.patterns.get(dir).add(matcher);
+		
+		// 이미 있는 파일은 파일의 끝부터 추적함
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			
+			for(Path path: stream) {
+				
+				if(Files.isRegularFile(path) == true && matcher.matches(path.getFileName()) == true) {
+					this.track(path, true);
+				}
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 추적 중인 파일 목록 반환
+	 * 
+	 * @return 추적 중인 파일 목록
+	 */
+	public List<Path> getFiles() {
+		return new ArrayList<>(this.files.keySet());
+	}
+	
+	/**
+	 * 파일의 변경사항에 대해 추적<br>
+	 * 중지(stop)할 때까지 호출한 스레드에서 이벤트를 감시함
+	 * 
+	 * @param action 변경사항을 처리할 BiConsumer 객체(파일, 읽은 데이터)
+	 */
+	public void tracking(BiConsumer<Path, String> action) throws Exception {
+		
+		this.init(action);
+		this.watch();
+	}
+	
+	/**
+	 * 파일의 변경사항에 대해 추적 시작<br>
+	 * 별도의 감시 스레드에서 이벤트를 감시함
+	 * 
+	 * @param action 변경사항을 처리할 BiConsumer 객체(파일, 읽은 데이터)
+	 * @return 현재 객체
+	 */
+	public FileTrackerGroup start(BiConsumer<Path, String> action) throws Exception {
+		
+		this.init(action);
+		
+		this.watchThread = new Thread(() -> {
+			try {
+				this.watch();
+			} catch(Exception ex) {
+				
+				this.failure = ex;
+				this.handleError(null, ex);
+			}
+		}, "FileTrackerGroup");
+		
+		this.watchThread.start();
+		
+		return this;
+	}
+	
+	/**
+	 * 추적 중지<br>
+	 * 추적 중인 파일을 닫고, 직접 생성한 스레드 pool 은 종료함
+	 */
+	public void stop() throws Exception {
+		
+		this.stop = true;
+		
+		if(this.watchThread != null) {
+			this.watchThread.join();
+		}
+		
+		if(this.isOwnExecutor == true) {
+			this.executor.shutdown();
+			this.executor.awaitTermination(this.pollingTime, TimeUnit.MILLISECONDS);
+		}
+		
+		for(TrackedFile file: this.files.values()) {
+			file.close();
+		}
+		
+		this.files.clear();
+		
+		if(this.watchSvc != null) {
+			this.watchSvc.close();
+		}
+	}
+	
+	/**
+	 * 오류 처리 객체 설정
+	 * 
+	 * @param errorHandler 오류 처리 객체(오류가 발생한 파일, 오류) - 감시 중 오류인 경우 파일은 null
+	 * @return 현재 객체
+	 */
+	public FileTrackerGroup setErrorHandler(BiConsumer<Path, Exception> errorHandler) {
+		
+		this.errorHandler = errorHandler;
+		
+		return this;
+	}
+	
+	/**
+	 * 버퍼의 크기 설정<br>
+	 * 추적 중에 설정한 경우 파일 별로 다음 읽기부터 적용됨
+	 * 
+	 * @param bufferSize 설정할 버퍼 크기
+	 * @return 현재 객체
+	 */
+	public FileTrackerGroup setBufferSize(int bufferSize) throws Exception {
+		
+		if(bufferSize <= 0) {
+			throw new Exception("buffer size is invalid:" + bufferSize);
+		}
+		
+		this.bufferSize = bufferSize;
+		
+		return this;
+	}
+	
+	/**
+	 * tracking polling time 설정
+	 * 
+	 * @param pollingTime 설정할 polling time(ms)
+	 * @return 현재 객체
+	 */
+	public FileTrackerGroup setPollingTime(long pollingTime) throws Exception {
+		
+		if(pollingTime <= 0) {
+			throw new Exception("polling time is invalid:" + pollingTime);
+		}
+		
+		this.pollingTime = pollingTime;
+		
+		return this;
+	}
+	
+	/**
+	 * 추적 시작 전 초기화
+	 * 
+	 * @param action 변경사항을 처리할 BiConsumer 객체
+	 */
+	private void init(BiConsumer<Path, String> action) throws Exception {
+		
+		if(action == null) {
+			throw new NullPointerException("action is null");
+		}
+		
+		if(this.watchSvc == null) {
+			throw new Exception("pattern is not added");
+		}
+		
+		if(this.stop == false) {
+			throw new IllegalStateException("tracking is already started");
+		}
+		
+		this.action = action;
+		this.failure = null;
+		this.stop = false;
+	}
+	
+	/**
+	 * 오류 처리 객체에 오류 전달<br>
+	 * 오류 처리 객체가 없거나 오류 처리 중 예외가 발생한 경우 무시함
+	 * 
+	 * @param path 오류가 발생한 파일 - 감시 중 오류인 경우 null
+	 * @param ex 발생한 오류
+	 */
+	private void handleError(Path path, Exception ex) {
+		
+		BiConsumer<Path, Exception> errorHandler = this.errorHandler;
+		if(errorHandler == null) {
+			return;
+		}
+		
+		try {
+			errorHandler.accept(path, ex);
+		} catch(Exception handlerEx) {
+			// 무시함
+		}
+	}
+	
+	/**
+	 * 중지할 때까지 이벤트를 감시하여 파일 읽기를 요청함
+	 */
+	private void watch() throws Exception {
+		
+		while(this.stop == false) {
+			
+			// WatchKey에 이벤트 들어올 때 까지 대기
+			WatchKey watchKey = this.watchSvc.poll(this.pollingTime, TimeUnit.MILLISECONDS);
+			
+			if(this.stop == true) {
+				break;
+			}
+			
+			if(watchKey == null) {
+				continue;
+			}
+			
+			try {
+				
+				Path dir = (Path)watchKey.watchable();
+				List<PathMatcher> matchers = this.patterns.get(dir);
+				
+				if(matchers == null) {
+					continue;
+				}
+				
+				for(WatchEvent<?> event: watchKey.pollEvents()) {
+					
+					WatchEvent.Kind<?> kind = event.kind(); // 이벤트 종류
+					
+					// 이벤트가 유실된 경우 추적 중인 파일을 모두 읽음
+					if(kind == StandardWatchEventKinds.OVERFLOW) {
+						
+						for(TrackedFile file: this.files.values()) {
+							file.signal();
+						}
+						
+						continue;
+					}
+					
+					Path name = (Path)event.context(); // 이벤트가 발생한 파일명
+					if(matches(matchers, name) == false) {
+						continue;
+					}
+					
+					Path path = dir.resolve(name);
+					
+					if(kind == StandardWatchEventKinds.ENTRY_DELETE) {
+						
+						// 삭제(또는 이름 변경)된 파일은 추적 중지
+						TrackedFile file = this.files.remove(path);
+						if(file != null) {
+							file.close();
+						}
+						
+					} else if(kind == StandardWatchEventKinds.ENTRY_CREATE) {
+						
+						// 새로 생성된 파일은 처음부터 읽음
+						TrackedFile old = this.files.remove(path);
+						if(old != null) {
+							old.close();
+						}
+						
+						this.track(path, false).signal();
+						
+					} else {
+						
+						// 변경된 파일 읽기 요청
+						TrackedFile file = this.files.get(path);
+						if(file == null) {
+							file = this.track(path, false);
+						}
+						
+						file.signal();
+					}
+				}
+				
+			} finally {
+				// 다음 이벤트를 얻기 위해 reset 수행함
+				watchKey.reset();
+			}
+		}
+	}
+	
+	/**
+	 * 파일 추적 시작
+	 * 
+	 * @param path 추적할 파일
+	 * @param fromEnd 파일의 끝부터 읽을지 여부
+	 * @return 추적 중인 파일
+	 */
+	private TrackedFile track(Path path, boolean fromEnd) throws Exception {
+		
+		TrackedFile file = new TrackedFile(path, this.readerFactory.call(), fromEnd);
+		
+		TrackedFile old = this.files.putIfAbsent(path, file);
+		return (old != null)?old:file;
+	}
+	
+	/**
+	 * 파일명이 패턴 목록 중 하나에 맞는지 여부 반환
+	 * 
+	 * @param matchers 패턴 목록
+	 * @param name 파일명
+	 * @return 패턴에 맞는지 여부
+	 */
+	private static boolean matches(List<PathMatcher> matchers, Path name) {
+		
+		for(PathMatcher matcher: matchers) {
+			if(matcher.matches(name) == true) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * 추적 중인 파일
+	 * 
+	 * @author jmsohn
+	 */
+	private class TrackedFile {
+		
+		/** 파일 경로 */
+		private Path path;
+		
+		/** 끊어읽기 reader */
+		private SplitReader reader;
+		
+		/** 다음에 읽을 위치 */
+		private long position;
+		
+		/** 읽기용 file channel - 처음 읽을 때 생성함 */
+		private FileChannel readChannel;
+		
+		/** 읽기 buffer - 처음 읽을 때 생성하며, 버퍼 크기가 변경되면 다시 생성함 */
+		private ByteBuffer readBuffer;
+		
+		/** 스레드 pool 에 읽기 작업이 요청되어 있는지 여부 */
+		private AtomicBoolean scheduled = new AtomicBoolean(false);
+		
+		/** 읽기 작업 수행 중 변경 이벤트가 있었는지 여부 */
+		private volatile boolean dirty = false;
+		
+		/** 추적 중지 여부 */
+		private volatile boolean closed = false;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param path 파일 경로
+		 * @param reader 끊어읽기 reader
+		 * @param fromEnd 파일의 끝부터 읽을지 여부
+		 */
+		private TrackedFile(Path path, SplitReader reader, boolean fromEnd) {
+			
+			this.path = path;
+			this.reader = reader;
+			this.position = (fromEnd == true)?path.toFile().length():0;
+		}
+		
+		/**
+		 * 읽기 요청 - 이미 요청되어 있으면 읽기 작업이 끝난 후 다시 읽음
+		 */
+		private void signal() {
+			
+			this.dirty = true;
+			
+			if(this.scheduled.compareAndSet(false, true) == true) {
+				executor.execute(this::drain);
+			}
+		}
+		
+		/**
+		 * 변경 이벤트가 없을 때까지 읽음
+		 */
+		private void drain() {
+			
+			while(true) {
+				
+				this.dirty = false;
+				
+				try {
+					this.read();
+				} catch(Exception ex) {
+					// 다른 파일의 추적에 영향을 주지 않도록 오류만 전달하고 다음 이벤트에 다시 읽음
+					handleError(this.path, ex);
+				}
+				
+				this.scheduled.set(false);
+				
+				// 읽는 중에 변경 이벤트가 있었으면 다시 읽음
+				if(this.dirty == false || this.scheduled.compareAndSet(false, true) == false) {
+					break;
+				}
+			}
+		}
+		
+		/**
+		 * 마지막으로 읽은 위치부터 파일의 끝까지 읽음
+		 */
+		private synchronized void read() throws Exception {
+			
+			if(this.closed == true) {
+				return;
+			}
+			
+			// 주의) InputStream이나 Reader로 읽으면 안됨 -> 파일에 Write Lock이 걸림
+			if(this.readChannel == null) {
+				this.readChannel = FileChannel.open(this.path, StandardOpenOption.READ);
+			}
+			
+			// 파일 크기가 줄어든 경우(truncate) 처음부터 읽음
+			if(this.readChannel.size() < this.position) {
+				this.position = 0;
+			}
+			
+			// 파일 별 읽기 buffer - read 는 파일 별로 동기화되므로 공유하지 않음
+			if(this.readBuffer == null || this.readBuffer.capacity() != bufferSize) {
+				this.readBuffer = ByteBuffer.allocateDirect(bufferSize);
+			}
+			
+			ByteBuffer buffer = this.readBuffer;
+			NIOBufferUtil.clear(buffer);
+			
+			int read = 0;
+			while((read = this.readChannel.read(buffer, this.position)) > 0) {
+				
+				this.position += read;
+				
+				NIOBufferUtil.flip(buffer);
+				
+				// ByteBuffer -> ByteArray
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				
+				// reader 끊어 읽기 수행
+				this.reader.read(bytes, line -> action.accept(this.path, line));
+				
+				NIOBufferUtil.clear(buffer);
+			}
+		}
+		
+		/**
+		 * 추적 중지
+		 */
+		private synchronized void close() {
+			
+			this.closed = true;
+			this.readBuffer = null;
+			
+			try {
+				if(this.readChannel != null && this.readChannel.isOpen() == true) {
+					this.readChannel.close();
+				}
+			} catch(IOException ioex) {
+				// 무시함
+			}
+		}
+	}
+}
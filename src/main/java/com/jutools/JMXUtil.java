@@ -1,8 +1,10 @@
 package com.jutools;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.List;
 
+import javax.management.MBeanServer;
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
 import javax.management.remote.JMXConnector;
@@ -123,4 +125,65 @@ public class JMXUtil {
 		ObjectName beanName = new ObjectName(objectName);
 		return returnType.cast(mbsc.getAttribute(beanName, attributeName));
 	}
+	
+	/**
+	 * 현재 VM 의 MBean 서버에 MBean 등록<br>
+	 * 같은 object 명으로 이미 등록되어 있는 경우 기존 MBean 의 등록을 취소하고 등록함
+	 * 
+	 * @param objectName object 명
+	 * @param mbean 등록할 MBean 객체
+	 */
+	public static void registerMBean(String objectName, Object mbean) throws Exception {
+		
+		// 입력값 검증
+		if(objectName == null) {
+			throw new IllegalArgumentException("objectName is null.");
+		}
+		
+		if(mbean == null) {
+			throw new IllegalArgumentException("mbean is null.");
+		}
+		
+		// MBean 등록
+		MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+		ObjectName beanName = new ObjectName(objectName);
+		
+		synchronized(mbs) {
+			
+			if(mbs.isRegistered(beanName) == true) {
+				mbs.unregisterMBean(beanName);
+			}
+			
+			mbs.registerMBean(mbean, beanName);
+		}
+	}
+	
+	/**
+	 * 현재 VM 의 MBean 서버에서 MBean 등록 취소
+	 * 
+	 * @param objectName object 명
+	 * @return 등록되어 있었는지 여부
+	 */
+	public static boolean unregisterMBean(String objectName) throws Exception {
+		
+		// 입력값 검증
+		if(objectName == null) {
+			throw new IllegalArgumentException("objectName is null.");
+		}
+		
+		// MBean 등록 취소
+		MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+		ObjectName beanName = new ObjectName(objectName);
+		
+		synchronized(mbs) {
+			
+			if(mbs.isRegistered(beanName) == false) {
+				return false;
+			}
+			
+			mbs.unregisterMBean(beanName);
+		}
+		
+		return true;
+	}
 }
@@ -1,33 +1,80 @@
 package com.jutools.cache;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+import javax.management.ObjectName;
 
 import com.jutools.CronJob;
+import com.jutools.JMXUtil;
+import com.jutools.event.TimingWheel;
 
 import lombok.Getter;
 
 /**
- * 캐시 클래스
+ * 캐시 클래스<br>
+ * -> 최대 무게(maximum weight) 설정 시, 최대 무게를 넘으면 W-TinyLFU 정책에 따라 데이터를 제거함<br>
+ *    Weigher 를 설정하지 않으면 데이터 하나의 무게는 1 이므로 최대 무게는 최대 개수가 됨<br>
+ * -> 같은 키에 대한 동시 로드는 하나의 로드만 수행하고, 나머지는 그 결과를 기다림(single-flight)<br>
+ * -> 만료 시간(최종 참조 후 보유기간, 저장 후 만료기간)은 타이밍 휠에 등록하여,
+ *    정리 job 은 만료 시간이 된 데이터만 검사함<br>
+ *    참조 시에는 타이밍 휠을 갱신하지 않고, 만료 시간이 되었을 때 실제 만료 시간을 다시 계산하여 재등록함<br>
+ * -> 갱신 기간(refreshAfterWrite) 설정 시, 저장 후 갱신 기간이 지난 데이터를 참조하면
+ *    기존 데이터를 반환하고 비동기로 다시 로드함<br>
+ * -> 히트/미스, 로드, 제거 통계를 기록하며(getStats),
+ *    이름 설정 시 JMX MBean 으로 등록됨(getObjectName)<br>
+ * -> off-heap 저장소(L2) 설정 시, 최대 무게 초과로 제거되는 데이터는 직렬화하여 off-heap 저장소로 이동하고,
+ *    off-heap 저장소의 데이터를 참조하면 다시 heap(L1)으로 이동함
  * 
  * @author jmsohn
  */
 public class Cache<T> {
 	
+	/** off-heap 저장 데이터의 헤더 크기 - 최종 참조 시간, 저장 시간 */
+	private static final int OFF_HEAP_HEADER_SIZE = 2 * Long.BYTES;
+	
 	/** 캐시 데이터 저장 객체 */
 	private Map<String, T> values = new ConcurrentHashMap<>();
 	
 	/** 캐시 저장 데이터의 최종 참조 시간 */
 	private Map<String, Long> valuesLastRefTime = new ConcurrentHashMap<>();
+	
+	/** 캐시 저장 데이터의 저장 시간 */
+	private Map<String, Long> valuesWriteTime = new ConcurrentHashMap<>();
+	
+	/** 만료 시간 타이밍 휠 */
+	private TimingWheel<String> expireWheel;
 
 	/** 데이터 공급자 */
 	private Loader<? extends T> loader;
+	
+	/** 로드 중인 키 목록 - Key: 키, Value: 로드 결과 */
+	private Map<String, CompletableFuture<T>> loadings = new ConcurrentHashMap<>();
 
 	/** 캐시 보유기간 */
 	@Getter
 	private long retainTime;
 	
+	/** 저장 후 만료기간(ms) - 0 일 경우 사용하지 않음 */
+	@Getter
+	private volatile long expireAfterWrite = 0;
+	
+	/** 저장 후 비동기 갱신기간(ms) - 0 일 경우 사용하지 않음 */
+	@Getter
+	private volatile long refreshAfterWrite = 0;
+	
 	/** 캐시 보유 기간 문자열 */
 	@Getter
 	private String cleanUpPeriod;
@@ -35,6 +82,42 @@ public class Cache<T> {
 	/** 캐시 보유 기간이 지난 데이터 정리 job */
 	private CronJob cleanUpJob;
 	
+	/** 최대 무게 - 0 일 경우 제한 없음 */
+	@Getter
+	private long maximumWeight;
+	
+	/** 데이터 무게 계산 객체 - null 일 경우 데이터 하나의 무게는 1 */
+	private Weigher<? super T> weigher;
+	
+	/** 데이터 제거 정책 - 최대 무게가 설정되지 않은 경우 null, 정책 객체로 동기화함 */
+	private TinyLfuPolicy policy;
+	
+	/** 캐시 통계 */
+	private StatsCounter stats = new StatsCounter();
+	
+	/** off-heap 저장소(L2) - null 일 경우 사용하지 않음 */
+	@Getter
+	private volatile OffHeapStore offHeapStore;
+	
+	/** off-heap 저장소 저장용 직렬화 객체 */
+	private volatile Serializer<T> serializer;
+	
+	/**
+	 * off-heap 저장소로 이동 중인 키 별 제거 순번<br>
+	 * 키 별 off-heap 저장소 변경은 이 map 의 compute 안에서 수행하여 같은 키의 변경을 순서대로 처리함
+	 */
+	private Map<String, Long> demotings = new ConcurrentHashMap<>();
+	
+	/** 제거 순번 - 정책 객체로 동기화함 */
+	private long demoteSeq = 0;
+	
+	/** off-heap 저장소 전체 삭제(clear)와 키 별 변경 간의 동기화 lock */
+	private ReentrantReadWriteLock offHeapLock = new ReentrantReadWriteLock();
+	
+	/** 캐시 명 - null 일 경우 MBean 으로 등록하지 않음 */
+	@Getter
+	private String name;
+	
 	/**
 	 * 생성자
 	 * 
@@ -43,6 +126,19 @@ public class Cache<T> {
 	 * @param cleanUpPeriod 캐시 정리 주기
 	 */
 	public Cache(Loader<? extends T> loader, long retainTime, String cleanUpPeriod) throws Exception {
+		this(loader, retainTime, cleanUpPeriod, 0, null);
+	}
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param loader 캐시 데이터 공급 객체
+	 * @param retainTime 캐시 보유기간, 단위: millisecond
+	 * @param cleanUpPeriod 캐시 정리 주기
+	 * @param maximumWeight 최대 무게, 0 일 경우 제한 없음
+	 * @param weigher 데이터 무게 계산 객체, null 일 경우 데이터 하나의 무게는 1
+	 */
+	public Cache(Loader<? extends T> loader, long retainTime, String cleanUpPeriod, long maximumWeight, Weigher<? super T> weigher) throws Exception {
 		
 		// 입력값 검증
 		if(loader == null) {
@@ -56,6 +152,18 @@ public class Cache<T> {
 		if(cleanUpPeriod == null) {
 			throw new NullPointerException("clean up period is null.");
 		}
+		
+		if(maximumWeight < 0) {
+			throw new IllegalArgumentException("maximum weight must be greater than or equal to 0:" + maximumWeight);
+		}
+		
+		// 최대 무게 및 제거 정책 설정
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		
+		if(maximumWeight > 0) {
+			this.policy = new TinyLfuPolicy(maximumWeight, (weigher == null)?maximumWeight:Math.min(maximumWeight, 65536));
+		}
 
 		// 데이터 공급자 설정
 		this.loader = loader;
@@ -66,37 +174,217 @@ public class Cache<T> {
 		// 캐시 보유 기간 문자열 설정
 		this.cleanUpPeriod = cleanUpPeriod; 
 		
+		// 만료 시간 타이밍 휠 생성 - tick 은 보유기간의 1/10(최대 1초)
+		this.expireWheel = new TimingWheel<>(Math.max(1, Math.min(1000, retainTime / 10)));
+		
 		// 캐시 보유 기간이 초과된 데이터 정리 job 설정 및 실행
 		this.cleanUpJob = new CronJob(cleanUpPeriod, new Runnable() {
 			
 			@Override
 			public void run() {
-				
-				// 캐시 보유 기간이 초과되어 삭제된 key 목록 변수
-				ArrayList<String> removedKeys = new ArrayList<>();
-				// 현재 시간
-				long curTime = System.currentTimeMillis();
-				
-				// 캐시 보유 기간이 초과된 데이터 삭제
-				valuesLastRefTime.forEach((key, refTime) -> {
-					
-					if(retainTime > curTime - refTime) {
-						removedKeys.add(key);
-						values.remove(key);
-					}
-				});
-				
-				// 삭제된 키에 대해 참조 시간에서 삭제
-				removedKeys.forEach(key -> {
-					valuesLastRefTime.remove(key);
-				});
-			} // End of run
+				cleanUp();
+			}
 		});
 		
 		this.cleanUpJob.run();
 		
 	}
 	
+	/**
+	 * 저장 후 만료기간 설정
+	 * 
+	 * @param expireAfterWrite 저장 후 만료기간(ms), 0 일 경우 사용하지 않음
+	 * @return 현재 객체
+	 */
+	public Cache<T> setExpireAfterWrite(long expireAfterWrite) {
+		
+		if(expireAfterWrite < 0) {
+			throw new IllegalArgumentException("expire after write must be greater than or equal to 0:" + expireAfterWrite);
+		}
+		
+		this.expireAfterWrite = expireAfterWrite;
+		
+		return this;
+	}
+	
+	/**
+	 * 저장 후 비동기 갱신기간 설정<br>
+	 * 갱신기간이 지난 데이터를 참조하면 기존 데이터를 반환하고, 비동기로 다시 로드함
+	 * 
+	 * @param refreshAfterWrite 저장 후 갱신기간(ms), 0 일 경우 사용하지 않음
+	 * @return 현재 객체
+	 */
+	public Cache<T> setRefreshAfterWrite(long refreshAfterWrite) {
+		
+		if(refreshAfterWrite < 0) {
+			throw new IllegalArgumentException("refresh after write must be greater than or equal to 0:" + refreshAfterWrite);
+		}
+		
+		this.refreshAfterWrite = refreshAfterWrite;
+		
+		return this;
+	}
+	
+	/**
+	 * off-heap 저장소(L2) 설정<br>
+	 * 최대 무게가 설정된 경우에만 사용되며, 최대 무게 초과로 제거되는 데이터가 저장됨
+	 * 
+	 * @param offHeapStore off-heap 저장소, null 일 경우 사용하지 않음
+	 * @param serializer 데이터 직렬화 객체
+	 * @return 현재 객체
+	 */
+	public Cache<T> setOffHeapStore(OffHeapStore offHeapStore, Serializer<T> serializer) {
+		
+		if(offHeapStore != null && serializer == null) {
+			throw new NullPointerException("serializer is null.");
+		}
+		
+		this.serializer = serializer;
+		this.offHeapStore = offHeapStore;
+		
+		return this;
+	}
+	
+	/**
+	 * 캐시 명 설정 및 MBean 등록<br>
+	 * 기존 이름으로 등록된 MBean 은 등록 취소됨
+	 * 
+	 * @param name 캐시 명, null 일 경우 MBean 등록만 취소함
+	 * @return 현재 객체
+	 */
+	public synchronized Cache<T> setName(String name) throws Exception {
+		
+		// 기존 MBean 등록 취소
+		if(this.name != null) {
+			JMXUtil.unregisterMBean(getObjectName(this.name));
+		}
+		
+		// 신규 MBean 등록
+		if(name != null) {
+			JMXUtil.registerMBean(getObjectName(name), new CacheStatsBean(this));
+		}
+		
+		this.name = name;
+		
+		return this;
+	}
+	
+	/**
+	 * 캐시 명에 해당하는 MBean object 명 반환
+	 * 
+	 * @param name 캐시 명
+	 * @return MBean object 명
+	 */
+	public static String getObjectName(String name) {
+		
+		if(name == null) {
+			throw new NullPointerException("name is null.");
+		}
+		
+		return "com.jutools.cache:type=Cache,name=" + ObjectName.quote(name);
+	}
+	
+	/**
+	 * 캐시 통계 스냅샷 반환
+	 * 
+	 * @return 캐시 통계 스냅샷
+	 */
+	public CacheStats getStats() {
+		return this.stats.snapshot(this.getWeight());
+	}
+	
+	/**
+	 * 캐시 통계 초기화
+	 */
+	public void resetStats() {
+		this.stats.reset();
+	}
+	
+	/**
+	 * 만료 시간이 된 데이터 정리<br>
+	 * 타이밍 휠에서 만료 시간이 된 키만 검사하며,
+	 * 그 사이 참조되어 만료되지 않은 키는 실제 만료 시간으로 다시 등록함
+	 */
+	void cleanUp() {
+		
+		long curTime = System.currentTimeMillis();
+		
+		for(String key: this.expireWheel.advance(curTime)) {
+			
+			// 데이터가 이미 삭제된 경우 참조/저장 시간만 삭제
+			if(this.values.containsKey(key) == false) {
+				this.valuesLastRefTime.remove(key);
+				this.valuesWriteTime.remove(key);
+				continue;
+			}
+			
+			long deadline = this.getDeadline(key);
+			
+			if(deadline < 0) {
+				continue;
+			} else if(deadline > curTime) {
+				this.expireWheel.schedule(key, deadline);
+			} else {
+				this.expire(key, curTime);
+			}
+		}
+	}
+	
+	/**
+	 * 키의 만료 시간 반환<br>
+	 * 최종 참조 시간 + 보유기간, 저장 시간 + 저장 후 만료기간 중 빠른 시간
+	 * 
+	 * @param key 키
+	 * @return 만료 시간(ms), 캐시에 없는 경우 -1
+	 */
+	private long getDeadline(String key) {
+		
+		Long refTime = this.valuesLastRefTime.get(key);
+		if(refTime == null) {
+			return -1;
+		}
+		
+		long deadline = refTime + this.retainTime;
+		
+		if(this.expireAfterWrite > 0) {
+			
+			Long writeTime = this.valuesWriteTime.get(key);
+			if(writeTime != null) {
+				deadline = Math.min(deadline, writeTime + this.expireAfterWrite);
+			}
+		}
+		
+		return deadline;
+	}
+	
+	/**
+	 * 만료된 경우 데이터 삭제
+	 * 
+	 * @param key 키
+	 * @param curTime 현재 시간
+	 * @return 만료되어 삭제되었는지 여부
+	 */
+	private boolean expire(String key, long curTime) {
+		
+		T value = this.values.get(key);
+		if(value == null) {
+			return false;
+		}
+		
+		long deadline = this.getDeadline(key);
+		if(deadline < 0 || deadline > curTime) {
+			return false;
+		}
+		
+		if(this.removeValue(key, value) == false) {
+			return false;
+		}
+		
+		this.stats.recordEviction(RemovalCause.EXPIRED);
+		
+		return true;
+	}
+	
 	/**
 	 * key에 해당하는 데이터 반환
 	 * 
@@ -110,16 +398,551 @@ public class Cache<T> {
 			return null;
 		}
 		
-		// 없을 경우, 로드해 옴
-		if(this.values.containsKey(key) == false) {
-			this.put(key, this.loader.get(key));
+		T value = this.lookup(key);
+		
+		if(value == null) {
+			
+			this.stats.recordMiss();
+			
+			// 없을 경우, 로드해 옴
+			// 최대 무게 초과로 바로 제거될 수 있으므로 로드한 값을 반환함
+			value = this.load(key);
+			
+		} else {
+			this.stats.recordHit();
+		}
+		
+		// 키의 값을 반환함
+		return value;
+	}
+	
+	/**
+	 * key에 해당하는 데이터가 캐시에 있을 경우 반환<br>
+	 * 만료된 데이터는 삭제 후 null 을 반환하고,
+	 * 갱신기간이 지난 데이터는 비동기 갱신을 요청함
+	 * 
+	 * @param key 캐시에서 가져올 key 값
+	 * @return key에 해당하는 데이터, 없을 경우 null
+	 */
+	public T getIfPresent(String key) {
+		
+		if(key == null) {
+			return null;
+		}
+		
+		T value = this.lookup(key);
+		
+		if(value == null) {
+			this.stats.recordMiss();
+		} else {
+			this.stats.recordHit();
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * key에 해당하는 데이터가 캐시에 있을 경우 반환(통계 미기록)<br>
+	 * 만료된 데이터는 삭제 후 null 을 반환하고,
+	 * 갱신기간이 지난 데이터는 비동기 갱신을 요청함
+	 * 
+	 * @param key 캐시에서 가져올 key 값
+	 * @return key에 해당하는 데이터, 없을 경우 null
+	 */
+	private T lookup(String key) {
+		
+		T value = this.values.get(key);
+		if(value == null) {
+			
+			// off-heap 저장소에 있을 경우 heap 으로 이동
+			return this.promote(key);
+		}
+		
+		// 만료된 경우 삭제
+		long curTime = System.currentTimeMillis();
+		
+		if(this.expire(key, curTime) == true) {
+			return null;
+		}
+		
+		// 최종 참조시간 및 접근 기록 업데이트
+		this.touch(key);
+		
+		// 갱신기간이 지난 경우 비동기 갱신
+		if(this.refreshAfterWrite > 0) {
+			
+			Long writeTime = this.valuesWriteTime.get(key);
+			if(writeTime != null && curTime - writeTime >= this.refreshAfterWrite) {
+				this.refresh(key);
+			}
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * off-heap 저장소의 데이터를 heap(L1)으로 이동<br>
+	 * -> 만료되었거나 역직렬화에 실패한 경우 삭제 후 null 을 반환함<br>
+	 * -> 같은 키의 더 최근 데이터가 off-heap 저장소로 이동 중인 경우 이전 데이터이므로 null 을 반환함
+	 * 
+	 * @param key 키
+	 * @return 이동된 데이터, 없을 경우 null
+	 */
+	private T promote(String key) {
+		
+		OffHeapStore offHeapStore = this.offHeapStore;
+		Serializer<T> serializer = this.serializer;
+		
+		if(offHeapStore == null) {
+			return null;
+		}
+		
+		// off-heap 저장소에서 데이터를 읽음
+		// 이동 중인 데이터가 있으면 저장소의 데이터는 이전 데이터임
+		byte[][] holder = new byte[1][];
+		
+		this.offHeapLock.readLock().lock();
+		try {
+			
+			this.demotings.compute(key, (k, seq) -> {
+				
+				if(seq == null) {
+					holder[0] = offHeapStore.get(key);
+				}
+				
+				return seq;
+			});
+			
+		} finally {
+			this.offHeapLock.readLock().unlock();
+		}
+		
+		byte[] data = holder[0];
+		if(data == null) {
+			return null;
+		}
+		
+		// 최종 참조 시간, 저장 시간을 읽어 만료 여부 확인
+		ByteBuffer header = ByteBuffer.wrap(data);
+		long refTime = header.getLong();
+		long writeTime = header.getLong();
+		
+		long curTime = System.currentTimeMillis();
+		
+		if(refTime + this.retainTime <= curTime || (this.expireAfterWrite > 0 && writeTime + this.expireAfterWrite <= curTime)) {
+			
+			if(this.removeOffHeap(offHeapStore, key, data) == true) {
+				this.stats.recordEviction(RemovalCause.EXPIRED);
+			}
+			
+			return null;
+		}
+		
+		// 역직렬화 후 heap 에 저장
+		T value = null;
+		
+		try {
+			value = serializer.deserialize(Arrays.copyOfRange(data, OFF_HEAP_HEADER_SIZE, data.length));
+		} catch(Exception ex) {
+			this.stats.recordOffHeapFailure();
+		}
+		
+		if(value == null) {
+			
+			this.removeOffHeap(offHeapStore, key, data);
+			return null;
+		}
+		
+		try {
+			
+			// 읽은 이후 새로 저장(put)되었거나, 다시 이동 중이거나, 전체 삭제(clear)된 경우
+			// 저장하지 않고 heap 의 데이터를 반환함
+			// -> 확인 및 off-heap 저장소 삭제는 heap 저장과 같은 정책 lock 안에서 수행함
+			T promoted = value;
+			BooleanSupplier claim = () -> this.values.containsKey(key) == false && this.removeOffHeap(offHeapStore, key, data) == true;
+			
+			if(this.putInternal(key, promoted, writeTime, true, claim) == false) {
+				return this.values.get(key);
+			}
+			
+			return promoted;
+			
+		} catch(Exception ex) {
+			
+			this.stats.recordOffHeapFailure();
+			return null;
+		}
+	}
+	
+	/**
+	 * off-heap 저장소의 데이터가 주어진 데이터와 같고 이동 중인 데이터가 없을 경우 삭제
+	 * 
+	 * @param offHeapStore off-heap 저장소
+	 * @param key 키
+	 * @param data 읽었던 데이터
+	 * @return 삭제 여부
+	 */
+	private boolean removeOffHeap(OffHeapStore offHeapStore, String key, byte[] data) {
+		
+		boolean[] removed = new boolean[1];
+		
+		this.offHeapLock.readLock().lock();
+		try {
+			
+			this.demotings.compute(key, (k, seq) -> {
+				
+				if(seq == null && Arrays.equals(offHeapStore.get(key), data) == true) {
+					
+					offHeapStore.remove(key);
+					removed[0] = true;
+				}
+				
+				return seq;
+			});
+			
+		} finally {
+			this.offHeapLock.readLock().unlock();
+		}
+		
+		return removed[0];
+	}
+	
+	/**
+	 * 최대 무게 초과로 제거된 데이터를 off-heap 저장소에 저장<br>
+	 * -> 직렬화에 실패한 경우 저장하지 않음<br>
+	 * -> 제거 이후 같은 키가 다시 저장되었거나(put), 더 나중에 제거되었거나, 전체 삭제(clear)된 경우 저장하지 않음
+	 * 
+	 * @param offHeapStore 제거 시점의 off-heap 저장소
+	 * @param evicted 제거된 데이터 목록
+	 */
+	private void demote(OffHeapStore offHeapStore, List<Evicted<T>> evicted) {
+		
+		Serializer<T> serializer = this.serializer;
+		
+		if(offHeapStore == null || evicted.size() == 0) {
+			return;
+		}
+		
+		for(Evicted<T> entry: evicted) {
+			
+			// 직렬화는 키 별 guard 밖에서 수행함
+			byte[] data = null;
+			
+			try {
+				
+				byte[] bytes = serializer.serialize(entry.value);
+				
+				// 최종 참조 시간, 저장 시간을 앞에 추가함
+				ByteBuffer buffer = ByteBuffer.allocate(OFF_HEAP_HEADER_SIZE + bytes.length);
+				buffer.putLong(entry.refTime).putLong(entry.writeTime).put(bytes);
+				
+				data = buffer.array();
+				
+			} catch(Exception ex) {
+				
+				this.stats.recordOffHeapFailure();
+				this.demotings.remove(entry.key, entry.seq);
+				
+				continue;
+			}
+			
+			// 제거 순번이 그대로인 경우에만 저장
+			byte[] demoted = data;
+			
+			this.offHeapLock.readLock().lock();
+			try {
+				
+				this.demotings.computeIfPresent(entry.key, (key, seq) -> {
+					
+					if(seq.longValue() != entry.seq) {
+						return seq;
+					}
+					
+					offHeapStore.put(key, demoted);
+					return null;
+				});
+				
+			} finally {
+				this.offHeapLock.readLock().unlock();
+			}
+		}
+	}
+	
+	/**
+	 * key 에 해당하는 데이터를 비동기로 다시 로드<br>
+	 * 이미 로드 중인 경우 수행하지 않으며, 로드 실패 시 기존 데이터를 유지함
+	 * 
+	 * @param key 다시 로드할 key
+	 */
+	private void refresh(String key) {
+		
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if(this.loadings.putIfAbsent(key, future) != null) {
+			return;
+		}
+		
+		ForkJoinPool.commonPool().execute(() -> {
+			
+			try {
+				
+				T value = this.loadValue(key);
+				
+				this.put(key, value);
+				future.complete(value);
+				
+			} catch(Exception ex) {
+				
+				future.completeExceptionally(ex);
+				
+			} catch(Error err) {
+				
+				// Error 가 발생한 경우에도 대기 중인 thread 가 멈추지 않도록 future 를 완료함
+				future.completeExceptionally(err);
+				throw err;
+				
+			} finally {
+				this.loadings.remove(key, future);
+			}
+		});
+	}
+	
+	/**
+	 * key 목록에 해당하는 데이터 반환<br>
+	 * 캐시에 없는 key 들은 Loader 의 getAll 을 한번 호출하여 로드함<br>
+	 * Loader 가 반환하지 않은 key 는 결과에 포함되지 않음
+	 * 
+	 * @param keys 캐시에서 가져올 key 목록
+	 * @return key 별 데이터 - key 목록의 순서를 유지함
+	 */
+	public Map<String, T> getAll(Collection<String> keys) throws Exception {
+		
+		if(keys == null) {
+			throw new NullPointerException("keys is null.");
+		}
+		
+		HashMap<String, T> found = new HashMap<>();
+		
+		// 캐시에서 검색
+		// 다른 thread 에서 로드 중인 키는 그 결과를 기다리고,
+		// 그 외의 키는 로드 중 목록에 등록 후 한번에 로드함
+		Map<String, CompletableFuture<T>> owned = new LinkedHashMap<>();
+		Map<String, CompletableFuture<T>> waiting = new LinkedHashMap<>();
+		
+		for(String key: keys) {
+			
+			if(key == null || found.containsKey(key) == true || owned.containsKey(key) == true || waiting.containsKey(key) == true) {
+				continue;
+			}
+			
+			T value = this.lookup(key);
+			if(value != null) {
+				
+				this.stats.recordHit();
+				found.put(key, value);
+				
+				continue;
+			}
+			
+			this.stats.recordMiss();
+			
+			CompletableFuture<T> future = new CompletableFuture<>();
+			CompletableFuture<T> inFlight = this.loadings.putIfAbsent(key, future);
+			
+			if(inFlight == null) {
+				owned.put(key, future);
+			} else {
+				waiting.put(key, inFlight);
+			}
+		}
+		
+		// 캐시에 없는 키 로드
+		if(owned.size() != 0) {
+			
+			try {
+				
+				Map<String, ? extends T> loaded = null;
+				long start = System.nanoTime();
+				
+				try {
+					loaded = this.loader.getAll(new ArrayList<>(owned.keySet()));
+				} catch(Throwable th) {
+					this.stats.recordLoadFailure(System.nanoTime() - start);
+					throw th;
+				}
+				
+				this.stats.recordLoadSuccess(System.nanoTime() - start);
+				
+				for(Map.Entry<String, CompletableFuture<T>> entry: owned.entrySet()) {
+					
+					String key = entry.getKey();
+					T value = (loaded == null)?null:loaded.get(key);
+					
+					if(value != null) {
+						
+						this.put(key, value);
+						found.put(key, value);
+						
+						entry.getValue().complete(value);
+						
+					} else {
+						entry.getValue().completeExceptionally(new NullPointerException("value is null.(key:" + key + ")"));
+					}
+				}
+				
+			} catch(Throwable th) {
+				
+				// Error 가 발생한 경우에도 대기 중인 thread 가 멈추지 않도록 future 를 완료함
+				for(CompletableFuture<T> future: owned.values()) {
+					future.completeExceptionally(th);
+				}
+				
+				throw th;
+				
+			} finally {
+				
+				for(Map.Entry<String, CompletableFuture<T>> entry: owned.entrySet()) {
+					this.loadings.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		
+		// 다른 thread 에서 로드 중인 키의 결과 대기
+		for(Map.Entry<String, CompletableFuture<T>> entry: waiting.entrySet()) {
+			found.put(entry.getKey(), await(entry.getValue()));
 		}
 		
+		// key 목록의 순서대로 결과 생성
+		Map<String, T> result = new LinkedHashMap<>();
+		for(String key: keys) {
+			if(key != null && found.containsKey(key) == true) {
+				result.put(key, found.get(key));
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * key 에 해당하는 데이터 로드 후 캐시에 저장<br>
+	 * 같은 key 를 다른 thread 에서 로드 중일 경우 그 결과를 기다림
+	 * 
+	 * @param key 로드할 key
+	 * @return 로드된 데이터
+	 */
+	private T load(String key) throws Exception {
+		
+		// 로드 중 목록에 등록
+		// 이미 로드 중일 경우 결과를 기다림
+		CompletableFuture<T> future = new CompletableFuture<>();
+		CompletableFuture<T> inFlight = this.loadings.putIfAbsent(key, future);
+		
+		if(inFlight != null) {
+			return await(inFlight);
+		}
+		
+		try {
+			
+			// 등록 전에 다른 thread 의 로드가 끝났을 수 있으므로 다시 확인
+			T value = this.lookup(key);
+			
+			if(value == null) {
+				value = this.loadValue(key);
+				this.put(key, value);
+			}
+			
+			future.complete(value);
+			
+			return value;
+			
+		} catch(Throwable th) {
+			
+			// Error 가 발생한 경우에도 대기 중인 thread 가 멈추지 않도록 future 를 완료함
+			future.completeExceptionally(th);
+			throw th;
+			
+		} finally {
+			this.loadings.remove(key, future);
+		}
+	}
+	
+	/**
+	 * 데이터 공급자에서 key 에 해당하는 데이터 로드 및 로드 통계 기록<br>
+	 * null 을 반환한 경우 로드 실패로 처리함
+	 * 
+	 * @param key 로드할 key
+	 * @return 로드된 데이터
+	 */
+	private T loadValue(String key) throws Exception {
+		
+		long start = System.nanoTime();
+		
+		try {
+			
+			T value = this.loader.get(key);
+			if(value == null) {
+				throw new NullPointerException("value is null.(key:" + key + ")");
+			}
+			
+			this.stats.recordLoadSuccess(System.nanoTime() - start);
+			
+			return value;
+			
+		} catch(Throwable th) {
+			
+			this.stats.recordLoadFailure(System.nanoTime() - start);
+			throw th;
+		}
+	}
+	
+	/**
+	 * 다른 thread 의 로드 결과 대기<br>
+	 * 로드 중 발생한 Exception, Error 는 그대로 다시 던짐
+	 * 
+	 * @param future 로드 결과
+	 * @return 로드된 데이터
+	 */
+	private static <T> T await(CompletableFuture<T> future) throws Exception {
+		
+		try {
+			
+			return future.get();
+			
+		} catch(ExecutionException exex) {
+			
+			Throwable cause = exex.getCause();
+			if(cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+			
+			if(cause instanceof Error) {
+				throw (Error)cause;
+			}
+			
+			throw exex;
+		}
+	}
+	
+	/**
+	 * 최종 참조시간 및 제거 정책의 접근 기록 업데이트
+	 * 
+	 * @param key 참조된 key
+	 */
+	private void touch(String key) {
+		
 		// 최종 참조시간 업데이트
-		this.valuesLastRefTime.put(key, System.currentTimeMillis());
+		// 동시 삭제로 참조시간이 없었을 경우 만료 시간을 다시 등록함
+		if(this.valuesLastRefTime.put(key, System.currentTimeMillis()) == null) {
+			this.expireWheel.schedule(key, this.getDeadline(key));
+		}
 		
-		// 키의 값을 반환함
-		return this.values.get(key);
+		// 제거 정책에 접근 기록
+		if(this.policy != null) {
+			synchronized(this.policy) {
+				if(this.values.containsKey(key) == true) {
+					this.policy.onAccess(key);
+				}
+			}
+		}
 	}
 	
 	/**
@@ -140,13 +963,178 @@ public class Cache<T> {
 			throw new NullPointerException("value is null.(key:" + key + ")");
 		}
 		
-		// 데이터 저장
-		this.values.put(key, value);
-		this.valuesLastRefTime.put(key, System.currentTimeMillis());
+		// off-heap 저장소의 이전 데이터 및 이동 중인 데이터 삭제
+		// -> heap 저장과 같은 정책 lock 안에서 삭제하여,
+		//    그 사이 제거된 이전 데이터가 off-heap 저장소로 이동하지 않도록 함
+		OffHeapStore offHeapStore = this.offHeapStore;
+		
+		this.putInternal(key, value, System.currentTimeMillis(), false, () -> {
+			
+			if(offHeapStore != null) {
+				
+				this.offHeapLock.readLock().lock();
+				try {
+					
+					this.demotings.compute(key, (k, seq) -> {
+						
+						offHeapStore.remove(key);
+						return null;
+					});
+					
+				} finally {
+					this.offHeapLock.readLock().unlock();
+				}
+			}
+			
+			return true;
+		});
 		
 		return this;
 	}
 	
+	/**
+	 * 캐시에 데이터 저장 및 최대 무게를 넘는 데이터 제거
+	 * 
+	 * @param key 캐시에 들어갈 key
+	 * @param value key에 해당되는 데이터
+	 * @param writeTime 저장 시간
+	 * @param onlyIfAbsent 데이터가 없는 경우에만 저장할지 여부
+	 * @param precondition 저장 전에 정책 lock 안에서 수행할 작업 - false 를 반환하면 저장하지 않음
+	 * @return 저장 여부
+	 */
+	private boolean putInternal(String key, T value, long writeTime, boolean onlyIfAbsent, BooleanSupplier precondition) throws Exception {
+		
+		// 최대 무게가 없는 경우 데이터 저장
+		// 최대 무게 초과 제거가 없으므로 off-heap 저장소로 이동하는 데이터도 없음
+		if(this.policy == null) {
+			
+			if(precondition.getAsBoolean() == false) {
+				return false;
+			}
+			
+			return this.store(key, value, writeTime, onlyIfAbsent);
+		}
+		
+		// 최대 무게가 있는 경우 데이터 저장 후 최대 무게를 넘는 데이터 제거
+		long weight = (this.weigher == null)?1:this.weigher.weigh(key, value);
+		
+		OffHeapStore offHeapStore = this.offHeapStore;
+		List<Evicted<T>> evicted = new ArrayList<>();
+		
+		synchronized(this.policy) {
+			
+			if(precondition.getAsBoolean() == false || this.store(key, value, writeTime, onlyIfAbsent) == false) {
+				return false;
+			}
+			
+			List<String> evictedKeys = this.policy.onPut(key, weight);
+			for(String evictedKey: evictedKeys) {
+				
+				T evictedValue = this.values.remove(evictedKey);
+				
+				if(evictedValue != null) {
+					
+					this.stats.recordEviction(RemovalCause.SIZE);
+					
+					Long refTime = this.valuesLastRefTime.get(evictedKey);
+					Long evictedWriteTime = this.valuesWriteTime.get(evictedKey);
+					
+					// off-heap 저장소로 이동할 데이터는 제거 순번을 등록함
+					if(offHeapStore != null && refTime != null && evictedWriteTime != null) {
+						
+						long seq = ++this.demoteSeq;
+						this.demotings.put(evictedKey, seq);
+						
+						evicted.add(new Evicted<>(evictedKey, evictedValue, refTime, evictedWriteTime, seq));
+					}
+				}
+				
+				this.discardTimes(evictedKey);
+			}
+		}
+		
+		// 제거된 데이터는 lock 밖에서 off-heap 저장소로 이동
+		this.demote(offHeapStore, evicted);
+		
+		return true;
+	}
+	
+	/**
+	 * 데이터 저장 및 만료 시간 등록
+	 * 
+	 * @param key 키
+	 * @param value 데이터
+	 * @param writeTime 저장 시간
+	 * @param onlyIfAbsent 데이터가 없는 경우에만 저장할지 여부
+	 * @return 저장 여부
+	 */
+	private boolean store(String key, T value, long writeTime, boolean onlyIfAbsent) {
+		
+		if(onlyIfAbsent == true) {
+			
+			if(this.values.putIfAbsent(key, value) != null) {
+				return false;
+			}
+			
+		} else {
+			this.values.put(key, value);
+		}
+		
+		this.valuesLastRefTime.put(key, System.currentTimeMillis());
+		this.valuesWriteTime.put(key, writeTime);
+		
+		this.expireWheel.schedule(key, this.getDeadline(key));
+		
+		return true;
+	}
+	
+	/**
+	 * 키의 참조/저장 시간 및 만료 시간 등록 삭제
+	 * 
+	 * @param key 키
+	 */
+	private void discardTimes(String key) {
+		
+		this.valuesLastRefTime.remove(key);
+		this.valuesWriteTime.remove(key);
+		
+		this.expireWheel.cancel(key);
+	}
+	
+	/**
+	 * 캐시 데이터 삭제(제거 정책 포함)<br>
+	 * 현재 데이터가 주어진 데이터와 같을 경우에만 삭제함
+	 * 
+	 * @param key 삭제할 key
+	 * @param value 삭제할 데이터
+	 * @return 삭제 여부
+	 */
+	private boolean removeValue(String key, T value) {
+		
+		if(this.policy == null) {
+			
+			if(this.values.remove(key, value) == false) {
+				return false;
+			}
+			
+			this.discardTimes(key);
+			
+			return true;
+		}
+		
+		synchronized(this.policy) {
+			
+			if(this.values.remove(key, value) == false) {
+				return false;
+			}
+			
+			this.discardTimes(key);
+			this.policy.onRemove(key);
+			
+			return true;
+		}
+	}
+	
 	/**
 	 * map 데이터를 설정
 	 * 
@@ -172,16 +1160,124 @@ public class Cache<T> {
 	 * 캐시의 모든 데이터 삭제
 	 */
 	public void clear() throws Exception {
+		
+		// heap 및 off-heap 저장소 데이터 삭제
+		// 삭제 중에 off-heap 저장소의 데이터가 heap 으로 이동(promote)하지 않도록 정책 lock 안에서 함께 삭제함
+		if(this.policy == null) {
+			
+			this.clearValues();
+			this.clearOffHeap();
+			
+		} else {
+			
+			synchronized(this.policy) {
+				this.clearValues();
+				this.policy.clear();
+				this.clearOffHeap();
+			}
+		}
+	}
+	
+	/**
+	 * off-heap 저장소 데이터 삭제<br>
+	 * heap 데이터 삭제 전에 제거되어 이동 중인 데이터도 저장되지 않도록 제거 순번을 모두 삭제함
+	 */
+	private void clearOffHeap() {
+		
+		this.offHeapLock.writeLock().lock();
+		try {
+			
+			this.demotings.clear();
+			
+			OffHeapStore offHeapStore = this.offHeapStore;
+			if(offHeapStore != null) {
+				offHeapStore.clear();
+			}
+			
+		} finally {
+			this.offHeapLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * 데이터 및 참조/저장 시간, 만료 시간 등록 모두 삭제
+	 */
+	private void clearValues() {
+		
 		this.values.clear();
 		this.valuesLastRefTime.clear();
+		this.valuesWriteTime.clear();
+		
+		this.expireWheel.clear();
 	}
 	
 	/**
-	 * 캐시의 크기 반환
+	 * 캐시의 크기 반환<br>
+	 * 만료 시간이 된 데이터를 정리한 후 반환함
 	 * 
 	 * @return 캐시 크기
 	 */
 	public int size() {
+		
+		this.cleanUp();
+		
 		return this.values.size();
 	}
+	
+	/**
+	 * 캐시 데이터의 전체 무게 반환<br>
+	 * 최대 무게가 설정되지 않은 경우 캐시 크기를 반환함
+	 * 
+	 * @return 전체 무게
+	 */
+	public long getWeight() {
+		
+		if(this.policy == null) {
+			return this.values.size();
+		}
+		
+		synchronized(this.policy) {
+			return this.policy.weight();
+		}
+	}
+	
+	/**
+	 * 최대 무게 초과로 제거된 데이터
+	 * 
+	 * @author jmsohn
+	 */
+	private static class Evicted<T> {
+		
+		/** 키 */
+		private String key;
+		
+		/** 데이터 */
+		private T value;
+		
+		/** 최종 참조 시간 */
+		private long refTime;
+		
+		/** 저장 시간 */
+		private long writeTime;
+		
+		/** 제거 순번 */
+		private long seq;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param key 키
+		 * @param value 데이터
+		 * @param refTime 최종 참조 시간
+		 * @param writeTime 저장 시간
+		 * @param seq 제거 순번
+		 */
+		private Evicted(String key, T value, long refTime, long writeTime, long seq) {
+			this.key = key;
+			this.value = value;
+			this.refTime = refTime;
+			this.writeTime = writeTime;
+			this.seq = seq;
+		}
+	}
 }
@@ -0,0 +1,80 @@
+package com.jutools.cache;
+
+/**
+ * 캐시 통계 JMX 인터페이스<br>
+ * -> 이름이 설정된 캐시는 "com.jutools.cache:type=Cache,name=\"캐시명\"" 으로 등록됨
+ * 
+ * @author jmsohn
+ */
+public interface CacheMXBean {
+	
+	/**
+	 * @return 캐시 크기
+	 */
+	public int getSize();
+	
+	/**
+	 * @return 전체 무게(추정값)
+	 */
+	public long getWeight();
+	
+	/**
+	 * @return 최대 무게, 0 일 경우 제한 없음
+	 */
+	public long getMaximumWeight();
+	
+	/**
+	 * @return 캐시 히트 횟수
+	 */
+	public long getHitCount();
+	
+	/**
+	 * @return 캐시 미스 횟수
+	 */
+	public long getMissCount();
+	
+	/**
+	 * @return 히트율(0.0 ~ 1.0)
+	 */
+	public double getHitRate();
+	
+	/**
+	 * @return 로드 성공 횟수
+	 */
+	public long getLoadSuccessCount();
+	
+	/**
+	 * @return 로드 실패 횟수
+	 */
+	public long getLoadFailureCount();
+	
+	/**
+	 * @return 전체 로드 시간(ns)
+	 */
+	public long getTotalLoadTime();
+	
+	/**
+	 * @return 평균 로드 시간(ns)
+	 */
+	public double getAverageLoadPenalty();
+	
+	/**
+	 * @return 만료로 제거된 횟수
+	 */
+	public long getExpiredCount();
+	
+	/**
+	 * @return 최대 무게 초과로 제거된 횟수
+	 */
+	public long getSizeEvictionCount();
+	
+	/**
+	 * @return off-heap 저장소 직렬화/역직렬화 실패 횟수
+	 */
+	public long getOffHeapFailureCount();
+	
+	/**
+	 * 통계 초기화
+	 */
+	public void resetStats();
+}
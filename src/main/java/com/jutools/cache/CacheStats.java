@@ -0,0 +1,171 @@
+package com.jutools.cache;
+
+import lombok.Getter;
+
+/**
+ * 캐시 통계 스냅샷<br>
+ * -> 생성 시점의 값을 가지며 변경되지 않음
+ * 
+ * @author jmsohn
+ */
+public class CacheStats {
+	
+	/** 캐시 히트 횟수 */
+	@Getter
+	private long hitCount;
+	
+	/** 캐시 미스 횟수 */
+	@Getter
+	private long missCount;
+	
+	/** 로드 성공 횟수 */
+	@Getter
+	private long loadSuccessCount;
+	
+	/** 로드 실패 횟수 */
+	@Getter
+	private long loadFailureCount;
+	
+	/** 전체 로드 시간(ns) */
+	@Getter
+	private long totalLoadTime;
+	
+	/** 제거 원인 별 제거 횟수 - RemovalCause 의 ordinal 순 */
+	private long[] evictionCounts;
+	
+	/** off-heap 저장소 직렬화/역직렬화 실패 횟수 */
+	@Getter
+	private long offHeapFailureCount;
+	
+	/** 전체 무게(추정값) */
+	@Getter
+	private long weight;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param hitCount 캐시 히트 횟수
+	 * @param missCount 캐시 미스 횟수
+	 * @param loadSuccessCount 로드 성공 횟수
+	 * @param loadFailureCount 로드 실패 횟수
+	 * @param totalLoadTime 전체 로드 시간(ns)
+	 * @param evictionCounts 제거 원인 별 제거 횟수
+	 * @param offHeapFailureCount off-heap 저장소 직렬화/역직렬화 실패 횟수
+	 * @param weight 전체 무게
+	 */
+	CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTime, long[] evictionCounts, long offHeapFailureCount, long weight) {
+		
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTime = totalLoadTime;
+		this.evictionCounts = evictionCounts;
+		this.offHeapFailureCount = offHeapFailureCount;
+		this.weight = weight;
+	}
+	
+	/**
+	 * 전체 요청 횟수(히트 + 미스) 반환
+	 * 
+	 * @return 전체 요청 횟수
+	 */
+	public long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+	
+	/**
+	 * 히트율 반환<br>
+	 * 요청이 없는 경우 1.0 을 반환함
+	 * 
+	 * @return 히트율(0.0 ~ 1.0)
+	 */
+	public double getHitRate() {
+		
+		long requestCount = this.getRequestCount();
+		return (requestCount == 0)?1.0:(double)this.hitCount / requestCount;
+	}
+	
+	/**
+	 * 미스율 반환<br>
+	 * 요청이 없는 경우 0.0 을 반환함
+	 * 
+	 * @return 미스율(0.0 ~ 1.0)
+	 */
+	public double getMissRate() {
+		
+		long requestCount = this.getRequestCount();
+		return (requestCount == 0)?0.0:(double)this.missCount / requestCount;
+	}
+	
+	/**
+	 * 전체 로드 횟수(성공 + 실패) 반환
+	 * 
+	 * @return 전체 로드 횟수
+	 */
+	public long getLoadCount() {
+		return this.loadSuccessCount + this.loadFailureCount;
+	}
+	
+	/**
+	 * 평균 로드 시간(ns) 반환
+	 * 
+	 * @return 평균 로드 시간(ns), 로드가 없는 경우 0
+	 */
+	public double getAverageLoadPenalty() {
+		
+		long loadCount = this.getLoadCount();
+		return (loadCount == 0)?0.0:(double)this.totalLoadTime / loadCount;
+	}
+	
+	/**
+	 * 제거 원인 별 제거 횟수 반환
+	 * 
+	 * @param cause 제거 원인
+	 * @return 제거 횟수
+	 */
+	public long getEvictionCount(RemovalCause cause) {
+		
+		if(cause == null) {
+			throw new NullPointerException("cause is null.");
+		}
+		
+		return this.evictionCounts[cause.ordinal()];
+	}
+	
+	/**
+	 * 전체 제거 횟수 반환
+	 * 
+	 * @return 전체 제거 횟수
+	 */
+	public long getEvictionCount() {
+		
+		long count = 0;
+		for(long evictionCount: this.evictionCounts) {
+			count += evictionCount;
+		}
+		
+		return count;
+	}
+	
+	@Override
+	public String toString() {
+		
+		StringBuilder builder = new StringBuilder();
+		
+		builder.append("CacheStats[hitCount=").append(this.hitCount)
+			.append(", missCount=").append(this.missCount)
+			.append(", loadSuccessCount=").append(this.loadSuccessCount)
+			.append(", loadFailureCount=").append(this.loadFailureCount)
+			.append(", totalLoadTime=").append(this.totalLoadTime);
+		
+		for(RemovalCause cause: RemovalCause.values()) {
+			builder.append(", eviction(").append(cause).append(")=").append(this.getEvictionCount(cause));
+		}
+		
+		builder.append(", offHeapFailureCount=").append(this.offHeapFailureCount);
+		builder.append(", weight=").append(this.weight).append("]");
+		
+		return builder.toString();
+	}
+}
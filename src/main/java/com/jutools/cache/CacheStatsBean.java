@@ -0,0 +1,97 @@
+package com.jutools.cache;
+
+/**
+ * 캐시 통계 JMX 구현 클래스<br>
+ * -> 조회 시 마다 캐시의 통계 스냅샷을 새로 생성함
+ * 
+ * @author jmsohn
+ */
+class CacheStatsBean implements CacheMXBean {
+	
+	/** 대상 캐시 */
+	private Cache<?> cache;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param cache 대상 캐시
+	 */
+	CacheStatsBean(Cache<?> cache) {
+		
+		if(cache == null) {
+			throw new NullPointerException("cache is null.");
+		}
+		
+		this.cache = cache;
+	}
+
+	@Override
+	public int getSize() {
+		return this.cache.size();
+	}
+
+	@Override
+	public long getWeight() {
+		return this.cache.getWeight();
+	}
+
+	@Override
+	public long getMaximumWeight() {
+		return this.cache.getMaximumWeight();
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.cache.getStats().getHitCount();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.cache.getStats().getMissCount();
+	}
+
+	@Override
+	public double getHitRate() {
+		return this.cache.getStats().getHitRate();
+	}
+
+	@Override
+	public long getLoadSuccessCount() {
+		return this.cache.getStats().getLoadSuccessCount();
+	}
+
+	@Override
+	public long getLoadFailureCount() {
+		return this.cache.getStats().getLoadFailureCount();
+	}
+
+	@Override
+	public long getTotalLoadTime() {
+		return this.cache.getStats().getTotalLoadTime();
+	}
+
+	@Override
+	public double getAverageLoadPenalty() {
+		return this.cache.getStats().getAverageLoadPenalty();
+	}
+
+	@Override
+	public long getExpiredCount() {
+		return this.cache.getStats().getEvictionCount(RemovalCause.EXPIRED);
+	}
+
+	@Override
+	public long getSizeEvictionCount() {
+		return this.cache.getStats().getEvictionCount(RemovalCause.SIZE);
+	}
+
+	@Override
+	public long getOffHeapFailureCount() {
+		return this.cache.getStats().getOffHeapFailureCount();
+	}
+
+	@Override
+	public void resetStats() {
+		this.cache.resetStats();
+	}
+}
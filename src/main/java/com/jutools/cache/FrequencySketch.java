@@ -0,0 +1,170 @@
+package com.jutools.cache;
+
+/**
+ * 키의 최근 접근 빈도를 추정하는 Count-Min Sketch<br>
+ * -> 4 bit 카운터 16개를 long 하나에 저장하고, 키 하나 당 4개의 카운터를 사용함<br>
+ * -> 증가 횟수가 표본 크기에 도달하면 모든 카운터를 절반으로 줄여서 오래된 빈도를 잊음(aging)
+ * 
+ * @author jmsohn
+ */
+class FrequencySketch {
+	
+	/** 해시 seed */
+	private static final long[] SEED = {
+		0xc3a5c85c97cb3127L,
+		0xb492b66fbe98f273L,
+		0x9ae16a3b2f90404fL,
+		0xcbf29ce484222325L
+	};
+	
+	/** 카운터 절반 감소 시 사용하는 mask */
+	private static final long RESET_MASK = 0x7777777777777777L;
+	
+	/** 각 카운터의 최하위 bit mask */
+	private static final long ONE_MASK = 0x1111111111111111L;
+	
+	/** 카운터 테이블 */
+	private long[] table;
+	
+	/** 테이블 인덱스 mask */
+	private int tableMask;
+	
+	/** 카운터 절반 감소를 수행할 증가 횟수 */
+	private int sampleSize;
+	
+	/** 현재 증가 횟수 */
+	private int size;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param maximumSize 예상 최대 키 개수
+	 */
+	FrequencySketch(long maximumSize) {
+		
+		int capacity = (int)Math.min(Math.max(maximumSize, 16), 1 << 22);
+		
+		this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+		this.tableMask = this.table.length - 1;
+		this.sampleSize = 10 * capacity;
+		this.size = 0;
+	}
+	
+	/**
+	 * 키의 추정 빈도 반환
+	 * 
+	 * @param key 키
+	 * @return 추정 빈도(0 ~ 15)
+	 */
+	int frequency(String key) {
+		
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		
+		for(int i = 0; i < 4; i++) {
+			
+			int index = this.indexOf(hash, i);
+			int count = (int)((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+			
+			frequency = Math.min(frequency, count);
+		}
+		
+		return frequency;
+	}
+	
+	/**
+	 * 키의 빈도 증가
+	 * 
+	 * @param key 키
+	 */
+	void increment(String key) {
+		
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		
+		boolean added = false;
+		for(int i = 0; i < 4; i++) {
+			added |= this.incrementAt(this.indexOf(hash, i), start + i);
+		}
+		
+		if(added == true && ++this.size == this.sampleSize) {
+			this.reset();
+		}
+	}
+	
+	/**
+	 * 카운터 증가 - 최대값(15)일 경우 증가하지 않음
+	 * 
+	 * @param index 테이블 인덱스
+	 * @param counter long 내의 카운터 위치(0 ~ 15)
+	 * @return 증가 여부
+	 */
+	private boolean incrementAt(int index, int counter) {
+		
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		
+		if((this.table[index] & mask) != mask) {
+			this.table[index] += 1L << offset;
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * 모든 카운터를 절반으로 줄임
+	 */
+	private void reset() {
+		
+		int count = 0;
+		for(int index = 0; index < this.table.length; index++) {
+			count += Long.bitCount(this.table[index] & ONE_MASK);
+			this.table[index] = (this.table[index] >>> 1) & RESET_MASK;
+		}
+		
+		this.size = (this.size >>> 1) - (count >>> 2);
+	}
+	
+	/**
+	 * 모든 카운터 초기화
+	 */
+	void clear() {
+		
+		for(int index = 0; index < this.table.length; index++) {
+			this.table[index] = 0L;
+		}
+		
+		this.size = 0;
+	}
+	
+	/**
+	 * i 번째 해시 함수의 테이블 인덱스 반환
+	 * 
+	 * @param item 키의 해시 값
+	 * @param i 해시 함수 번호
+	 * @return 테이블 인덱스
+	 */
+	private int indexOf(int item, int i) {
+		
+		long hash = (item + SEED[i]) * SEED[i];
+		hash += (hash >>> 32);
+		
+		return ((int)hash) & this.tableMask;
+	}
+	
+	/**
+	 * 해시 값을 고르게 분산시킴
+	 * 
+	 * @param x 해시 값
+	 * @return 분산된 해시 값
+	 */
+	private static int spread(int x) {
+		
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		
+		return (x >>> 16) ^ x;
+	}
+}
@@ -0,0 +1,53 @@
+package com.jutools.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * java 기본 직렬화(Serializable)를 이용한 Serializer
+ * 
+ * @param <T> 캐시 데이터 타입
+ * @author jmsohn
+ */
+public class JavaSerializer<T extends Serializable> implements Serializer<T> {
+	
+	/** 변환할 데이터 타입 */
+	private Class<T> type;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param type 변환할 데이터 타입
+	 */
+	public JavaSerializer(Class<T> type) {
+		
+		if(type == null) {
+			throw new NullPointerException("type is null.");
+		}
+		
+		this.type = type;
+	}
+
+	@Override
+	public byte[] serialize(T value) throws Exception {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(value);
+		}
+		
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public T deserialize(byte[] bytes) throws Exception {
+		
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return this.type.cast(in.readObject());
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package com.jutools.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 캐시에 데이터를 제공할 인터페이스
  * 
@@ -16,5 +20,27 @@ public interface Loader<T> {
 	 * @return 데이터
 	 */
 	public T get(String key) throws Exception;
+	
+	/**
+	 * 주어진 키 목록에 해당하는 데이터를 한번에 반환<br>
+	 * 기본 구현은 키 별로 get 을 호출함, 한번에 조회할 수 있는 경우(ex. DB IN 조건) 재정의하여 사용
+	 * 
+	 * @param keys 키 목록
+	 * @return 키 별 데이터 - 데이터가 없는 키는 포함하지 않음
+	 */
+	public default Map<String, T> getAll(Collection<String> keys) throws Exception {
+		
+		Map<String, T> values = new HashMap<>();
+		
+		for(String key: keys) {
+			
+			T value = this.get(key);
+			if(value != null) {
+				values.put(key, value);
+			}
+		}
+		
+		return values;
+	}
 
 }
@@ -0,0 +1,595 @@
+package com.jutools.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * heap 외부(off-heap) 메모리에 byte 배열을 저장하는 저장소<br>
+ * -> 캐시의 2차 저장소(L2)로 사용되며, 데이터가 heap 에 있지 않으므로 GC 대상이 되지 않음<br>
+ * -> 저장 공간은 같은 크기의 블록으로 나누어 관리하며, 데이터 하나는 여러 블록에 나누어 저장됨<br>
+ *    블록 단위로 할당하므로 단편화(fragmentation)가 발생하지 않음<br>
+ * -> 저장 공간이 부족할 경우 가장 오래 사용하지 않은 데이터(LRU)를 제거함<br>
+ * -> 저장 공간은 direct ByteBuffer(allocateDirect) 또는 memory-mapped 파일(map)을 사용하며,
+ *    memory-mapped 파일은 close 시 색인 파일(파일명.idx)을 저장하여, 다시 열 때 저장된 데이터를 사용할 수 있음
+ * 
+ * @author jmsohn
+ */
+public class OffHeapStore {
+	
+	/** 기본 블록 크기(64KB) */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+	
+	/** 색인 파일 확장자 */
+	private static final String INDEX_EXT = ".idx";
+	
+	/** 색인 파일 식별 번호 */
+	private static final int INDEX_MAGIC = 0x4A554F48;
+	
+	/** 슬랩(ByteBuffer) 하나의 최대 크기(1GB) */
+	private static final int MAX_SLAB_SIZE = 1 << 30;
+	
+	/** 블록 크기 */
+	@Getter
+	private int blockSize;
+	
+	/** 전체 블록 개수 */
+	private int blockCount;
+	
+	/** 슬랩 당 블록 개수 */
+	private int blocksPerSlab;
+	
+	/** 저장 공간 슬랩 목록 */
+	private ByteBuffer[] slabs;
+	
+	/** 미사용 블록 번호 목록 */
+	private ArrayDeque<Integer> freeBlocks = new ArrayDeque<>();
+	
+	/** 저장된 데이터 목록 - 접근 순서로 정렬됨 */
+	private LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/** 저장된 데이터의 전체 크기(byte) */
+	private long usedBytes = 0;
+	
+	/** memory-mapped 파일 - direct ByteBuffer 사용 시 null */
+	@Getter
+	private File file;
+	
+	/** memory-mapped 파일 채널 - direct ByteBuffer 사용 시 null */
+	private FileChannel channel;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param capacity 저장 공간 크기(byte)
+	 * @param blockSize 블록 크기(byte)
+	 */
+	private OffHeapStore(long capacity, int blockSize) {
+		
+		if(blockSize < 1) {
+			throw new IllegalArgumentException("block size must be greater than 0:" + blockSize);
+		}
+		
+		if(capacity < blockSize) {
+			throw new IllegalArgumentException("capacity must be greater than or equal to block size:" + capacity);
+		}
+		
+		if(capacity / blockSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("too many blocks:" + (capacity / blockSize));
+		}
+		
+		this.blockSize = blockSize;
+		this.blockCount = (int)(capacity / blockSize);
+		this.blocksPerSlab = Math.max(1, MAX_SLAB_SIZE / blockSize);
+		this.slabs = new ByteBuffer[(this.blockCount + this.blocksPerSlab - 1) / this.blocksPerSlab];
+	}
+	
+	/**
+	 * direct ByteBuffer 를 사용하는 저장소 생성
+	 * 
+	 * @param capacity 저장 공간 크기(byte)
+	 * @param blockSize 블록 크기(byte)
+	 * @return 생성된 저장소
+	 */
+	public static OffHeapStore allocateDirect(long capacity, int blockSize) {
+		
+		OffHeapStore store = new OffHeapStore(capacity, blockSize);
+		
+		for(int index = 0; index < store.slabs.length; index++) {
+			store.slabs[index] = ByteBuffer.allocateDirect(store.getSlabSize(index));
+		}
+		
+		store.initFreeBlocks();
+		
+		return store;
+	}
+	
+	/**
+	 * direct ByteBuffer 를 사용하는 저장소 생성<br>
+	 * 블록 크기는 64KB
+	 * 
+	 * @param capacity 저장 공간 크기(byte)
+	 * @return 생성된 저장소
+	 */
+	public static OffHeapStore allocateDirect(long capacity) {
+		return allocateDirect(capacity, DEFAULT_BLOCK_SIZE);
+	}
+	
+	/**
+	 * memory-mapped 파일을 사용하는 저장소 생성<br>
+	 * 색인 파일(파일명.idx)이 있고 블록 크기와 저장 공간 크기가 같을 경우, 저장된 데이터를 불러옴<br>
+	 * 색인 파일은 불러온 후 삭제되며, close 시 다시 저장됨
+	 * 
+	 * @param file memory-mapped 파일
+	 * @param capacity 저장 공간 크기(byte)
+	 * @param blockSize 블록 크기(byte)
+	 * @return 생성된 저장소
+	 */
+	public static OffHeapStore map(File file, long capacity, int blockSize) throws Exception {
+		
+		if(file == null) {
+			throw new NullPointerException("file is null.");
+		}
+		
+		OffHeapStore store = new OffHeapStore(capacity, blockSize);
+		
+		store.file = file;
+		
+		@SuppressWarnings("resource")
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		store.channel = raf.getChannel();
+		
+		try {
+			
+			long position = 0;
+			for(int index = 0; index < store.slabs.length; index++) {
+				
+				int slabSize = store.getSlabSize(index);
+				store.slabs[index] = store.channel.map(FileChannel.MapMode.READ_WRITE, position, slabSize);
+				
+				position += slabSize;
+			}
+			
+			// 색인 파일이 있을 경우 저장된 데이터를 불러옴
+			if(store.loadIndex() == false) {
+				store.initFreeBlocks();
+			}
+			
+		} catch(Exception ex) {
+			
+			store.channel.close();
+			throw ex;
+		}
+		
+		return store;
+	}
+	
+	/**
+	 * memory-mapped 파일을 사용하는 저장소 생성<br>
+	 * 블록 크기는 64KB
+	 * 
+	 * @param file memory-mapped 파일
+	 * @param capacity 저장 공간 크기(byte)
+	 * @return 생성된 저장소
+	 */
+	public static OffHeapStore map(File file, long capacity) throws Exception {
+		return map(file, capacity, DEFAULT_BLOCK_SIZE);
+	}
+	
+	/**
+	 * 데이터 저장<br>
+	 * 저장 공간이 부족할 경우 가장 오래 사용하지 않은 데이터를 제거함
+	 * 
+	 * @param key 키
+	 * @param data 저장할 데이터
+	 * @return 저장 여부 - 데이터가 전체 저장 공간보다 클 경우 false
+	 */
+	public synchronized boolean put(String key, byte[] data) {
+		
+		if(key == null) {
+			throw new NullPointerException("key is null.");
+		}
+		
+		if(data == null) {
+			throw new NullPointerException("data is null.(key:" + key + ")");
+		}
+		
+		this.checkOpen();
+		
+		// 기존 데이터 삭제
+		this.release(this.entries.remove(key));
+		
+		// 필요한 블록 개수 계산
+		int needBlocks = Math.max(1, (data.length + this.blockSize - 1) / this.blockSize);
+		if(needBlocks > this.blockCount) {
+			return false;
+		}
+		
+		// 블록이 부족할 경우 오래된 데이터 제거
+		Iterator<Map.Entry<String, Entry>> iter = this.entries.entrySet().iterator();
+		while(this.freeBlocks.size() < needBlocks && iter.hasNext() == true) {
+			
+			Entry eldest = iter.next().getValue();
+			iter.remove();
+			
+			this.release(eldest);
+		}
+		
+		// 블록에 나누어 저장
+		int[] blocks = new int[needBlocks];
+		
+		for(int index = 0; index < needBlocks; index++) {
+			
+			blocks[index] = this.freeBlocks.poll();
+			
+			int offset = index * this.blockSize;
+			int length = Math.min(this.blockSize, data.length - offset);
+			
+			if(length > 0) {
+				this.getBlock(blocks[index]).put(data, offset, length);
+			}
+		}
+		
+		this.entries.put(key, new Entry(data.length, blocks));
+		this.usedBytes += data.length;
+		
+		return true;
+	}
+	
+	/**
+	 * 데이터 반환
+	 * 
+	 * @param key 키
+	 * @return 저장된 데이터, 없을 경우 null
+	 */
+	public synchronized byte[] get(String key) {
+		
+		this.checkOpen();
+		
+		Entry entry = this.entries.get(key);
+		if(entry == null) {
+			return null;
+		}
+		
+		return this.read(entry);
+	}
+	
+	/**
+	 * 데이터 삭제
+	 * 
+	 * @param key 키
+	 * @return 삭제 여부
+	 */
+	public synchronized boolean remove(String key) {
+		
+		this.checkOpen();
+		
+		Entry entry = this.entries.remove(key);
+		if(entry == null) {
+			return false;
+		}
+		
+		this.release(entry);
+		
+		return true;
+	}
+	
+	/**
+	 * 데이터 존재 여부 반환
+	 * 
+	 * @param key 키
+	 * @return 존재 여부
+	 */
+	public synchronized boolean containsKey(String key) {
+		return this.entries.containsKey(key);
+	}
+	
+	/**
+	 * 저장된 키 목록 반환 - 오래 사용하지 않은 순
+	 * 
+	 * @return 키 목록
+	 */
+	public synchronized List<String> keys() {
+		return new ArrayList<>(this.entries.keySet());
+	}
+	
+	/**
+	 * 저장된 데이터 개수 반환
+	 * 
+	 * @return 데이터 개수
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+	
+	/**
+	 * 저장된 데이터의 전체 크기 반환
+	 * 
+	 * @return 전체 크기(byte)
+	 */
+	public synchronized long getUsedBytes() {
+		return this.usedBytes;
+	}
+	
+	/**
+	 * 저장 공간 크기 반환
+	 * 
+	 * @return 저장 공간 크기(byte)
+	 */
+	public long getCapacity() {
+		return (long)this.blockCount * this.blockSize;
+	}
+	
+	/**
+	 * 모든 데이터 삭제
+	 */
+	public synchronized void clear() {
+		
+		this.entries.clear();
+		this.usedBytes = 0;
+		
+		this.initFreeBlocks();
+	}
+	
+	/**
+	 * 저장소 종료<br>
+	 * memory-mapped 파일을 사용하는 경우 파일에 반영하고 색인 파일을 저장함
+	 */
+	public synchronized void close() throws Exception {
+		
+		if(this.slabs == null) {
+			return;
+		}
+		
+		if(this.channel != null) {
+			
+			try {
+				
+				for(ByteBuffer slab: this.slabs) {
+					((MappedByteBuffer)slab).force();
+				}
+				
+				this.saveIndex();
+				
+			} finally {
+				this.channel.close();
+			}
+		}
+		
+		this.slabs = null;
+		this.entries.clear();
+		this.freeBlocks.clear();
+		this.usedBytes = 0;
+	}
+	
+	/**
+	 * 저장소가 종료되었을 경우 예외 발생
+	 */
+	private void checkOpen() {
+		
+		if(this.slabs == null) {
+			throw new IllegalStateException("store is closed.");
+		}
+	}
+	
+	/**
+	 * 슬랩의 크기 반환
+	 * 
+	 * @param index 슬랩 번호
+	 * @return 슬랩의 크기(byte)
+	 */
+	private int getSlabSize(int index) {
+		
+		int blocks = Math.min(this.blocksPerSlab, this.blockCount - index * this.blocksPerSlab);
+		return blocks * this.blockSize;
+	}
+	
+	/**
+	 * 블록 번호에 해당하는 버퍼 반환<br>
+	 * 슬랩의 position/limit 을 변경하지 않도록 복제한 버퍼를 반환함
+	 * 
+	 * @param block 블록 번호
+	 * @return 블록의 버퍼 - position 은 블록의 시작, limit 은 블록의 끝
+	 */
+	private ByteBuffer getBlock(int block) {
+		
+		ByteBuffer slab = this.slabs[block / this.blocksPerSlab].duplicate();
+		int position = (block % this.blocksPerSlab) * this.blockSize;
+		
+		slab.limit(position + this.blockSize);
+		slab.position(position);
+		
+		return slab;
+	}
+	
+	/**
+	 * 블록에 저장된 데이터 읽기
+	 * 
+	 * @param entry 데이터 정보
+	 * @return 데이터
+	 */
+	private byte[] read(Entry entry) {
+		
+		byte[] data = new byte[entry.length];
+		
+		for(int index = 0; index < entry.blocks.length; index++) {
+			
+			int offset = index * this.blockSize;
+			int length = Math.min(this.blockSize, data.length - offset);
+			
+			if(length > 0) {
+				this.getBlock(entry.blocks[index]).get(data, offset, length);
+			}
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * 데이터의 블록 반환
+	 * 
+	 * @param entry 데이터 정보, null 일 경우 무시함
+	 */
+	private void release(Entry entry) {
+		
+		if(entry == null) {
+			return;
+		}
+		
+		for(int block: entry.blocks) {
+			this.freeBlocks.add(block);
+		}
+		
+		this.usedBytes -= entry.length;
+	}
+	
+	/**
+	 * 모든 블록을 미사용으로 설정
+	 */
+	private void initFreeBlocks() {
+		
+		this.freeBlocks.clear();
+		for(int block = 0; block < this.blockCount; block++) {
+			this.freeBlocks.add(block);
+		}
+	}
+	
+	/**
+	 * 색인 파일 반환
+	 * 
+	 * @return 색인 파일
+	 */
+	private File getIndexFile() {
+		return new File(this.file.getPath() + INDEX_EXT);
+	}
+	
+	/**
+	 * 색인 파일 저장
+	 */
+	private void saveIndex() throws IOException {
+		
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.getIndexFile())))) {
+			
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(this.blockSize);
+			out.writeInt(this.blockCount);
+			out.writeInt(this.entries.size());
+			
+			// 오래 사용하지 않은 순으로 저장
+			for(Map.Entry<String, Entry> mapEntry: this.entries.entrySet()) {
+				
+				Entry entry = mapEntry.getValue();
+				
+				out.writeUTF(mapEntry.getKey());
+				out.writeInt(entry.length);
+				out.writeInt(entry.blocks.length);
+				
+				for(int block: entry.blocks) {
+					out.writeInt(block);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 색인 파일을 읽어 저장된 데이터 목록 설정<br>
+	 * 읽은 색인 파일은 삭제함 - 비정상 종료 시 이전 색인을 사용하지 않기 위함<br>
+	 * 색인 파일이 손상된 경우 사용하지 않음
+	 * 
+	 * @return 색인 파일을 읽었는지 여부
+	 */
+	private boolean loadIndex() {
+		
+		File indexFile = this.getIndexFile();
+		if(indexFile.exists() == false) {
+			return false;
+		}
+		
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			
+			// 블록 크기 및 개수가 다를 경우 사용하지 않음
+			if(in.readInt() != INDEX_MAGIC || in.readInt() != this.blockSize || in.readInt() != this.blockCount) {
+				return false;
+			}
+			
+			boolean[] used = new boolean[this.blockCount];
+			int count = in.readInt();
+			
+			for(int index = 0; index < count; index++) {
+				
+				String key = in.readUTF();
+				int length = in.readInt();
+				
+				int[] blocks = new int[in.readInt()];
+				for(int blockIndex = 0; blockIndex < blocks.length; blockIndex++) {
+					blocks[blockIndex] = in.readInt();
+					used[blocks[blockIndex]] = true;
+				}
+				
+				this.entries.put(key, new Entry(length, blocks));
+				this.usedBytes += length;
+			}
+			
+			this.freeBlocks.clear();
+			for(int block = 0; block < this.blockCount; block++) {
+				if(used[block] == false) {
+					this.freeBlocks.add(block);
+				}
+			}
+			
+		} catch(IOException | RuntimeException ex) {
+			
+			this.entries.clear();
+			this.usedBytes = 0;
+			
+			return false;
+			
+		} finally {
+			indexFile.delete();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 저장된 데이터 정보
+	 * 
+	 * @author jmsohn
+	 */
+	private static class Entry {
+		
+		/** 데이터 크기(byte) */
+		private int length;
+		
+		/** 데이터가 저장된 블록 번호 목록 */
+		private int[] blocks;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param length 데이터 크기(byte)
+		 * @param blocks 데이터가 저장된 블록 번호 목록
+		 */
+		private Entry(int length, int[] blocks) {
+			this.length = length;
+			this.blocks = blocks;
+		}
+	}
+}
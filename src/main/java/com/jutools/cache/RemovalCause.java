@@ -0,0 +1,15 @@
+package com.jutools.cache;
+
+/**
+ * 캐시 데이터 제거 원인
+ * 
+ * @author jmsohn
+ */
+public enum RemovalCause {
+	
+	/** 보유기간 또는 저장 후 만료기간이 지나 제거됨 */
+	EXPIRED,
+	
+	/** 최대 무게를 넘어 제거 정책(W-TinyLFU)에 의해 제거됨 */
+	SIZE
+}
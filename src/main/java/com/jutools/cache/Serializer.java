@@ -0,0 +1,28 @@
+package com.jutools.cache;
+
+/**
+ * 캐시 데이터를 byte 배열로 변환하는 인터페이스<br>
+ * -> off-heap 저장소(OffHeapStore)에 데이터를 저장할 때 사용됨
+ * 
+ * @param <T> 캐시 데이터 타입
+ * @author jmsohn
+ */
+public interface Serializer<T> {
+	
+	/**
+	 * 데이터를 byte 배열로 변환
+	 * 
+	 * @param value 데이터
+	 * @return 변환된 byte 배열
+	 */
+	public byte[] serialize(T value) throws Exception;
+	
+	/**
+	 * byte 배열을 데이터로 변환
+	 * 
+	 * @param bytes byte 배열
+	 * @return 변환된 데이터
+	 */
+	public T deserialize(byte[] bytes) throws Exception;
+
+}
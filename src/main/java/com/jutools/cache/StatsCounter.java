@@ -0,0 +1,136 @@
+package com.jutools.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 캐시 통계 기록 클래스<br>
+ * -> 여러 thread 에서 동시에 기록하므로 경합이 적은 LongAdder 로 누적함
+ * 
+ * @author jmsohn
+ */
+class StatsCounter {
+	
+	/** 캐시 히트 횟수 */
+	private LongAdder hitCount = new LongAdder();
+	
+	/** 캐시 미스 횟수 */
+	private LongAdder missCount = new LongAdder();
+	
+	/** 로드 성공 횟수 */
+	private LongAdder loadSuccessCount = new LongAdder();
+	
+	/** 로드 실패 횟수 */
+	private LongAdder loadFailureCount = new LongAdder();
+	
+	/** 전체 로드 시간(ns) */
+	private LongAdder totalLoadTime = new LongAdder();
+	
+	/** 제거 원인 별 제거 횟수 */
+	private LongAdder[] evictionCounts;
+	
+	/** off-heap 저장소 직렬화/역직렬화 실패 횟수 */
+	private LongAdder offHeapFailureCount = new LongAdder();
+	
+	/**
+	 * 생성자
+	 */
+	StatsCounter() {
+		
+		this.evictionCounts = new LongAdder[RemovalCause.values().length];
+		for(int index = 0; index < this.evictionCounts.length; index++) {
+			this.evictionCounts[index] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * 캐시 히트 기록
+	 */
+	void recordHit() {
+		this.hitCount.increment();
+	}
+	
+	/**
+	 * 캐시 미스 기록
+	 */
+	void recordMiss() {
+		this.missCount.increment();
+	}
+	
+	/**
+	 * 로드 성공 기록
+	 * 
+	 * @param loadTime 로드 시간(ns)
+	 */
+	void recordLoadSuccess(long loadTime) {
+		this.loadSuccessCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+	
+	/**
+	 * 로드 실패 기록
+	 * 
+	 * @param loadTime 로드 시간(ns)
+	 */
+	void recordLoadFailure(long loadTime) {
+		this.loadFailureCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+	
+	/**
+	 * 데이터 제거 기록
+	 * 
+	 * @param cause 제거 원인
+	 */
+	void recordEviction(RemovalCause cause) {
+		this.evictionCounts[cause.ordinal()].increment();
+	}
+	
+	/**
+	 * off-heap 저장소 직렬화/역직렬화 실패 기록
+	 */
+	void recordOffHeapFailure() {
+		this.offHeapFailureCount.increment();
+	}
+	
+	/**
+	 * 통계 스냅샷 생성
+	 * 
+	 * @param weight 현재 전체 무게
+	 * @return 통계 스냅샷
+	 */
+	CacheStats snapshot(long weight) {
+		
+		long[] evictionCounts = new long[this.evictionCounts.length];
+		for(int index = 0; index < evictionCounts.length; index++) {
+			evictionCounts[index] = this.evictionCounts[index].sum();
+		}
+		
+		return new CacheStats(
+			this.hitCount.sum(),
+			this.missCount.sum(),
+			this.loadSuccessCount.sum(),
+			this.loadFailureCount.sum(),
+			this.totalLoadTime.sum(),
+			evictionCounts,
+			this.offHeapFailureCount.sum(),
+			weight
+		);
+	}
+	
+	/**
+	 * 통계 초기화
+	 */
+	void reset() {
+		
+		this.hitCount.reset();
+		this.missCount.reset();
+		this.loadSuccessCount.reset();
+		this.loadFailureCount.reset();
+		this.totalLoadTime.reset();
+		this.offHeapFailureCount.reset();
+		
+		for(LongAdder evictionCount: this.evictionCounts) {
+			evictionCount.reset();
+		}
+	}
+}
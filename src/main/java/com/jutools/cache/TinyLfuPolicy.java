@@ -0,0 +1,295 @@
+package com.jutools.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * W-TinyLFU 캐시 데이터 제거 정책<br>
+ * -> window(LRU, 전체 무게의 1%)와 main(Segmented LRU: probation 20%, protected 80%) 영역으로 구성됨<br>
+ * -> 신규 데이터는 window 에 들어가며, window 에서 밀려난 데이터(candidate)는
+ *    probation 의 가장 오래된 데이터(victim)와 접근 빈도를 비교하여 빈도가 높은 쪽이 남음<br>
+ * -> probation 에서 다시 접근된 데이터는 protected 로 이동함<br>
+ * -> thread safe 하지 않으므로 호출하는 쪽에서 동기화해야 함
+ *
+ * @author jmsohn
+ */
+class TinyLfuPolicy {
+
+	/** 최대 무게 */
+	private long maximumWeight;
+
+	/** window 영역 최대 무게 */
+	private long windowMaximum;
+
+	/** protected 영역 최대 무게 */
+	private long protectedMaximum;
+
+	/** window 영역 - Key: 키, Value: 무게, 오래된 순으로 정렬됨 */
+	private LinkedHashMap<String, Long> window = new LinkedHashMap<>();
+
+	/** probation 영역 - Key: 키, Value: 무게, 오래된 순으로 정렬됨 */
+	private LinkedHashMap<String, Long> probation = new LinkedHashMap<>();
+
+	/** protected 영역 - Key: 키, Value: 무게, 오래된 순으로 정렬됨 */
+	private LinkedHashMap<String, Long> protect = new LinkedHashMap<>();
+
+	/** window 영역 무게 */
+	private long windowWeight = 0;
+
+	/** probation 영역 무게 */
+	private long probationWeight = 0;
+
+	/** protected 영역 무게 */
+	private long protectedWeight = 0;
+
+	/** 접근 빈도 추정 객체 */
+	private FrequencySketch sketch;
+
+	/**
+	 * 생성자
+	 *
+	 * @param maximumWeight 최대 무게
+	 * @param expectedSize 예상 최대 데이터 개수 - 접근 빈도 추정 테이블 크기 계산용
+	 */
+	TinyLfuPolicy(long maximumWeight, long expectedSize) {
+
+		if(maximumWeight < 1) {
+			throw new IllegalArgumentException("maximum weight must be greater than 0:" + maximumWeight);
+		}
+
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = Math.max(1, maximumWeight / 100);
+		this.protectedMaximum = (long)((maximumWeight - this.windowMaximum) * 0.8);
+
+		this.sketch = new FrequencySketch(expectedSize);
+	}
+
+	/**
+	 * 데이터 접근 시 호출
+	 *
+	 * @param key 키
+	 */
+	void onAccess(String key) {
+
+		this.sketch.increment(key);
+
+		Long weight = null;
+
+		if((weight = this.window.remove(key)) != null) {
+
+			this.window.put(key, weight);
+
+		} else if((weight = this.probation.remove(key)) != null) {
+
+			// probation 에서 다시 접근된 데이터는 protected 로 이동
+			this.probationWeight -= weight;
+
+			this.protect.put(key, weight);
+			this.protectedWeight += weight;
+
+			this.demote();
+
+		} else if((weight = this.protect.remove(key)) != null) {
+
+			this.protect.put(key, weight);
+		}
+	}
+
+	/**
+	 * 데이터 저장 시 호출
+	 *
+	 * @param key 키
+	 * @param weight 무게
+	 * @return 제거되어야 할 키 목록
+	 */
+	List<String> onPut(String key, long weight) {
+
+		if(weight < 0) {
+			throw new IllegalArgumentException("weight must be greater than or equal to 0:" + weight);
+		}
+
+		// 이미 있는 경우 무게를 변경하고 접근 처리
+		if(this.updateWeight(key, weight) == true) {
+			this.onAccess(key);
+		} else {
+
+			this.sketch.increment(key);
+
+			this.window.put(key, weight);
+			this.windowWeight += weight;
+		}
+
+		return this.evict();
+	}
+
+	/**
+	 * 데이터 삭제 시 호출
+	 *
+	 * @param key 키
+	 */
+	void onRemove(String key) {
+
+		Long weight = null;
+
+		if((weight = this.window.remove(key)) != null) {
+			this.windowWeight -= weight;
+		} else if((weight = this.probation.remove(key)) != null) {
+			this.probationWeight -= weight;
+		} else if((weight = this.protect.remove(key)) != null) {
+			this.protectedWeight -= weight;
+		}
+	}
+
+	/**
+	 * 모든 데이터 삭제
+	 */
+	void clear() {
+
+		this.window.clear();
+		this.probation.clear();
+		this.protect.clear();
+
+		this.windowWeight = 0;
+		this.probationWeight = 0;
+		this.protectedWeight = 0;
+
+		this.sketch.clear();
+	}
+
+	/**
+	 * 전체 무게 반환
+	 *
+	 * @return 전체 무게
+	 */
+	long weight() {
+		return this.windowWeight + this.probationWeight + this.protectedWeight;
+	}
+
+	/**
+	 * 최대 무게 반환
+	 *
+	 * @return 최대 무게
+	 */
+	long maximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * 이미 있는 데이터의 무게 변경
+	 *
+	 * @param key 키
+	 * @param weight 변경할 무게
+	 * @return 데이터가 있었는지 여부
+	 */
+	private boolean updateWeight(String key, long weight) {
+
+		Long old = null;
+
+		if((old = this.window.get(key)) != null) {
+			this.window.put(key, weight);
+			this.windowWeight += weight - old;
+		} else if((old = this.probation.get(key)) != null) {
+			this.probation.put(key, weight);
+			this.probationWeight += weight - old;
+		} else if((old = this.protect.get(key)) != null) {
+			this.protect.put(key, weight);
+			this.protectedWeight += weight - old;
+		}
+
+		return old != null;
+	}
+
+	/**
+	 * protected 영역이 최대 무게를 넘을 경우 오래된 데이터를 probation 으로 이동
+	 */
+	private void demote() {
+
+		while(this.protectedWeight > this.protectedMaximum && this.protect.size() > 1) {
+
+			String key = this.protect.keySet().iterator().next();
+			long weight = this.protect.remove(key);
+			this.protectedWeight -= weight;
+
+			this.probation.put(key, weight);
+			this.probationWeight += weight;
+		}
+	}
+
+	/**
+	 * 최대 무게를 넘는 데이터 제거
+	 *
+	 * @return 제거된 키 목록
+	 */
+	private List<String> evict() {
+
+		// window 에서 밀려난 데이터(candidate)를 probation 으로 이동
+		ArrayDeque<String> candidates = new ArrayDeque<>();
+
+		while(this.windowWeight > this.windowMaximum && this.window.size() > 0) {
+
+			String key = this.window.keySet().iterator().next();
+			long weight = this.window.remove(key);
+			this.windowWeight -= weight;
+
+			this.probation.put(key, weight);
+			this.probationWeight += weight;
+
+			candidates.add(key);
+		}
+
+		// 최대 무게를 넘는 경우 제거 수행
+		List<String> evicted = new ArrayList<>();
+
+		while(this.weight() > this.maximumWeight) {
+
+			// 제거 대상(victim) 선택 - probation, protected, window 의 가장 오래된 데이터 순
+			String victim = firstKey(this.probation);
+			if(victim == null) {
+				victim = firstKey(this.protect);
+			}
+			if(victim == null) {
+				victim = firstKey(this.window);
+			}
+
+			// probation 에 남아 있는 candidate 선택
+			String candidate = candidates.peek();
+			while(candidate != null && this.probation.containsKey(candidate) == false) {
+				candidates.poll();
+				candidate = candidates.peek();
+			}
+
+			// candidate 와 victim 의 접근 빈도를 비교하여 빈도가 낮은 쪽을 제거
+			// 같을 경우 기존 데이터(victim)를 유지함
+			String removed = victim;
+			if(candidate != null && candidate.equals(victim) == false) {
+
+				if(this.sketch.frequency(candidate) <= this.sketch.frequency(victim)) {
+					removed = candidate;
+				}
+			}
+
+			candidates.remove(removed);
+			this.onRemove(removed);
+			evicted.add(removed);
+		}
+
+		return evicted;
+	}
+
+	/**
+	 * 가장 오래된 키 반환
+	 *
+	 * @param map 대상 영역
+	 * @return 가장 오래된 키, 없을 경우 null
+	 */
+	private static String firstKey(LinkedHashMap<String, Long> map) {
+
+		if(map.size() == 0) {
+			return null;
+		}
+
+		return map.keySet().iterator().next();
+	}
+}
@@ -0,0 +1,22 @@
+package com.jutools.cache;
+
+/**
+ * 캐시 데이터의 무게(weight)를 계산하는 인터페이스<br>
+ * -> 최대 무게가 설정된 캐시에서 데이터 제거 기준으로 사용됨
+ * 
+ * @param <T> 캐시 데이터 타입
+ * @author jmsohn
+ */
+@FunctionalInterface
+public interface Weigher<T> {
+	
+	/**
+	 * 캐시 데이터의 무게 반환
+	 * 
+	 * @param key 키
+	 * @param value 데이터
+	 * @return 무게(0 이상)
+	 */
+	public int weigh(String key, T value);
+
+}
@@ -0,0 +1,399 @@
+package com.jutools.channel;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+/**
+ * channel wrapper 에 여러 메시지를 모아서 쓰는 클래스<br>
+ * -> 메시지는 재사용하는 encoder로 재사용하는 buffer 목록(chunk)에 바로 encode 함<br>
+ * -> 모인 데이터가 batch 크기 이상이 되거나, 처음 모인 후 최대 대기 시간이 지나면 gathering write 로 한번에 씀<br>
+ * -> 최대 대기 시간은 write 호출 시에 검사하며, 이후 쓸 메시지가 없어도 공유 타이머 스레드에서 최대 대기 시간이 지나면 씀<br>
+ * -> 쓰기 중 오류가 발생하면 쓰지 못한 데이터는 남아 있으며, 다음 쓰기 때 다시 씀<br>
+ * -> file channel 의 경우 force 로 디스크 반영 시점을 지정할 수 있음<br>
+ * -> 여러 스레드에서 사용 가능하나, 같은 channel wrapper 의 write 와 함께 사용하면 안됨
+ * 
+ * <pre>
+ * try(BatchWriter writer = new BatchWriter(wrapper, 64 * 1024, 100)) {
+ *   for(String log: logs) {
+ *     writer.write(log);
+ *   }
+ *   writer.force(false);
+ * }
+ * </pre>
+ * 
+ * @author jmsohn
+ */
+public class BatchWriter implements Closeable, Flushable {
+	
+	/** 기본 chunk 크기 */
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+	
+	/** 최소 chunk 크기 - 한 문자를 encode 할 수 있는 크기 */
+	private static final int MIN_CHUNK_SIZE = 16;
+	
+	/** 최대 대기 시간이 지난 데이터를 쓰기 위한 공유 타이머 */
+	private static ScheduledThreadPoolExecutor timer;
+	
+	/** 대상 channel wrapper */
+	private ChannelWrapper wrapper;
+	
+	/** batch 크기(byte) - 모인 데이터가 이 크기 이상이면 씀 */
+	@Getter
+	private int batchSize;
+	
+	/** 최대 대기 시간(ms) - 0 이하일 경우 사용하지 않음 */
+	@Getter
+	private long maxDelay;
+	
+	/** chunk 크기(byte) */
+	@Getter
+	private int chunkSize;
+	
+	/** 메시지 encoder */
+	private CharsetEncoder encoder;
+	
+	/** chunk 목록 - flush 후 재사용함 */
+	private List<ByteBuffer> chunks = new ArrayList<>();
+	
+	/** gathering write 용 chunk 배열 */
+	private ByteBuffer[] gather = new ByteBuffer[0];
+	
+	/** 현재 쓰고 있는 chunk 의 인덱스 */
+	private int current = 0;
+	
+	/** 현재 chunk 이전의 chunk 들에 모인 데이터 크기 */
+	private long filledBytes = 0;
+	
+	/** 처음 모인 시간 - 모인 데이터가 없을 경우 -1 */
+	private long firstPendingTime = -1;
+	
+	/** 최대 대기 시간 후 쓰기 예약 - 예약되지 않은 경우 null */
+	private ScheduledFuture<?> delayedFlush;
+	
+	/** gathering write 횟수 */
+	@Getter
+	private long flushCount = 0;
+	
+	/** 쓴 데이터 크기 */
+	@Getter
+	private long writtenBytes = 0;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param wrapper 대상 channel wrapper
+	 * @param batchSize batch 크기(byte)
+	 * @param maxDelay 최대 대기 시간(ms) - 0 이하일 경우 사용하지 않음
+	 * @param chunkSize chunk 크기(byte)
+	 */
+	public BatchWriter(ChannelWrapper wrapper, int batchSize, long maxDelay, int chunkSize) {
+		
+		// 입력값 검증
+		if(wrapper == null) {
+			throw new NullPointerException("wrapper is null.");
+		}
+		
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be greater than 0: " + batchSize);
+		}
+		
+		if(chunkSize < MIN_CHUNK_SIZE) {
+			throw new IllegalArgumentException("chunk size must be greater than or equal to " + MIN_CHUNK_SIZE + ": " + chunkSize);
+		}
+		
+		this.wrapper = wrapper;
+		this.batchSize = batchSize;
+		this.maxDelay = maxDelay;
+		this.chunkSize = chunkSize;
+		
+		this.encoder = wrapper.getCharset().newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+	
+	/**
+	 * 생성자<br>
+	 * chunk 크기는 기본 chunk 크기와 batch 크기 중 작은 값
+	 * 
+	 * @param wrapper 대상 channel wrapper
+	 * @param batchSize batch 크기(byte)
+	 * @param maxDelay 최대 대기 시간(ms) - 0 이하일 경우 사용하지 않음
+	 */
+	public BatchWriter(ChannelWrapper wrapper, int batchSize, long maxDelay) {
+		this(wrapper, batchSize, maxDelay, Math.max(MIN_CHUNK_SIZE, Math.min(DEFAULT_CHUNK_SIZE, batchSize)));
+	}
+	
+	/**
+	 * 메시지를 모음<br>
+	 * batch 크기 이상 모였거나 최대 대기 시간이 지난 경우 씀
+	 * 
+	 * @param msg 쓸 메시지
+	 * @return 현재 객체
+	 */
+	public synchronized BatchWriter write(CharSequence msg) throws IOException {
+		
+		if(msg == null) {
+			throw new NullPointerException("message is null.");
+		}
+		
+		// chunk 에 바로 encode 함, chunk 가 가득 차면 다음 chunk 로 넘어감
+		CharBuffer in = CharBuffer.wrap(msg);
+		ByteBuffer chunk = this.chunk();
+		
+		this.encoder.reset();
+		
+		while(this.encoder.encode(in, chunk, true).isOverflow() == true) {
+			chunk = this.nextChunk();
+		}
+		
+		while(this.encoder.flush(chunk).isOverflow() == true) {
+			chunk = this.nextChunk();
+		}
+		
+		// 쓰기 조건 검사
+		long cur = System.currentTimeMillis();
+		
+		if(this.firstPendingTime < 0) {
+			this.firstPendingTime = cur;
+		}
+		
+		if(this.getPendingBytes() >= this.batchSize
+			|| (this.maxDelay > 0 && cur - this.firstPendingTime >= this.maxDelay)) {
+			
+			this.flush();
+			
+		} else if(this.maxDelay > 0 && this.delayedFlush == null) {
+			
+			// 이후 쓸 메시지가 없어도 최대 대기 시간이 지나면 쓰도록 예약함
+			this.delayedFlush = getTimer().schedule(this::flushDelayed, this.maxDelay, TimeUnit.MILLISECONDS);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 최대 대기 시간이 지난 데이터를 씀 - 타이머 스레드에서 호출됨<br>
+	 * 쓰기에 실패한 경우 데이터는 남아 있으며, 다음 write 또는 flush 에서 다시 씀
+	 */
+	private synchronized void flushDelayed() {
+		
+		this.delayedFlush = null;
+		
+		if(this.firstPendingTime < 0 || System.currentTimeMillis() - this.firstPendingTime < this.maxDelay) {
+			return;
+		}
+		
+		try {
+			this.flush();
+		} catch(IOException ioex) {
+			// 다음 write 또는 flush 에서 오류가 발생함
+		}
+	}
+	
+	/**
+	 * 모인 데이터의 크기 반환
+	 * 
+	 * @return 모인 데이터의 크기(byte)
+	 */
+	public synchronized long getPendingBytes() {
+		
+		if(this.chunks.size() == 0) {
+			return 0;
+		}
+		
+		return this.filledBytes + this.chunks.get(this.current).position();
+	}
+	
+	/**
+	 * 모인 데이터를 gathering write 로 한번에 씀
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		
+		long pending = this.getPendingBytes();
+		if(pending == 0) {
+			return;
+		}
+		
+		// 쓸 chunk 목록 준비
+		int count = this.current + 1;
+		for(int index = 0; index < count; index++) {
+			ByteBuffer chunk = this.chunks.get(index);
+			((Buffer)chunk).flip();
+			this.gather[index] = chunk;
+		}
+		
+		boolean done = false;
+		
+		try {
+			
+			// 모두 쓸 때까지 씀
+			int offset = 0;
+			while(offset < count) {
+				
+				this.wrapper.write(this.gather, offset, count - offset);
+				
+				while(offset < count && this.gather[offset].hasRemaining() == false) {
+					offset++;
+				}
+			}
+			
+			done = true;
+			
+		} catch(IOException ioex) {
+			throw ioex;
+		} catch(Exception ex) {
+			throw new IOException(ex);
+		} finally {
+			
+			if(done == true) {
+				
+				// chunk 재사용을 위해 비움
+				for(int index = 0; index < count; index++) {
+					((Buffer)this.chunks.get(index)).clear();
+				}
+				
+				this.current = 0;
+				this.filledBytes = 0;
+				this.firstPendingTime = -1;
+				
+				this.flushCount++;
+				this.writtenBytes += pending;
+				
+				// 예약된 쓰기 취소
+				if(this.delayedFlush != null) {
+					this.delayedFlush.cancel(false);
+					this.delayedFlush = null;
+				}
+				
+			} else {
+				
+				// 쓰지 못한 데이터를 chunk 의 앞으로 옮겨서 다음에 이어서 쓸 수 있도록 함
+				long filledBytes = 0;
+				
+				for(int index = 0; index < count; index++) {
+					
+					ByteBuffer chunk = this.chunks.get(index);
+					chunk.compact();
+					
+					if(index < this.current) {
+						filledBytes += chunk.position();
+					}
+				}
+				
+				this.filledBytes = filledBytes;
+				this.writtenBytes += pending - this.getPendingBytes();
+			}
+		}
+	}
+	
+	/**
+	 * 모인 데이터를 쓰고 디스크에 반영함<br>
+	 * file channel 이 아닌 경우 flush 만 수행함
+	 * 
+	 * @param metaData 파일의 메타 데이터(수정 시간 등)도 반영할지 여부
+	 */
+	public synchronized void force(boolean metaData) throws IOException {
+		
+		this.flush();
+		
+		if(this.wrapper.getChnl() instanceof FileChannel) {
+			((FileChannel)this.wrapper.getChnl()).force(metaData);
+		}
+	}
+	
+	/**
+	 * 모인 데이터를 씀<br>
+	 * channel wrapper 는 닫지 않음
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		
+		if(this.delayedFlush != null) {
+			this.delayedFlush.cancel(false);
+			this.delayedFlush = null;
+		}
+		
+		this.flush();
+	}
+	
+	/**
+	 * 공유 타이머 반환 - 없을 경우 생성함
+	 * 
+	 * @return 공유 타이머
+	 */
+	private static synchronized ScheduledThreadPoolExecutor getTimer() {
+		
+		if(timer == null) {
+			
+			timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+				
+				Thread thread = new Thread(runnable, "batch-writer-timer");
+				thread.setDaemon(true);
+				
+				return thread;
+			});
+			
+			timer.setRemoveOnCancelPolicy(true);
+		}
+		
+		return timer;
+	}
+	
+	/**
+	 * 현재 쓰고 있는 chunk 반환
+	 * 
+	 * @return 현재 chunk
+	 */
+	private ByteBuffer chunk() {
+		
+		if(this.chunks.size() == 0) {
+			this.addChunk();
+		}
+		
+		return this.chunks.get(this.current);
+	}
+	
+	/**
+	 * 다음 chunk 로 넘어감 - 없을 경우 새로 생성
+	 * 
+	 * @return 다음 chunk
+	 */
+	private ByteBuffer nextChunk() {
+		
+		this.filledBytes += this.chunks.get(this.current).position();
+		this.current++;
+		
+		if(this.current == this.chunks.size()) {
+			this.addChunk();
+		}
+		
+		return this.chunks.get(this.current);
+	}
+	
+	/**
+	 * chunk 추가
+	 */
+	private void addChunk() {
+		
+		this.chunks.add(ByteBuffer.allocateDirect(this.chunkSize));
+		
+		if(this.gather.length < this.chunks.size()) {
+			this.gather = new ByteBuffer[this.chunks.size()];
+		}
+	}
+}
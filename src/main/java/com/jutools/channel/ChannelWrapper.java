@@ -2,19 +2,22 @@ package com.jutools.channel;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.Charset;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.function.Consumer;
 
-import com.jutools.BytesUtil;
 import com.jutools.NIOBufferUtil;
 
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Channel Wrapper의 추상 클래스
@@ -29,14 +32,28 @@ public abstract class ChannelWrapper implements Closeable {
 	/** 입출력에 사용할 byte buffer */
 	private ByteBuffer buffer;
 	/** 입출력에 사용할 character set */
+	@Getter(value = AccessLevel.PROTECTED)
 	private Charset charset;
 	
+	/** 쓰기용 encoder */
+	private CharsetEncoder encoder;
+	
 	// 읽기 작업을 위한 속성들
-	/** 현재 읽은 line을 임시저장하기 위한 큐 */
-	private Queue<String> lines = new LinkedList<String>(); 
-	/** 이전 읽을 데이터를 임시저장 */
-	private byte[] preRead;
+	/** 읽기 buffer - 읽지 않은 데이터가 position ~ limit에 있음, 처음에는 입출력 buffer를 사용함 */
+	private ByteBuffer readBuffer;
+	/** 한줄 전달용 읽기 buffer의 읽기 전용 view */
+	private ByteBuffer lineView;
+	/** 최근 사용한 구분자 */
+	private String lineEnd;
+	/** 최근 사용한 구분자의 byte 배열 */
+	private byte[] lineEndBytes;
+	/** 한줄 decode 용 decoder */
+	private CharsetDecoder decoder;
+	/** 한줄 decode 용 char buffer */
+	private CharBuffer chars;
 	/** 모두 읽었는지 여부 */
+	@Getter(value = AccessLevel.PROTECTED)
+	@Setter(value = AccessLevel.PROTECTED)
 	private boolean isReadEnd;
 	
 	/**
@@ -84,142 +101,114 @@ public abstract class ChannelWrapper implements Closeable {
 	}
 	
 	/**
-	 * 설정된 file channel에 문자열을 쓰는 메소드
+	 * Channel에 주어진 Buffer 목록의 데이터를 한번에 씀(gathering write)<br>
+	 * GatheringByteChannel이 아닌 경우 Buffer 별로 씀
 	 * 
-	 * @param msg file channel에 출력할 문자열
+	 * @param srcs Channel에 쓸 데이터가 담긴 Buffer 목록
+	 * @param offset 쓰기 시작할 Buffer의 인덱스
+	 * @param length 쓸 Buffer의 개수
+	 * @return 쓴 데이터의 수
 	 */
-	public void write(String msg) throws Exception {
-
-		byte[] msgBytes = msg.getBytes();
-
-		int start = 0;
-		int remains = msgBytes.length;
-
-		while(remains > 0) {
-
-			int length = msgBytes.length - start;
-
-			if(length > buffer.limit()) {
-				length = this.buffer.limit();
-			}
-
-			NIOBufferUtil.clear(this.buffer);
-			this.buffer.put(msgBytes, start, length);
-			NIOBufferUtil.flip(this.buffer);
-
-			while(buffer.hasRemaining() == true) {
-				this.write(buffer);
-			}
-
-			remains -= length;
-			start += length;
-			
-		} // end of while
-
+	protected long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		
+		if(this.chnl instanceof GatheringByteChannel) {
+			return ((GatheringByteChannel)this.chnl).write(srcs, offset, length);
+		}
+		
+		long written = 0;
+		for(int index = offset; index < offset + length; index++) {
+			written += this.write(srcs[index]);
+		}
+		
+		return written;
 	}
 	
 	/**
-	 * 설정된 file channel에서 한줄씩 읽어서 반환, 다 읽었을 경우 null 반환
-	 * 한줄의 끝은 lineEnd에 설정
+	 * 설정된 file channel에 문자열을 쓰는 메소드<br>
+	 * 설정된 character set의 encoder를 재사용하여 입출력 buffer에 바로 encode 함
 	 * 
-	 * @param lineEnd 읽을 줄에 대한 구분자
-	 * @return FileChannel에서 읽은 한줄
+	 * @param msg file channel에 출력할 문자열
 	 */
-	public String readLine(String lineEnd) throws Exception {
+	public void write(String msg) throws Exception {
 		
-		// 입력값 검증
-		if(lineEnd == null) {
-			throw new NullPointerException("line end is null"); 
+		if(msg == null) {
+			throw new NullPointerException("message is null");
 		}
 		
-		if(lineEnd.isEmpty() == true) {
-			throw new Exception("line end is not defined");
+		// 읽기에 입출력 buffer를 사용 중인 경우 분리
+		this.detachReadBuffer();
+		
+		CharsetEncoder encoder = this.getEncoder();
+		encoder.reset();
+		
+		CharBuffer in = CharBuffer.wrap(msg);
+		NIOBufferUtil.clear(this.buffer);
+		
+		// buffer가 가득 찰 때마다 씀
+		while(encoder.encode(in, this.buffer, true).isOverflow() == true) {
+			this.writeBuffer();
 		}
 		
-		// 읽기가 이미 종료 되었으면 null 반환
-		if(this.isReadEnd == true) {
-			return null;
+		while(encoder.flush(this.buffer).isOverflow() == true) {
+			this.writeBuffer();
 		}
 		
-		// 이전에 읽은 line이 있으면,
-		// 이전 읽은 line을 반환
-		if(this.lines.isEmpty() == false) {
-			return this.lines.poll();
+		if(this.buffer.position() > 0) {
+			this.writeBuffer();
 		}
+	}
+	
+	/**
+	 * 입출력 buffer의 데이터를 모두 쓰고 buffer를 비움
+	 */
+	private void writeBuffer() throws Exception {
 		
-		// 1. lineEnd가 포함될 때까지 읽거나 채널의 데이터를 끝날때까지 읽음
-		byte[] read = this.preRead;
-		this.preRead = null;
+		// 한 문자도 encode 하지 못할 만큼 buffer가 작은 경우
+		if(this.buffer.position() == 0) {
+			throw new IllegalStateException("buffer is too small to encode: " + this.buffer.capacity());
+		}
 		
-		byte[] lineEndBytes = lineEnd.getBytes();
+		NIOBufferUtil.flip(this.buffer);
 		
-		boolean isFirst = true;
+		while(this.buffer.hasRemaining() == true) {
+			this.write(this.buffer);
+		}
 		
-		do {
-			
-			// -1이면 더이상 읽을 데이터가 없음
-			if(this.read(this.buffer) == -1) {
-				
-				this.isReadEnd = true;
-				
-				// 처음 부터 읽을 것이 없으면 즉시 null 반환
-				// preRead에 데이터가 있으면 preRead의 데이터를 반환
-				if(isFirst == true) {
-					
-					if(read != null && read.length != 0) {
-						return new String(read, this.charset);
-					} else {
-						return null;
-					}
-				}
-				
-				break;
-			}
-			
-			isFirst = false;
-			
-			// buffer의 데이터를 byte 배열에 복사
-			NIOBufferUtil.flip(this.buffer);  // Limit:Position, Position:0 로 변경  
-			byte[] readNow = new byte[this.buffer.remaining()];  // remain: Limit - Position
-			this.buffer.get(readNow); //buffer의 데이터를 byte 배열로 복사
-			NIOBufferUtil.clear(this.buffer); // buffer를 비움
-			
-			// 이전에 읽은 배열과 합침
-			read = BytesUtil.concat(read, readNow);
-			
-		} while(BytesUtil.contains(read, lineEndBytes) == false); // 읽은 문자열 내에 lineEnd가 없는 경우 다시 읽음 
+		NIOBufferUtil.clear(this.buffer);
+	}
+	
+	/**
+	 * 설정된 character set의 encoder 반환 - 재사용함
+	 * 
+	 * @return encoder
+	 */
+	private CharsetEncoder getEncoder() {
 		
-		// 2. 읽은 데이터를 구분자(lineEnd)로 분리함
-		//    -> 0번째는 반환용으로 저장
-		//    -> 중간은 큐(this.lines)에 저장
-		//    -> 마지막은 이전 읽은 데이터(this.preRead)에 저장
+		if(this.encoder == null) {
+			this.encoder = this.charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
 		
-		String line = null;
-		List<byte[]> byteslines = BytesUtil.split(read, lineEndBytes, true);
+		return this.encoder;
+	}
+	
+	/**
+	 * 설정된 file channel에서 한줄씩 읽어서 반환, 다 읽었을 경우 null 반환<br>
+	 * 한줄의 끝은 lineEnd에 설정하며, 반환되는 한줄에는 lineEnd가 포함됨<br>
+	 * (마지막 줄은 lineEnd가 없을 수 있음)
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @return FileChannel에서 읽은 한줄
+	 */
+	public String readLine(String lineEnd) throws Exception {
 		
-		for(int index = 0; index < byteslines.size(); index++) {
-			
-			byte[] bytesline = byteslines.get(index);
-			
-			if(index == 0) {
-				
-				// 0번째는 반환용으로 저장
-				line = new String(bytesline, this.charset);
-				
-			} else {
-				
-				if(index == byteslines.size() - 1) {
-					// 마지막은 이전 읽은 데이터(this.preRead)에 저장
-					this.preRead = bytesline;
-				} else {
-					// 중간은 큐(this.lines)에 저장
-					this.lines.offer(new String(bytesline, this.charset));
-				}
-			}
-			
+		ByteBuffer line = this.nextLine(lineEnd);
+		if(line == null) {
+			return null;
 		}
 		
-		return line;
+		return this.decode(line).toString();
 	}
 	
 	/**
@@ -241,6 +230,46 @@ public abstract class ChannelWrapper implements Closeable {
 		
 	}
 	
+	/**
+	 * 설정된 file channel에서 한줄씩 읽어서 byte buffer로 전달<br>
+	 * -> 문자열로 변환하지 않고, 읽기 buffer의 해당 줄 영역(position ~ limit)을 읽기 전용으로 전달함<br>
+	 * -> 전달된 buffer는 람다 함수 수행 중에만 유효하며, 다음 줄을 읽을 때 변경됨
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @param action 읽은 한줄(lineEnd 포함)을 처리하는 람다 함수
+	 */
+	public void readLineBytes(String lineEnd, Consumer<ByteBuffer> action) throws Exception {
+		
+		if(action == null) {
+			throw new NullPointerException("consumer is null");
+		}
+		
+		ByteBuffer line = null;
+		while((line = this.nextLine(lineEnd)) != null) {
+			action.accept(line);
+		}
+	}
+	
+	/**
+	 * 설정된 file channel에서 한줄씩 읽어서 CharSequence로 전달<br>
+	 * -> String 객체를 생성하지 않고, 재사용하는 char buffer에 decode 하여 전달함<br>
+	 * -> 전달된 CharSequence는 람다 함수 수행 중에만 유효하며, 다음 줄을 읽을 때 변경됨
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @param action 읽은 한줄(lineEnd 포함)을 처리하는 람다 함수
+	 */
+	public void readLineChars(String lineEnd, Consumer<CharSequence> action) throws Exception {
+		
+		if(action == null) {
+			throw new NullPointerException("consumer is null");
+		}
+		
+		ByteBuffer line = null;
+		while((line = this.nextLine(lineEnd)) != null) {
+			action.accept(this.decode(line));
+		}
+	}
+	
 	/**
 	 * 설정된 file channel에서 한줄씩 읽어서 반환, 다 읽었을 경우 null 반환
 	 * 
@@ -268,6 +297,268 @@ public abstract class ChannelWrapper implements Closeable {
 		
 	}
 
+	/**
+	 * 다음 한줄의 영역을 반환, 다 읽었을 경우 null 반환<br>
+	 * -> 읽기 buffer 내에서 바로 구분자를 검색하며, 이미 검사한 영역은 다시 검사하지 않음<br>
+	 * -> 구분자가 없으면 읽지 않은 데이터를 buffer 앞으로 옮긴(compact) 후 이어서 읽음<br>
+	 * -> 한줄이 buffer 보다 클 경우 buffer의 크기를 두배씩 늘림
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @return 한줄의 영역(position ~ limit)이 설정된 읽기 전용 buffer - 다음 줄을 읽을 때 변경됨
+	 */
+	private ByteBuffer nextLine(String lineEnd) throws Exception {
+		return this.scanLine(lineEnd, true);
+	}
+	
+	/**
+	 * non-blocking channel에서 현재 읽을 수 있는 데이터로 한줄을 읽어서 반환<br>
+	 * -> 한줄이 완성되지 않았으면 읽은 데이터는 보관하고 null 반환<br>
+	 * -> 다 읽었을 경우에도 null 을 반환하므로, isReadEnd()로 구분함
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @return 읽은 한줄(lineEnd 포함), 한줄이 완성되지 않았거나 다 읽었을 경우 null
+	 */
+	protected String pollLine(String lineEnd) throws Exception {
+		
+		ByteBuffer line = this.scanLine(lineEnd, false);
+		if(line == null) {
+			return null;
+		}
+		
+		return this.decode(line).toString();
+	}
+	
+	/**
+	 * 다음 한줄의 영역을 검색하여 반환
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @param block 한줄이 완성될 때까지 계속 읽을지 여부 - false 일 경우 더 읽을 데이터가 없으면 null 반환
+	 * @return 한줄의 영역(position ~ limit)이 설정된 읽기 전용 buffer, 없을 경우 null
+	 */
+	private ByteBuffer scanLine(String lineEnd, boolean block) throws Exception {
+		
+		// 입력값 검증
+		if(lineEnd == null) {
+			throw new NullPointerException("line end is null"); 
+		}
+		
+		if(lineEnd.isEmpty() == true) {
+			throw new Exception("line end is not defined");
+		}
+		
+		// 구분자의 byte 배열 - 같은 구분자일 경우 재사용
+		if(lineEnd.equals(this.lineEnd) == false) {
+			this.lineEndBytes = lineEnd.getBytes(this.charset);
+			this.lineEnd = lineEnd;
+		}
+		
+		byte[] lineEndBytes = this.lineEndBytes;
+		
+		// 처음 읽는 경우 읽기 buffer 초기화 - 읽지 않은 데이터가 position ~ limit에 있는 상태를 유지함
+		if(this.readBuffer == null) {
+			this.setReadBuffer(this.fill(null));
+		}
+		
+		int scanFrom = this.readBuffer.position();
+		
+		while(true) {
+			
+			int start = this.readBuffer.position();
+			int index = indexOf(this.readBuffer, scanFrom, lineEndBytes);
+			
+			// 구분자를 찾은 경우 구분자까지 반환
+			if(index >= 0) {
+				return this.cutLine(start, index + lineEndBytes.length);
+			}
+			
+			// 모두 읽은 경우 남은 데이터를 반환
+			if(this.isReadEnd == true) {
+				
+				if(this.readBuffer.hasRemaining() == true) {
+					return this.cutLine(start, this.readBuffer.limit());
+				} else {
+					return null;
+				}
+			}
+			
+			// 검사한 길이 - 구분자가 읽은 데이터의 경계에 걸친 경우를 위해 구분자 길이 - 1 만큼 다시 검사함
+			int scanned = Math.max(start, this.readBuffer.limit() - lineEndBytes.length + 1) - start;
+			
+			int remaining = this.readBuffer.remaining();
+			
+			ByteBuffer filled = this.fill(this.readBuffer);
+			if(filled != this.readBuffer) {
+				this.setReadBuffer(filled);
+			}
+			
+			// non-blocking 에서 더 읽을 데이터가 없는 경우
+			if(block == false && this.isReadEnd == false && this.readBuffer.remaining() == remaining) {
+				return null;
+			}
+			
+			scanFrom = this.readBuffer.position() + scanned;
+		}
+	}
+	
+	/**
+	 * 읽기 buffer에 channel의 데이터를 추가로 읽음<br>
+	 * -> 읽지 않은 데이터는 buffer의 앞으로 옮기고, buffer가 가득 찬 경우 크기를 두배로 늘림<br>
+	 * -> 더 이상 읽을 데이터가 없으면 setReadEnd(true)를 호출해야 함<br>
+	 * -> 하위 클래스에서 다른 방식(ex. memory mapped)으로 읽기 buffer를 제공할 경우 재정의함
+	 * 
+	 * @param readBuffer 현재 읽기 buffer(읽지 않은 데이터가 position ~ limit에 있음), 처음 읽을 경우 null
+	 * @return 추가로 읽은 읽기 buffer - 읽지 않은 데이터가 position ~ limit에 있어야 함
+	 */
+	protected ByteBuffer fill(ByteBuffer readBuffer) throws Exception {
+		
+		if(readBuffer == null) {
+			
+			// 처음에는 입출력 buffer를 사용함
+			readBuffer = this.buffer;
+			NIOBufferUtil.clear(readBuffer);
+			
+		} else if(readBuffer.position() == 0 && readBuffer.limit() == readBuffer.capacity()) {
+			
+			// buffer가 가득 찬 경우 두배 크기의 buffer로 옮김
+			int capacity = readBuffer.capacity() * 2;
+			ByteBuffer newBuffer = (readBuffer.isDirect() == true)?ByteBuffer.allocateDirect(capacity):ByteBuffer.allocate(capacity);
+			
+			newBuffer.put(readBuffer);
+			readBuffer = newBuffer;
+			
+		} else {
+			
+			// 읽지 않은 데이터를 buffer 앞으로 옮김
+			readBuffer.compact();
+		}
+		
+		// 추가로 읽은 후 읽기 상태로 변경
+		if(this.read(readBuffer) == -1) {
+			this.setReadEnd(true);
+		}
+		
+		NIOBufferUtil.flip(readBuffer);
+		
+		return readBuffer;
+	}
+	
+	/**
+	 * 읽기 buffer가 입출력 buffer를 사용 중인 경우 분리함<br>
+	 * -> 쓰기 작업 시 입출력 buffer를 사용하므로, 읽지 않은 데이터가 있으면 별도 buffer로 옮김
+	 */
+	private void detachReadBuffer() throws Exception {
+		
+		if(this.readBuffer != this.buffer) {
+			return;
+		}
+		
+		if(this.readBuffer.hasRemaining() == false) {
+			
+			this.readBuffer = null;
+			this.lineView = null;
+			
+		} else {
+			
+			ByteBuffer newBuffer = ByteBuffer.allocate(this.readBuffer.capacity());
+			newBuffer.put(this.readBuffer);
+			NIOBufferUtil.flip(newBuffer);
+			
+			this.setReadBuffer(newBuffer);
+		}
+	}
+	
+	/**
+	 * 읽기 buffer 설정 - 한줄 전달용 읽기 전용 buffer도 함께 생성
+	 * 
+	 * @param readBuffer 읽기 buffer
+	 */
+	private void setReadBuffer(ByteBuffer readBuffer) throws Exception {
+		
+		this.readBuffer = readBuffer;
+		this.lineView = readBuffer.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * 읽기 buffer에서 한줄을 잘라냄
+	 * 
+	 * @param start 한줄의 시작 위치
+	 * @param end 한줄의 끝 위치(구분자 포함)
+	 * @return 한줄의 영역이 설정된 읽기 전용 buffer
+	 */
+	private ByteBuffer cutLine(int start, int end) {
+		
+		((Buffer)this.readBuffer).position(end);
+		
+		// limit를 먼저 설정해야 position 설정 시 오류가 발생하지 않음
+		((Buffer)this.lineView).limit(end);
+		((Buffer)this.lineView).position(start);
+		
+		return this.lineView;
+	}
+	
+	/**
+	 * byte buffer의 데이터를 재사용하는 decoder와 char buffer로 decode 함
+	 * 
+	 * @param bytes decode 할 데이터
+	 * @return decode 된 문자열이 담긴 char buffer - 다음 decode 시 변경됨
+	 */
+	private CharBuffer decode(ByteBuffer bytes) throws Exception {
+		
+		if(this.decoder == null) {
+			this.decoder = this.charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		
+		// char buffer의 크기가 부족할 경우 새로 생성
+		int maxLength = (int)Math.ceil(bytes.remaining() * (double)this.decoder.maxCharsPerByte());
+		if(this.chars == null || this.chars.capacity() < maxLength) {
+			this.chars = CharBuffer.allocate(Math.max(maxLength, 128));
+		}
+		
+		NIOBufferUtil.clear(this.chars);
+		
+		this.decoder.reset();
+		this.decoder.decode(bytes, this.chars, true);
+		this.decoder.flush(this.chars);
+		
+		NIOBufferUtil.flip(this.chars);
+		
+		return this.chars;
+	}
+	
+	/**
+	 * byte buffer의 position ~ limit 에서 lookup 배열의 위치를 검색
+	 * 
+	 * @param buffer 검색할 byte buffer
+	 * @param from 검색 시작 위치
+	 * @param lookup 검색할 byte 배열
+	 * @return 검색된 위치, 없을 경우 -1
+	 */
+	private static int indexOf(ByteBuffer buffer, int from, byte[] lookup) {
+		
+		byte first = lookup[0];
+		int last = buffer.limit() - lookup.length;
+		
+		for(int index = Math.max(from, buffer.position()); index <= last; index++) {
+			
+			if(buffer.get(index) != first) {
+				continue;
+			}
+			
+			int matched = 1;
+			while(matched < lookup.length && buffer.get(index + matched) == lookup[matched]) {
+				matched++;
+			}
+			
+			if(matched == lookup.length) {
+				return index;
+			}
+		}
+		
+		return -1;
+	}
+	
 	/**
 	 * close file channel
 	 */
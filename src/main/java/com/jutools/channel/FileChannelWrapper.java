@@ -1,17 +1,52 @@
 package com.jutools.channel;
 
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
 
 /**
- * file channel 처리 wrapper 클래스
+ * file channel 처리 wrapper 클래스<br>
+ * -> map 크기를 설정하면(setMapSize) 파일을 map 크기 단위의 memory mapped 영역(window)으로 나누어 읽음(mapped mode)<br>
+ * -> mapped mode 에서는 channel의 read 호출과 buffer 복사 없이 mapped 영역에서 바로 한줄씩 읽음
  * 
  * @author jmsohn
  */
 public class FileChannelWrapper extends ChannelWrapper {
 	
+	/** 기본 map 크기(64MB) */
+	public static final long DEFAULT_MAP_SIZE = 64L * 1024 * 1024;
+	
+	/** 분할 영역 wrapper 의 쓰기 buffer 크기 */
+	private static final int REGION_BUFFER_SIZE = 8 * 1024;
+	
+	/** map 크기 - 0 일 경우 mapped mode 가 아님 */
+	@Getter
+	private long mapSize = 0;
+	
+	/** 읽을 영역의 시작 위치 - 분할 영역이 아닐 경우 -1(channel의 현재 위치부터 읽음) */
+	@Getter
+	private long regionStart = -1;
+	
+	/** 읽을 영역의 끝 위치 - 분할 영역이 아닐 경우 -1(파일 끝까지 읽음) */
+	@Getter
+	private long regionEnd = -1;
+	
+	/** 현재 읽기 mapped 영역의 파일 내 시작 위치 */
+	private long windowStart;
+	
+	/** 위치 지정 읽기용 mapped 영역 */
+	private ByteBuffer posWindow;
+	
+	/** 위치 지정 읽기용 mapped 영역의 파일 내 시작 위치 */
+	private long posWindowStart;
+	
 	/**
 	 * 생성자
 	 * 
@@ -23,16 +58,277 @@ public class FileChannelWrapper extends ChannelWrapper {
 		super(chnl, buffer, charset);
 	}
 	
+	/**
+	 * 분할 영역 wrapper 생성자
+	 * 
+	 * @param chnl 입출력을 위한 file channel - 분할 전 wrapper 와 공유함
+	 * @param charset 입출력에 사용할 character set
+	 * @param mapSize map 크기
+	 * @param regionStart 읽을 영역의 시작 위치
+	 * @param regionEnd 읽을 영역의 끝 위치
+	 */
+	private FileChannelWrapper(FileChannel chnl, Charset charset, long mapSize, long regionStart, long regionEnd) throws Exception {
+		
+		super(chnl, ByteBuffer.allocate(REGION_BUFFER_SIZE), charset);
+		
+		this.mapSize = mapSize;
+		this.regionStart = regionStart;
+		this.regionEnd = regionEnd;
+	}
+	
+	/**
+	 * map 크기를 설정하여 mapped mode 로 변경<br>
+	 * 읽기 전에 설정해야 함
+	 * 
+	 * @param mapSize map 크기(byte) - 한줄이 map 크기 보다 클 경우 해당 줄을 읽을 때만 늘어남
+	 * @return 현재 객체
+	 */
+	public FileChannelWrapper setMapSize(long mapSize) {
+		
+		if(mapSize < 1 || mapSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("map size must be between 1 and " + Integer.MAX_VALUE + ": " + mapSize);
+		}
+		
+		this.mapSize = mapSize;
+		
+		return this;
+	}
+	
+	/**
+	 * mapped mode 여부 반환
+	 * 
+	 * @return mapped mode 여부
+	 */
+	public boolean isMapped() {
+		return this.mapSize > 0;
+	}
+	
+	/**
+	 * 분할 영역 wrapper 여부 반환
+	 * 
+	 * @return 분할 영역 wrapper 여부
+	 */
+	public boolean isRegion() {
+		return this.regionStart >= 0;
+	}
+	
+	/**
+	 * 파일의 주어진 위치의 데이터를 읽음<br>
+	 * -> 데이터를 복사하지 않고 mapped 영역의 읽기 전용 buffer(position 0 ~ limit 읽은 길이)를 반환함<br>
+	 * -> 요청한 영역이 이전 mapped 영역 안에 있으면 다시 map 하지 않음<br>
+	 * -> 채널의 현재 위치 및 readLine 에 영향을 주지 않음
+	 * 
+	 * @param offset 읽을 위치
+	 * @param length 읽을 길이 - 파일의 끝을 넘을 경우 파일 끝까지 읽음
+	 * @return 읽은 데이터
+	 */
+	public ByteBuffer read(long offset, int length) throws Exception {
+		
+		// 입력값 검증
+		if(offset < 0) {
+			throw new IllegalArgumentException("offset must be greater than or equal to 0: " + offset);
+		}
+		
+		if(length < 0) {
+			throw new IllegalArgumentException("length must be greater than or equal to 0: " + length);
+		}
+		
+		long size = this.getChannel().size();
+		
+		int readLength = (int)Math.max(0, Math.min(length, size - offset));
+		if(readLength == 0) {
+			return ByteBuffer.allocate(0).asReadOnlyBuffer();
+		}
+		
+		// 이전 mapped 영역을 벗어나는 경우 다시 map 함
+		if(this.posWindow == null
+			|| offset < this.posWindowStart
+			|| offset + readLength > this.posWindowStart + this.posWindow.capacity()) {
+			
+			long mapSize = (this.isMapped() == true)?this.mapSize:DEFAULT_MAP_SIZE;
+			long mapLength = Math.min(Math.max(mapSize, readLength), size - offset);
+			
+			this.posWindow = this.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, mapLength);
+			this.posWindowStart = offset;
+		}
+		
+		// 읽을 영역만 잘라서 반환
+		ByteBuffer read = this.posWindow.asReadOnlyBuffer();
+		int start = (int)(offset - this.posWindowStart);
+		
+		((Buffer)read).limit(start + readLength);
+		((Buffer)read).position(start);
+		
+		return read.slice();
+	}
+	
+	/**
+	 * 파일을 줄 단위 경계로 나누어 여러 스레드에서 각각 읽을 수 있는 분할 영역 wrapper 목록을 반환<br>
+	 * -> 분할 영역 wrapper 는 mapped mode 이며, file channel 을 공유하지만 읽기 상태는 각자 가짐<br>
+	 * -> 분할 영역 wrapper 는 읽기 전용이며 close 해도 file channel 은 닫히지 않음<br>
+	 * -> 파일이 작거나 줄이 긴 경우 요청한 개수보다 적게 나누어질 수 있음
+	 * 
+	 * @param count 분할 개수
+	 * @param lineEnd 줄 구분자
+	 * @return 분할 영역 wrapper 목록
+	 */
+	public List<FileChannelWrapper> split(int count, String lineEnd) throws Exception {
+		
+		// 입력값 검증
+		if(count < 1) {
+			throw new IllegalArgumentException("count must be greater than 0: " + count);
+		}
+		
+		if(lineEnd == null) {
+			throw new NullPointerException("line end is null");
+		}
+		
+		if(lineEnd.isEmpty() == true) {
+			throw new Exception("line end is not defined");
+		}
+		
+		byte[] lineEndBytes = lineEnd.getBytes(this.getCharset());
+		
+		long start = (this.isRegion() == true)?this.regionStart:0;
+		long end = (this.isRegion() == true)?this.regionEnd:this.getChannel().size();
+		long mapSize = (this.isMapped() == true)?this.mapSize:DEFAULT_MAP_SIZE;
+		
+		List<FileChannelWrapper> regions = new ArrayList<>();
+		
+		long regionStart = start;
+		for(int index = 1; index <= count && regionStart < end; index++) {
+			
+			// 균등 분할 위치 이후의 첫번째 줄 시작 위치를 영역의 끝으로 함
+			long regionEnd = end;
+			if(index < count) {
+				
+				long target = start + (end - start) * index / count;
+				regionEnd = this.findLineStart(Math.max(target, regionStart), end, lineEndBytes);
+			}
+			
+			if(regionEnd > regionStart) {
+				regions.add(new FileChannelWrapper(this.getChannel(), this.getCharset(), mapSize, regionStart, regionEnd));
+			}
+			
+			regionStart = regionEnd;
+		}
+		
+		return regions;
+	}
+	
+	/**
+	 * 파일을 줄 단위 경계로 나누어 분할 영역 wrapper 목록을 반환<br>
+	 * 줄 구분자는 System.lineSeparator()
+	 * 
+	 * @param count 분할 개수
+	 * @return 분할 영역 wrapper 목록
+	 */
+	public List<FileChannelWrapper> split(int count) throws Exception {
+		return this.split(count, System.lineSeparator());
+	}
+	
+	/**
+	 * 주어진 위치 이후(포함)의 첫번째 줄 시작 위치를 반환
+	 * 
+	 * @param from 검색 시작 위치
+	 * @param end 검색 끝 위치
+	 * @param lineEndBytes 줄 구분자
+	 * @return 줄 시작 위치, 없을 경우 end
+	 */
+	private long findLineStart(long from, long end, byte[] lineEndBytes) throws Exception {
+		
+		// from 직전에 구분자가 끝나는 경우도 찾기 위해 구분자 길이 만큼 앞에서 검색함
+		long offset = Math.max(0, from - lineEndBytes.length);
+		int chunkSize = 64 * 1024;
+		
+		while(offset < end) {
+			
+			ByteBuffer chunk = this.read(offset, (int)Math.min(chunkSize, end - offset));
+			int last = chunk.limit() - lineEndBytes.length;
+			
+			for(int index = 0; index <= last; index++) {
+				
+				int matched = 0;
+				while(matched < lineEndBytes.length && chunk.get(index + matched) == lineEndBytes[matched]) {
+					matched++;
+				}
+				
+				long lineStart = offset + index + lineEndBytes.length;
+				if(matched == lineEndBytes.length && lineStart >= from) {
+					return lineStart;
+				}
+			}
+			
+			// 청크 경계에 걸친 구분자를 위해 구분자 길이 - 1 만큼 겹쳐서 검색함
+			if(offset + chunk.limit() >= end) {
+				break;
+			}
+			
+			offset += Math.max(1, chunk.limit() - lineEndBytes.length + 1);
+		}
+		
+		return end;
+	}
+	
+	@Override
+	protected ByteBuffer fill(ByteBuffer readBuffer) throws Exception {
+		
+		if(this.isMapped() == false) {
+			return super.fill(readBuffer);
+		}
+		
+		// 읽지 않은 데이터의 파일 내 위치부터 다시 map 함
+		long start = 0;
+		int remaining = 0;
+		
+		if(readBuffer == null) {
+			start = (this.isRegion() == true)?this.regionStart:this.getChannel().position();
+		} else {
+			start = this.windowStart + readBuffer.position();
+			remaining = readBuffer.remaining();
+		}
+		
+		long end = (this.isRegion() == true)?this.regionEnd:this.getChannel().size();
+		
+		// 한줄이 map 크기 보다 큰 경우 map 크기를 두배로 늘림
+		long mapLength = Math.min(Math.min(Math.max(this.mapSize, (long)remaining * 2), end - start), Integer.MAX_VALUE);
+		if(start + mapLength >= end) {
+			this.setReadEnd(true);
+		}
+		
+		this.windowStart = start;
+		return this.getChannel().map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, mapLength));
+	}
+	
 	@Override
 	protected int write(ByteBuffer src) throws IOException {
+		
+		if(this.isRegion() == true) {
+			throw new NonWritableChannelException();
+		}
+		
 		return this.getChannel().write(src);
 	}
-
+	
 	@Override
 	protected int read(ByteBuffer dst) throws IOException {
 		return this.getChannel().read(dst);
 	}
 	
+	/**
+	 * close file channel<br>
+	 * 분할 영역 wrapper 는 file channel 을 공유하므로 닫지 않음
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		if(this.isRegion() == true) {
+			return;
+		}
+		
+		super.close();
+	}
+	
 	/**
 	 * 설정된 File Channel을 반환
 	 * 
@@ -41,4 +337,4 @@ public class FileChannelWrapper extends ChannelWrapper {
 	private FileChannel getChannel() {
 		return (FileChannel)this.getChnl();
 	}
-}
\ No newline at end of file
+}
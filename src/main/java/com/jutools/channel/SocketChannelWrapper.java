@@ -2,16 +2,43 @@ package com.jutools.channel;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * socket channel 처리 wrapper 클래스
+ * socket channel 처리 wrapper 클래스<br>
+ * -> SocketEventLoop 에 등록된 경우 writeAsync, readLineAsync 로 비동기 입출력을 수행함<br>
+ * -> 비동기 쓰기 요청은 연결 별 쓰기 큐에 쌓이며, I/O 스레드에서 모아서 한번에 씀(gathering write)
  * 
  * @author jmsohn
  */
 public class SocketChannelWrapper extends ChannelWrapper {
 	
+	/** 한번의 gathering write 에 쓰는 최대 buffer 개수 */
+	private static final int MAX_GATHER = 64;
+	
+	// 비동기 입출력을 위한 속성들
+	/** 배정된 event loop 의 I/O 스레드 - 등록되지 않은 경우 null */
+	private volatile SocketEventLoop.Worker worker;
+	/** selector 등록 key - I/O 스레드에서만 사용 */
+	private SelectionKey key;
+	/** 연결 완료 future - 비동기 연결 중인 경우에만 설정됨 */
+	private CompletableFuture<SocketChannelWrapper> connectFuture;
+	/** 쓰기 요청 큐 */
+	private ConcurrentLinkedQueue<WriteRequest> writeQueue = new ConcurrentLinkedQueue<>();
+	/** 한줄 읽기 요청 큐 */
+	private ConcurrentLinkedQueue<ReadRequest> readQueue = new ConcurrentLinkedQueue<>();
+	/** 쓰기 작업이 I/O 스레드에 요청되어 있는지 여부 */
+	private AtomicBoolean writeScheduled = new AtomicBoolean(false);
+	/** gathering write 용 buffer 배열 - I/O 스레드에서만 사용 */
+	private ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+	
 	/**
 	 * 생성자
 	 * 
@@ -22,23 +49,439 @@ public class SocketChannelWrapper extends ChannelWrapper {
 	public SocketChannelWrapper(SocketChannel chnl, ByteBuffer buffer, Charset charset) throws Exception {
 		super(chnl, buffer, charset);
 	}
-
+	
 	@Override
 	protected int write(ByteBuffer src) throws IOException {
 		return this.getChannel().write(src);
 	}
-
+	
 	@Override
 	protected int read(ByteBuffer dst) throws IOException {
 		return this.getChannel().read(dst);
 	}
-
+	
+	/**
+	 * event loop 에 등록되어 비동기 입출력이 가능한지 여부 반환
+	 * 
+	 * @return 비동기 입출력 가능 여부
+	 */
+	public boolean isAsync() {
+		return this.worker != null;
+	}
+	
+	/**
+	 * 여러 buffer의 데이터를 비동기로 씀<br>
+	 * -> buffer의 데이터는 쓰기가 완료될 때까지 변경하면 안됨
+	 * 
+	 * @param srcs 쓸 데이터가 담긴 buffer 목록
+	 * @return 쓰기 완료 future
+	 */
+	public CompletableFuture<Void> writeAsync(ByteBuffer... srcs) {
+		
+		if(srcs == null) {
+			throw new NullPointerException("source buffers is null.");
+		}
+		
+		for(ByteBuffer src: srcs) {
+			if(src == null) {
+				throw new NullPointerException("source buffer is null.");
+			}
+		}
+		
+		SocketEventLoop.Worker worker = this.getWorker();
+		
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		this.writeQueue.add(new WriteRequest(srcs, future));
+		
+		// event loop 가 중단된 경우 요청을 오류로 완료함
+		if(worker.isStopped() == true) {
+			
+			this.failAll(new ClosedChannelException());
+			return future;
+		}
+		
+		// 이미 요청된 쓰기 작업이 없을 경우에만 요청함
+		if(this.writeScheduled.compareAndSet(false, true) == true) {
+			worker.execute(this::onWritable);
+		}
+		
+		return future;
+	}
+	
+	/**
+	 * 문자열을 비동기로 씀<br>
+	 * 설정된 character set 으로 encode 함
+	 * 
+	 * @param msg 쓸 문자열
+	 * @return 쓰기 완료 future
+	 */
+	public CompletableFuture<Void> writeAsync(String msg) {
+		
+		if(msg == null) {
+			throw new NullPointerException("message is null.");
+		}
+		
+		return this.writeAsync(this.getCharset().encode(msg));
+	}
+	
+	/**
+	 * 비동기로 한줄을 읽음<br>
+	 * 읽은 한줄에는 lineEnd가 포함되며, 다 읽었을 경우 null로 완료됨
+	 * 
+	 * @param lineEnd 읽을 줄에 대한 구분자
+	 * @return 읽은 한줄의 future
+	 */
+	public CompletableFuture<String> readLineAsync(String lineEnd) throws Exception {
+		
+		// 입력값 검증
+		if(lineEnd == null) {
+			throw new NullPointerException("line end is null");
+		}
+		
+		if(lineEnd.isEmpty() == true) {
+			throw new Exception("line end is not defined");
+		}
+		
+		SocketEventLoop.Worker worker = this.getWorker();
+		
+		CompletableFuture<String> future = new CompletableFuture<>();
+		this.readQueue.add(new ReadRequest(lineEnd, future));
+		
+		// event loop 가 중단된 경우 요청을 오류로 완료함
+		if(worker.isStopped() == true) {
+			
+			this.failAll(new ClosedChannelException());
+			return future;
+		}
+		
+		// 이미 읽은 데이터에 한줄이 있을 수 있으므로 바로 읽기 시도
+		worker.execute(this::onReadable);
+		
+		return future;
+	}
+	
+	/**
+	 * 비동기로 한줄을 읽음<br>
+	 * 줄 구분자는 System.lineSeparator()
+	 * 
+	 * @return 읽은 한줄의 future
+	 */
+	public CompletableFuture<String> readLineAsync() throws Exception {
+		return this.readLineAsync(System.lineSeparator());
+	}
+	
+	/**
+	 * close socket channel<br>
+	 * 완료되지 않은 비동기 요청은 ClosedChannelException 으로 완료됨
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		super.close();
+		this.failAll(new ClosedChannelException());
+		this.unregister();
+	}
+	
+	/**
+	 * 배정된 I/O 스레드 설정
+	 * 
+	 * @param worker I/O 스레드
+	 */
+	void setWorker(SocketEventLoop.Worker worker) {
+		this.worker = worker;
+	}
+	
+	/**
+	 * selector 등록 key 설정 - I/O 스레드에서 호출됨
+	 * 
+	 * @param key selector 등록 key
+	 */
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+	
+	/**
+	 * 연결 완료 future 설정
+	 * 
+	 * @param connectFuture 연결 완료 future
+	 */
+	void setConnectFuture(CompletableFuture<SocketChannelWrapper> connectFuture) {
+		this.connectFuture = connectFuture;
+	}
+	
+	/**
+	 * 연결 완료 이벤트 처리 - I/O 스레드에서 호출됨
+	 */
+	void onConnectable() {
+		
+		try {
+			
+			if(this.getChannel().finishConnect() == true) {
+				
+				this.interest(SelectionKey.OP_CONNECT, false);
+				
+				CompletableFuture<SocketChannelWrapper> future = this.connectFuture;
+				this.connectFuture = null;
+				
+				if(future != null) {
+					future.complete(this);
+				}
+			}
+			
+		} catch(Exception ex) {
+			this.fail(ex);
+		}
+	}
+	
+	/**
+	 * 읽기 가능 이벤트 처리 - I/O 스레드에서 호출됨<br>
+	 * 읽기 요청 순서대로 완성된 줄을 전달함
+	 */
+	void onReadable() {
+		
+		try {
+			
+			ReadRequest request = null;
+			while((request = this.readQueue.peek()) != null) {
+				
+				String line = this.pollLine(request.lineEnd);
+				
+				// 한줄이 완성되지 않은 경우 읽기 이벤트를 기다림
+				if(line == null && this.isReadEnd() == false) {
+					this.interest(SelectionKey.OP_READ, true);
+					return;
+				}
+				
+				this.readQueue.poll();
+				request.future.complete(line);
+			}
+			
+			this.interest(SelectionKey.OP_READ, false);
+			
+		} catch(Exception ex) {
+			this.fail(ex);
+		}
+	}
+	
+	/**
+	 * 쓰기 가능 이벤트 처리 - I/O 스레드에서 호출됨<br>
+	 * 쓰기 큐의 요청들을 모아서 gathering write 로 씀
+	 */
+	void onWritable() {
+		
+		// 이후 추가되는 요청은 다시 쓰기 작업을 요청하도록 함
+		this.writeScheduled.set(false);
+		
+		try {
+			
+			while(true) {
+				
+				// 쓰기 큐에서 buffer를 모음
+				int count = 0;
+				
+				for(WriteRequest request: this.writeQueue) {
+					
+					for(ByteBuffer src: request.srcs) {
+						
+						if(count == MAX_GATHER) {
+							break;
+						}
+						
+						if(src.hasRemaining() == true) {
+							this.gather[count++] = src;
+						}
+					}
+					
+					if(count == MAX_GATHER) {
+						break;
+					}
+				}
+				
+				if(count > 0) {
+					this.getChannel().write(this.gather, 0, count);
+				}
+				
+				boolean isFull = count > 0 && this.gather[count - 1].hasRemaining() == true;
+				Arrays.fill(this.gather, 0, count, null);
+				
+				// 모두 쓴 요청 완료 처리
+				WriteRequest request = null;
+				while((request = this.writeQueue.peek()) != null && request.isDone() == true) {
+					this.writeQueue.poll();
+					request.future.complete(null);
+				}
+				
+				// socket 의 쓰기 buffer가 가득 찬 경우 쓰기 이벤트를 기다림
+				if(isFull == true) {
+					this.interest(SelectionKey.OP_WRITE, true);
+					return;
+				}
+				
+				if(request == null) {
+					this.interest(SelectionKey.OP_WRITE, false);
+					return;
+				}
+			}
+			
+		} catch(Exception ex) {
+			
+			// 닫힌 연결의 key 사용(CancelledKeyException) 등도 오류로 완료함
+			this.fail(ex);
+		}
+	}
+	
+	/**
+	 * 오류 발생 시 channel 을 닫고 완료되지 않은 비동기 요청을 오류로 완료함
+	 * 
+	 * @param ex 발생한 오류
+	 */
+	void fail(Throwable ex) {
+		
+		try {
+			super.close();
+		} catch(IOException ioex) {
+			// 무시함
+		}
+		
+		this.failAll(ex);
+		this.unregister();
+	}
+	
+	/**
+	 * 완료되지 않은 비동기 요청을 오류로 완료함
+	 * 
+	 * @param ex 발생한 오류
+	 */
+	void failAll(Throwable ex) {
+		
+		CompletableFuture<SocketChannelWrapper> connectFuture = this.connectFuture;
+		if(connectFuture != null) {
+			connectFuture.completeExceptionally(ex);
+		}
+		
+		WriteRequest writeRequest = null;
+		while((writeRequest = this.writeQueue.poll()) != null) {
+			writeRequest.future.completeExceptionally(ex);
+		}
+		
+		ReadRequest readRequest = null;
+		while((readRequest = this.readQueue.poll()) != null) {
+			readRequest.future.completeExceptionally(ex);
+		}
+	}
+	
+	/**
+	 * 배정된 I/O 스레드의 wrapper 목록에서 삭제
+	 */
+	private void unregister() {
+		
+		SocketEventLoop.Worker worker = this.worker;
+		if(worker != null) {
+			worker.remove(this);
+		}
+	}
+	
+	/**
+	 * 관심 이벤트 변경 - I/O 스레드에서 호출됨
+	 * 
+	 * @param op 이벤트
+	 * @param on 설정 여부
+	 */
+	private void interest(int op, boolean on) {
+		
+		if(this.key == null || this.key.isValid() == false) {
+			return;
+		}
+		
+		int ops = this.key.interestOps();
+		this.key.interestOps((on == true)?ops | op:ops & ~op);
+	}
+	
+	/**
+	 * 배정된 I/O 스레드 반환
+	 * 
+	 * @return I/O 스레드
+	 */
+	private SocketEventLoop.Worker getWorker() {
+		
+		SocketEventLoop.Worker worker = this.worker;
+		if(worker == null) {
+			throw new IllegalStateException("wrapper is not registered to event loop.");
+		}
+		
+		return worker;
+	}
+	
 	/**
 	 * 설정된 Socket Channel을 반환
 	 * 
 	 * @return 설정된 Socket Channel
 	 */
-	private SocketChannel getChannel() {
+	SocketChannel getChannel() {
 		return (SocketChannel)this.getChnl();
 	}
+	
+	/**
+	 * 비동기 쓰기 요청
+	 * 
+	 * @author jmsohn
+	 */
+	private static class WriteRequest {
+		
+		/** 쓸 데이터 */
+		private ByteBuffer[] srcs;
+		/** 완료 future */
+		private CompletableFuture<Void> future;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param srcs 쓸 데이터
+		 * @param future 완료 future
+		 */
+		private WriteRequest(ByteBuffer[] srcs, CompletableFuture<Void> future) {
+			this.srcs = srcs;
+			this.future = future;
+		}
+		
+		/**
+		 * 모두 썼는지 여부 반환
+		 * 
+		 * @return 모두 썼는지 여부
+		 */
+		private boolean isDone() {
+			
+			for(ByteBuffer src: this.srcs) {
+				if(src.hasRemaining() == true) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * 비동기 한줄 읽기 요청
+	 * 
+	 * @author jmsohn
+	 */
+	private static class ReadRequest {
+		
+		/** 줄 구분자 */
+		private String lineEnd;
+		/** 완료 future */
+		private CompletableFuture<String> future;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param lineEnd 줄 구분자
+		 * @param future 완료 future
+		 */
+		private ReadRequest(String lineEnd, CompletableFuture<String> future) {
+			this.lineEnd = lineEnd;
+			this.future = future;
+		}
+	}
 }
@@ -0,0 +1,361 @@
+package com.jutools.channel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * Selector 기반 socket channel event loop 클래스<br>
+ * -> 여러 socket channel wrapper를 non-blocking mode로 등록하여, 적은 수의 I/O 스레드에서 처리함<br>
+ * -> 등록된 wrapper는 writeAsync, readLineAsync 로 비동기 입출력을 수행함<br>
+ * -> 각 wrapper는 I/O 스레드 하나에 배정되며(round robin), 해당 wrapper의 입출력은 모두 배정된 스레드에서 수행됨<br>
+ * 
+ * <pre>
+ * try(SocketEventLoop loop = new SocketEventLoop(2)) {
+ *   SocketChannelWrapper wrapper = loop.connect("localhost", 8080).get();
+ *   wrapper.writeAsync("hello\n");
+ *   String line = wrapper.readLineAsync("\n").get();
+ * }
+ * </pre>
+ * 
+ * @author jmsohn
+ */
+public class SocketEventLoop implements Closeable {
+	
+	/** 연결 생성 시 기본 buffer 크기 */
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+	
+	/** I/O 스레드 개수 */
+	@Getter
+	private int ioThreads;
+	
+	/** I/O 스레드 목록 */
+	private Worker[] workers;
+	
+	/** 다음에 배정할 I/O 스레드 번호 */
+	private AtomicInteger next = new AtomicInteger(0);
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param ioThreads I/O 스레드 개수
+	 */
+	public SocketEventLoop(int ioThreads) throws IOException {
+		
+		if(ioThreads < 1) {
+			throw new IllegalArgumentException("I/O thread count must be greater than 0: " + ioThreads);
+		}
+		
+		this.ioThreads = ioThreads;
+		this.workers = new Worker[ioThreads];
+		
+		for(int index = 0; index < ioThreads; index++) {
+			this.workers[index] = new Worker("SocketEventLoop-" + index);
+		}
+	}
+	
+	/**
+	 * 생성자<br>
+	 * I/O 스레드 개수는 CPU 개수
+	 */
+	public SocketEventLoop() throws IOException {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * 연결된 socket channel wrapper를 event loop 에 등록<br>
+	 * -> channel은 non-blocking mode로 변경되며, 이후 동기 입출력(write, readLine)은 사용할 수 없음
+	 * 
+	 * @param wrapper 등록할 socket channel wrapper
+	 * @return 등록된 socket channel wrapper
+	 */
+	public SocketChannelWrapper register(SocketChannelWrapper wrapper) throws IOException {
+		
+		if(wrapper == null) {
+			throw new NullPointerException("wrapper is null.");
+		}
+		
+		SocketChannel chnl = wrapper.getChannel();
+		if(chnl.isConnected() == false) {
+			throw new IllegalArgumentException("channel is not connected.");
+		}
+		
+		chnl.configureBlocking(false);
+		this.register(wrapper, 0);
+		
+		return wrapper;
+	}
+	
+	/**
+	 * 주어진 주소로 non-blocking 연결 후 event loop 에 등록
+	 * 
+	 * @param hostname 연결할 hostname
+	 * @param port 연결할 port 번호
+	 * @param buffer 입출력에 사용할 byte buffer
+	 * @param charset 입출력에 사용할 character set
+	 * @return 연결된 socket channel wrapper 의 future
+	 */
+	public CompletableFuture<SocketChannelWrapper> connect(String hostname, int port, ByteBuffer buffer, Charset charset) throws Exception {
+		
+		SocketChannel chnl = SocketChannel.open();
+		
+		try {
+			
+			chnl.configureBlocking(false);
+			
+			SocketChannelWrapper wrapper = new SocketChannelWrapper(chnl, buffer, charset);
+			CompletableFuture<SocketChannelWrapper> future = new CompletableFuture<>();
+			
+			if(chnl.connect(new InetSocketAddress(hostname, port)) == true) {
+				
+				// 바로 연결된 경우
+				this.register(wrapper, 0);
+				future.complete(wrapper);
+				
+			} else {
+				
+				// 연결이 완료되면 future 완료
+				wrapper.setConnectFuture(future);
+				this.register(wrapper, SelectionKey.OP_CONNECT);
+			}
+			
+			return future;
+			
+		} catch(Exception ex) {
+			
+			chnl.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * 주어진 주소로 non-blocking 연결 후 event loop 에 등록
+	 * 
+	 * @param hostname 연결할 hostname
+	 * @param port 연결할 port 번호
+	 * @param capacity 입출력에 사용할 byte buffer의 크기
+	 * @param charset 입출력에 사용할 character set
+	 * @return 연결된 socket channel wrapper 의 future
+	 */
+	public CompletableFuture<SocketChannelWrapper> connect(String hostname, int port, int capacity, Charset charset) throws Exception {
+		return this.connect(hostname, port, ByteBuffer.allocateDirect(capacity), charset);
+	}
+	
+	/**
+	 * 주어진 주소로 non-blocking 연결 후 event loop 에 등록
+	 * 
+	 * @param hostname 연결할 hostname
+	 * @param port 연결할 port 번호
+	 * @return 연결된 socket channel wrapper 의 future
+	 */
+	public CompletableFuture<SocketChannelWrapper> connect(String hostname, int port) throws Exception {
+		return this.connect(hostname, port, DEFAULT_CAPACITY, Charset.defaultCharset());
+	}
+	
+	/**
+	 * event loop 중단<br>
+	 * I/O 스레드를 중단하고 selector를 닫음, 등록된 channel은 닫지 않음<br>
+	 * 등록된 wrapper의 완료되지 않은 비동기 요청은 ClosedChannelException 으로 완료됨
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		for(Worker worker: this.workers) {
+			worker.stop();
+		}
+		
+		for(Worker worker: this.workers) {
+			for(SocketChannelWrapper wrapper: worker.wrappers) {
+				wrapper.failAll(new ClosedChannelException());
+			}
+		}
+	}
+	
+	/**
+	 * wrapper 를 I/O 스레드에 배정하고 selector 에 등록
+	 * 
+	 * @param wrapper 등록할 socket channel wrapper
+	 * @param ops 관심 이벤트
+	 */
+	private void register(SocketChannelWrapper wrapper, int ops) {
+		
+		Worker worker = this.workers[Math.floorMod(this.next.getAndIncrement(), this.workers.length)];
+		
+		// 등록 작업보다 먼저 요청된 입출력 작업이 없도록 worker 를 먼저 설정함
+		wrapper.setWorker(worker);
+		worker.wrappers.add(wrapper);
+		
+		worker.execute(() -> {
+			
+			try {
+				wrapper.setKey(wrapper.getChannel().register(worker.selector, ops, wrapper));
+			} catch(IOException ex) {
+				wrapper.fail(ex);
+			}
+		});
+	}
+	
+	/**
+	 * I/O 스레드 - selector 하나를 처리함
+	 * 
+	 * @author jmsohn
+	 */
+	static class Worker implements Runnable {
+		
+		/** selector */
+		private Selector selector;
+		
+		/** I/O 스레드에서 수행할 작업 목록 */
+		private ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		
+		/** 배정된 wrapper 목록 - 중단 시 완료되지 않은 요청을 오류로 완료하기 위함 */
+		private Set<SocketChannelWrapper> wrappers = ConcurrentHashMap.newKeySet();
+		
+		/** I/O 스레드 */
+		private Thread thread;
+		
+		/** 중단 여부 */
+		private volatile boolean stop = false;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param name 스레드 명
+		 */
+		private Worker(String name) throws IOException {
+			
+			this.selector = Selector.open();
+			
+			this.thread = new Thread(this, name);
+			this.thread.start();
+		}
+		
+		/**
+		 * I/O 스레드에서 작업 수행 요청
+		 * 
+		 * @param task 수행할 작업
+		 */
+		void execute(Runnable task) {
+			
+			this.tasks.add(task);
+			this.selector.wakeup();
+		}
+		
+		/**
+		 * 배정된 wrapper 삭제 - wrapper 가 닫힌 경우 호출됨
+		 * 
+		 * @param wrapper 삭제할 wrapper
+		 */
+		void remove(SocketChannelWrapper wrapper) {
+			this.wrappers.remove(wrapper);
+		}
+		
+		/**
+		 * 중단 여부 반환
+		 * 
+		 * @return 중단 여부
+		 */
+		boolean isStopped() {
+			return this.stop;
+		}
+		
+		@Override
+		public void run() {
+			
+			while(this.stop == false) {
+				
+				try {
+					this.selector.select();
+				} catch(Exception ex) {
+					
+					if(this.selector.isOpen() == false) {
+						break;
+					}
+					
+					continue;
+				}
+				
+				// 요청된 작업 수행
+				// 작업 별로 예외를 처리하여 다른 작업의 수행에 영향을 주지 않도록 함
+				Runnable task = null;
+				while((task = this.tasks.poll()) != null) {
+					
+					try {
+						task.run();
+					} catch(Exception ex) {
+						// 작업에서 처리하지 못한 예외는 무시함
+					}
+				}
+				
+				// 발생한 이벤트 처리
+				// 연결 별로 예외를 처리하여, 오류가 발생한 연결만 닫고 다른 연결은 계속 처리함
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while(keys.hasNext() == true) {
+					
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					SocketChannelWrapper wrapper = (SocketChannelWrapper)key.attachment();
+					
+					try {
+						
+						if(key.isValid() == true && key.isConnectable() == true) {
+							wrapper.onConnectable();
+						}
+						
+						if(key.isValid() == true && key.isReadable() == true) {
+							wrapper.onReadable();
+						}
+						
+						if(key.isValid() == true && key.isWritable() == true) {
+							wrapper.onWritable();
+						}
+						
+					} catch(Exception ex) {
+						wrapper.fail(ex);
+					}
+				}
+			}
+			
+			try {
+				this.selector.close();
+			} catch(IOException ioex) {
+				// 무시함
+			}
+		}
+		
+		/**
+		 * I/O 스레드 중단
+		 */
+		private void stop() {
+			
+			this.stop = true;
+			this.selector.wakeup();
+			
+			// I/O 스레드에서 호출된 경우 기다리지 않음
+			if(Thread.currentThread() == this.thread) {
+				return;
+			}
+			
+			try {
+				this.thread.join();
+			} catch(InterruptedException iex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
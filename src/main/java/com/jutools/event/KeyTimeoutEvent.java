@@ -0,0 +1,21 @@
+package com.jutools.event;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * 키 별 타임아웃 발생 이벤트 클래스<br>
+ * -> TimeoutTracker 에서 타임아웃된 키와 시간 정보를 전달함
+ * 
+ * @param <K> 키 타입
+ * @author jmsohn
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class KeyTimeoutEvent<K> extends TimeoutEvent {
+	
+	/** 타임아웃된 키 */
+	private K key;
+}
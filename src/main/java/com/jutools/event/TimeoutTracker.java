@@ -0,0 +1,362 @@
+package com.jutools.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+
+/**
+ * 키 별로 특정 시간 동안 변화(touch)가 없으면 이벤트를 발생시키는 클래스<br>
+ * -> 세션, 장비 ID 등 많은 수의 키의 유휴 상태를 하나의 스레드에서 감시함<br>
+ * -> 키의 만료 시간은 타이밍 휠(TimingWheel)에 등록하며, touch 시에는 최종 변화 시간만 기록하고(lock 없음)
+ *    만료 시간이 되었을 때 실제 만료 시간을 다시 계산하여 재등록함<br>
+ * -> tick 마다 만료된 키의 이벤트를 모아서 리스너에 한번에 전달함<br>
+ * -> 타임아웃된 키는 감시 대상에서 삭제되며, 다시 touch 하면 새로 감시함
+ * 
+ * @param <K> 키 타입
+ * @author jmsohn
+ */
+public class TimeoutTracker<K> {
+	
+	/** 중단 여부 */
+	private volatile boolean stop = true;
+	
+	/** 대기 기간(ms) */
+	@Getter
+	private long timeout;
+	
+	/** tick 크기(ms) */
+	@Getter
+	private long tick;
+	
+	/** 키 별 최종 변화 정보 */
+	private ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+	
+	/** 새로 추가되어 타이밍 휠에 등록해야 할 키 목록 */
+	private ConcurrentLinkedQueue<K> registered = new ConcurrentLinkedQueue<>();
+	
+	/** 만료 시간 타이밍 휠 - tick 스레드에서만 사용함 */
+	private TimingWheel<K> wheel;
+	
+	/** tick 스레드 */
+	private Thread tickThread;
+	
+	/** 이벤트 리스너 목록 */
+	private List<Consumer<List<KeyTimeoutEvent<K>>>> listenerList = new Vector<>();
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param timeout 대기 시간(ms)
+	 * @param tick tick 크기(ms) - 타임아웃 검사 주기
+	 */
+	public TimeoutTracker(long timeout, long tick) {
+		
+		// 입력값 검증
+		if(timeout < 1) {
+			throw new IllegalArgumentException("timeout value must be greater than 0: " + timeout);
+		}
+		
+		if(tick < 1) {
+			throw new IllegalArgumentException("tick must be greater than 0: " + tick);
+		}
+		
+		this.timeout = timeout;
+		this.tick = tick;
+		
+		this.wheel = new TimingWheel<>(tick);
+	}
+	
+	/**
+	 * 생성자<br>
+	 * tick 크기는 대기 시간의 1/10(최소 1ms, 최대 1초)
+	 * 
+	 * @param timeout 대기 시간(ms)
+	 */
+	public TimeoutTracker(long timeout) {
+		this(timeout, Math.max(1, Math.min(1000, timeout / 10)));
+	}
+	
+	/**
+	 * 이벤트 리스너 추가<br>
+	 * 리스너에는 tick 마다 타임아웃된 키의 이벤트 목록이 전달됨
+	 * 
+	 * @param listener 추가할 이벤트 리스너
+	 * @return 현재 객체
+	 */
+	public TimeoutTracker<K> add(Consumer<List<KeyTimeoutEvent<K>>> listener) {
+		
+		if(listener == null) {
+			throw new IllegalArgumentException("listener is null.");
+		}
+		
+		this.listenerList.add(listener);
+		
+		return this;
+	}
+	
+	/**
+	 * 키의 touch 수행<br>
+	 * 감시 중이지 않은 키는 새로 감시함
+	 * 
+	 * @param key 키
+	 */
+	public void touch(K key) {
+		
+		if(key == null) {
+			throw new NullPointerException("key is null.");
+		}
+		
+		long cur = System.currentTimeMillis();
+		
+		// 감시 중인 키는 최종 변화 시간만 기록
+		Entry entry = this.entries.get(key);
+		if(entry != null) {
+			
+			entry.lastTouched = cur;
+			
+			if(entry.expired == false) {
+				return;
+			}
+		}
+		
+		// 새로운 키 또는 만료 처리 중인 키는 새로 등록
+		Entry newEntry = new Entry(cur);
+		
+		while(true) {
+			
+			Entry prev = this.entries.putIfAbsent(key, newEntry);
+			
+			if(prev == null) {
+				this.registered.add(key);
+				return;
+			}
+			
+			if(prev.expired == false) {
+				prev.lastTouched = cur;
+				return;
+			}
+			
+			if(this.entries.replace(key, prev, newEntry) == true) {
+				this.registered.add(key);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * 키의 감시 중단
+	 * 
+	 * @param key 키
+	 * @return 감시 중이었는지 여부
+	 */
+	public boolean remove(K key) {
+		
+		if(key == null) {
+			return false;
+		}
+		
+		// 타이밍 휠의 등록은 만료 시간이 되었을 때 무시됨
+		return this.entries.remove(key) != null;
+	}
+	
+	/**
+	 * 키를 감시 중인지 여부 반환
+	 * 
+	 * @param key 키
+	 * @return 감시 중인지 여부
+	 */
+	public boolean contains(K key) {
+		
+		if(key == null) {
+			return false;
+		}
+		
+		return this.entries.containsKey(key);
+	}
+	
+	/**
+	 * 키의 최종 변화 시간 반환
+	 * 
+	 * @param key 키
+	 * @return 최종 변화 시간(ms), 감시 중이지 않을 경우 -1
+	 */
+	public long getLastTouched(K key) {
+		
+		Entry entry = (key == null)?null:this.entries.get(key);
+		return (entry == null)?-1:entry.lastTouched;
+	}
+	
+	/**
+	 * 감시 중인 키 개수 반환
+	 * 
+	 * @return 감시 중인 키 개수
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+	
+	/**
+	 * 이벤트 대기 시작
+	 * 
+	 * @return 현재 객체
+	 */
+	public TimeoutTracker<K> run() {
+		
+		if(this.stop == false) {
+			throw new IllegalStateException("thread is aleady started.");
+		}
+		
+		this.stop = false;
+		
+		// tick 스레드 생성
+		this.tickThread = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				
+				while(stop == false) {
+					
+					try {
+						
+						Thread.sleep(tick);
+						
+						List<KeyTimeoutEvent<K>> events = expire(System.currentTimeMillis());
+						if(events.size() == 0) {
+							continue;
+						}
+						
+						// 리스너에게 전달
+						for(Consumer<List<KeyTimeoutEvent<K>>> listener: listenerList) {
+							
+							try {
+								listener.accept(events);
+							} catch(RuntimeException ex) {
+								// 다른 리스너 및 감시에 영향을 주지 않도록 무시함
+							}
+						}
+						
+					} catch(InterruptedException iex) {
+						stop = true;
+					}
+				}
+			}
+		});
+		
+		// tick 스레드 시작
+		this.tickThread.start();
+		
+		return this;
+	}
+	
+	/**
+	 * tick 스레드 중단
+	 * 
+	 * @return 현재 객체
+	 */
+	public TimeoutTracker<K> stop() {
+		
+		if(this.stop == true || this.tickThread.isAlive() == false) {
+			throw new IllegalStateException("thread is aleady stopped.");
+		}
+		
+		this.stop = true;
+		
+		if(this.tickThread != null && this.tickThread.isAlive() == true) {
+			this.tickThread.interrupt();
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 주어진 시간까지 타임아웃된 키를 감시 대상에서 삭제하고 이벤트 목록 반환<br>
+	 * tick 스레드에서만 호출됨
+	 * 
+	 * @param cur 현재 시간(ms)
+	 * @return 타임아웃 이벤트 목록
+	 */
+	List<KeyTimeoutEvent<K>> expire(long cur) {
+		
+		// 새로 추가된 키를 타이밍 휠에 등록
+		K key = null;
+		while((key = this.registered.poll()) != null) {
+			
+			Entry entry = this.entries.get(key);
+			if(entry != null) {
+				this.wheel.schedule(key, entry.lastTouched + this.timeout);
+			}
+		}
+		
+		// 만료 시간이 된 키 검사
+		List<KeyTimeoutEvent<K>> events = new ArrayList<>();
+		
+		for(K expiredKey: this.wheel.advance(cur)) {
+			
+			// 감시 중단된 키
+			Entry entry = this.entries.get(expiredKey);
+			if(entry == null) {
+				continue;
+			}
+			
+			// 그 사이 touch 된 경우 실제 만료 시간으로 재등록
+			long lastTouched = entry.lastTouched;
+			if(lastTouched + this.timeout > cur) {
+				this.wheel.schedule(expiredKey, lastTouched + this.timeout);
+				continue;
+			}
+			
+			// 만료 표시 후 다시 확인 - 만료 표시 전에 touch 된 경우 만료 취소
+			entry.expired = true;
+			
+			lastTouched = entry.lastTouched;
+			if(lastTouched + this.timeout > cur) {
+				
+				entry.expired = false;
+				this.wheel.schedule(expiredKey, lastTouched + this.timeout);
+				
+				continue;
+			}
+			
+			this.entries.remove(expiredKey, entry);
+			
+			// 이벤트 생성
+			KeyTimeoutEvent<K> event = new KeyTimeoutEvent<>();
+			
+			event.setKey(expiredKey);
+			event.setTimestamp(cur);
+			event.setLastTouched(lastTouched);
+			
+			events.add(event);
+		}
+		
+		return events;
+	}
+	
+	/**
+	 * 키 별 최종 변화 정보
+	 * 
+	 * @author jmsohn
+	 */
+	private static class Entry {
+		
+		/** 최종 변화 시간 */
+		private volatile long lastTouched;
+		
+		/** 만료 처리 여부 */
+		private volatile boolean expired = false;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param lastTouched 최종 변화 시간
+		 */
+		private Entry(long lastTouched) {
+			this.lastTouched = lastTouched;
+		}
+	}
+}
@@ -0,0 +1,363 @@
+package com.jutools.event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * 계층형 타이밍 휠(hierarchical timing wheel)<br>
+ * -> 키 별로 만료 시간을 등록하고, advance 호출 시 만료된 키 목록을 반환함<br>
+ * -> 단계(level) 별로 64개의 버킷이 있으며, 0 단계의 버킷 하나는 1 tick,
+ *    n 단계의 버킷 하나는 64^n tick 을 담당함<br>
+ * -> 상위 단계의 버킷은 해당 시간 구간이 되면 하위 단계로 내려가므로(cascade),
+ *    advance 의 비용은 전체 키 개수가 아닌 만료되거나 내려가는 키 개수에 비례함<br>
+ * -> 최대 단계를 넘는 만료 시간은 최대 단계에 등록 후 다시 등록하는 방식으로 처리함
+ *
+ * @param <K> 키 타입
+ * @author jmsohn
+ */
+public class TimingWheel<K> {
+
+	/** 단계 별 버킷 개수의 bit 수(2^6 = 64) */
+	private static final int BITS = 6;
+
+	/** 단계 별 버킷 개수 */
+	private static final int WHEEL_SIZE = 1 << BITS;
+
+	/** 버킷 인덱스 mask */
+	private static final int MASK = WHEEL_SIZE - 1;
+
+	/** 단계 개수 */
+	private static final int LEVELS = 4;
+
+	/** tick 크기(ms) */
+	@Getter
+	private long tick;
+
+	/** 현재 tick - 이 tick 까지 처리됨 */
+	private long currentTick;
+
+	/** 단계 별 버킷 목록 - 각 버킷은 양방향 연결 리스트의 sentinel 노드임 */
+	private Node<K>[][] wheels;
+
+	/** 키 별 노드 */
+	private HashMap<K, Node<K>> nodes = new HashMap<>();
+
+	/**
+	 * 생성자
+	 *
+	 * @param tick tick 크기(ms)
+	 * @param startTime 시작 시간(ms)
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long tick, long startTime) {
+
+		if(tick < 1) {
+			throw new IllegalArgumentException("tick must be greater than 0:" + tick);
+		}
+
+		this.tick = tick;
+		this.currentTick = startTime / tick;
+
+		this.wheels = new Node[LEVELS][WHEEL_SIZE];
+		for(int level = 0; level < LEVELS; level++) {
+			for(int slot = 0; slot < WHEEL_SIZE; slot++) {
+				this.wheels[level][slot] = Node.sentinel();
+			}
+		}
+	}
+
+	/**
+	 * 생성자
+	 *
+	 * @param tick tick 크기(ms)
+	 */
+	public TimingWheel(long tick) {
+		this(tick, System.currentTimeMillis());
+	}
+
+	/**
+	 * 키의 만료 시간 등록<br>
+	 * 이미 등록된 키일 경우 만료 시간을 변경함
+	 *
+	 * @param key 키
+	 * @param deadline 만료 시간(ms)
+	 */
+	public synchronized void schedule(K key, long deadline) {
+
+		if(key == null) {
+			throw new NullPointerException("key is null.");
+		}
+
+		Node<K> node = this.nodes.get(key);
+
+		if(node == null) {
+			node = new Node<>(key);
+			this.nodes.put(key, node);
+		} else {
+			node.unlink();
+		}
+
+		node.deadline = deadline;
+
+		// 만료 시간을 tick 으로 변환(올림)
+		node.tick = (deadline + this.tick - 1) / this.tick;
+
+		this.insert(node, this.currentTick + 1);
+	}
+
+	/**
+	 * 키의 만료 시간 등록 취소
+	 *
+	 * @param key 키
+	 * @return 등록되어 있었는지 여부
+	 */
+	public synchronized boolean cancel(K key) {
+
+		Node<K> node = this.nodes.remove(key);
+		if(node == null) {
+			return false;
+		}
+
+		node.unlink();
+
+		return true;
+	}
+
+	/**
+	 * 키의 만료 시간 반환
+	 *
+	 * @param key 키
+	 * @return 만료 시간(ms), 등록되어 있지 않은 경우 -1
+	 */
+	public synchronized long getDeadline(K key) {
+
+		Node<K> node = this.nodes.get(key);
+		return (node == null)?-1:node.deadline;
+	}
+
+	/**
+	 * 주어진 시간까지 처리하고 만료된 키 목록 반환<br>
+	 * 만료된 키는 등록이 취소됨
+	 *
+	 * @param now 현재 시간(ms)
+	 * @return 만료된 키 목록
+	 */
+	public synchronized List<K> advance(long now) {
+
+		List<K> expired = new ArrayList<>();
+		long nowTick = now / this.tick;
+
+		// 등록된 키가 없을 경우 바로 이동
+		if(this.nodes.size() == 0) {
+			this.currentTick = Math.max(this.currentTick, nowTick);
+			return expired;
+		}
+
+		while(this.currentTick < nowTick) {
+
+			this.currentTick++;
+
+			// 현재 tick 이 상위 단계 버킷의 시작일 경우 하위 단계로 내림
+			// 상위 단계부터 내려야 현재 tick 의 버킷까지 내려옴
+			for(int level = LEVELS - 1; level > 0; level--) {
+
+				long blockMask = (1L << (BITS * level)) - 1;
+
+				if((this.currentTick & blockMask) == 0) {
+					this.cascade(level, (int)((this.currentTick >>> (BITS * level)) & MASK));
+				}
+			}
+
+			// 0 단계 현재 버킷의 만료된 키 처리
+			Node<K> bucket = this.wheels[0][(int)(this.currentTick & MASK)];
+			Node<K> node = detach(bucket);
+
+			while(node != null) {
+
+				Node<K> next = node.next;
+				node.prev = node.next = null;
+
+				if(node.tick <= this.currentTick) {
+					this.nodes.remove(node.key);
+					expired.add(node.key);
+				} else {
+					this.insert(node, this.currentTick + 1);
+				}
+
+				node = next;
+			}
+
+			// 모두 만료된 경우 남은 tick 은 건너뜀
+			if(this.nodes.size() == 0) {
+				this.currentTick = nowTick;
+			}
+		}
+
+		return expired;
+	}
+
+	/**
+	 * 등록된 키 개수 반환
+	 *
+	 * @return 등록된 키 개수
+	 */
+	public synchronized int size() {
+		return this.nodes.size();
+	}
+
+	/**
+	 * 모든 키의 등록 취소
+	 */
+	public synchronized void clear() {
+
+		for(Node<K> node: this.nodes.values()) {
+			node.unlink();
+		}
+
+		this.nodes.clear();
+	}
+
+	/**
+	 * 노드를 만료 tick 에 맞는 단계의 버킷에 추가<br>
+	 * 만료 tick 과 현재 tick 이 같은 (n+1) 단계 구간에 있는 가장 낮은 n 단계에 추가함
+	 *
+	 * @param node 추가할 노드
+	 * @param minTick 최소 tick - 이미 지난 만료 시간은 이 tick 에 만료되도록 함
+	 */
+	private void insert(Node<K> node, long minTick) {
+
+		long tick = Math.max(node.tick, minTick);
+
+		int level = 0;
+		while(level < LEVELS - 1
+			&& (tick >>> (BITS * (level + 1))) != (this.currentTick >>> (BITS * (level + 1)))) {
+			level++;
+		}
+
+		Node<K> bucket = this.wheels[level][(int)((tick >>> (BITS * level)) & MASK)];
+		node.linkBefore(bucket);
+	}
+
+	/**
+	 * 상위 단계 버킷의 노드를 모두 다시 추가(하위 단계로 내림)
+	 *
+	 * @param level 단계
+	 * @param slot 버킷 인덱스
+	 */
+	private void cascade(int level, int slot) {
+
+		Node<K> node = detach(this.wheels[level][slot]);
+
+		while(node != null) {
+
+			Node<K> next = node.next;
+			node.prev = node.next = null;
+
+			// 하위 단계로 내리는 중에는 현재 tick 의 버킷이 아직 처리되지 않았으므로 현재 tick 도 허용함
+			this.insert(node, this.currentTick);
+
+			node = next;
+		}
+	}
+
+	/**
+	 * 버킷의 노드 목록을 분리하여 첫번째 노드를 반환
+	 *
+	 * @param bucket 버킷(sentinel 노드)
+	 * @return 첫번째 노드, 없을 경우 null - 마지막 노드의 next 는 null 임
+	 */
+	private static <K> Node<K> detach(Node<K> bucket) {
+
+		if(bucket.next == bucket) {
+			return null;
+		}
+
+		Node<K> first = bucket.next;
+		bucket.prev.next = null;
+
+		bucket.next = bucket;
+		bucket.prev = bucket;
+
+		return first;
+	}
+
+	/**
+	 * 타이밍 휠의 노드
+	 *
+	 * @author jmsohn
+	 */
+	private static class Node<K> {
+
+		/** 키 */
+		private K key;
+
+		/** 만료 시간(ms) */
+		private long deadline;
+
+		/** 만료 tick */
+		private long tick;
+
+		/** 이전 노드 */
+		private Node<K> prev;
+
+		/** 다음 노드 */
+		private Node<K> next;
+
+		/**
+		 * 생성자
+		 *
+		 * @param key 키
+		 */
+		private Node(K key) {
+			this.key = key;
+		}
+
+		/**
+		 * 버킷용 sentinel 노드 생성
+		 *
+		 * @return sentinel 노드
+		 */
+		private static <K> Node<K> sentinel() {
+
+			Node<K> sentinel = new Node<>(null);
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+
+			return sentinel;
+		}
+
+		/**
+		 * 주어진 노드의 앞에 추가
+		 *
+		 * @param node 기준 노드
+		 */
+		private void linkBefore(Node<K> node) {
+
+			this.prev = node.prev;
+			this.next = node;
+
+			node.prev.next = this;
+			node.prev = this;
+		}
+
+		/**
+		 * 연결 리스트에서 제거
+		 */
+		private void unlink() {
+
+			if(this.prev != null) {
+				this.prev.next = this.next;
+			}
+
+			if(this.next != null) {
+				this.next.prev = this.prev;
+			}
+
+			this.prev = null;
+			this.next = null;
+		}
+	}
+}
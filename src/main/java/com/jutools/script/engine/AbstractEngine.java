@@ -5,15 +5,22 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import com.jutools.script.parser.AbstractParser;
+import com.jutools.script.engine.bytecode.BytecodeCompiler;
+import com.jutools.script.engine.bytecode.CompiledScript;
 import com.jutools.script.engine.instructions.BuiltInMethods;
 import com.jutools.script.engine.instructions.INVOKE;
 import com.jutools.script.engine.instructions.Instruction;
+import com.jutools.script.engine.instructions.LOAD_VAR;
 import com.jutools.script.engine.instructions.MethodAlias;
+import com.jutools.script.engine.instructions.OperandStack;
+import com.jutools.script.engine.instructions.STORE;
 
 import lombok.Getter;
 
@@ -38,6 +45,34 @@ public abstract class AbstractEngine {
 	/** 스크립트 내의 alias 메소드의 실제 메소드 - K: 메소드 alias 명, V: 실제 수행 메소드 */
 	protected Map<String, MethodHandle> methods = new HashMap<>();
 	
+	/** 결정적(deterministic) 메소드의 alias 목록 - 상수 파라미터 호출시 최적화 대상 */
+	protected Set<String> deterministicMethods = new HashSet<>();
+	
+	/** 파싱 직후(최적화 전) 명령어 개수 */
+	@Getter
+	private int parsedInstCount;
+	
+	/** 변수 배치 정보 - 스크립트에서 사용하는 변수명 별 슬롯 인덱스 */
+	@Getter
+	private VarLayout varLayout = new VarLayout();
+	
+	/** 최대 스택 깊이 - OPERAND_STACK 모드의 피연산자 스택 크기 */
+	@Getter
+	private int maxStackSize;
+	
+	/** 실행 모드 */
+	@Getter
+	private ExecuteMode executeMode = ExecuteMode.STACK;
+	
+	/** 바이트코드로 컴파일된 스크립트 - 컴파일할 수 없는 경우 null */
+	private volatile CompiledScript compiledScript;
+	
+	/** 바이트코드 컴파일 시도 여부 - 컴파일할 수 없는 스크립트를 반복하여 컴파일하지 않기 위함 */
+	private boolean compileTried = false;
+	
+	/** 복사 원본 엔진 - 바이트코드 컴파일은 원본에서 한번만 수행하여 공유함, 원본일 경우 null */
+	private AbstractEngine template;
+	
 	/**
 	 * 스크립트 엔진의 스레드
 	 * 
@@ -51,12 +86,33 @@ public abstract class AbstractEngine {
 		/** Program Counter : 현재 실행 위치 */
 		int pc = 0;
 		
+		/** OPERAND_STACK 모드 수행시 사용할 피연산자 스택 */
+		OperandStack operandStack;
+		
+		/** 마지막 수행시 피연산자 스택 사용 여부 */
+		boolean useOperandStack = false;
+		
+		/** 슬롯 배열로 수행시 사용할 변수 바인딩 객체 */
+		Bindings bindings;
+		
+		/** 컴파일된 스크립트 수행시 사용할 변수 값 목록 */
+		double[] vars;
+		
+		/** 컴파일된 스크립트 수행 결과 목록 */
+		Object[] results;
+		
 		/**
 		 * 스레드 초기화
 		 */
 		void clear() {
+			
 			this.stack.clear();
 			this.pc = 0;
+			this.useOperandStack = false;
+			
+			if(this.operandStack != null) {
+				this.operandStack.clear();
+			}
 		}
 	}
 
@@ -106,10 +162,43 @@ public abstract class AbstractEngine {
 			throw (Exception)t;
 		}
 		
+		// 명령어 목록 최적화
+		this.parsedInstCount = this.insts.size();
+		this.insts = new InstructionOptimizer(this.insts, this.methods, this.deterministicMethods).optimize();
+		
 		// 메소드 링킹
 		this.linkMethod();
+		
+		// 변수 슬롯 링킹
+		this.linkVar();
+		
+		// 최대 스택 깊이 계산
+		this.maxStackSize = this.calMaxStackSize();
 	}
 
+	/**
+	 * 생성자(복사)<br>
+	 * 컴파일된 명령어 목록 등은 원본 엔진과 공유하고, 실행 상태(실행 모드, 스레드)는 새로 생성함<br>
+	 * -> 스크립트 캐시에서 캐시된 엔진을 복사하여 반환할 때 사용
+	 * 
+	 * @param source 원본 엔진
+	 */
+	protected AbstractEngine(AbstractEngine source) {
+		
+		if(source == null) {
+			throw new NullPointerException("source engine is null");
+		}
+		
+		this.script = source.script;
+		this.insts = source.insts;
+		this.methods = new HashMap<>(source.methods);
+		this.deterministicMethods = new HashSet<>(source.deterministicMethods);
+		this.parsedInstCount = source.parsedInstCount;
+		this.varLayout = source.varLayout;
+		this.maxStackSize = source.maxStackSize;
+		this.template = (source.template != null)?source.template:source;
+	}
+	
 	/**
 	 * 실제 실행할 메소드 설정
 	 * 
@@ -151,6 +240,12 @@ public abstract class AbstractEngine {
 			
 			// 메소드 추가
 			this.methods.put(methodMap.alias(), methodHandle);
+			
+			if(methodMap.deterministic() == true) {
+				this.deterministicMethods.add(methodMap.alias());
+			} else {
+				this.deterministicMethods.remove(methodMap.alias());
+			}
 		}
 		
 		return this;
@@ -187,6 +282,60 @@ public abstract class AbstractEngine {
 		return this;
 	}
 	
+	/**
+	 * 변수 로딩(LOAD_VAR), 저장(STORE) 명령어에 변수 슬롯 인덱스를 연결(linking)
+	 * 
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	private AbstractEngine linkVar() throws Exception {
+		
+		for(Instruction inst: this.insts) {
+			
+			if(inst instanceof LOAD_VAR) {
+				
+				LOAD_VAR loadInst = (LOAD_VAR)inst;
+				loadInst.setSlot(this.varLayout, this.varLayout.add(loadInst.getName()));
+				
+			} else if(inst instanceof STORE) {
+				
+				STORE storeInst = (STORE)inst;
+				storeInst.setSlot(this.varLayout, this.varLayout.add(storeInst.getName()));
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 변수 바인딩 객체 생성<br>
+	 * 생성된 객체를 재사용하여 수행하면 변수명 해싱 없이 변수에 접근함
+	 * 
+	 * @return 변수 바인딩 객체
+	 */
+	public Bindings newBindings() {
+		return this.varLayout.newBindings();
+	}
+	
+	/**
+	 * 명령어 목록의 최대 스택 깊이 계산<br>
+	 * 점프 명령어를 고려하지 않고 모든 명령어를 순서대로 수행한 것으로 계산함<br>
+	 * -> 점프로 건너뛰는 명령어들의 스택 변화량의 합은 0 이상이기 때문에 실제 최대 깊이 이상의 값이 됨
+	 * 
+	 * @return 최대 스택 깊이
+	 */
+	private int calMaxStackSize() {
+		
+		int size = 0;
+		int maxSize = 0;
+		
+		for(Instruction inst: this.insts) {
+			size += inst.getStackDelta();
+			maxSize = Math.max(maxSize, size);
+		}
+		
+		return maxSize;
+	}
+	
 	/**
 	 * alias에 해당하는 메소드를 반환하는 메소드
 	 * 
@@ -202,6 +351,69 @@ public abstract class AbstractEngine {
 		return this.methods.get(alias);
 	}
 	
+	/**
+	 * 실행 모드 설정<br>
+	 * BYTECODE 모드 설정시 명령어 목록을 컴파일함(최초 1회)<br>
+	 * 컴파일할 수 없는 스크립트의 경우 STACK 모드로 수행됨
+	 * 
+	 * @param executeMode 실행 모드
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public synchronized AbstractEngine setExecuteMode(ExecuteMode executeMode) throws Exception {
+		
+		if(executeMode == null) {
+			throw new NullPointerException("execute mode is null");
+		}
+		
+		if(executeMode == ExecuteMode.BYTECODE && this.compiledScript == null) {
+			
+			// 복사된 엔진은 원본에서 컴파일된 스크립트를 공유함
+			if(this.template != null) {
+				this.compiledScript = this.template.compileScript();
+			} else {
+				this.compiledScript = this.compileScript();
+			}
+		}
+		
+		this.executeMode = executeMode;
+		
+		return this;
+	}
+	
+	/**
+	 * 명령어 목록을 바이트코드로 컴파일하여 반환(최초 1회)<br>
+	 * 복사된 엔진들이 동시에 요청하더라도 한번만 컴파일함
+	 * 
+	 * @return 컴파일된 스크립트, 컴파일할 수 없는 경우 null
+	 */
+	private synchronized CompiledScript compileScript() throws Exception {
+		
+		if(this.compileTried == false) {
+			this.compiledScript = BytecodeCompiler.compile(this.insts);
+			this.compileTried = true;
+		}
+		
+		return this.compiledScript;
+	}
+	
+	/**
+	 * 최적화 후 명령어 개수 반환
+	 * 
+	 * @return 명령어 개수
+	 */
+	public int getInstCount() {
+		return this.insts.size();
+	}
+	
+	/**
+	 * 바이트코드 컴파일 여부 반환
+	 * 
+	 * @return 바이트코드 컴파일 여부
+	 */
+	public boolean isCompiled() {
+		return this.compiledScript != null;
+	}
+	
 	/**
 	 * 스크립트 명령어 수행
 	 * 
@@ -214,6 +426,45 @@ public abstract class AbstractEngine {
 		ScriptThread t = this.thread.get();
 		t.clear();
 		
+		// BYTECODE 모드이고 변수가 모두 숫자인 경우 컴파일된 스크립트 수행
+		CompiledScript compiled = this.compiledScript;
+		if(this.executeMode == ExecuteMode.BYTECODE && compiled != null) {
+			
+			if(t.vars == null || t.vars.length != compiled.getVarNames().length) {
+				t.vars = new double[compiled.getVarNames().length];
+				t.results = new Object[compiled.getResultCount()];
+			}
+			
+			if(compiled.bind(values, t.vars) == true) {
+				
+				compiled.run(values, t.vars, t.results);
+				
+				for(Object result: t.results) {
+					t.stack.push(result);
+				}
+				
+				return this;
+			}
+		}
+		
+		// OPERAND_STACK 모드인 경우 피연산자 스택을 이용하여 실행
+		if(this.executeMode == ExecuteMode.OPERAND_STACK) {
+			
+			if(t.operandStack == null) {
+				t.operandStack = new OperandStack(this.maxStackSize);
+			}
+			
+			t.useOperandStack = true;
+			
+			while(t.pc < this.insts.size()) {
+				
+				Instruction inst = this.insts.get(t.pc);
+				t.pc += inst.execute(t.operandStack, values);
+			}
+			
+			return this;
+		}
+		
 		// 각 명령어 별로 실행
 		while(t.pc < this.insts.size()) {
 			
@@ -224,6 +475,174 @@ public abstract class AbstractEngine {
 		return this;
 	}
 	
+	/**
+	 * 스크립트 명령어 수행<br>
+	 * 변수 값은 변수 배치 정보(getVarLayout)의 슬롯 인덱스 순서로 설정되어야 함<br>
+	 * 스크립트에서 저장(STORE)한 변수 값은 슬롯 배열에 저장됨
+	 * 
+	 * @param slots 변수 값 슬롯 배열
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public AbstractEngine execute(Object[] slots) throws Exception {
+		
+		ScriptThread t = this.thread.get();
+		
+		if(t.bindings == null) {
+			t.bindings = new Bindings(this.varLayout, slots);
+		} else {
+			t.bindings.wrap(slots);
+		}
+		
+		return this.execute(t.bindings);
+	}
+	
+	/**
+	 * 컬럼 단위 일괄 수행<br>
+	 * 명령어 별로 전체 행을 한번에 처리하기 때문에 행 별로 execute 하는 것보다 빠름<br>
+	 * -> 숫자, boolean 연산과 메소드 호출만 지원함
+	 * 
+	 * @param columns 변수명 별 컬럼 값(모든 컬럼의 길이는 같아야 함)
+	 * @return 수행 결과 컬럼(double[] 또는 boolean[])
+	 */
+	public Object evaluateBatch(Map<String, double[]> columns) throws Exception {
+		
+		if(columns == null) {
+			throw new NullPointerException("columns is null");
+		}
+		
+		if(columns.isEmpty() == true) {
+			throw new IllegalArgumentException("columns is empty");
+		}
+		
+		// 행의 개수 확인
+		int size = -1;
+		for(Map.Entry<String, double[]> column: columns.entrySet()) {
+			
+			if(column.getValue() == null) {
+				throw new NullPointerException("column is null:" + column.getKey());
+			}
+			
+			if(size < 0) {
+				size = column.getValue().length;
+			} else if(size != column.getValue().length) {
+				throw new IllegalArgumentException("column size is not matched:" + column.getKey());
+			}
+		}
+		
+		return new BatchExecutor(this.insts, columns, size).execute();
+	}
+	
+	/**
+	 * 행 목록 일괄 수행
+	 * 
+	 * @param rows 행 목록
+	 * @param schema 스크립트에서 사용하는 변수명 목록(숫자형)
+	 * @return 수행 결과 컬럼(double[] 또는 boolean[])
+	 */
+	public Object evaluateBatch(List<? extends Map<String, ?>> rows, String... schema) throws Exception {
+		
+		Map<String, double[]> columns = toColumns(rows, schema);
+		return new BatchExecutor(this.insts, columns, rows).execute();
+	}
+	
+	/**
+	 * 컬럼 단위 일괄 수행 후 숫자 결과 반환
+	 * 
+	 * @param columns 변수명 별 컬럼 값
+	 * @return 수행 결과
+	 */
+	public double[] evaluateNumberBatch(Map<String, double[]> columns) throws Exception {
+		return castResult(this.evaluateBatch(columns), double[].class);
+	}
+	
+	/**
+	 * 행 목록 일괄 수행 후 숫자 결과 반환
+	 * 
+	 * @param rows 행 목록
+	 * @param schema 스크립트에서 사용하는 변수명 목록(숫자형)
+	 * @return 수행 결과
+	 */
+	public double[] evaluateNumberBatch(List<? extends Map<String, ?>> rows, String... schema) throws Exception {
+		return castResult(this.evaluateBatch(rows, schema), double[].class);
+	}
+	
+	/**
+	 * 컬럼 단위 일괄 수행 후 boolean 결과 반환
+	 * 
+	 * @param columns 변수명 별 컬럼 값
+	 * @return 수행 결과
+	 */
+	public boolean[] evaluateBooleanBatch(Map<String, double[]> columns) throws Exception {
+		return castResult(this.evaluateBatch(columns), boolean[].class);
+	}
+	
+	/**
+	 * 행 목록 일괄 수행 후 boolean 결과 반환
+	 * 
+	 * @param rows 행 목록
+	 * @param schema 스크립트에서 사용하는 변수명 목록(숫자형)
+	 * @return 수행 결과
+	 */
+	public boolean[] evaluateBooleanBatch(List<? extends Map<String, ?>> rows, String... schema) throws Exception {
+		return castResult(this.evaluateBatch(rows, schema), boolean[].class);
+	}
+	
+	/**
+	 * 행 목록을 변수명 별 컬럼 값으로 변환
+	 * 
+	 * @param rows 행 목록
+	 * @param schema 변환할 변수명 목록(숫자형)
+	 * @return 변수명 별 컬럼 값
+	 */
+	public static Map<String, double[]> toColumns(List<? extends Map<String, ?>> rows, String... schema) throws Exception {
+		
+		if(rows == null) {
+			throw new NullPointerException("rows is null");
+		}
+		
+		if(schema == null) {
+			throw new NullPointerException("schema is null");
+		}
+		
+		Map<String, double[]> columns = new HashMap<>();
+		
+		for(String name: schema) {
+			
+			double[] column = new double[rows.size()];
+			
+			for(int row = 0; row < column.length; row++) {
+				
+				Object value = rows.get(row).get(name);
+				
+				if(value instanceof Number == false) {
+					throw new IllegalArgumentException("value is not number(row:" + row + ", name:" + name + "):" + value);
+				}
+				
+				column[row] = ((Number)value).doubleValue();
+			}
+			
+			columns.put(name, column);
+		}
+		
+		return columns;
+	}
+	
+	/**
+	 * 일괄 수행 결과를 주어진 타입으로 변환
+	 * 
+	 * @param result 일괄 수행 결과
+	 * @param type 결과 타입
+	 * @return 변환된 결과
+	 */
+	private static <T> T castResult(Object result, Class<T> type) throws Exception {
+		
+		if(type.isInstance(result) == false) {
+			throw new Exception("unexpected result type:" + result.getClass().getSimpleName());
+		}
+		
+		return type.cast(result);
+	}
+	
 	/**
 	 * 스크립트 명령어 수행(디버그 모드)
 	 * 
@@ -260,6 +679,16 @@ public abstract class AbstractEngine {
 		// 스크립트 스레드 획득
 		ScriptThread t = this.thread.get();
 		
+		// 피연산자 스택을 사용한 경우
+		if(t != null && t.useOperandStack == true) {
+			
+			if(t.operandStack.isEmpty() == true) {
+				return null;
+			} else {
+				return type.cast(t.operandStack.pop());
+			}
+		}
+		
 		if(t == null || t.stack.isEmpty() == true) {
 			
 			return null;
@@ -271,13 +700,42 @@ public abstract class AbstractEngine {
 		}
 	}
 	
+	/**
+	 * stack의 최상단 숫자 값을 뽑아서 반환<br>
+	 * OPERAND_STACK 모드에서는 boxing 없이 반환함
+	 * 
+	 * @return stack의 최상단 숫자 값
+	 */
+	public double popNumber() throws Exception {
+		
+		// 스크립트 스레드 획득
+		ScriptThread t = this.thread.get();
+		
+		if(t.useOperandStack == true) {
+			return t.operandStack.popNumber();
+		}
+		
+		Object obj = t.stack.pop();
+		if(obj == null) {
+			throw new NullPointerException("value is null");
+		}
+		
+		if((obj instanceof Number) == false) {
+			throw new Exception("unexpected type:" + obj.getClass());
+		}
+		
+		return ((Number)obj).doubleValue();
+	}
+	
 	@Override
 	public String toString() {
 		
 		StringBuilder toString = new StringBuilder("");
 		
 		toString
-			.append("INSTRUCTION LIST\n")
+			.append("INSTRUCTION LIST(")
+			.append(this.parsedInstCount).append(" -> ").append(this.getInstCount())
+			.append(")\n")
 			.append("-------------------------\n");
 		
 		if(this.insts != null && this.insts.size() != 0) {
@@ -0,0 +1,562 @@
+package com.jutools.script.engine;
+
+import java.lang.invoke.MethodHandle;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import com.jutools.script.engine.instructions.ADD;
+import com.jutools.script.engine.instructions.AND;
+import com.jutools.script.engine.instructions.DIV;
+import com.jutools.script.engine.instructions.DUP;
+import com.jutools.script.engine.instructions.EQUAL;
+import com.jutools.script.engine.instructions.GREATER_EQUAL;
+import com.jutools.script.engine.instructions.GREATER_THAN;
+import com.jutools.script.engine.instructions.IF_FALSE;
+import com.jutools.script.engine.instructions.IF_TRUE;
+import com.jutools.script.engine.instructions.INVOKE;
+import com.jutools.script.engine.instructions.Instruction;
+import com.jutools.script.engine.instructions.LESS_EQUAL;
+import com.jutools.script.engine.instructions.LESS_THAN;
+import com.jutools.script.engine.instructions.LOAD_FALSE;
+import com.jutools.script.engine.instructions.LOAD_NUMBER;
+import com.jutools.script.engine.instructions.LOAD_TRUE;
+import com.jutools.script.engine.instructions.LOAD_VAR;
+import com.jutools.script.engine.instructions.MINUS;
+import com.jutools.script.engine.instructions.MOD;
+import com.jutools.script.engine.instructions.MUL;
+import com.jutools.script.engine.instructions.NOP;
+import com.jutools.script.engine.instructions.NOT;
+import com.jutools.script.engine.instructions.NOT_EQUAL;
+import com.jutools.script.engine.instructions.OR;
+import com.jutools.script.engine.instructions.XOR;
+
+/**
+ * 컬럼 단위 일괄(batch) 수행 클래스<br>
+ * 명령어를 행 단위가 아닌 컬럼(double[], boolean[]) 단위로 한번씩 수행함<br>
+ * -> 숫자, boolean 연산과 메소드 호출만 지원하며, 메소드 호출은 행 별로 수행됨<br>
+ * -> 메소드의 values 파라미터에는 행 단위 수행과 같이 해당 행의 값이 전달됨<br>
+ * -> 분기 명령어(IF_TRUE, IF_FALSE)는 short circuit 을 하지 않고 양쪽을 모두 계산함<br>
+ *    (BooleanParser 의 and/or 명령어 패턴에서는 결과가 동일함)
+ *
+ * @author jmsohn
+ */
+class BatchExecutor {
+
+	/** 수행할 명령어 목록 */
+	private List<Instruction> insts;
+
+	/** 변수명 별 컬럼 값 */
+	private Map<String, double[]> columns;
+
+	/** 행의 개수 */
+	private int size;
+
+	/** 행 목록 - 메소드 호출 시 values 로 전달함, null 일 경우 컬럼 값의 행 view 를 전달함 */
+	private List<? extends Map<String, ?>> rows;
+
+	/**
+	 * 생성자
+	 *
+	 * @param insts 수행할 명령어 목록
+	 * @param columns 변수명 별 컬럼 값
+	 * @param size 행의 개수
+	 */
+	BatchExecutor(List<Instruction> insts, Map<String, double[]> columns, int size) {
+		this.insts = insts;
+		this.columns = columns;
+		this.size = size;
+	}
+
+	/**
+	 * 생성자
+	 *
+	 * @param insts 수행할 명령어 목록
+	 * @param columns 변수명 별 컬럼 값
+	 * @param rows 컬럼 값을 만든 행 목록
+	 */
+	BatchExecutor(List<Instruction> insts, Map<String, double[]> columns, List<? extends Map<String, ?>> rows) {
+		this(insts, columns, rows.size());
+		this.rows = rows;
+	}
+
+	/**
+	 * 일괄 수행
+	 *
+	 * @return 수행 결과 컬럼(double[] 또는 boolean[])
+	 */
+	Object execute() throws Exception {
+
+		Stack<Object> stack = new Stack<>();
+
+		for(Instruction inst: this.insts) {
+
+			if(inst instanceof NOP || inst instanceof IF_TRUE || inst instanceof IF_FALSE) {
+
+				// 분기 명령어는 DUP 된 조건 값만 제거하고 다음 명령어를 계속 수행
+				if(inst instanceof NOP == false) {
+					stack.pop();
+				}
+
+			} else if(inst instanceof LOAD_NUMBER) {
+
+				double[] column = new double[this.size];
+				Arrays.fill(column, ((LOAD_NUMBER)inst).getValue());
+
+				stack.push(column);
+
+			} else if(inst instanceof LOAD_TRUE || inst instanceof LOAD_FALSE) {
+
+				boolean[] column = new boolean[this.size];
+				Arrays.fill(column, inst instanceof LOAD_TRUE);
+
+				stack.push(column);
+
+			} else if(inst instanceof LOAD_VAR) {
+
+				String name = ((LOAD_VAR)inst).getName();
+
+				double[] column = this.columns.get(name);
+				if(column == null) {
+					throw new NullPointerException("column is not found:" + name);
+				}
+
+				stack.push(column);
+
+			} else if(inst instanceof DUP) {
+
+				stack.push(stack.peek());
+
+			} else if(inst instanceof NOT) {
+
+				boolean[] p1 = toBoolean(stack.pop());
+				boolean[] result = new boolean[this.size];
+
+				for(int index = 0; index < this.size; index++) {
+					result[index] = !p1[index];
+				}
+
+				stack.push(result);
+
+			} else if(inst instanceof AND || inst instanceof OR || inst instanceof XOR) {
+
+				boolean[] p2 = toBoolean(stack.pop());
+				boolean[] p1 = toBoolean(stack.pop());
+
+				stack.push(this.logical(inst, p1, p2));
+
+			} else if(inst instanceof EQUAL || inst instanceof NOT_EQUAL) {
+
+				Object p2 = stack.pop();
+				Object p1 = stack.pop();
+
+				stack.push(this.equal(inst instanceof NOT_EQUAL, p1, p2));
+
+			} else if(inst instanceof GREATER_THAN || inst instanceof GREATER_EQUAL
+					|| inst instanceof LESS_THAN || inst instanceof LESS_EQUAL) {
+
+				double[] p2 = toNumber(stack.pop());
+				double[] p1 = toNumber(stack.pop());
+
+				stack.push(this.compare(inst, p1, p2));
+
+			} else if(inst instanceof ADD || inst instanceof MINUS || inst instanceof MUL
+					|| inst instanceof DIV || inst instanceof MOD) {
+
+				double[] p2 = toNumber(stack.pop());
+				double[] p1 = toNumber(stack.pop());
+
+				stack.push(this.arithmetic(inst, p1, p2));
+
+			} else if(inst instanceof INVOKE) {
+
+				this.invoke((INVOKE)inst, stack);
+
+			} else {
+
+				throw new Exception("unsupported instruction in batch mode:" + inst);
+			}
+		}
+
+		if(stack.size() != 1) {
+			throw new Exception("unexpected stack size:" + stack.size());
+		}
+
+		return stack.pop();
+	}
+
+	/**
+	 * 숫자 이항 연산 수행
+	 *
+	 * @param inst 연산 명령어
+	 * @param p1 첫번째 파라미터 컬럼
+	 * @param p2 두번째 파라미터 컬럼
+	 * @return 연산 결과 컬럼
+	 */
+	private double[] arithmetic(Instruction inst, double[] p1, double[] p2) {
+
+		double[] result = new double[this.size];
+
+		if(inst instanceof ADD) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] + p2[index];
+			}
+
+		} else if(inst instanceof MINUS) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] - p2[index];
+			}
+
+		} else if(inst instanceof MUL) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] * p2[index];
+			}
+
+		} else if(inst instanceof DIV) {
+
+			// DIV 명령어와 동일하게 0으로 나눌 경우 무한대 값
+			for(int index = 0; index < this.size; index++) {
+				if(p2[index] == 0) {
+					result[index] = (p1[index] >= 0)?Double.POSITIVE_INFINITY:Double.NEGATIVE_INFINITY;
+				} else {
+					result[index] = p1[index] / p2[index];
+				}
+			}
+
+		} else {
+
+			// MOD 명령어와 동일하게 0으로 나눌 경우 0
+			for(int index = 0; index < this.size; index++) {
+				result[index] = (p2[index] == 0)?0.0:p1[index] % p2[index];
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * 숫자 비교 연산 수행
+	 *
+	 * @param inst 비교 명령어
+	 * @param p1 첫번째 파라미터 컬럼
+	 * @param p2 두번째 파라미터 컬럼
+	 * @return 비교 결과 컬럼
+	 */
+	private boolean[] compare(Instruction inst, double[] p1, double[] p2) {
+
+		boolean[] result = new boolean[this.size];
+
+		if(inst instanceof GREATER_THAN) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] > p2[index];
+			}
+
+		} else if(inst instanceof GREATER_EQUAL) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] >= p2[index];
+			}
+
+		} else if(inst instanceof LESS_THAN) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] < p2[index];
+			}
+
+		} else {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] <= p2[index];
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * 논리 연산 수행
+	 *
+	 * @param inst 논리 연산 명령어
+	 * @param p1 첫번째 파라미터 컬럼
+	 * @param p2 두번째 파라미터 컬럼
+	 * @return 연산 결과 컬럼
+	 */
+	private boolean[] logical(Instruction inst, boolean[] p1, boolean[] p2) {
+
+		boolean[] result = new boolean[this.size];
+
+		if(inst instanceof AND) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] & p2[index];
+			}
+
+		} else if(inst instanceof OR) {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] | p2[index];
+			}
+
+		} else {
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = p1[index] ^ p2[index];
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * 동일 여부 비교 수행<br>
+	 * 숫자와 boolean 컬럼의 비교는 항상 다름
+	 *
+	 * @param not 부정(NOT_EQUAL) 여부
+	 * @param p1 첫번째 파라미터 컬럼
+	 * @param p2 두번째 파라미터 컬럼
+	 * @return 비교 결과 컬럼
+	 */
+	private boolean[] equal(boolean not, Object p1, Object p2) {
+
+		boolean[] result = new boolean[this.size];
+
+		if(p1 instanceof double[] && p2 instanceof double[]) {
+
+			double[] n1 = (double[])p1;
+			double[] n2 = (double[])p2;
+
+			// Double.equals 와 동일하게 비교
+			for(int index = 0; index < this.size; index++) {
+				result[index] = (Double.compare(n1[index], n2[index]) == 0) != not;
+			}
+
+		} else if(p1 instanceof boolean[] && p2 instanceof boolean[]) {
+
+			boolean[] b1 = (boolean[])p1;
+			boolean[] b2 = (boolean[])p2;
+
+			for(int index = 0; index < this.size; index++) {
+				result[index] = (b1[index] == b2[index]) != not;
+			}
+
+		} else {
+
+			Arrays.fill(result, not);
+		}
+
+		return result;
+	}
+
+	/**
+	 * 메소드 호출 수행(행 별로 호출)<br>
+	 * values 파라미터에는 행 단위 수행(INVOKE)과 같이 해당 행의 값을 전달함
+	 *
+	 * @param inst 메소드 호출 명령어
+	 * @param stack 컬럼 스택
+	 */
+	private void invoke(INVOKE inst, Stack<Object> stack) throws Exception {
+
+		MethodHandle method = inst.getMethod();
+		if(method == null) {
+			throw new NullPointerException("method is null(check link process)");
+		}
+
+		// 파라미터 컬럼
+		Object[] paramColumns = new Object[inst.getParamCount()];
+		for(int index = paramColumns.length - 1; index >= 0; index--) {
+			paramColumns[index] = stack.pop();
+		}
+
+		Class<?> returnType = method.type().returnType();
+		if(returnType == void.class || returnType == Void.class) {
+			throw new Exception("void method is not supported in batch mode:" + inst.getMethodAlias());
+		}
+
+		// 결과 컬럼은 첫번째 행의 결과 타입으로 결정
+		Object[] params = new Object[paramColumns.length + 1];
+
+		double[] numbers = null;
+		boolean[] booleans = null;
+
+		for(int row = 0; row < this.size; row++) {
+
+			params[0] = (this.rows != null)?this.rows.get(row):new RowValues(this.columns, row);
+			for(int index = 0; index < paramColumns.length; index++) {
+				params[index + 1] = get(paramColumns[index], row);
+			}
+
+			Object result = null;
+
+			try {
+				result = method.invokeWithArguments(params);
+			} catch(Exception | Error ex) {
+				throw ex;
+			} catch(Throwable t) {
+				throw new Exception(t);
+			}
+
+			if(result instanceof Number && booleans == null) {
+
+				if(numbers == null) {
+					numbers = new double[this.size];
+				}
+
+				numbers[row] = ((Number)result).doubleValue();
+
+			} else if(result instanceof Boolean && numbers == null) {
+
+				if(booleans == null) {
+					booleans = new boolean[this.size];
+				}
+
+				booleans[row] = (Boolean)result;
+
+			} else {
+
+				throw new Exception("unexpected result type in batch mode:" + ((result == null)?"null":result.getClass()));
+			}
+		}
+
+		// 행이 없을 경우 반환 타입으로 결정
+		if(numbers == null && booleans == null) {
+			if(returnType == boolean.class || returnType == Boolean.class) {
+				booleans = new boolean[0];
+			} else {
+				numbers = new double[0];
+			}
+		}
+
+		stack.push((numbers != null)?numbers:booleans);
+	}
+
+	/**
+	 * 컬럼의 행 값 반환
+	 *
+	 * @param column 컬럼
+	 * @param row 행 번호
+	 * @return 행 값
+	 */
+	private static Object get(Object column, int row) {
+
+		if(column instanceof double[]) {
+			return ((double[])column)[row];
+		} else {
+			return ((boolean[])column)[row];
+		}
+	}
+
+	/**
+	 * 숫자 컬럼으로 변환
+	 *
+	 * @param column 컬럼
+	 * @return 숫자 컬럼
+	 */
+	private static double[] toNumber(Object column) throws Exception {
+
+		if(column instanceof double[]) {
+			return (double[])column;
+		}
+
+		throw new Exception("number column is expected.");
+	}
+
+	/**
+	 * boolean 컬럼으로 변환
+	 *
+	 * @param column 컬럼
+	 * @return boolean 컬럼
+	 */
+	private static boolean[] toBoolean(Object column) throws Exception {
+
+		if(column instanceof boolean[]) {
+			return (boolean[])column;
+		}
+
+		throw new Exception("boolean column is expected.");
+	}
+
+	/**
+	 * 컬럼 값의 한 행에 대한 읽기 전용 view<br>
+	 * 메소드 호출 시 values 파라미터로 전달함
+	 *
+	 * @author jmsohn
+	 */
+	private static class RowValues extends AbstractMap<String, Object> {
+
+		/** 변수명 별 컬럼 값 */
+		private Map<String, double[]> columns;
+
+		/** 행 번호 */
+		private int row;
+
+		/**
+		 * 생성자
+		 *
+		 * @param columns 변수명 별 컬럼 값
+		 * @param row 행 번호
+		 */
+		private RowValues(Map<String, double[]> columns, int row) {
+			this.columns = columns;
+			this.row = row;
+		}
+
+		@Override
+		public Object get(Object key) {
+
+			double[] column = this.columns.get(key);
+			return (column == null)?null:column[this.row];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.columns.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return this.columns.size();
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+
+			return new AbstractSet<Map.Entry<String, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+
+					Iterator<Map.Entry<String, double[]>> columnIter = columns.entrySet().iterator();
+
+					return new Iterator<Map.Entry<String, Object>>() {
+
+						@Override
+						public boolean hasNext() {
+							return columnIter.hasNext();
+						}
+
+						@Override
+						public Map.Entry<String, Object> next() {
+
+							Map.Entry<String, double[]> column = columnIter.next();
+							return new AbstractMap.SimpleImmutableEntry<>(column.getKey(), column.getValue()[row]);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return columns.size();
+				}
+			};
+		}
+	}
+}
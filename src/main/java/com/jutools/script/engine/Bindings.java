@@ -0,0 +1,215 @@
+package com.jutools.script.engine;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * 슬롯 배열 기반의 변수 저장 객체<br>
+ * 변수 배치 정보(VarLayout)에 있는 변수는 슬롯 배열에 저장하고,
+ * 없는 변수(ex. PipeScript 의 Heap)는 별도의 Map 에 저장함<br>
+ * -> 같은 배치 정보로 컴파일된 스크립트에서는 변수명 해싱 없이 슬롯 인덱스로 접근함<br>
+ * -> 슬롯의 null 값은 변수가 없는 것으로 처리함
+ *
+ * @author jmsohn
+ */
+public class Bindings extends AbstractMap<String, Object> {
+
+	/** 변수 배치 정보 */
+	@Getter
+	private VarLayout layout;
+
+	/** 변수 값 슬롯 */
+	@Getter
+	private Object[] slots;
+
+	/** 배치 정보에 없는 변수 저장 객체 - 필요시 생성 */
+	private Map<String, Object> overflow;
+
+	/**
+	 * 생성자
+	 *
+	 * @param layout 변수 배치 정보
+	 */
+	Bindings(VarLayout layout) {
+		this(layout, new Object[layout.size()]);
+	}
+
+	/**
+	 * 생성자
+	 *
+	 * @param layout 변수 배치 정보
+	 * @param slots 변수 값 슬롯
+	 */
+	Bindings(VarLayout layout, Object[] slots) {
+
+		if(layout == null) {
+			throw new NullPointerException("layout is null");
+		}
+
+		this.layout = layout;
+		this.wrap(slots);
+	}
+
+	/**
+	 * 변수 값 슬롯 교체<br>
+	 * 스레드 별 Bindings 객체를 재사용하기 위해 사용함
+	 *
+	 * @param slots 변수 값 슬롯
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	Bindings wrap(Object[] slots) {
+
+		if(slots == null) {
+			throw new NullPointerException("slots is null");
+		}
+
+		if(slots.length != this.layout.size()) {
+			throw new IllegalArgumentException("slot size is not matched(expected:" + this.layout.size() + ", actual:" + slots.length + ")");
+		}
+
+		this.slots = slots;
+
+		if(this.overflow != null) {
+			this.overflow.clear();
+		}
+
+		return this;
+	}
+
+	/**
+	 * 슬롯 인덱스의 변수 값 반환
+	 *
+	 * @param index 슬롯 인덱스
+	 * @return 변수 값
+	 */
+	public Object get(int index) {
+		return this.slots[index];
+	}
+
+	/**
+	 * 슬롯 인덱스의 변수 값 설정
+	 *
+	 * @param index 슬롯 인덱스
+	 * @param value 변수 값
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public Bindings set(int index, Object value) {
+		this.slots[index] = value;
+		return this;
+	}
+
+	/**
+	 * 변수 값 설정
+	 *
+	 * @param name 변수명
+	 * @param value 변수 값
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public Bindings set(String name, Object value) {
+		this.put(name, value);
+		return this;
+	}
+
+	@Override
+	public Object get(Object key) {
+
+		int index = this.layout.indexOf(key);
+		if(index >= 0) {
+			return this.slots[index];
+		}
+
+		if(this.overflow == null) {
+			return null;
+		}
+
+		return this.overflow.get(key);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+
+		int index = this.layout.indexOf(key);
+		if(index >= 0) {
+
+			Object old = this.slots[index];
+			this.slots[index] = value;
+
+			return old;
+		}
+
+		if(this.overflow == null) {
+			this.overflow = new HashMap<>();
+		}
+
+		return this.overflow.put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+
+		int index = this.layout.indexOf(key);
+		if(index >= 0) {
+
+			Object old = this.slots[index];
+			this.slots[index] = null;
+
+			return old;
+		}
+
+		if(this.overflow == null) {
+			return null;
+		}
+
+		return this.overflow.remove(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+
+		int index = this.layout.indexOf(key);
+		if(index >= 0) {
+			return this.slots[index] != null;
+		}
+
+		return this.overflow != null && this.overflow.containsKey(key);
+	}
+
+	@Override
+	public void clear() {
+
+		for(int index = 0; index < this.slots.length; index++) {
+			this.slots[index] = null;
+		}
+
+		if(this.overflow != null) {
+			this.overflow.clear();
+		}
+	}
+
+	/**
+	 * 변수 목록 반환<br>
+	 * 호출 시 마다 새로 생성하기 때문에 수행 중에는 사용하지 않는 것이 좋음
+	 */
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+
+		Set<Entry<String, Object>> entrySet = new LinkedHashSet<>();
+
+		for(int index = 0; index < this.slots.length; index++) {
+			if(this.slots[index] != null) {
+				entrySet.add(new SimpleEntry<>(this.layout.getName(index), this.slots[index]));
+			}
+		}
+
+		if(this.overflow != null) {
+			entrySet.addAll(this.overflow.entrySet());
+		}
+
+		return entrySet;
+	}
+}
@@ -0,0 +1,22 @@
+package com.jutools.script.engine;
+
+/**
+ * 스크립트 엔진의 실행 모드
+ *
+ * @author jmsohn
+ */
+public enum ExecuteMode {
+
+	/** 명령어 목록을 Stack을 이용하여 하나씩 해석하여 수행 */
+	STACK,
+	/**
+	 * 명령어 목록을 피연산자 스택(OperandStack)을 이용하여 해석하여 수행<br>
+	 * 숫자 값을 boxing 하지 않고, 스택을 미리 할당하여 수행 중 객체 생성을 하지 않음
+	 */
+	OPERAND_STACK,
+	/**
+	 * 명령어 목록을 JVM 클래스로 컴파일하여 수행<br>
+	 * 컴파일할 수 없는 스크립트이거나 변수의 타입이 숫자가 아닐 경우 STACK 모드로 수행됨
+	 */
+	BYTECODE
+}
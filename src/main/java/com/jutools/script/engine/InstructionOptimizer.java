@@ -0,0 +1,481 @@
+package com.jutools.script.engine;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import com.jutools.script.engine.instructions.ADD;
+import com.jutools.script.engine.instructions.BiBooleanInstruction;
+import com.jutools.script.engine.instructions.BiNumberInstruction;
+import com.jutools.script.engine.instructions.DUP;
+import com.jutools.script.engine.instructions.EQUAL;
+import com.jutools.script.engine.instructions.IF_FALSE;
+import com.jutools.script.engine.instructions.IF_TRUE;
+import com.jutools.script.engine.instructions.INVOKE;
+import com.jutools.script.engine.instructions.Instruction;
+import com.jutools.script.engine.instructions.LOAD_FALSE;
+import com.jutools.script.engine.instructions.LOAD_NULL;
+import com.jutools.script.engine.instructions.LOAD_NUMBER;
+import com.jutools.script.engine.instructions.LOAD_STRING;
+import com.jutools.script.engine.instructions.LOAD_TRUE;
+import com.jutools.script.engine.instructions.NOP;
+import com.jutools.script.engine.instructions.NOT;
+import com.jutools.script.engine.instructions.NOT_EQUAL;
+
+/**
+ * 명령어 목록 최적화 클래스<br>
+ * 파싱 후 메소드 링크 전에 수행되며, 아래의 최적화를 수행함<br>
+ * -> 상수 연산(숫자 연산, 비교, 문자열 덧셈, 논리 연산) 및 결정적(deterministic) 메소드 호출을 상수로 대체<br>
+ * -> 조건이 상수인 분기(IF_TRUE, IF_FALSE)와 수행되지 않는 명령어 제거<br>
+ * -> NOP 명령어 제거<br>
+ * 최적화 중에는 점프 위치를 명령어 객체로 관리하고, 최적화 후 상대 위치로 다시 계산함
+ *
+ * @author jmsohn
+ */
+class InstructionOptimizer {
+
+	/** 명령어 목록의 끝을 표시하는 점프 위치 */
+	private static final Instruction END = new NOP();
+
+	/** 최적화할 명령어 목록 */
+	private List<Instruction> insts;
+
+	/** 점프 명령어 별 점프 위치 - K: 점프 명령어, V: {파라미터 1 위치 명령어, 파라미터 2 위치 명령어} */
+	private Map<Instruction, Instruction[]> jumps = new IdentityHashMap<>();
+
+	/** alias 메소드 - K: 메소드 alias 명, V: 실제 수행 메소드 */
+	private Map<String, MethodHandle> methods;
+
+	/** 결정적(deterministic) 메소드 alias 목록 */
+	private Set<String> deterministicMethods;
+
+	/**
+	 * 생성자
+	 *
+	 * @param insts 최적화할 명령어 목록
+	 * @param methods alias 메소드
+	 * @param deterministicMethods 결정적 메소드 alias 목록
+	 */
+	InstructionOptimizer(List<Instruction> insts, Map<String, MethodHandle> methods, Set<String> deterministicMethods) {
+
+		this.insts = new ArrayList<>(insts);
+		this.methods = methods;
+		this.deterministicMethods = deterministicMethods;
+
+		// 점프 명령어의 상대 위치를 명령어 객체로 변환
+		for(int pc = 0; pc < this.insts.size(); pc++) {
+
+			Instruction inst = this.insts.get(pc);
+
+			if(inst instanceof IF_TRUE) {
+				IF_TRUE ifInst = (IF_TRUE)inst;
+				this.jumps.put(inst, new Instruction[] {this.at(pc + ifInst.getP1()), this.at(pc + ifInst.getP2())});
+			} else if(inst instanceof IF_FALSE) {
+				IF_FALSE ifInst = (IF_FALSE)inst;
+				this.jumps.put(inst, new Instruction[] {this.at(pc + ifInst.getP1()), this.at(pc + ifInst.getP2())});
+			}
+		}
+	}
+
+	/**
+	 * 최적화 수행
+	 *
+	 * @return 최적화된 명령어 목록
+	 */
+	List<Instruction> optimize() {
+
+		// 변경 사항이 없을 때까지 반복 수행
+		boolean changed = true;
+		while(changed == true) {
+
+			changed = false;
+
+			for(int pc = 0; pc < this.insts.size(); pc++) {
+				if(this.fold(pc) == true || this.foldBranch(pc) == true || this.removeNop(pc) == true) {
+					changed = true;
+					break;
+				}
+			}
+		}
+
+		// 점프 명령어의 상대 위치 재계산
+		for(int pc = 0; pc < this.insts.size(); pc++) {
+
+			Instruction inst = this.insts.get(pc);
+			Instruction[] targets = this.jumps.get(inst);
+
+			if(targets == null) {
+				continue;
+			}
+
+			int p1 = this.indexOf(targets[0]) - pc;
+			int p2 = this.indexOf(targets[1]) - pc;
+
+			if(inst instanceof IF_TRUE) {
+				((IF_TRUE)inst).setP1(p1);
+				((IF_TRUE)inst).setP2(p2);
+			} else {
+				((IF_FALSE)inst).setP1(p1);
+				((IF_FALSE)inst).setP2(p2);
+			}
+		}
+
+		return this.insts;
+	}
+
+	/**
+	 * 상수 연산 최적화<br>
+	 * 파라미터가 모두 상수인 연산 명령어를 수행하여 결과 상수 명령어로 대체함
+	 *
+	 * @param pc 명령어 위치
+	 * @return 최적화 여부
+	 */
+	private boolean fold(int pc) {
+
+		Instruction inst = this.insts.get(pc);
+
+		// 파라미터 개수 확인
+		int paramCount = -1;
+
+		if(inst instanceof BiNumberInstruction || inst instanceof BiBooleanInstruction
+			|| inst instanceof ADD || inst instanceof EQUAL || inst instanceof NOT_EQUAL) {
+			paramCount = 2;
+		} else if(inst instanceof NOT || inst instanceof DUP) {
+			paramCount = 1;
+		} else if(inst instanceof INVOKE && this.deterministicMethods.contains(((INVOKE)inst).getMethodAlias()) == true) {
+			paramCount = ((INVOKE)inst).getParamCount();
+		}
+
+		if(paramCount < 0 || pc < paramCount) {
+			return false;
+		}
+
+		// 파라미터 명령어가 모두 상수인지 확인
+		// 첫번째 파라미터 이후의 명령어로 점프하는 경우는 제외
+		int start = pc - paramCount;
+
+		for(int index = start; index <= pc; index++) {
+
+			if(index < pc && isConst(this.insts.get(index)) == false) {
+				return false;
+			}
+
+			if(index > start && this.isTarget(this.insts.get(index)) == true) {
+				return false;
+			}
+		}
+
+		// DUP 명령어는 상수를 복사함
+		if(inst instanceof DUP) {
+			this.replace(pc, pc, toConst(constValue(this.insts.get(start))));
+			return true;
+		}
+
+		// 명령어 수행
+		Object result = null;
+
+		try {
+
+			Stack<Object> stack = new Stack<>();
+			for(int index = start; index < pc; index++) {
+				stack.push(constValue(this.insts.get(index)));
+			}
+
+			if(inst instanceof INVOKE) {
+				result = this.invoke((INVOKE)inst, stack);
+			} else {
+				inst.execute(stack, Collections.emptyMap());
+				result = stack.pop();
+			}
+
+		} catch(Throwable t) {
+			// 수행 중 예외가 발생하면 실행 시점에 발생하도록 최적화 하지 않음
+			return false;
+		}
+
+		// 결과 상수 명령어로 대체
+		Instruction resultInst = toConst(result);
+		if(resultInst == null) {
+			return false;
+		}
+
+		this.replace(start, pc, resultInst);
+
+		return true;
+	}
+
+	/**
+	 * 조건이 상수인 분기 최적화<br>
+	 * 분기 명령어와 조건 상수를 제거하고, 수행되지 않는 명령어를 제거함
+	 *
+	 * @param pc 명령어 위치
+	 * @return 최적화 여부
+	 */
+	private boolean foldBranch(int pc) {
+
+		Instruction inst = this.insts.get(pc);
+		Instruction[] targets = this.jumps.get(inst);
+
+		if(targets == null || pc < 1) {
+			return false;
+		}
+
+		Instruction cond = this.insts.get(pc - 1);
+		if(isConst(cond) == false || cond instanceof LOAD_NULL || this.isTarget(inst) == true) {
+			return false;
+		}
+
+		// 분기 위치 계산
+		Object value = constValue(cond);
+
+		boolean isP1 = false;
+		if(inst instanceof IF_TRUE) {
+			isP1 = Boolean.TRUE.equals(value);
+		} else {
+			isP1 = Boolean.FALSE.equals(value);
+		}
+
+		Instruction target = isP1?targets[0]:targets[1];
+		int targetPc = this.indexOf(target);
+
+		if(targetPc <= pc) {
+			return false;
+		}
+
+		// 수행되지 않는 명령어(pc + 1 ~ targetPc - 1)로 외부에서 점프하는 경우는 제외
+		for(int index = pc + 1; index < targetPc; index++) {
+
+			Instruction dead = this.insts.get(index);
+
+			for(Map.Entry<Instruction, Instruction[]> jump: this.jumps.entrySet()) {
+
+				// 현재 분기 명령어 및 제거될 점프 명령어는 제외
+				int jumpPc = this.indexOf(jump.getKey());
+				if(jumpPc >= pc && jumpPc < targetPc) {
+					continue;
+				}
+
+				if(jump.getValue()[0] == dead || jump.getValue()[1] == dead) {
+					return false;
+				}
+			}
+		}
+
+		// 조건 상수, 분기 명령어 및 수행되지 않는 명령어 제거
+		this.replace(pc - 1, targetPc - 1, null);
+
+		return true;
+	}
+
+	/**
+	 * NOP 명령어 제거
+	 *
+	 * @param pc 명령어 위치
+	 * @return 최적화 여부
+	 */
+	private boolean removeNop(int pc) {
+
+		if(this.insts.get(pc) instanceof NOP == false) {
+			return false;
+		}
+
+		this.replace(pc, pc, null);
+
+		return true;
+	}
+
+	/**
+	 * 결정적 메소드 수행
+	 *
+	 * @param inst 메소드 호출 명령어
+	 * @param stack 파라미터 스택
+	 * @return 수행 결과
+	 */
+	private Object invoke(INVOKE inst, Stack<Object> stack) throws Throwable {
+
+		MethodHandle method = this.methods.get(inst.getMethodAlias());
+		if(method == null) {
+			throw new Exception("method is not found:" + inst.getMethodAlias());
+		}
+
+		// void 형 메소드는 결과가 없기 때문에 최적화 하지 않음
+		Class<?> returnType = method.type().returnType();
+		if(returnType == void.class || returnType == Void.class) {
+			throw new Exception("method return type is void:" + inst.getMethodAlias());
+		}
+
+		Object[] params = new Object[inst.getParamCount() + 1];
+		params[0] = Collections.emptyMap();
+		for(int index = 1; index < params.length; index++) {
+			params[index] = stack.get(index - 1);
+		}
+
+		return method.invokeWithArguments(params);
+	}
+
+	/**
+	 * 명령어 목록의 구간을 새 명령어로 대체<br>
+	 * 구간 내 명령어로의 점프는 새 명령어(없을 경우 구간 다음 명령어)로 변경됨
+	 *
+	 * @param from 구간 시작 위치
+	 * @param to 구간 끝 위치(포함)
+	 * @param newInst 새 명령어(null 일 경우 구간 삭제)
+	 */
+	private void replace(int from, int to, Instruction newInst) {
+
+		List<Instruction> removed = new ArrayList<>(this.insts.subList(from, to + 1));
+		this.insts.subList(from, to + 1).clear();
+
+		if(newInst != null) {
+			this.insts.add(from, newInst);
+		}
+
+		Instruction next = (newInst != null)?newInst:this.at(from);
+
+		// 삭제된 점프 명령어 제거
+		for(Instruction inst: removed) {
+			this.jumps.remove(inst);
+		}
+
+		// 삭제된 명령어로의 점프 위치 변경
+		for(Instruction[] targets: this.jumps.values()) {
+			for(int index = 0; index < targets.length; index++) {
+				if(containsInstance(removed, targets[index]) == true) {
+					targets[index] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 점프 위치 명령어 여부 반환
+	 *
+	 * @param inst 검사할 명령어
+	 * @return 점프 위치 명령어 여부
+	 */
+	private boolean isTarget(Instruction inst) {
+
+		for(Instruction[] targets: this.jumps.values()) {
+			if(targets[0] == inst || targets[1] == inst) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * 명령어 위치의 명령어 반환, 목록의 끝일 경우 END 반환
+	 *
+	 * @param pc 명령어 위치
+	 * @return 명령어
+	 */
+	private Instruction at(int pc) {
+
+		if(pc >= this.insts.size()) {
+			return END;
+		}
+
+		return this.insts.get(pc);
+	}
+
+	/**
+	 * 명령어의 위치 반환, END 일 경우 목록의 크기 반환
+	 *
+	 * @param inst 명령어
+	 * @return 명령어 위치
+	 */
+	private int indexOf(Instruction inst) {
+
+		if(inst == END) {
+			return this.insts.size();
+		}
+
+		for(int pc = 0; pc < this.insts.size(); pc++) {
+			if(this.insts.get(pc) == inst) {
+				return pc;
+			}
+		}
+
+		throw new IllegalStateException("instruction is not found:" + inst);
+	}
+
+	/**
+	 * 목록에 명령어 객체가 있는지 여부 반환(동일 객체 비교)
+	 *
+	 * @param list 명령어 목록
+	 * @param inst 명령어
+	 * @return 명령어 객체 포함 여부
+	 */
+	private static boolean containsInstance(List<Instruction> list, Instruction inst) {
+
+		for(Instruction element: list) {
+			if(element == inst) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * 상수 명령어 여부 반환
+	 *
+	 * @param inst 명령어
+	 * @return 상수 명령어 여부
+	 */
+	private static boolean isConst(Instruction inst) {
+		return inst instanceof LOAD_NUMBER
+			|| inst instanceof LOAD_STRING
+			|| inst instanceof LOAD_TRUE
+			|| inst instanceof LOAD_FALSE
+			|| inst instanceof LOAD_NULL;
+	}
+
+	/**
+	 * 상수 명령어의 값 반환
+	 *
+	 * @param inst 상수 명령어
+	 * @return 상수 값
+	 */
+	private static Object constValue(Instruction inst) {
+
+		if(inst instanceof LOAD_NUMBER) {
+			return ((LOAD_NUMBER)inst).getValue();
+		} else if(inst instanceof LOAD_STRING) {
+			return ((LOAD_STRING)inst).getValue();
+		} else if(inst instanceof LOAD_TRUE) {
+			return Boolean.TRUE;
+		} else if(inst instanceof LOAD_FALSE) {
+			return Boolean.FALSE;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * 값을 스택에 추가하는 상수 명령어 생성
+	 *
+	 * @param value 값
+	 * @return 상수 명령어, 상수로 표현할 수 없는 값일 경우 null
+	 */
+	private static Instruction toConst(Object value) {
+
+		if(value == null) {
+			return new LOAD_NULL();
+		} else if(value instanceof Double) {
+			return new LOAD_NUMBER((Double)value);
+		} else if(value instanceof String) {
+			return new LOAD_STRING((String)value);
+		} else if(value instanceof Boolean) {
+			return ((Boolean)value)?new LOAD_TRUE():new LOAD_FALSE();
+		} else {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package com.jutools.script.engine;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+/**
+ * 컴파일된 스크립트 캐시<br>
+ * 스크립트 문자열과 메소드 클래스 목록을 키로 컴파일된 스크립트 엔진을 저장함<br>
+ * -> 최대 개수를 넘을 경우 가장 오래 사용하지 않은 스크립트를 제거(LRU)함<br>
+ * -> 캐시된 엔진은 원본(template)으로만 사용하고, 사용자에게는 복사한 엔진을 반환해야 함
+ *
+ * @author jmsohn
+ */
+public class ScriptCache<T extends AbstractEngine> {
+
+	/** 기본 최대 캐시 개수 */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+
+	/**
+	 * 스크립트 컴파일 인터페이스
+	 *
+	 * @author jmsohn
+	 */
+	@FunctionalInterface
+	public interface Compiler<T> {
+
+		/**
+		 * 스크립트 컴파일
+		 *
+		 * @return 컴파일된 스크립트 엔진
+		 */
+		T compile() throws Exception;
+	}
+
+	/** 최대 캐시 개수 */
+	@Getter
+	private volatile int maxSize;
+
+	/** 캐시 사용 여부 */
+	@Getter
+	private volatile boolean enabled = true;
+
+	/** 캐시 히트 횟수 */
+	private AtomicLong hitCount = new AtomicLong(0);
+
+	/** 캐시 미스 횟수 */
+	private AtomicLong missCount = new AtomicLong(0);
+
+	/** 컴파일된 스크립트 저장소 - 접근 순서로 정렬됨 */
+	private LinkedHashMap<List<Object>, T> cache = new LinkedHashMap<List<Object>, T>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, T> eldest) {
+			return this.size() > ScriptCache.this.maxSize;
+		}
+	};
+
+	/**
+	 * 생성자
+	 *
+	 * @param maxSize 최대 캐시 개수
+	 */
+	public ScriptCache(int maxSize) {
+		this.setMaxSize(maxSize);
+	}
+
+	/**
+	 * 생성자
+	 */
+	public ScriptCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * 캐시된 스크립트 엔진 반환<br>
+	 * 없을 경우 컴파일 후 캐시에 저장함<br>
+	 * 캐시를 사용하지 않을 경우 매번 컴파일함
+	 *
+	 * @param script 스크립트 문자열
+	 * @param methodClsAry 메소드 클래스 목록
+	 * @param compiler 스크립트 컴파일 객체
+	 * @return 컴파일된 스크립트 엔진
+	 */
+	public T get(String script, Class<?>[] methodClsAry, Compiler<T> compiler) throws Exception {
+
+		if(script == null) {
+			throw new NullPointerException("script is null");
+		}
+
+		if(compiler == null) {
+			throw new NullPointerException("compiler is null");
+		}
+
+		// 캐시를 사용하지 않을 경우 컴파일하여 반환
+		if(this.enabled == false) {
+			return compiler.compile();
+		}
+
+		// 캐시에서 검색
+		List<Object> key = makeKey(script, methodClsAry);
+		T engine = null;
+
+		synchronized(this.cache) {
+			engine = this.cache.get(key);
+		}
+
+		if(engine != null) {
+			this.hitCount.incrementAndGet();
+			return engine;
+		}
+
+		// 캐시에 없을 경우 컴파일 후 저장
+		// 컴파일은 lock 밖에서 수행하여 다른 스크립트의 조회를 막지 않음
+		this.missCount.incrementAndGet();
+		engine = compiler.compile();
+
+		synchronized(this.cache) {
+
+			T cached = this.cache.get(key);
+			if(cached != null) {
+				return cached;
+			}
+
+			this.cache.put(key, engine);
+		}
+
+		return engine;
+	}
+
+	/**
+	 * 캐시 키 생성<br>
+	 * 메소드 클래스는 이름이 아닌 Class 객체로 비교함<br>
+	 * -> 다른 class loader 에서 로딩된 같은 이름의 클래스는 다른 키가 됨
+	 *
+	 * @param script 스크립트 문자열
+	 * @param methodClsAry 메소드 클래스 목록
+	 * @return 캐시 키
+	 */
+	private static List<Object> makeKey(String script, Class<?>[] methodClsAry) {
+		return Arrays.asList(script, (methodClsAry == null)?null:Arrays.asList(methodClsAry));
+	}
+
+	/**
+	 * 최대 캐시 개수 설정
+	 *
+	 * @param maxSize 최대 캐시 개수
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public ScriptCache<T> setMaxSize(int maxSize) {
+
+		if(maxSize < 1) {
+			throw new IllegalArgumentException("max size must be greater than 0:" + maxSize);
+		}
+
+		this.maxSize = maxSize;
+
+		// 최대 개수를 넘는 스크립트 제거
+		synchronized(this.cache) {
+
+			while(this.cache.size() > this.maxSize) {
+				List<Object> eldest = this.cache.keySet().iterator().next();
+				this.cache.remove(eldest);
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * 캐시 사용 여부 설정<br>
+	 * 사용하지 않도록 설정하면 캐시된 스크립트를 모두 제거함
+	 *
+	 * @param enabled 캐시 사용 여부
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public ScriptCache<T> setEnabled(boolean enabled) {
+
+		this.enabled = enabled;
+
+		if(enabled == false) {
+			this.clear();
+		}
+
+		return this;
+	}
+
+	/**
+	 * 캐시 히트 횟수 반환
+	 *
+	 * @return 캐시 히트 횟수
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * 캐시 미스 횟수 반환
+	 *
+	 * @return 캐시 미스 횟수
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * 캐시된 스크립트 개수 반환
+	 *
+	 * @return 캐시된 스크립트 개수
+	 */
+	public int size() {
+		synchronized(this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	/**
+	 * 캐시된 스크립트 모두 제거
+	 */
+	public void clear() {
+		synchronized(this.cache) {
+			this.cache.clear();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.jutools.script.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스크립트 변수의 슬롯 배치 정보<br>
+ * 스크립트에서 사용하는 변수명 별로 슬롯 인덱스를 부여함<br>
+ * -> Bindings 객체를 사용하여 수행할 경우 변수명 해싱 없이 슬롯 인덱스로 변수에 접근함
+ * 
+ * @author jmsohn
+ */
+public class VarLayout {
+	
+	/** 변수명 목록 - 슬롯 인덱스 순서 */
+	private List<String> names = new ArrayList<>();
+	
+	/** 변수명 별 슬롯 인덱스 - K: 변수명, V: 슬롯 인덱스 */
+	private Map<String, Integer> indexMap = new HashMap<>();
+	
+	/**
+	 * 생성자
+	 */
+	VarLayout() {
+	}
+	
+	/**
+	 * 변수 추가<br>
+	 * 이미 추가된 변수일 경우 기존 슬롯 인덱스를 반환
+	 * 
+	 * @param name 변수명
+	 * @return 슬롯 인덱스
+	 */
+	int add(String name) {
+		
+		if(name == null) {
+			throw new NullPointerException("name is null");
+		}
+		
+		Integer index = this.indexMap.get(name);
+		if(index != null) {
+			return index;
+		}
+		
+		index = this.names.size();
+		
+		this.names.add(name);
+		this.indexMap.put(name, index);
+		
+		return index;
+	}
+	
+	/**
+	 * 변수명의 슬롯 인덱스 반환
+	 * 
+	 * @param name 변수명
+	 * @return 슬롯 인덱스, 없을 경우 -1
+	 */
+	public int indexOf(Object name) {
+		
+		Integer index = this.indexMap.get(name);
+		if(index == null) {
+			return -1;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * 슬롯 인덱스의 변수명 반환
+	 * 
+	 * @param index 슬롯 인덱스
+	 * @return 변수명
+	 */
+	public String getName(int index) {
+		return this.names.get(index);
+	}
+	
+	/**
+	 * 변수명 목록 반환(슬롯 인덱스 순서)
+	 * 
+	 * @return 변수명 목록
+	 */
+	public List<String> getNames() {
+		return Collections.unmodifiableList(this.names);
+	}
+	
+	/**
+	 * 변수의 개수 반환
+	 * 
+	 * @return 변수의 개수
+	 */
+	public int size() {
+		return this.names.size();
+	}
+	
+	/**
+	 * 변수 바인딩 객체 생성
+	 * 
+	 * @return 생성된 변수 바인딩 객체
+	 */
+	public Bindings newBindings() {
+		return new Bindings(this);
+	}
+	
+	@Override
+	public String toString() {
+		return this.names.toString();
+	}
+}
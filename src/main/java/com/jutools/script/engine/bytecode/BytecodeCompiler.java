@@ -0,0 +1,1017 @@
+package com.jutools.script.engine.bytecode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jutools.script.engine.instructions.ADD;
+import com.jutools.script.engine.instructions.AND;
+import com.jutools.script.engine.instructions.DIV;
+import com.jutools.script.engine.instructions.DUP;
+import com.jutools.script.engine.instructions.EQUAL;
+import com.jutools.script.engine.instructions.GREATER_EQUAL;
+import com.jutools.script.engine.instructions.GREATER_THAN;
+import com.jutools.script.engine.instructions.IF_FALSE;
+import com.jutools.script.engine.instructions.IF_TRUE;
+import com.jutools.script.engine.instructions.INVOKE;
+import com.jutools.script.engine.instructions.Instruction;
+import com.jutools.script.engine.instructions.LESS_EQUAL;
+import com.jutools.script.engine.instructions.LESS_THAN;
+import com.jutools.script.engine.instructions.LOAD_FALSE;
+import com.jutools.script.engine.instructions.LOAD_NULL;
+import com.jutools.script.engine.instructions.LOAD_NUMBER;
+import com.jutools.script.engine.instructions.LOAD_STRING;
+import com.jutools.script.engine.instructions.LOAD_TRUE;
+import com.jutools.script.engine.instructions.LOAD_VAR;
+import com.jutools.script.engine.instructions.MINUS;
+import com.jutools.script.engine.instructions.MOD;
+import com.jutools.script.engine.instructions.MUL;
+import com.jutools.script.engine.instructions.NOP;
+import com.jutools.script.engine.instructions.NOT;
+import com.jutools.script.engine.instructions.NOT_EQUAL;
+import com.jutools.script.engine.instructions.OR;
+import com.jutools.script.engine.instructions.STORE;
+import com.jutools.script.engine.instructions.XOR;
+
+/**
+ * 스크립트 명령어 목록을 JVM 바이트코드로 컴파일하는 클래스<br>
+ * -> 변수(LOAD_VAR)는 숫자(double)로 가정하여 컴파일함<br>
+ *    수행시 변수 값이 숫자가 아니면 CompiledScript.bind 에서 false를 반환하여 인터프리터로 수행됨<br>
+ * -> 타입을 확정할 수 없는 명령어(LOAD_ATTR, LOAD_ELEMENT, NEW_LIST, 문자열 덧셈 등)가 있으면 컴파일하지 않음
+ *
+ * @author jmsohn
+ */
+public class BytecodeCompiler {
+
+	/** 생성되는 클래스의 패키지 */
+	private static final String GEN_PACKAGE = "com/jutools/script/engine/bytecode/gen/";
+
+	/** 컴파일된 스크립트 상위 클래스명 */
+	private static final String SUPER_NAME = "com/jutools/script/engine/bytecode/CompiledScript";
+
+	/** run 메소드 descriptor */
+	private static final String RUN_DESC = "(Ljava/util/Map;[D[Ljava/lang/Object;)V";
+
+	/** 생성 클래스명 일련 번호 */
+	private static final AtomicInteger SEQ = new AtomicInteger(0);
+
+	// 스택 값의 타입
+	/** 숫자(double) */
+	private static final char NUM = 'D';
+	/** boolean */
+	private static final char BOOL = 'Z';
+	/** 객체 */
+	private static final char OBJ = 'O';
+
+	// 사용하는 JVM opcode
+	private static final int ACONST_NULL = 0x01;
+	private static final int ICONST_0 = 0x03;
+	private static final int ICONST_1 = 0x04;
+	private static final int DCONST_0 = 0x0e;
+	private static final int DCONST_1 = 0x0f;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC = 0x12;
+	private static final int LDC_W = 0x13;
+	private static final int LDC2_W = 0x14;
+	private static final int ILOAD = 0x15;
+	private static final int DLOAD = 0x18;
+	private static final int ALOAD = 0x19;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int ALOAD_2 = 0x2c;
+	private static final int ALOAD_3 = 0x2d;
+	private static final int DALOAD = 0x31;
+	private static final int ISTORE = 0x36;
+	private static final int DSTORE = 0x39;
+	private static final int ASTORE = 0x3a;
+	private static final int AASTORE = 0x53;
+	private static final int POP = 0x57;
+	private static final int POP2 = 0x58;
+	private static final int DUP_OP = 0x59;
+	private static final int DUP2 = 0x5c;
+	private static final int SWAP = 0x5f;
+	private static final int DADD = 0x63;
+	private static final int DSUB = 0x67;
+	private static final int DMUL = 0x6b;
+	private static final int IAND = 0x7e;
+	private static final int IOR = 0x80;
+	private static final int IXOR = 0x82;
+	private static final int IFEQ = 0x99;
+	private static final int IFNE = 0x9a;
+	private static final int GOTO = 0xa7;
+	private static final int RETURN = 0xb1;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKESTATIC = 0xb8;
+	private static final int INVOKEINTERFACE = 0xb9;
+	private static final int CHECKCAST = 0xc0;
+	private static final int WIDE = 0xc4;
+
+	/** 컴파일할 명령어 목록 */
+	private List<Instruction> insts;
+
+	/** class 파일 생성 객체 */
+	private ClassFileWriter cw = new ClassFileWriter();
+
+	/** 바이트코드 버퍼 */
+	private byte[] code = new byte[256];
+	/** 바이트코드 길이 */
+	private int codeLength = 0;
+
+	/** 컴파일 시점의 스택 타입 목록 */
+	private StringBuilder stack = new StringBuilder();
+	/** 현재 위치의 도달 가능 여부 */
+	private boolean reachable = true;
+	/** 최대 스택 크기(JVM slot 단위) */
+	private int maxSlots = 0;
+	/** 다음 로컬 변수 인덱스 - 0:this, 1:values, 2:vars, 3:results */
+	private int nextLocal = 4;
+
+	/** 변수명별 vars 배열 인덱스 */
+	private Map<String, Integer> varIndex = new LinkedHashMap<>();
+
+	/** 현재 컴파일 중인 명령어 위치 */
+	private int curPc = 0;
+	/** 명령어 위치별 점프 되어 들어오는 스택 타입 */
+	private String[] incoming;
+	/** 명령어 위치별 바이트코드 위치 */
+	private int[] offsets;
+	/** 점프 위치 보정 목록 - {점프 opcode 위치, 점프 목표 명령어 위치} */
+	private List<int[]> patches = new ArrayList<>();
+
+	/**
+	 * 컴파일 불가 예외
+	 */
+	private static class NotCompilableException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		NotCompilableException(String msg) {
+			super(msg);
+		}
+	}
+
+	/**
+	 * 생성자
+	 *
+	 * @param insts 컴파일할 명령어 목록
+	 */
+	private BytecodeCompiler(List<Instruction> insts) {
+		this.insts = insts;
+		this.incoming = new String[insts.size() + 1];
+		this.offsets = new int[insts.size() + 1];
+	}
+
+	/**
+	 * 명령어 목록을 컴파일하여 반환<br>
+	 * 컴파일할 수 없는 명령어 목록일 경우 null 반환
+	 *
+	 * @param insts 컴파일할 명령어 목록(메소드 링크가 완료되어야 함)
+	 * @return 컴파일된 스크립트
+	 */
+	public static CompiledScript compile(List<Instruction> insts) throws Exception {
+
+		if(insts == null) {
+			throw new NullPointerException("instruction list is null");
+		}
+
+		try {
+			return new BytecodeCompiler(insts).build();
+		} catch(NotCompilableException ncex) {
+			return null;
+		}
+	}
+
+	/**
+	 * 컴파일 수행
+	 *
+	 * @return 컴파일된 스크립트
+	 */
+	private CompiledScript build() throws Exception {
+
+		// 1. 명령어 별로 바이트코드 생성
+		for(int pc = 0; pc < this.insts.size(); pc++) {
+			this.curPc = pc;
+			this.merge(pc);
+			this.offsets[pc] = this.codeLength;
+			this.emit(pc, this.insts.get(pc));
+		}
+
+		this.merge(this.insts.size());
+		this.offsets[this.insts.size()] = this.codeLength;
+
+		// 2. 스택에 남은 값을 results 배열에 저장
+		int resultCount = this.stack.length();
+		this.emitResults();
+
+		// 3. 점프 위치 보정
+		for(int[] patch: this.patches) {
+
+			int jump = this.offsets[patch[1]] - patch[0];
+			if(jump > Short.MAX_VALUE) {
+				throw new NotCompilableException("jump offset is too large");
+			}
+
+			this.code[patch[0] + 1] = (byte)(jump >> 8);
+			this.code[patch[0] + 2] = (byte)jump;
+		}
+
+		// 4. 클래스 생성
+		String className = GEN_PACKAGE + "Script" + SEQ.incrementAndGet();
+
+		byte[] initCode = {
+			(byte)ALOAD_0,
+			(byte)INVOKESPECIAL, 0, 0,
+			(byte)RETURN
+		};
+
+		int superInit = this.cw.methodRef(SUPER_NAME, "<init>", "()V");
+		initCode[2] = (byte)(superInit >> 8);
+		initCode[3] = (byte)superInit;
+
+		this.cw.addMethod(0x0001, "<init>", "()V", 1, 1, initCode);
+		this.cw.addMethod(0x0001, "run", RUN_DESC, this.maxSlots + 8, this.nextLocal, Arrays.copyOf(this.code, this.codeLength));
+
+		byte[] classBytes = this.cw.toByteArray(0x0001 | 0x0010 | 0x0020, className, SUPER_NAME);
+
+		// 5. 클래스 로딩 및 객체 생성
+		ScriptClassLoader loader = new ScriptClassLoader(CompiledScript.class.getClassLoader());
+		Class<?> scriptClass = loader.define(className.replace('/', '.'), classBytes);
+
+		CompiledScript script = (CompiledScript)scriptClass.getConstructor().newInstance();
+		script.init(this.varIndex.keySet().toArray(new String[0]), resultCount);
+
+		return script;
+	}
+
+	/**
+	 * 명령어 위치에서 점프되어 들어오는 스택 상태와 현재 스택 상태를 합침
+	 *
+	 * @param pc 명령어 위치
+	 */
+	private void merge(int pc) throws NotCompilableException {
+
+		String in = this.incoming[pc];
+
+		if(this.reachable == true) {
+
+			if(in != null && in.equals(this.stack.toString()) == false) {
+				throw new NotCompilableException("stack type is mismatched at " + pc);
+			}
+
+		} else {
+
+			if(in == null) {
+				throw new NotCompilableException("unreachable instruction at " + pc);
+			}
+
+			this.stack.setLength(0);
+			this.stack.append(in);
+			this.reachable = true;
+		}
+	}
+
+	/**
+	 * 명령어의 바이트코드 생성
+	 *
+	 * @param pc 명령어 위치
+	 * @param inst 명령어
+	 */
+	private void emit(int pc, Instruction inst) throws Exception {
+
+		if(inst instanceof NOP) {
+
+			// Do nothing
+
+		} else if(inst instanceof LOAD_NUMBER) {
+
+			double value = ((LOAD_NUMBER)inst).getValue();
+			long bits = Double.doubleToRawLongBits(value);
+
+			if(bits == Double.doubleToRawLongBits(0.0)) {
+				this.op(DCONST_0);
+			} else if(bits == Double.doubleToRawLongBits(1.0)) {
+				this.op(DCONST_1);
+			} else {
+				this.op(LDC2_W);
+				this.u2(this.cw.doubleConst(value));
+			}
+
+			this.push(NUM);
+
+		} else if(inst instanceof LOAD_STRING) {
+
+			this.ldc(this.cw.string(((LOAD_STRING)inst).getValue()));
+			this.push(OBJ);
+
+		} else if(inst instanceof LOAD_NULL) {
+
+			this.op(ACONST_NULL);
+			this.push(OBJ);
+
+		} else if(inst instanceof LOAD_TRUE) {
+
+			this.op(ICONST_1);
+			this.push(BOOL);
+
+		} else if(inst instanceof LOAD_FALSE) {
+
+			this.op(ICONST_0);
+			this.push(BOOL);
+
+		} else if(inst instanceof LOAD_VAR) {
+
+			String name = ((LOAD_VAR)inst).getName();
+			if(this.varIndex.containsKey(name) == false) {
+				this.varIndex.put(name, this.varIndex.size());
+			}
+
+			this.op(ALOAD_2);
+			this.pushInt(this.varIndex.get(name));
+			this.op(DALOAD);
+			this.push(NUM);
+
+		} else if(inst instanceof ADD || inst instanceof MINUS || inst instanceof MUL) {
+
+			this.pop(NUM);
+			this.pop(NUM);
+
+			if(inst instanceof ADD) {
+				this.op(DADD);
+			} else if(inst instanceof MINUS) {
+				this.op(DSUB);
+			} else {
+				this.op(DMUL);
+			}
+
+			this.push(NUM);
+
+		} else if(inst instanceof DIV || inst instanceof MOD) {
+
+			this.pop(NUM);
+			this.pop(NUM);
+
+			String name = (inst instanceof DIV)?"div":"mod";
+			this.invokeStatic(SUPER_NAME, name, "(DD)D");
+
+			this.push(NUM);
+
+		} else if(inst instanceof GREATER_THAN || inst instanceof GREATER_EQUAL
+				|| inst instanceof LESS_THAN || inst instanceof LESS_EQUAL) {
+
+			this.pop(NUM);
+			this.pop(NUM);
+
+			String name = null;
+			if(inst instanceof GREATER_THAN) {
+				name = "gt";
+			} else if(inst instanceof GREATER_EQUAL) {
+				name = "ge";
+			} else if(inst instanceof LESS_THAN) {
+				name = "lt";
+			} else {
+				name = "le";
+			}
+
+			this.invokeStatic(SUPER_NAME, name, "(DD)Z");
+			this.push(BOOL);
+
+		} else if(inst instanceof EQUAL || inst instanceof NOT_EQUAL) {
+
+			this.emitEqual(inst instanceof NOT_EQUAL);
+
+		} else if(inst instanceof AND || inst instanceof OR || inst instanceof XOR) {
+
+			this.pop(BOOL);
+			this.pop(BOOL);
+
+			if(inst instanceof AND) {
+				this.op(IAND);
+			} else if(inst instanceof OR) {
+				this.op(IOR);
+			} else {
+				this.op(IXOR);
+			}
+
+			this.push(BOOL);
+
+		} else if(inst instanceof NOT) {
+
+			this.pop(BOOL);
+			this.op(ICONST_1);
+			this.op(IXOR);
+			this.push(BOOL);
+
+		} else if(inst instanceof DUP) {
+
+			char type = this.pop();
+			this.op((type == NUM)?DUP2:DUP_OP);
+			this.push(type);
+			this.push(type);
+
+		} else if(inst instanceof IF_TRUE) {
+
+			IF_TRUE ifInst = (IF_TRUE)inst;
+			this.pop(BOOL);
+
+			// 값이 true 이면 p1, false 이면 p2 만큼 이동
+			this.emitBranch(pc, ifInst.getP1(), ifInst.getP2());
+
+		} else if(inst instanceof IF_FALSE) {
+
+			IF_FALSE ifInst = (IF_FALSE)inst;
+			this.pop(BOOL);
+
+			// 값이 false 이면 p1, true 이면 p2 만큼 이동
+			this.emitBranch(pc, ifInst.getP2(), ifInst.getP1());
+
+		} else if(inst instanceof STORE) {
+
+			// values.put(name, value) 수행
+			char type = this.pop();
+			this.box(type);
+
+			this.op(ALOAD_1);
+			this.op(SWAP);
+			this.ldc(this.cw.string(((STORE)inst).getName()));
+			this.op(SWAP);
+
+			this.op(INVOKEINTERFACE);
+			this.u2(this.cw.interfaceMethodRef("java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;"));
+			this.u1(3);
+			this.u1(0);
+			this.op(POP);
+
+			this.slots(4);
+
+		} else if(inst instanceof INVOKE) {
+
+			this.emitInvoke((INVOKE)inst);
+
+		} else {
+
+			throw new NotCompilableException("unsupported instruction:" + inst.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * EQUAL, NOT_EQUAL 명령어 바이트코드 생성
+	 *
+	 * @param not NOT_EQUAL 여부
+	 */
+	private void emitEqual(boolean not) throws Exception {
+
+		char p1 = this.pop();
+		char p2 = this.pop();
+
+		if(p1 == NUM && p2 == NUM) {
+
+			this.invokeStatic(SUPER_NAME, "eq", "(DD)Z");
+
+		} else if(p1 == BOOL && p2 == BOOL) {
+
+			this.invokeStatic(SUPER_NAME, "eq", "(ZZ)Z");
+
+		} else if(p1 == OBJ && p2 == OBJ) {
+
+			this.invokeStatic("java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+
+		} else if(p1 != OBJ && p2 != OBJ) {
+
+			// 숫자와 boolean 의 비교는 항상 다름
+			this.op((p1 == NUM)?POP2:POP);
+			this.op((p2 == NUM)?POP2:POP);
+			this.op(ICONST_0);
+
+		} else {
+
+			// 객체는 실행시 숫자일 수 있기 때문에 컴파일 하지 않음
+			throw new NotCompilableException("can't compare object with primitive value");
+		}
+
+		if(not == true) {
+			this.op(ICONST_1);
+			this.op(IXOR);
+		}
+
+		this.push(BOOL);
+	}
+
+	/**
+	 * 조건 분기 바이트코드 생성(스택 최상단의 boolean 값으로 분기)
+	 *
+	 * @param pc 현재 명령어 위치
+	 * @param trueJump true 일때 이동 거리
+	 * @param falseJump false 일때 이동 거리
+	 */
+	private void emitBranch(int pc, int trueJump, int falseJump) throws Exception {
+
+		if(trueJump == 1) {
+
+			this.jump(IFEQ, pc + falseJump);
+
+		} else if(falseJump == 1) {
+
+			this.jump(IFNE, pc + trueJump);
+
+		} else {
+
+			this.jump(IFNE, pc + trueJump);
+			this.jump(GOTO, pc + falseJump);
+			this.reachable = false;
+		}
+	}
+
+	/**
+	 * INVOKE 명령어 바이트코드 생성<br>
+	 * 메소드 핸들의 실제 static 메소드를 직접 호출함
+	 *
+	 * @param inst INVOKE 명령어
+	 */
+	private void emitInvoke(INVOKE inst) throws Exception {
+
+		MethodHandle handle = inst.getMethod();
+		if(handle == null) {
+			throw new NotCompilableException("method is not linked:" + inst.getMethodAlias());
+		}
+
+		// 메소드 핸들의 실제 메소드 획득
+		Method method = null;
+		try {
+			method = MethodHandles.reflectAs(Method.class, handle);
+		} catch(Exception ex) {
+			throw new NotCompilableException("method is not direct:" + inst.getMethodAlias());
+		}
+
+		// 생성된 클래스에서 접근 가능한지 확인
+		Class<?> owner = method.getDeclaringClass();
+		if(Modifier.isPublic(owner.getModifiers()) == false || Modifier.isStatic(method.getModifiers()) == false) {
+			throw new NotCompilableException("method is not accessible:" + method);
+		}
+
+		try {
+			if(Class.forName(owner.getName(), false, CompiledScript.class.getClassLoader()) != owner) {
+				throw new NotCompilableException("method class is not visible:" + owner);
+			}
+		} catch(ClassNotFoundException cnfex) {
+			throw new NotCompilableException("method class is not visible:" + owner);
+		}
+
+		// 파라미터 검사 - 첫번째 파라미터는 변수 저장 객체(Map)
+		Class<?>[] paramTypes = method.getParameterTypes();
+		if(paramTypes.length != inst.getParamCount() + 1
+			|| paramTypes[0].isAssignableFrom(Map.class) == false) {
+			throw new NotCompilableException("invalid parameter:" + method);
+		}
+
+		// 스택의 파라미터를 로컬 변수로 옮김
+		int paramCount = inst.getParamCount();
+		char[] types = new char[paramCount];
+		int[] locals = new int[paramCount];
+
+		for(int index = paramCount - 1; index >= 0; index--) {
+			types[index] = this.pop();
+			locals[index] = this.store(types[index]);
+		}
+
+		// 변수 저장 객체 및 파라미터를 스택에 넣고 메소드 호출
+		this.op(ALOAD_1);
+
+		int slots = 1;
+		for(int index = 0; index < paramCount; index++) {
+			this.load(types[index], locals[index]);
+			this.convert(types[index], paramTypes[index + 1]);
+			slots += (paramTypes[index + 1] == double.class)?2:1;
+		}
+
+		this.slots(slots);
+
+		this.invokeStatic(internalName(owner), method.getName(), descriptor(method));
+
+		// 반환 타입에 따라 스택 설정
+		Class<?> returnType = method.getReturnType();
+
+		if(returnType == void.class) {
+			// Do nothing
+		} else if(returnType == double.class) {
+			this.push(NUM);
+		} else if(returnType == boolean.class) {
+			this.push(BOOL);
+		} else if(returnType.isPrimitive() == false) {
+			this.push(OBJ);
+		} else {
+			// int 등 다른 primitive 형은 인터프리터와 결과가 달라지기 때문에 컴파일하지 않음
+			throw new NotCompilableException("unsupported return type:" + returnType);
+		}
+	}
+
+	/**
+	 * 스택에 남은 값을 results 배열에 저장하는 바이트코드 생성
+	 */
+	private void emitResults() throws Exception {
+
+		int count = this.stack.length();
+		char[] types = new char[count];
+		int[] locals = new int[count];
+
+		for(int index = count - 1; index >= 0; index--) {
+			types[index] = this.pop();
+			locals[index] = this.store(types[index]);
+		}
+
+		for(int index = 0; index < count; index++) {
+
+			this.op(ALOAD_3);
+			this.pushInt(index);
+			this.load(types[index], locals[index]);
+			this.box(types[index]);
+			this.op(AASTORE);
+		}
+
+		this.op(RETURN);
+	}
+
+	/**
+	 * 스택 타입 값을 파라미터 타입으로 변환하는 바이트코드 생성
+	 *
+	 * @param type 스택 타입
+	 * @param paramType 파라미터 타입
+	 */
+	private void convert(char type, Class<?> paramType) throws Exception {
+
+		if(paramType == double.class) {
+
+			if(type != NUM) {
+				throw new NotCompilableException("parameter type mismatch:" + paramType);
+			}
+
+		} else if(paramType == boolean.class) {
+
+			if(type != BOOL) {
+				throw new NotCompilableException("parameter type mismatch:" + paramType);
+			}
+
+		} else if(paramType.isPrimitive() == true) {
+
+			throw new NotCompilableException("unsupported parameter type:" + paramType);
+
+		} else {
+
+			this.box(type);
+
+			// Object 가 아닌 경우 타입 변환
+			if(paramType != Object.class) {
+
+				if(type == NUM && paramType.isAssignableFrom(Double.class) == false) {
+					throw new NotCompilableException("parameter type mismatch:" + paramType);
+				}
+
+				if(type == BOOL && paramType.isAssignableFrom(Boolean.class) == false) {
+					throw new NotCompilableException("parameter type mismatch:" + paramType);
+				}
+
+				this.op(CHECKCAST);
+				this.u2(this.cw.classRef(internalName(paramType)));
+			}
+		}
+	}
+
+	/**
+	 * 스택 최상단 값을 객체로 변환(boxing)하는 바이트코드 생성
+	 *
+	 * @param type 스택 타입
+	 */
+	private void box(char type) throws Exception {
+
+		if(type == NUM) {
+			this.invokeStatic("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+		} else if(type == BOOL) {
+			this.invokeStatic("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
+		}
+	}
+
+	/**
+	 * 점프 바이트코드 생성
+	 *
+	 * @param opcode 점프 opcode
+	 * @param target 점프할 명령어 위치
+	 */
+	private void jump(int opcode, int target) throws Exception {
+
+		// 앞으로 이동하는 점프만 지원
+		if(target <= this.curPc || target > this.insts.size()) {
+			throw new NotCompilableException("invalid jump target:" + target);
+		}
+
+		// 점프 목표 위치의 스택 상태 기록
+		String state = this.stack.toString();
+		if(this.incoming[target] != null && this.incoming[target].equals(state) == false) {
+			throw new NotCompilableException("stack type is mismatched at " + target);
+		}
+
+		this.incoming[target] = state;
+
+		this.patches.add(new int[] {this.codeLength, target});
+		this.op(opcode);
+		this.u2(0);
+	}
+
+	/**
+	 * 스택 최상단 값을 새 로컬 변수에 저장하는 바이트코드 생성
+	 *
+	 * @param type 스택 타입
+	 * @return 로컬 변수 인덱스
+	 */
+	private int store(char type) {
+
+		int local = this.nextLocal;
+		this.nextLocal += (type == NUM)?2:1;
+
+		if(type == NUM) {
+			this.localOp(DSTORE, local);
+		} else if(type == BOOL) {
+			this.localOp(ISTORE, local);
+		} else {
+			this.localOp(ASTORE, local);
+		}
+
+		return local;
+	}
+
+	/**
+	 * 로컬 변수 값을 스택에 넣는 바이트코드 생성
+	 *
+	 * @param type 스택 타입
+	 * @param local 로컬 변수 인덱스
+	 */
+	private void load(char type, int local) {
+
+		if(type == NUM) {
+			this.localOp(DLOAD, local);
+		} else if(type == BOOL) {
+			this.localOp(ILOAD, local);
+		} else {
+			this.localOp(ALOAD, local);
+		}
+	}
+
+	/**
+	 * 로컬 변수 opcode 생성
+	 *
+	 * @param opcode 로컬 변수 opcode
+	 * @param local 로컬 변수 인덱스
+	 */
+	private void localOp(int opcode, int local) {
+
+		if(local > 0xFF) {
+			this.op(WIDE);
+			this.op(opcode);
+			this.u2(local);
+		} else {
+			this.op(opcode);
+			this.u1(local);
+		}
+	}
+
+	/**
+	 * int 상수를 스택에 넣는 바이트코드 생성
+	 *
+	 * @param value int 상수
+	 */
+	private void pushInt(int value) throws Exception {
+
+		if(value >= -1 && value <= 5) {
+			this.op(ICONST_0 + value);
+		} else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			this.op(BIPUSH);
+			this.u1(value);
+		} else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			this.op(SIPUSH);
+			this.u2(value);
+		} else {
+			this.ldc(this.cw.integer(value));
+		}
+	}
+
+	/**
+	 * constant pool 상수를 스택에 넣는 바이트코드 생성
+	 *
+	 * @param index constant pool 인덱스
+	 */
+	private void ldc(int index) {
+
+		if(index > 0xFF) {
+			this.op(LDC_W);
+			this.u2(index);
+		} else {
+			this.op(LDC);
+			this.u1(index);
+		}
+	}
+
+	/**
+	 * static 메소드 호출 바이트코드 생성
+	 *
+	 * @param owner 클래스명
+	 * @param name 메소드명
+	 * @param desc 메소드 descriptor
+	 */
+	private void invokeStatic(String owner, String name, String desc) throws Exception {
+		this.op(INVOKESTATIC);
+		this.u2(this.cw.methodRef(owner, name, desc));
+	}
+
+	/**
+	 * 컴파일 시점의 스택에 타입 추가
+	 *
+	 * @param type 스택 타입
+	 */
+	private void push(char type) {
+
+		this.stack.append(type);
+
+		int slots = 0;
+		for(int index = 0; index < this.stack.length(); index++) {
+			slots += (this.stack.charAt(index) == NUM)?2:1;
+		}
+
+		this.maxSlots = Math.max(this.maxSlots, slots);
+	}
+
+	/**
+	 * 컴파일 시점의 스택에서 타입을 꺼냄
+	 *
+	 * @return 스택 타입
+	 */
+	private char pop() throws NotCompilableException {
+
+		if(this.stack.length() == 0) {
+			throw new NotCompilableException("stack is empty");
+		}
+
+		char type = this.stack.charAt(this.stack.length() - 1);
+		this.stack.setLength(this.stack.length() - 1);
+
+		return type;
+	}
+
+	/**
+	 * 컴파일 시점의 스택에서 주어진 타입을 꺼냄
+	 *
+	 * @param expected 예상 타입
+	 */
+	private void pop(char expected) throws NotCompilableException {
+
+		char type = this.pop();
+		if(type != expected) {
+			throw new NotCompilableException("unexpected type:" + type + ", expected:" + expected);
+		}
+	}
+
+	/**
+	 * 현재 스택 크기에 추가로 사용되는 slot 수 반영
+	 *
+	 * @param extra 추가 slot 수
+	 */
+	private void slots(int extra) {
+
+		int slots = extra;
+		for(int index = 0; index < this.stack.length(); index++) {
+			slots += (this.stack.charAt(index) == NUM)?2:1;
+		}
+
+		this.maxSlots = Math.max(this.maxSlots, slots);
+	}
+
+	/**
+	 * opcode 추가
+	 *
+	 * @param opcode opcode
+	 */
+	private void op(int opcode) {
+		this.u1(opcode);
+	}
+
+	/**
+	 * 1 byte 추가
+	 *
+	 * @param value 추가할 값
+	 */
+	private void u1(int value) {
+
+		if(this.codeLength == this.code.length) {
+			this.code = Arrays.copyOf(this.code, this.code.length * 2);
+		}
+
+		this.code[this.codeLength++] = (byte)value;
+	}
+
+	/**
+	 * 2 byte 추가
+	 *
+	 * @param value 추가할 값
+	 */
+	private void u2(int value) {
+		this.u1(value >> 8);
+		this.u1(value);
+	}
+
+	/**
+	 * 클래스의 내부 이름 반환(ex. java.lang.Object -> java/lang/Object)
+	 *
+	 * @param cls 클래스
+	 * @return 내부 이름
+	 */
+	private static String internalName(Class<?> cls) {
+		return cls.getName().replace('.', '/');
+	}
+
+	/**
+	 * 메소드 descriptor 반환
+	 *
+	 * @param method 메소드
+	 * @return 메소드 descriptor
+	 */
+	private static String descriptor(Method method) {
+
+		StringBuilder desc = new StringBuilder("(");
+
+		for(Class<?> paramType: method.getParameterTypes()) {
+			desc.append(descriptor(paramType));
+		}
+
+		desc.append(")").append(descriptor(method.getReturnType()));
+
+		return desc.toString();
+	}
+
+	/**
+	 * 타입 descriptor 반환
+	 *
+	 * @param type 타입
+	 * @return 타입 descriptor
+	 */
+	private static String descriptor(Class<?> type) {
+
+		if(type == void.class) {
+			return "V";
+		} else if(type == double.class) {
+			return "D";
+		} else if(type == boolean.class) {
+			return "Z";
+		} else if(type == int.class) {
+			return "I";
+		} else if(type == long.class) {
+			return "J";
+		} else if(type == float.class) {
+			return "F";
+		} else if(type == short.class) {
+			return "S";
+		} else if(type == byte.class) {
+			return "B";
+		} else if(type == char.class) {
+			return "C";
+		} else if(type.isArray() == true) {
+			return internalName(type);
+		} else {
+			return "L" + internalName(type) + ";";
+		}
+	}
+
+	/**
+	 * 컴파일된 스크립트 클래스 로더<br>
+	 * 스크립트 별로 생성하여 스크립트 객체가 사용되지 않으면 클래스도 unload 될 수 있도록 함
+	 *
+	 * @author jmsohn
+	 */
+	private static class ScriptClassLoader extends ClassLoader {
+
+		/**
+		 * 생성자
+		 *
+		 * @param parent 상위 클래스 로더
+		 */
+		ScriptClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		/**
+		 * 클래스 정의
+		 *
+		 * @param name 클래스명
+		 * @param classBytes class 파일 바이트 배열
+		 * @return 정의된 클래스
+		 */
+		Class<?> define(String name, byte[] classBytes) {
+			return this.defineClass(name, classBytes, 0, classBytes.length);
+		}
+	}
+}
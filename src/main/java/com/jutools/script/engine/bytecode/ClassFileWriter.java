@@ -0,0 +1,311 @@
+package com.jutools.script.engine.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JVM class 파일 생성 클래스<br>
+ * 컴파일된 스크립트 생성에 필요한 최소 기능만 구현함<br>
+ * -> class 파일 버전은 49(Java 5)로 생성하여 StackMapTable 생성을 하지 않음
+ *
+ * @author jmsohn
+ */
+class ClassFileWriter {
+
+	/** class 파일 major 버전 */
+	private static final int MAJOR_VERSION = 49;
+
+	/** constant pool 데이터 */
+	private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	/** constant pool 출력 스트림 */
+	private DataOutputStream pool = new DataOutputStream(this.poolBytes);
+	/** constant pool 의 다음 인덱스 */
+	private int poolCount = 1;
+	/** constant pool 인덱스 - K: 상수 키, V: 인덱스 */
+	private Map<String, Integer> poolIndex = new HashMap<>();
+
+	/** 메소드 데이터 */
+	private ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+	/** 메소드 출력 스트림 */
+	private DataOutputStream methods = new DataOutputStream(this.methodBytes);
+	/** 메소드 개수 */
+	private int methodCount = 0;
+
+	/**
+	 * UTF8 상수 추가
+	 *
+	 * @param value 문자열
+	 * @return constant pool 인덱스
+	 */
+	int utf8(String value) throws IOException {
+
+		String key = "U:" + value;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		this.pool.writeByte(1);
+		this.pool.writeUTF(value);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * 클래스 상수 추가
+	 *
+	 * @param internalName 클래스명(ex. java/lang/Object)
+	 * @return constant pool 인덱스
+	 */
+	int classRef(String internalName) throws IOException {
+
+		String key = "C:" + internalName;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		int nameIndex = this.utf8(internalName);
+
+		this.pool.writeByte(7);
+		this.pool.writeShort(nameIndex);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * 문자열 상수 추가
+	 *
+	 * @param value 문자열
+	 * @return constant pool 인덱스
+	 */
+	int string(String value) throws IOException {
+
+		String key = "S:" + value;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		int valueIndex = this.utf8(value);
+
+		this.pool.writeByte(8);
+		this.pool.writeShort(valueIndex);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * int 상수 추가
+	 *
+	 * @param value int 값
+	 * @return constant pool 인덱스
+	 */
+	int integer(int value) throws IOException {
+
+		String key = "I:" + value;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		this.pool.writeByte(3);
+		this.pool.writeInt(value);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * double 상수 추가
+	 *
+	 * @param value double 값
+	 * @return constant pool 인덱스
+	 */
+	int doubleConst(double value) throws IOException {
+
+		long bits = Double.doubleToRawLongBits(value);
+
+		String key = "D:" + bits;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		this.pool.writeByte(6);
+		this.pool.writeLong(bits);
+
+		// double 상수는 constant pool 의 2칸을 차지함
+		return this.register(key, 2);
+	}
+
+	/**
+	 * 메소드 참조 상수 추가
+	 *
+	 * @param owner 메소드의 클래스명
+	 * @param name 메소드명
+	 * @param desc 메소드 descriptor
+	 * @return constant pool 인덱스
+	 */
+	int methodRef(String owner, String name, String desc) throws IOException {
+		return this.memberRef(10, owner, name, desc);
+	}
+
+	/**
+	 * 인터페이스 메소드 참조 상수 추가
+	 *
+	 * @param owner 인터페이스명
+	 * @param name 메소드명
+	 * @param desc 메소드 descriptor
+	 * @return constant pool 인덱스
+	 */
+	int interfaceMethodRef(String owner, String name, String desc) throws IOException {
+		return this.memberRef(11, owner, name, desc);
+	}
+
+	/**
+	 * 멤버 참조 상수 추가
+	 *
+	 * @param tag 상수 태그
+	 * @param owner 클래스명
+	 * @param name 멤버명
+	 * @param desc descriptor
+	 * @return constant pool 인덱스
+	 */
+	private int memberRef(int tag, String owner, String name, String desc) throws IOException {
+
+		String key = "M" + tag + ":" + owner + "." + name + desc;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		int ownerIndex = this.classRef(owner);
+		int natIndex = this.nameAndType(name, desc);
+
+		this.pool.writeByte(tag);
+		this.pool.writeShort(ownerIndex);
+		this.pool.writeShort(natIndex);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * 이름 및 타입 상수 추가
+	 *
+	 * @param name 이름
+	 * @param desc descriptor
+	 * @return constant pool 인덱스
+	 */
+	private int nameAndType(String name, String desc) throws IOException {
+
+		String key = "N:" + name + desc;
+		if(this.poolIndex.containsKey(key) == true) {
+			return this.poolIndex.get(key);
+		}
+
+		int nameIndex = this.utf8(name);
+		int descIndex = this.utf8(desc);
+
+		this.pool.writeByte(12);
+		this.pool.writeShort(nameIndex);
+		this.pool.writeShort(descIndex);
+
+		return this.register(key, 1);
+	}
+
+	/**
+	 * constant pool 인덱스 등록
+	 *
+	 * @param key 상수 키
+	 * @param size 상수가 차지하는 칸 수
+	 * @return 등록된 인덱스
+	 */
+	private int register(String key, int size) throws IOException {
+
+		int index = this.poolCount;
+
+		if(index + size > 0xFFFF) {
+			throw new IOException("constant pool is too large.");
+		}
+
+		this.poolIndex.put(key, index);
+		this.poolCount += size;
+
+		return index;
+	}
+
+	/**
+	 * 메소드 추가
+	 *
+	 * @param access 접근 제어자
+	 * @param name 메소드명
+	 * @param desc 메소드 descriptor
+	 * @param maxStack 최대 스택 크기
+	 * @param maxLocals 최대 로컬 변수 개수
+	 * @param code 메소드 바이트코드
+	 */
+	void addMethod(int access, String name, String desc, int maxStack, int maxLocals, byte[] code) throws IOException {
+
+		if(code.length > 0xFFFF || maxStack > 0xFFFF || maxLocals > 0xFFFF) {
+			throw new IOException("method is too large:" + name);
+		}
+
+		int nameIndex = this.utf8(name);
+		int descIndex = this.utf8(desc);
+		int codeIndex = this.utf8("Code");
+
+		this.methods.writeShort(access);
+		this.methods.writeShort(nameIndex);
+		this.methods.writeShort(descIndex);
+
+		// 속성 개수 - Code 속성만 있음
+		this.methods.writeShort(1);
+
+		// Code 속성
+		this.methods.writeShort(codeIndex);
+		this.methods.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+		this.methods.writeShort(maxStack);
+		this.methods.writeShort(maxLocals);
+		this.methods.writeInt(code.length);
+		this.methods.write(code);
+		this.methods.writeShort(0); // exception table 길이
+		this.methods.writeShort(0); // 속성 개수
+
+		this.methodCount++;
+	}
+
+	/**
+	 * class 파일 생성
+	 *
+	 * @param access 클래스 접근 제어자
+	 * @param thisName 클래스명
+	 * @param superName 상위 클래스명
+	 * @return class 파일 바이트 배열
+	 */
+	byte[] toByteArray(int access, String thisName, String superName) throws IOException {
+
+		int thisIndex = this.classRef(thisName);
+		int superIndex = this.classRef(superName);
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(classBytes);
+
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(MAJOR_VERSION);
+
+		out.writeShort(this.poolCount);
+		out.write(this.poolBytes.toByteArray());
+
+		out.writeShort(access);
+		out.writeShort(thisIndex);
+		out.writeShort(superIndex);
+		out.writeShort(0); // interface 개수
+		out.writeShort(0); // field 개수
+
+		out.writeShort(this.methodCount);
+		out.write(this.methodBytes.toByteArray());
+
+		out.writeShort(0); // 속성 개수
+
+		out.flush();
+		return classBytes.toByteArray();
+	}
+}
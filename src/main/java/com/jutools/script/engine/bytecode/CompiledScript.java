@@ -0,0 +1,161 @@
+package com.jutools.script.engine.bytecode;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * 바이트코드로 컴파일된 스크립트의 추상 클래스<br>
+ * BytecodeCompiler에서 명령어 목록을 run 메소드로 컴파일한 하위 클래스를 생성함<br>
+ * 숫자 값은 boxing 없이 double 형으로 JVM 스택에서 처리됨
+ *
+ * @author jmsohn
+ */
+public abstract class CompiledScript {
+
+	/** 스크립트에서 사용하는 변수명 목록 - vars 배열의 인덱스 순서와 동일 */
+	@Getter
+	private String[] varNames;
+
+	/** 스크립트 수행 후 스택에 남는 값의 개수 */
+	@Getter
+	private int resultCount;
+
+	/**
+	 * 생성자
+	 */
+	protected CompiledScript() {
+	}
+
+	/**
+	 * 컴파일 정보 설정
+	 *
+	 * @param varNames 변수명 목록
+	 * @param resultCount 수행 후 스택에 남는 값의 개수
+	 */
+	void init(String[] varNames, int resultCount) {
+		this.varNames = varNames;
+		this.resultCount = resultCount;
+	}
+
+	/**
+	 * 컴파일된 스크립트 수행
+	 *
+	 * @param values 변수 저장 객체
+	 * @param vars 변수 값 목록(varNames 순서)
+	 * @param results 수행 후 스택에 남는 값을 저장할 배열(스택의 아래부터 순서대로 저장됨)
+	 */
+	public abstract void run(Map<String, ?> values, double[] vars, Object[] results) throws Exception;
+
+	/**
+	 * 변수 저장 객체의 값을 변수 값 목록에 설정<br>
+	 * 변수의 값이 숫자가 아닌 경우 false를 반환함 -> STACK 모드로 수행해야 함
+	 *
+	 * @param values 변수 저장 객체
+	 * @param vars 변수 값 목록
+	 * @return 설정 성공 여부
+	 */
+	public boolean bind(Map<String, ?> values, double[] vars) {
+
+		for(int index = 0; index < this.varNames.length; index++) {
+
+			Object value = values.get(this.varNames[index]);
+
+			// LOAD_VAR 명령어에서 double 형으로 변환하는 타입만 허용함
+			if(value instanceof Double
+				|| value instanceof Integer
+				|| value instanceof Long
+				|| value instanceof Float) {
+
+				vars[index] = ((Number)value).doubleValue();
+
+			} else {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// ------------------------------------------
+	// 컴파일된 코드에서 호출하는 연산 메소드
+	// -> 명령어 클래스와 동일한 결과가 나오도록 구현함
+
+	/**
+	 * 나눗셈(DIV 명령어와 동일)
+	 *
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 연산 결과
+	 */
+	public static double div(double p1, double p2) {
+
+		if(p2 == 0) {
+			if(p1 >= 0) {
+				return Double.POSITIVE_INFINITY;
+			} else {
+				return Double.NEGATIVE_INFINITY;
+			}
+		}
+
+		return p1 / p2;
+	}
+
+	/**
+	 * Modular 연산(MOD 명령어와 동일)
+	 *
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 연산 결과
+	 */
+	public static double mod(double p1, double p2) {
+
+		if(p2 == 0) {
+			return 0.0;
+		}
+
+		return p1 % p2;
+	}
+
+	/**
+	 * p1 > p2
+	 */
+	public static boolean gt(double p1, double p2) {
+		return p1 > p2;
+	}
+
+	/**
+	 * p1 >= p2
+	 */
+	public static boolean ge(double p1, double p2) {
+		return p1 >= p2;
+	}
+
+	/**
+	 * p1 < p2
+	 */
+	public static boolean lt(double p1, double p2) {
+		return p1 < p2;
+	}
+
+	/**
+	 * p1 <= p2
+	 */
+	public static boolean le(double p1, double p2) {
+		return p1 <= p2;
+	}
+
+	/**
+	 * 숫자 동일 여부(Double.equals와 동일)
+	 */
+	public static boolean eq(double p1, double p2) {
+		return Double.compare(p1, p2) == 0;
+	}
+
+	/**
+	 * boolean 동일 여부
+	 */
+	public static boolean eq(boolean p1, boolean p2) {
+		return p1 == p2;
+	}
+}
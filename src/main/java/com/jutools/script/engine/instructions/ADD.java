@@ -50,6 +50,56 @@ public class ADD extends Instruction {
 		return 1;
 	}
 	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// p1, p2가 모두 숫자일 경우, 덧샘 수행
+		if(stack.isNumber() == true) {
+			
+			double p2 = stack.popNumber();
+			
+			if(stack.isNumber() == true) {
+				stack.pushNumber(stack.popNumber() + p2);
+			} else {
+				stack.push(concat(stack.pop(), p2));
+			}
+			
+		} else {
+			
+			Object p2 = stack.pop();
+			stack.push(concat(stack.pop(), p2));
+		}
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
+	
+	/**
+	 * 두 값의 문자열을 합침
+	 * 
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 합친 문자열
+	 */
+	private static String concat(Object p1, Object p2) throws Exception {
+		
+		// p1, p2에 대한 검증 수행
+		if(p2 == null) {
+			throw new NullPointerException("p2 value is null");
+		}
+		
+		if(p1 == null) {
+			throw new NullPointerException("p1 value is null");
+		}
+		
+		return toString(p1) + toString(p2);
+	}
+	
 	/**
 	 * 
 	 * @param p
@@ -18,6 +18,15 @@ public abstract class BiBooleanInstruction extends Instruction {
 	 * @return 연산 결과
 	 */
 	protected abstract Object process(Boolean p1, Boolean p2) throws Exception;
+	
+	/**
+	 * 이항 연산 수행(boxing 없음)
+	 * 
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 연산 결과
+	 */
+	protected abstract boolean process(boolean p1, boolean p2) throws Exception;
 
 	@Override
 	public int execute(Stack<Object> stack, Map<String, ?> values) throws Exception {
@@ -57,4 +66,23 @@ public abstract class BiBooleanInstruction extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 파라미터를 스택에서 꺼내옴
+		boolean p2 = stack.popBoolean();
+		boolean p1 = stack.popBoolean();
+		
+		// p1, p2에 대한 연산 수행 및 스택에 결과 푸시
+		stack.pushBoolean(this.process(p1, p2));
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
 }
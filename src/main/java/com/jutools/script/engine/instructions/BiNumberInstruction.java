@@ -18,6 +18,15 @@ public abstract class BiNumberInstruction extends Instruction {
 	 * @return 연산 결과
 	 */
 	protected abstract Object process(Double p1, Double p2) throws Exception;
+	
+	/**
+	 * 이항 연산 수행 후 결과를 피연산자 스택에 추가(boxing 없음)
+	 * 
+	 * @param stack 피연산자 스택
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 */
+	protected abstract void process(OperandStack stack, double p1, double p2) throws Exception;
 
 	@Override
 	public int execute(Stack<Object> stack, Map<String, ?> values) throws Exception {
@@ -58,4 +67,23 @@ public abstract class BiNumberInstruction extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 파라미터를 스택에서 꺼내옴
+		double p2 = stack.popNumber();
+		double p1 = stack.popNumber();
+		
+		// p1, p2에 대한 연산 수행 및 스택에 결과 푸시
+		this.process(stack, p1, p2);
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
 }
@@ -20,7 +20,7 @@ public class BuiltInMethods {
 	 * @param value 변환할 값
 	 * @return 변환된 int
 	 */
-	@MethodAlias(alias = "toInt")
+	@MethodAlias(alias = "toInt", deterministic = true)
 	public static int toInt(Map<String, ?> values, double value) {
 		return (int)value;
 	}
@@ -32,7 +32,7 @@ public class BuiltInMethods {
 	 * @param value 반올림 대상
 	 * @return 반올림 수행 결과
 	 */
-	@MethodAlias(alias = "round")
+	@MethodAlias(alias = "round", deterministic = true)
 	public static double round(Map<String, ?> values, double value) {
 		return Math.round(value);
 	}
@@ -45,7 +45,7 @@ public class BuiltInMethods {
 	 * @param exponent 지수 곱 횟수
 	 * @return 지수 곱 결과
 	 */
-	@MethodAlias(alias = "pow")
+	@MethodAlias(alias = "pow", deterministic = true)
 	public static double pow(Map<String, ?> values, double base, double exponent) {
 		return Math.pow(base, exponent);
 	}
@@ -58,7 +58,7 @@ public class BuiltInMethods {
 	 * @param target 매치할 문자열
 	 * @return 와일드 카드 매치 여부
 	 */
-	@MethodAlias(alias = "matchW")
+	@MethodAlias(alias = "matchW", deterministic = true)
 	public static boolean matchWildcard(Map<String, ?> values, String pattern, String target) throws Exception {
 		return WildcardPattern.create(pattern).match(target).isMatch();
 	}
@@ -71,7 +71,7 @@ public class BuiltInMethods {
 	 * @param target 매치할 문자열
 	 * @return 정규 표현식 매치 여부
 	 */
-	@MethodAlias(alias = "matchR")
+	@MethodAlias(alias = "matchR", deterministic = true)
 	public static boolean matchRegExp(Map<String, ?> values, String pattern, String target) throws Exception {
 		return target.matches(pattern);
 	}
@@ -85,7 +85,7 @@ public class BuiltInMethods {
 	 * @param falseValue if 조건이 false 일때, 반환할 값
 	 * @return if 조건에 따라 반환 값(trueValue or falseValue)
 	 */
-	@MethodAlias(alias = "if")
+	@MethodAlias(alias = "if", deterministic = true)
 	public static Object ifMethod(Map<String, ?> values, Boolean condition, Object trueValue, Object falseValue) throws Exception {
 		
 		if(condition == true) {
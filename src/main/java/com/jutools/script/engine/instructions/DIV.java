@@ -9,6 +9,23 @@ public class DIV extends BiNumberInstruction {
 
 	@Override
 	public Object process(Double p1, Double p2) throws Exception {
+		return div(p1, p2);
+	}
+	
+	@Override
+	protected void process(OperandStack stack, double p1, double p2) throws Exception {
+		stack.pushNumber(div(p1, p2));
+	}
+	
+	/**
+	 * 나눗셈 수행<br>
+	 * 0으로 나눌 경우 p1의 부호에 따라 무한대 값을 반환
+	 * 
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 연산 결과
+	 */
+	private static double div(double p1, double p2) {
 		
 		if(p2 == 0) {
 			if(p1 >= 0) {
@@ -23,5 +23,20 @@ public class DUP extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 가장 위쪽 값을 복사하여 추가
+		stack.dup();
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return 1;
+	}
 
 }
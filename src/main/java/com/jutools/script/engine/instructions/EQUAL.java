@@ -25,4 +25,49 @@ public class EQUAL extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		stack.pushBoolean(isEqual(stack));
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
+	
+	/**
+	 * 피연산자 스택의 최상단 두 값의 동일 여부 반환<br>
+	 * 두 값이 모두 숫자이면 boxing 없이 비교함
+	 * 
+	 * @param stack 피연산자 스택
+	 * @return 동일 여부
+	 */
+	static boolean isEqual(OperandStack stack) throws Exception {
+		
+		if(stack.isNumber() == true) {
+			
+			double p1 = stack.popNumber();
+			
+			if(stack.isNumber() == true) {
+				// Double.equals 와 동일하게 비교
+				return Double.compare(p1, stack.popNumber()) == 0;
+			} else {
+				return Double.valueOf(p1).equals(stack.pop());
+			}
+		}
+		
+		Object p1 = stack.pop();
+		Object p2 = stack.pop();
+		
+		if(p1 == null || p2 == null) {
+			return p1 == p2;
+		} else {
+			return p1.equals(p2);
+		}
+	}
 }
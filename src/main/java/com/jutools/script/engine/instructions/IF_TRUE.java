@@ -56,6 +56,31 @@ public class IF_TRUE extends Instruction {
 		}
 	}
 	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 파라미터를 스택에서 꺼내옴
+		Object value = stack.pop();
+		
+		// value 에 대한 검증 수행
+		if(value == null) {
+			throw new NullPointerException("value is null.");
+		}
+		
+		// 스택의 값이 True 이면 파라미터 1 만큼 이동하도록 반환
+		// 만일 False 이면 파라미터 2 만큼 이동하도록 반환
+		if(Boolean.TRUE.equals(value) == true) {
+			return this.p1;
+		} else {
+			return this.p2;
+		}
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
+	
 	@Override
 	protected String getParamString() {
 		
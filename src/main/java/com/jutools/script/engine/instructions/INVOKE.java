@@ -72,14 +72,57 @@ public class INVOKE extends Instruction {
 				stack.push(result);
 			}
 			
+		} catch (Exception | Error ex) {
+			throw ex;
 		} catch (Throwable t) {
-			throw (Exception)t;
+			throw new Exception(t);
 		}
 		
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
 	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 메소드 핸들이 있는지 확인
+		if(this.method == null) {
+			throw new NullPointerException("method is null(check link process)");
+		}
+		
+		// 메소드에 넘겨줄 parameter를 만듦
+		// -> 메소드 핸들 호출을 위해 숫자 파라미터는 boxing 됨
+		Object[] params = new Object[this.paramCount + 1];
+		
+		params[0] = values;
+		for(int index = params.length - 1 ; index >= 1; index--) {
+			params[index] = stack.pop();
+		}
+
+		// 메소드 호출 및 결과를 stack에 추가
+		try {
+			
+			if(this.isVoid == true) {
+				this.method.invokeWithArguments(params);
+			} else {
+				stack.push(this.method.invokeWithArguments(params));
+			}
+			
+		} catch (Exception | Error ex) {
+			throw ex;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return (this.isVoid == true)?-this.paramCount:1 - this.paramCount;
+	}
+	
 	@Override
 	protected String getParamString() {
 		
@@ -19,6 +19,24 @@ public abstract class Instruction {
 	 */
 	public abstract int execute(Stack<Object> stack, Map<String, ?> values) throws Exception;
 	
+	/**
+	 * 명령어 수행 메소드(피연산자 스택 사용)<br>
+	 * 숫자 값은 boxing 없이 처리됨
+	 * 
+	 * @param stack 피연산자 스택
+	 * @param values 변수 저장 객체
+	 * @return 다음 실행 명령어 이동 거리
+	 */
+	public abstract int execute(OperandStack stack, Map<String, ?> values) throws Exception;
+	
+	/**
+	 * 명령어 수행 후 스택 크기의 변화량 반환<br>
+	 * 최대 스택 깊이 계산에 사용됨
+	 * 
+	 * @return 스택 크기 변화량
+	 */
+	public abstract int getStackDelta();
+	
 	/**
 	 * 파라미터 문자열 반환
 	 * 
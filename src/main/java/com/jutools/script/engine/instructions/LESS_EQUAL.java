@@ -11,5 +11,9 @@ public class LESS_EQUAL extends BiNumberInstruction {
 	public Object process(Double p1, Double p2) throws Exception {
 		return p1 <= p2;
 	}
-
+	
+	@Override
+	protected void process(OperandStack stack, double p1, double p2) throws Exception {
+		stack.pushBoolean(p1 <= p2);
+	}
 }
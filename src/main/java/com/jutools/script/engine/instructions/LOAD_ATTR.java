@@ -49,4 +49,26 @@ public class LOAD_ATTR extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 속성을 가져올 객체를 스택에서 가져옴
+		Object obj = stack.pop();
+		if(obj == null) {
+			throw new NullPointerException("stack have no object.");
+		}
+		
+		// 속성 메소드 수행하여 속성값을 스택에 푸시
+		Method getMethod = TypeUtil.getGetter(obj.getClass(), this.attrName);
+		stack.push(getMethod.invoke(obj));
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return 0;
+	}
 }
@@ -46,6 +46,40 @@ public class LOAD_ELEMENT extends Instruction {
 		return 1;
 	}
 	
+	@SuppressWarnings("rawtypes")
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 객체의 인덱스를 스택에서 가져옴
+		Object index = stack.pop();
+		if(index == null) {
+			throw new NullPointerException("stack have no object.");
+		}
+		
+		// 속성을 가져올 객체를 스택에서 가져옴
+		Object obj = stack.pop();
+		if(obj == null) {
+			throw new NullPointerException("stack have no object.");
+		}
+		
+		// List, Map 타입 별로 element를 가져와 스택에 푸시
+		if(List.class.isAssignableFrom(obj.getClass()) == true) {
+			stack.push(((List)obj).get(toInt(index)));
+		} else if(Map.class.isAssignableFrom(obj.getClass()) == true) {
+			stack.push(((Map)obj).get(index));
+		} else {
+			throw new Exception("unexpected type:" + obj.getClass().getCanonicalName());
+		}
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
+	
 	/**
 	 * 주어진 대상 객체 를 int 값으로 변환 
 	 * 
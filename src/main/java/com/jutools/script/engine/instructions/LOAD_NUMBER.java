@@ -34,6 +34,20 @@ public class LOAD_NUMBER extends Instruction {
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		stack.pushNumber(this.value);
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return 1;
+	}
 
 	@Override
 	protected String getParamString() {
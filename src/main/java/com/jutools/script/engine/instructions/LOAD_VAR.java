@@ -3,6 +3,9 @@ package com.jutools.script.engine.instructions;
 import java.util.Map;
 import java.util.Stack;
 
+import com.jutools.script.engine.Bindings;
+import com.jutools.script.engine.VarLayout;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -19,6 +22,13 @@ public class LOAD_VAR extends Instruction {
 	@Setter
 	private String name;
 	
+	/** 변수 배치 정보 - AbstractEngine 클래스의 link 과정에서 설정됨 */
+	private VarLayout layout;
+	
+	/** 변수의 슬롯 인덱스 */
+	@Getter
+	private int slot = -1;
+	
 	/**
 	 * 생성자
 	 * 
@@ -32,7 +42,7 @@ public class LOAD_VAR extends Instruction {
 	public int execute(Stack<Object> stack, Map<String, ?> values) throws Exception {
 		
 		// values 에서 변수명에 해당하는 값 획득
-		Object value = values.get(this.name);
+		Object value = this.getValue(values);
 		
 		if(value == null) {
 			
@@ -61,6 +71,32 @@ public class LOAD_VAR extends Instruction {
 		return 1;
 	}
 	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// values 에서 변수명에 해당하는 값 획득
+		Object value = this.getValue(values);
+		
+		if(value instanceof Integer || value instanceof Long || value instanceof Float) {
+			
+			// 숫자형 데이터는 double 형으로 추가
+			stack.pushNumber(((Number)value).doubleValue());
+			
+		} else {
+			
+			// 숫자형이 아닐 경우, 값 자체로 추가(Double 은 숫자로 추가됨)
+			stack.push(value);
+		}
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return 1;
+	}
+	
 	@Override
 	protected String getParamString() {
 		
@@ -71,4 +107,31 @@ public class LOAD_VAR extends Instruction {
 		
 		return paramString.toString();
 	}
+	
+	/**
+	 * 변수 슬롯 설정
+	 * 
+	 * @param layout 변수 배치 정보
+	 * @param slot 슬롯 인덱스
+	 */
+	public void setSlot(VarLayout layout, int slot) {
+		this.layout = layout;
+		this.slot = slot;
+	}
+	
+	/**
+	 * 변수 값 반환<br>
+	 * 같은 배치 정보의 Bindings 객체이면 슬롯에서 바로 가져옴
+	 * 
+	 * @param values 변수 저장 객체
+	 * @return 변수 값
+	 */
+	private Object getValue(Map<String, ?> values) {
+		
+		if(values instanceof Bindings && ((Bindings)values).getLayout() == this.layout) {
+			return ((Bindings)values).get(this.slot);
+		}
+		
+		return values.get(this.name);
+	}
 }
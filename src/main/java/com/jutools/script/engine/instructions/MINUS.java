@@ -11,4 +11,9 @@ public class MINUS extends BiNumberInstruction {
 	public Object process(Double p1, Double p2) throws Exception {
 		return p1 - p2;
 	}
+	
+	@Override
+	protected void process(OperandStack stack, double p1, double p2) throws Exception {
+		stack.pushNumber(p1 - p2);
+	}
 }
@@ -9,9 +9,26 @@ public class MOD extends BiNumberInstruction {
 
 	@Override
 	public Object process(Double p1, Double p2) throws Exception {
+		return mod(p1, p2);
+	}
+	
+	@Override
+	protected void process(OperandStack stack, double p1, double p2) throws Exception {
+		stack.pushNumber(mod(p1, p2));
+	}
+	
+	/**
+	 * Modular 연산 수행<br>
+	 * 0으로 나눌 경우 0을 반환
+	 * 
+	 * @param p1 첫번째 파라미터
+	 * @param p2 두번째 파라미터
+	 * @return 연산 결과
+	 */
+	private static double mod(double p1, double p2) {
 		
 		if(p2 == 0) {
-			return (double)0.0;
+			return 0.0;
 		}
 		
 		return p1 % p2;
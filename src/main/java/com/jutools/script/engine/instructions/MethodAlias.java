@@ -15,5 +15,14 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface MethodAlias {
+	
+	/** 스크립트에서 사용할 메소드 별칭 */
 	String alias();
+	
+	/**
+	 * 결정적(deterministic) 메소드 여부<br>
+	 * 파라미터가 같으면 항상 같은 결과를 반환하고 부수 효과가 없는 메소드일 경우 true<br>
+	 * -> true 이고 파라미터가 모두 상수이면, 컴파일 시점에 수행하여 결과를 상수로 대체함
+	 */
+	boolean deterministic() default false;
 }
@@ -39,6 +39,31 @@ public class NEW_LIST extends Instruction {
 		return 1;
 	}
 	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		List<Object> list = new ArrayList<>();
+		
+		for(int index = 0; index < this.count; index++) {
+			
+			if(stack.isEmpty() == true) {
+				throw new Exception("stack is empty.");
+			}
+			
+			list.add(0, stack.pop());
+		}
+		
+		stack.push(list);
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int getStackDelta() {
+		return 1 - this.count;
+	}
+	
 	@Override
 	protected String getParamString() {
 		return Integer.toString(this.count);
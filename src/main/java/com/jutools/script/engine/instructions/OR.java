@@ -11,4 +11,9 @@ public class OR extends BiBooleanInstruction {
 	protected Object process(Boolean p1, Boolean p2) throws Exception {
 		return p1 || p2;
 	}
+	
+	@Override
+	protected boolean process(boolean p1, boolean p2) throws Exception {
+		return p1 || p2;
+	}
 }
@@ -0,0 +1,249 @@
+package com.jutools.script.engine.instructions;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * 스크립트 수행용 피연산자 스택<br>
+ * 숫자는 double 배열에, 그외 값은 Object 배열에 저장하여 숫자 연산시 boxing 을 하지 않음<br>
+ * -> 동기화 하지 않기 때문에 스레드 별로 생성하여 사용해야 함
+ *
+ * @author jmsohn
+ */
+public class OperandStack {
+
+	/** 숫자 값 표시용 태그 - Object 배열에 이 값이 있으면 double 배열에 값이 있음 */
+	private static final Object NUMBER = new Object();
+
+	/** 숫자 값 목록 */
+	private double[] numbers;
+
+	/** 숫자 외 값 목록 */
+	private Object[] objects;
+
+	/** 스택의 크기 */
+	private int size = 0;
+
+	/**
+	 * 생성자
+	 *
+	 * @param capacity 스택의 초기 크기(컴파일 시 계산된 최대 스택 깊이)
+	 */
+	public OperandStack(int capacity) {
+
+		if(capacity < 1) {
+			capacity = 1;
+		}
+
+		this.numbers = new double[capacity];
+		this.objects = new Object[capacity];
+	}
+
+	/**
+	 * 숫자 값 추가
+	 *
+	 * @param value 추가할 숫자 값
+	 */
+	public void pushNumber(double value) {
+
+		this.ensureCapacity();
+
+		this.numbers[this.size] = value;
+		this.objects[this.size] = NUMBER;
+		this.size++;
+	}
+
+	/**
+	 * boolean 값 추가<br>
+	 * Boolean.TRUE, Boolean.FALSE 를 사용하기 때문에 객체를 생성하지 않음
+	 *
+	 * @param value 추가할 boolean 값
+	 */
+	public void pushBoolean(boolean value) {
+		this.push(value?Boolean.TRUE:Boolean.FALSE);
+	}
+
+	/**
+	 * 값 추가<br>
+	 * Double 객체는 숫자 값으로 추가함
+	 *
+	 * @param value 추가할 값
+	 */
+	public void push(Object value) {
+
+		if(value instanceof Double) {
+			this.pushNumber((Double)value);
+			return;
+		}
+
+		this.ensureCapacity();
+
+		this.objects[this.size] = value;
+		this.size++;
+	}
+
+	/**
+	 * 최상단 값이 숫자인지 여부 반환
+	 *
+	 * @return 최상단 값이 숫자인지 여부
+	 */
+	public boolean isNumber() {
+
+		if(this.size == 0) {
+			throw new EmptyStackException();
+		}
+
+		return this.objects[this.size - 1] == NUMBER;
+	}
+
+	/**
+	 * 최상단 숫자 값을 꺼내서 반환
+	 *
+	 * @return 최상단 숫자 값
+	 */
+	public double popNumber() throws Exception {
+
+		if(this.size == 0) {
+			throw new EmptyStackException();
+		}
+
+		this.size--;
+
+		Object value = this.objects[this.size];
+		this.objects[this.size] = null;
+
+		if(value == NUMBER) {
+			return this.numbers[this.size];
+		}
+
+		if(value == null) {
+			throw new NullPointerException("value is null");
+		}
+
+		throw new Exception("unexpected type:" + value.getClass());
+	}
+
+	/**
+	 * 최상단 boolean 값을 꺼내서 반환
+	 *
+	 * @return 최상단 boolean 값
+	 */
+	public boolean popBoolean() throws Exception {
+
+		Object value = this.pop();
+
+		if(value == null) {
+			throw new NullPointerException("value is null");
+		}
+
+		if((value instanceof Boolean) == false) {
+			throw new Exception("unexpected type:" + value.getClass());
+		}
+
+		return (Boolean)value;
+	}
+
+	/**
+	 * 최상단 값을 꺼내서 반환<br>
+	 * 숫자 값은 Double 객체로 변환하여 반환함
+	 *
+	 * @return 최상단 값
+	 */
+	public Object pop() {
+
+		if(this.size == 0) {
+			throw new EmptyStackException();
+		}
+
+		this.size--;
+
+		Object value = this.objects[this.size];
+		this.objects[this.size] = null;
+
+		if(value == NUMBER) {
+			return this.numbers[this.size];
+		}
+
+		return value;
+	}
+
+	/**
+	 * 최상단 값을 복사하여 추가
+	 */
+	public void dup() {
+
+		if(this.size == 0) {
+			throw new EmptyStackException();
+		}
+
+		this.ensureCapacity();
+
+		this.numbers[this.size] = this.numbers[this.size - 1];
+		this.objects[this.size] = this.objects[this.size - 1];
+		this.size++;
+	}
+
+	/**
+	 * 스택의 크기 반환
+	 *
+	 * @return 스택의 크기
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * 스택이 비어 있는지 여부 반환
+	 *
+	 * @return 스택이 비어 있는지 여부
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * 스택 초기화
+	 */
+	public void clear() {
+
+		Arrays.fill(this.objects, 0, this.size, null);
+		this.size = 0;
+	}
+
+	/**
+	 * 값을 추가할 공간이 없으면 스택을 늘림<br>
+	 * 최대 스택 깊이로 생성한 경우에는 발생하지 않음
+	 */
+	private void ensureCapacity() {
+
+		if(this.size < this.objects.length) {
+			return;
+		}
+
+		int capacity = this.objects.length * 2;
+
+		this.numbers = Arrays.copyOf(this.numbers, capacity);
+		this.objects = Arrays.copyOf(this.objects, capacity);
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder toString = new StringBuilder("[");
+
+		for(int index = 0; index < this.size; index++) {
+
+			if(index != 0) {
+				toString.append(", ");
+			}
+
+			if(this.objects[index] == NUMBER) {
+				toString.append(this.numbers[index]);
+			} else {
+				toString.append(this.objects[index]);
+			}
+		}
+
+		return toString.append("]").toString();
+	}
+}
@@ -3,6 +3,9 @@ package com.jutools.script.engine.instructions;
 import java.util.Map;
 import java.util.Stack;
 
+import com.jutools.script.engine.Bindings;
+import com.jutools.script.engine.VarLayout;
+
 import lombok.Getter;
 
 /**
@@ -17,6 +20,13 @@ public class STORE extends Instruction {
 	@Getter
 	private String name;
 	
+	/** 변수 배치 정보 - AbstractEngine 클래스의 link 과정에서 설정됨 */
+	private VarLayout layout;
+	
+	/** 변수의 슬롯 인덱스 */
+	@Getter
+	private int slot = -1;
+	
 	/**
 	 * 생성자
 	 * 
@@ -26,7 +36,6 @@ public class STORE extends Instruction {
 		this.name = name;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public int execute(Stack<Object> stack, Map<String, ?> values) throws Exception {
 		
@@ -39,12 +48,32 @@ public class STORE extends Instruction {
 		Object value = stack.pop();
 		
 		// values 에 넣음
-		((Map<String, Object>)values).put(this.name, value);
+		this.setValue(values, value);
+		
+		// 다음 실행 명령어 이동 거리 반환
+		return 1;
+	}
+	
+	@Override
+	public int execute(OperandStack stack, Map<String, ?> values) throws Exception {
+		
+		// 스택 크기 확인
+		if(stack.isEmpty() == true) {
+			throw new NullPointerException("stack is empty.");
+		}
+		
+		// 스택에서 값을 획득하여 values 에 넣음
+		this.setValue(values, stack.pop());
 		
 		// 다음 실행 명령어 이동 거리 반환
 		return 1;
 	}
 	
+	@Override
+	public int getStackDelta() {
+		return -1;
+	}
+	
 	@Override
 	protected String getParamString() {
 		
@@ -55,4 +84,32 @@ public class STORE extends Instruction {
 		
 		return paramString.toString();
 	}
+	
+	/**
+	 * 변수 슬롯 설정
+	 * 
+	 * @param layout 변수 배치 정보
+	 * @param slot 슬롯 인덱스
+	 */
+	public void setSlot(VarLayout layout, int slot) {
+		this.layout = layout;
+		this.slot = slot;
+	}
+	
+	/**
+	 * 변수 값 저장<br>
+	 * 같은 배치 정보의 Bindings 객체이면 슬롯에 바로 저장함
+	 * 
+	 * @param values 변수 저장 객체
+	 * @param value 저장할 값
+	 */
+	@SuppressWarnings("unchecked")
+	private void setValue(Map<String, ?> values, Object value) {
+		
+		if(values instanceof Bindings && ((Bindings)values).getLayout() == this.layout) {
+			((Bindings)values).set(this.slot, value);
+		} else {
+			((Map<String, Object>)values).put(this.name, value);
+		}
+	}
 }
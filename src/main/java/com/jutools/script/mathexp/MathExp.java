@@ -4,10 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.jutools.script.engine.AbstractEngine;
+import com.jutools.script.engine.ScriptCache;
 import com.jutools.script.engine.instructions.Instruction;
 import com.jutools.script.mathexp.parser.UnitParser;
 import com.jutools.script.parser.AbstractParser;
 
+import lombok.Getter;
+
 /**
  * 수식 처리 클래스
  * 
@@ -15,6 +18,10 @@ import com.jutools.script.parser.AbstractParser;
  */
 public class MathExp extends AbstractEngine {
 	
+	/** 컴파일된 수식 캐시 */
+	@Getter
+	private static ScriptCache<MathExp> cache = new ScriptCache<>();
+	
 	/**
 	 * 생성자(외부 생성 불가)
 	 * 
@@ -25,20 +32,32 @@ public class MathExp extends AbstractEngine {
 		super(exp, methodClsAry);
 	}
 	
+	/**
+	 * 생성자(복사, 외부 생성 불가)
+	 * 
+	 * @param source 원본 객체
+	 */
+	private MathExp(MathExp source) {
+		super(source);
+	}
+	
 	@Override
 	protected AbstractParser<Instruction> getRootParser() throws Exception {
 		return new UnitParser();
 	}
 	
 	/**
-	 * 생성 메소드
+	 * 생성 메소드<br>
+	 * 컴파일된 수식은 캐시되며, 캐시된 수식을 복사하여 반환함
 	 * 
 	 * @param exp 산술식 문자열
 	 * @param methodClsAry 커스텀 메소드 클래스 목록
 	 * @return 생성된 산술식 처리 클래스
 	 */
 	public static MathExp compile(String exp, Class<?>... methodClsAry) throws Exception {
-		return new MathExp(exp, methodClsAry);
+		
+		MathExp cached = cache.get(exp, methodClsAry, () -> new MathExp(exp, methodClsAry));
+		return new MathExp(cached);
 	}
 
 	/**
@@ -3,10 +3,13 @@ package com.jutools.script.olexp;
 import java.util.HashMap;
 
 import com.jutools.script.engine.AbstractEngine;
+import com.jutools.script.engine.ScriptCache;
 import com.jutools.script.engine.instructions.Instruction;
 import com.jutools.script.olexp.parser.StoreParser;
 import com.jutools.script.parser.AbstractParser;
 
+import lombok.Getter;
+
 /**
  * One Line Expression 클래스
  * 
@@ -14,6 +17,10 @@ import com.jutools.script.parser.AbstractParser;
  */
 public class OLExp extends AbstractEngine {
 	
+	/** 컴파일된 스크립트 캐시 */
+	@Getter
+	private static ScriptCache<OLExp> cache = new ScriptCache<>();
+	
 	/**
 	 * 생성자
 	 * 
@@ -23,6 +30,15 @@ public class OLExp extends AbstractEngine {
 	protected OLExp(String exp, Class<?>... methodClsAry) throws Exception {
 		super(exp, methodClsAry);
 	}
+	
+	/**
+	 * 생성자(복사)
+	 * 
+	 * @param source 원본 객체
+	 */
+	protected OLExp(OLExp source) {
+		super(source);
+	}
 
 	@Override
 	protected AbstractParser<Instruction> getRootParser() throws Exception {
@@ -30,14 +46,17 @@ public class OLExp extends AbstractEngine {
 	}
 	
 	/**
-	 * 생성 메소드
+	 * 생성 메소드<br>
+	 * 컴파일된 스크립트는 캐시되며, 캐시된 스크립트를 복사하여 반환함
 	 * 
 	 * @param exp 스크립트 문자열
 	 * @param methodClsAry 커스텀 메소드 클래스 목록
 	 * @return 생성된 명령어 처리 클래스
 	 */
 	public static OLExp compile(String exp, Class<?>... methodClsAry) throws Exception {
-		return new OLExp(exp, methodClsAry);
+		
+		OLExp cached = cache.get(exp, methodClsAry, () -> new OLExp(exp, methodClsAry));
+		return new OLExp(cached);
 	}
 	
 	/**
@@ -1,13 +1,18 @@
 package com.jutools.script.parser;
 
 import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.jutools.NIOBufferUtil;
 import com.jutools.script.parser.exception.ParseException;
 import com.jutools.script.parser.exception.UnexpectedEndException;
 
@@ -19,11 +24,24 @@ import lombok.Setter;
  * 문자열 파싱하는 추상 클래스
  * -> 상태 변환 내용 및 변환 이벤트 처리는 하위 클래스에서 처리함
  *    본 클래스에서는 문자열을 읽고,
- *    상태 변환 내용 및 상태 변환시 이벤트 핸들링 메소드를 호출함 
+ *    상태 변환 내용 및 상태 변환시 이벤트 핸들링 메소드를 호출함<br>
+ * -> 이벤트 핸들링 메소드(MethodHandle)와 상태 별 전이 테이블은 파서 클래스 별로 캐싱하여 공유함
  * 
  * @author jmsohn
  */
 public abstract class AbstractParser<T> {
+	
+	/** 이벤트 핸들링 메소드 호출 형태 - (파서 객체, 이벤트) -> void */
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, AbstractParser.class, Event.class);
+	
+	/** 핸들러가 없을 경우 반환할 빈 목록 */
+	private static final MethodHandle[] EMPTY_HANDLERS = new MethodHandle[0];
+	
+	/** 파서 클래스 별 전이 이벤트 핸들러 캐시 */
+	private static ConcurrentHashMap<Class<?>, Map<String, Map<String, MethodHandle[]>>> handlerCache = new ConcurrentHashMap<>();
+	
+	/** 파서 클래스 별 상태 전이 테이블 캐시 - Key: 파서 클래스, Value: 상태명 별 전이 테이블 */
+	private static ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, TransferTable>> tableCache = new ConcurrentHashMap<>();
 
 	/** 파싱 상태 변수 */
 	@Getter(value = AccessLevel.PROTECTED)
@@ -37,25 +55,70 @@ public abstract class AbstractParser<T> {
 	 * 상태 변환 정보 목록<br>
 	 * -> ex) "A" 상태에서 문자 "B"가 들어오면 "C" 상태로 변한다는 정보
 	 */
-	private Hashtable<String, ArrayList<Transfer>> transferMap = new Hashtable<String, ArrayList<Transfer>>();
+	private HashMap<String, TransferTable> transferMap = new HashMap<String, TransferTable>();
+	
+	/** 현재 파서 클래스의 상태 전이 테이블 캐시 */
+	private ConcurrentHashMap<String, TransferTable> transferTables;
 	
-	/** 상태 변환시, 수행되는 전이함수(transfer function) 목록 */
-	private Hashtable<String, Hashtable<String, ArrayList<Method>>> transferHandlers = new Hashtable<String, Hashtable<String, ArrayList<Method>>>();
+	/** 상태 변환시, 수행되는 전이함수(transfer function) 목록 - Key: 시작 상태, Value: (Key: 종료 상태, Value: 핸들러 목록) */
+	private Map<String, Map<String, MethodHandle[]>> transferHandlers;
 	
 	/**
 	 * 종료 상태 목록 - Key: 종료 상태명, Value: 종료 상태 종류<br>
 	 * 종료 상태 종류 : 0 - 일반 종료 상태, 1 - 종료 상태에 들어올 경우 Parsing도 종료
 	 */
 	private Hashtable<String, EndStatusType> endStatus = new Hashtable<String, EndStatusType>();
+	
+	/** 상태 전이시 핸들러에 전달할 이벤트 - 전이 시 마다 생성하지 않고 재사용함 */
+	private Event event = new Event(' ', null, null, null);
+	
+	/** pushback을 수행할 문자열 저장 버퍼 */
+	private char[] pushbackBuffer = new char[1024];
+	
+	/** pushback 버퍼에 저장된 문자 개수 */
+	private int pushbackLength;
 
 	/**
 	 * 생성자
 	 */
 	public AbstractParser() throws Exception {
 		
+		Class<?> parserCls = this.getClass();
+		
+		// 파서 클래스의 전이 이벤트 핸들러 목록을 가져옴
+		// 캐시에 없을 경우 생성하여 등록함
+		Map<String, Map<String, MethodHandle[]>> handlers = handlerCache.get(parserCls);
+		if(handlers == null) {
+			handlers = loadHandlers(parserCls);
+			handlerCache.putIfAbsent(parserCls, handlers);
+		}
+		
+		this.transferHandlers = handlers;
+		
+		// 파서 클래스의 상태 전이 테이블 캐시를 가져옴
+		ConcurrentHashMap<String, TransferTable> tables = tableCache.get(parserCls);
+		if(tables == null) {
+			tableCache.putIfAbsent(parserCls, new ConcurrentHashMap<String, TransferTable>());
+			tables = tableCache.get(parserCls);
+		}
+		
+		this.transferTables = tables;
+	}
+	
+	/**
+	 * 파서 클래스에서 구현된 전이 이벤트 핸들러 메소드 목록을 MethodHandle로 변환하여 반환
+	 * 
+	 * @param parserCls 파서 클래스
+	 * @return 전이 이벤트 핸들러 목록 - Key: 시작 상태, Value: (Key: 종료 상태, Value: 핸들러 목록)
+	 */
+	private static Map<String, Map<String, MethodHandle[]>> loadHandlers(Class<?> parserCls) throws Exception {
+		
+		Map<String, Map<String, ArrayList<MethodHandle>>> transferHandlers = new HashMap<String, Map<String, ArrayList<MethodHandle>>>();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
 		// 하위 클래스에서 구현된 transfer event handler 메소드를 목록에 등록함
 		// 현재 클래스의 메소드 목록을 가져옴
-		Method[] methods = this.getClass().getMethods();
+		Method[] methods = parserCls.getMethods();
 		
 		// 각 메소드 별로 TransferEventHandler Annotation이 있는지 확인하여 등록함
 		// 
@@ -73,43 +136,83 @@ public abstract class AbstractParser<T> {
 			// 전이 종료 상태 목록 변수
 			String[] targets = handlerAnnotation.target();
 			
+			// TransferEventHandler의 파라미터 개수는 1개여야 함
+			if(method.getParameterCount() != 1) {
+				throw new Exception("parameter count is not 1");
+			}
+			
+			Parameter[] params = method.getParameters();
+			if(params[0].getType() != Event.class) {
+				throw new Exception("parameter is not Event type:" + params[0].getType());
+			}
+			
+			// 메소드를 (파서 객체, 이벤트) -> void 형태의 MethodHandle로 변환
+			MethodHandle handler = toMethodHandle(lookup, method);
+			
 			// 전이 시작 및 종료 상태에 따른 TransferEventHandler 등록
 			// "시작" -> "종료" , method1 형태로 저장 
 			for(String source: sources) {
 			
 				// 시작 상태가 등록되어 있지 않으면, 등록 수행
-				if(this.transferHandlers.containsKey(source) == false) {
-					this.transferHandlers.put(source, new Hashtable<String, ArrayList<Method>>());
+				if(transferHandlers.containsKey(source) == false) {
+					transferHandlers.put(source, new HashMap<String, ArrayList<MethodHandle>>());
 				}
 				
-				Hashtable<String, ArrayList<Method>> sourceMap = this.transferHandlers.get(source);
+				Map<String, ArrayList<MethodHandle>> sourceMap = transferHandlers.get(source);
 				
 				// 종료 상태와 TransferEventHandler 메소드를 등록함
 				for(String target: targets) {
 					
 					if(sourceMap.containsKey(target) == false) {
-						sourceMap.put(target, new ArrayList<Method>());
+						sourceMap.put(target, new ArrayList<MethodHandle>());
 					}
 					
-					ArrayList<Method> handlers = sourceMap.get(target);
-					
-					// TransferEventHandler의 파라미터 개수는 1개여야 함
-					if(method.getParameterCount() != 1) {
-						throw new Exception("parameter count is not 1");
-					}
-					
-					Parameter[] params = method.getParameters();
-					if(params[0].getType() != Event.class) {
-						throw new Exception("parameter is not Event type:" + params[0].getType());
-					}
-					
-					handlers.add(method);
+					sourceMap.get(target).add(handler);
 					
 				} // End of for targets
 				
 			} // End of for sources
 			
 		} // End of for methods
+		
+		// 생성 후 변경되지 않도록 배열로 변환함
+		Map<String, Map<String, MethodHandle[]>> handlers = new HashMap<String, Map<String, MethodHandle[]>>();
+		
+		for(Map.Entry<String, Map<String, ArrayList<MethodHandle>>> sourceEntry: transferHandlers.entrySet()) {
+			
+			Map<String, MethodHandle[]> sourceMap = new HashMap<String, MethodHandle[]>();
+			
+			for(Map.Entry<String, ArrayList<MethodHandle>> targetEntry: sourceEntry.getValue().entrySet()) {
+				sourceMap.put(targetEntry.getKey(), targetEntry.getValue().toArray(EMPTY_HANDLERS));
+			}
+			
+			handlers.put(sourceEntry.getKey(), sourceMap);
+		}
+		
+		return handlers;
+	}
+	
+	/**
+	 * 전이 이벤트 핸들러 메소드를 (파서 객체, 이벤트) -> void 형태의 MethodHandle로 변환
+	 * 
+	 * @param lookup MethodHandle 조회 객체
+	 * @param method 전이 이벤트 핸들러 메소드
+	 * @return 변환된 MethodHandle
+	 */
+	private static MethodHandle toMethodHandle(MethodHandles.Lookup lookup, Method method) throws Exception {
+		
+		MethodHandle handler = null;
+		
+		try {
+			handler = lookup.unreflect(method);
+		} catch(IllegalAccessException iaex) {
+			
+			// public 이 아닌 클래스에 선언된 메소드일 경우
+			method.setAccessible(true);
+			handler = lookup.unreflect(method);
+		}
+		
+		return handler.asType(HANDLER_TYPE);
 	}
 	
 	/**
@@ -148,7 +251,14 @@ public abstract class AbstractParser<T> {
 			throw new NullPointerException("to status map is null");
 		}
 		
-		this.transferMap.put(startStatus, toStatusMap);
+		// 캐시된 전이 테이블과 명세가 같으면 재사용하고, 다를 경우 새로 생성함
+		TransferTable table = this.transferTables.get(startStatus);
+		if(table == null || table.isSameSpec(toStatusMap) == false) {
+			table = new TransferTable(toStatusMap);
+			this.transferTables.put(startStatus, table);
+		}
+		
+		this.transferMap.put(startStatus, table);
 	}
 	
 	/**
@@ -177,21 +287,21 @@ public abstract class AbstractParser<T> {
 	 * @param target 종료 상태
 	 * @return TransferEventHandler 메소드 목록
 	 */
-	private ArrayList<Method> getHandlers(String source, String target) throws Exception {
+	private MethodHandle[] getHandlers(String source, String target) {
 		
 		// 핸들러 목록에 소스가 없는 경우, 빈 array 반환
-		if(this.transferHandlers.containsKey(source) == false) {
-			return new ArrayList<Method>();
+		Map<String, MethodHandle[]> sourceMap = this.transferHandlers.get(source);
+		if(sourceMap == null) {
+			return EMPTY_HANDLERS;
 		}
 		
-		Hashtable<String, ArrayList<Method>> sourceMap = this.transferHandlers.get(source);
-		
 		// 소스 핸들러 목록에 타깃이 없는 경우, 빈 array 반환
-		if(sourceMap.containsKey(target) == false) {
-			return new ArrayList<Method>();
+		MethodHandle[] handlers = sourceMap.get(target);
+		if(handlers == null) {
+			return EMPTY_HANDLERS;
 		}
 		
-		return sourceMap.get(target);
+		return handlers;
 	}
 	
 	/**
@@ -226,8 +336,8 @@ public abstract class AbstractParser<T> {
 			throw new Exception("invalid status: " + this.status);
 		}
 		
-		// pushback을 수행할 문자열 저장 버퍼 변수
-		CharBuffer pushbackBuffer = CharBuffer.allocate(1024);
+		// pushback을 수행할 문자열 저장 버퍼 초기화
+		this.pushbackLength = 0;
 		
 		// Reader에서 한문자씩 읽어들여 상태를 전환하고,
 		// 각 상태 전환에 따른 전이함수(transfer function)을 실행시킴 
@@ -237,78 +347,57 @@ public abstract class AbstractParser<T> {
 			
 			// 입력 문자 변수
 			char ch = (char)read;
-			pushbackBuffer.append(ch);
-			
-			// 유효한 전이함수(현재 상태에서 입력 문자가 있는 경우)가 있는지 여부 변수
-			boolean isMatched = false;
+			this.appendPushback(ch);
 			
-			// 전이 함수 목록에서 유효한 전이 함수가 있는지 확인함
+			// 현재 상태의 전이 테이블에서 유효한 전이 함수를 찾음
 			// 유효한 전이 함수에 따라 상태 변화 후 상태 변화에 따른 TransferEventHandler 메소드를 수행함
-			ArrayList<Transfer> transferFunctions = this.transferMap.get(this.status);
-			if(transferFunctions == null) {
+			TransferTable transferTable = this.transferMap.get(this.status);
+			if(transferTable == null) {
 				throw new Exception("Transfer Function is not found: " + this.status + "-> ???");
 			}
 			
-			for(Transfer transferFunction: transferFunctions) {
-				if(transferFunction.isValid(ch) == true) {
-					
-					// 유효한 전이함수(transfer function)이 매치되었을 경우 true로 설정함
-					isMatched = true;
+			// 유효한 전이함수(현재 상태에서 입력 문자가 있는 경우)
+			Transfer transferFunction = transferTable.find(ch);
+			boolean isMatched = (transferFunction != null);
+			
+			if(isMatched == true) {
+				
+				// pushback 수행
+				if(transferFunction.getPushback() < 0) {
 					
-					// pushback 수행
-					if(transferFunction.getPushback() < 0) {
-						
-						// 읽기 모드 전환
-						NIOBufferUtil.flip(pushbackBuffer);
-						
-						// pushback할 크기를 가져옴
-						// pushback 크기가 버퍼의 크기보다 크면,
-						// pushback 크기를 버퍼의 크기로 맞춤
-						int pushbackSize = 0;
-						if(pushbackSize != Integer.MIN_VALUE) {
-							
-							// 주의) Integer.MIN_VALUE * -1은 Integer.MIN_VALUE(-2147483648)가 나옴
-							pushbackSize = transferFunction.getPushback() * -1;
-							if(pushbackBuffer.remaining() - pushbackSize < 0) {
-								pushbackSize = pushbackBuffer.remaining();
-							}
-							
-						} else {
-							pushbackSize = pushbackBuffer.remaining();
-						}
-						
-						// pushback할 배열 생성
-						char[] unread = new char[pushbackSize];
-						copyBuffer(pushbackBuffer
-							, unread
-							, pushbackBuffer.remaining() - pushbackSize
-							, pushbackSize 
-						);
-						
-						// pushback 수행
- 						in.unread(unread);
- 						
-						NIOBufferUtil.clear(pushbackBuffer);
+					// pushback할 크기를 가져옴
+					// pushback 크기가 버퍼의 크기보다 크면,
+					// pushback 크기를 버퍼의 크기로 맞춤
+					// 주의) Integer.MIN_VALUE * -1은 Integer.MIN_VALUE(-2147483648)가 나옴
+					int pushbackSize = this.pushbackLength;
+					if(transferFunction.getPushback() != Integer.MIN_VALUE
+						&& transferFunction.getPushback() * -1 < pushbackSize) {
+						pushbackSize = transferFunction.getPushback() * -1;
 					}
 					
-					// 다음 상태명 변수
- 					String nextStatus = transferFunction.getNextStatus();
- 					
-					// 이벤트 생성
-					Event event = new Event(ch, in, this.status, nextStatus);
-
-					// 이벤트 처리함수 호출
-					ArrayList<Method> handlers = this.getHandlers(this.status, nextStatus);
-					for(Method handler: handlers) {
-						handler.invoke(this, event);
-					}
+					// pushback 수행 - 버퍼의 마지막 pushbackSize 만큼 되돌림
+					in.unread(this.pushbackBuffer, this.pushbackLength - pushbackSize, pushbackSize);
+					
+					this.pushbackLength = 0;
+				}
+				
+				// 다음 상태명 변수
+				String nextStatus = transferFunction.getNextStatus();
+				
+				// 이벤트 처리함수 호출
+				MethodHandle[] handlers = this.getHandlers(this.status, nextStatus);
+				if(handlers.length != 0) {
 					
-					// 다음 상태로 상태를 변경
-					this.status = nextStatus;
+					// 이벤트 설정 - 전이 시 마다 생성하지 않고 재사용함
+					Event event = this.event.set(ch, in, this.status, nextStatus);
 					
-					// for문 종료 -> 다른 전이함수는 검사하지 않음
-					break;
+					for(MethodHandle handler: handlers) {
+						invokeHandler(handler, this, event);
+					}
 				}
+				
+				// 다음 상태로 상태를 변경
+				this.status = nextStatus;
 			}
 			
 			// 매치되는 전이함수가 없을 경우 예외 발생
@@ -348,17 +437,36 @@ public abstract class AbstractParser<T> {
 	} // End of parse
 	
 	/**
-	 * CharBuffer의 내용을 배열(dst)에 복사하는 메소드
+	 * pushback 버퍼에 문자 추가<br>
+	 * 버퍼의 크기가 부족할 경우 버퍼의 크기를 늘림
+	 * 
+	 * @param ch 추가할 문자
+	 */
+	private void appendPushback(char ch) {
+		
+		if(this.pushbackLength == this.pushbackBuffer.length) {
+			this.pushbackBuffer = Arrays.copyOf(this.pushbackBuffer, this.pushbackBuffer.length * 2);
+		}
+		
+		this.pushbackBuffer[this.pushbackLength++] = ch;
+	}
+	
+	/**
+	 * 전이 이벤트 핸들러 호출
 	 * 
-	 * @param src 복사할 CharBuffer
-	 * @param dst 복사 대상 배열
-	 * @param index CharBuffer의 시작 위치
-	 * @param length 복사할 크기
+	 * @param handler 전이 이벤트 핸들러
+	 * @param parser 파서 객체
+	 * @param event 전이 이벤트
 	 */
-	private static void copyBuffer(CharBuffer src, char[] dst, int index, int length) {
-		 for (int i = 0, j = index; i < length; i++, j++) {
-	         dst[i] = src.get(j);
-		 }
+	private static void invokeHandler(MethodHandle handler, AbstractParser<?> parser, Event event) throws Exception {
+		
+		try {
+			handler.invokeExact((AbstractParser<?>)parser, event);
+		} catch(Exception | Error ex) {
+			throw ex;
+		} catch(Throwable t) {
+			throw new Exception(t);
+		}
 	}
 	
 	/**
@@ -445,5 +553,24 @@ public abstract class AbstractParser<T> {
 			this.source = source;
 			this.target = target;
 		}
+		
+		/**
+		 * 이벤트 정보 설정 - 이벤트 객체 재사용 용도
+		 * 
+		 * @param ch Event 발생시 입력된 문자
+		 * @param reader 입력 스트림
+		 * @param source source 상태명
+		 * @param target target 상태명
+		 * @return 현재 객체(fluent 코딩용)
+		 */
+		Event set(char ch, ExpReader reader, String source, String target) {
+			
+			this.ch = ch;
+			this.reader = reader;
+			this.source = source;
+			this.target = target;
+			
+			return this;
+		}
 	}
 }
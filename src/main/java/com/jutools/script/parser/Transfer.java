@@ -3,6 +3,7 @@ package com.jutools.script.parser;
 import java.io.PushbackReader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.Getter;
 
@@ -13,6 +14,16 @@ import lombok.Getter;
  */
 public class Transfer {
 	
+	/**
+	 * 파싱된 문자 패턴 캐시 - Key: 문자 패턴 문자열<br>
+	 * -> 파서의 init 메소드는 파싱 시 마다 호출되므로, 문자 패턴을 매번 파싱하지 않도록 함
+	 */
+	private static ConcurrentHashMap<String, CharPattern> patternCache = new ConcurrentHashMap<String, CharPattern>();
+	
+	/** 문자 패턴 문자열 */
+	@Getter
+	private String patternStr;
+	
 	/** 문자 패턴 변수 */
 	private CharPattern pattern;
 	
@@ -32,11 +43,36 @@ public class Transfer {
 	 * @param pushback
 	 */
 	public Transfer(String patternStr, String nextStatus, int pushback) throws Exception {
-		this.pattern = CharPatternParser.parse(patternStr);
+		
+		CharPattern pattern = patternCache.get(patternStr);
+		if(pattern == null) {
+			pattern = CharPatternParser.parse(patternStr);
+			patternCache.putIfAbsent(patternStr, pattern);
+		}
+		
+		this.patternStr = patternStr;
+		this.pattern = pattern;
 		this.nextStatus = nextStatus;
 		this.pushback = pushback;
 	}
 	
+	/**
+	 * 주어진 전이 함수와 명세(문자 패턴, 다음 상태, pushback)가 같은지 여부 반환
+	 * 
+	 * @param other 비교할 전이 함수
+	 * @return 명세가 같은지 여부
+	 */
+	public boolean isSameSpec(Transfer other) {
+		
+		if(other == null) {
+			return false;
+		}
+		
+		return this.pushback == other.pushback
+			&& this.patternStr.equals(other.patternStr)
+			&& this.nextStatus.equals(other.nextStatus);
+	}
+	
 	/**
 	 * 주어진 문자가 문자 패턴에 일치하는지 검사하여 반환
 	 * 
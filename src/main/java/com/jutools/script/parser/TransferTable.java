@@ -0,0 +1,91 @@
+package com.jutools.script.parser;
+
+import java.util.List;
+
+/**
+ * 한 상태의 전이 함수 목록을 문자 코드 인덱스 테이블로 변환한 클래스<br>
+ * -> ASCII 문자(0 ~ 127)는 테이블에서 바로 전이 함수를 찾고,
+ *    그 외 문자는 전이 함수 목록을 순서대로 검사함<br>
+ * -> 테이블은 생성 후 변경되지 않으므로 여러 파서 객체에서 공유 가능함
+ *
+ * @author jmsohn
+ */
+class TransferTable {
+
+	/** 테이블로 처리하는 문자 코드의 개수 */
+	private static final int TABLE_SIZE = 128;
+
+	/** 전이 함수 목록 */
+	private Transfer[] transfers;
+
+	/** 문자 코드 별 전이 함수 테이블 - 매치되는 전이 함수가 없을 경우 null */
+	private Transfer[] table;
+
+	/**
+	 * 생성자
+	 *
+	 * @param transfers 전이 함수 목록
+	 */
+	TransferTable(List<Transfer> transfers) {
+
+		if(transfers == null) {
+			throw new NullPointerException("transfers is null");
+		}
+
+		this.transfers = transfers.toArray(new Transfer[0]);
+		this.table = new Transfer[TABLE_SIZE];
+
+		// 문자 코드 별로 처음 매치되는 전이 함수를 설정함
+		// 기존의 목록 순서 검사와 동일한 결과를 얻기 위함
+		for(int code = 0; code < TABLE_SIZE; code++) {
+			for(Transfer transfer: this.transfers) {
+				if(transfer.isValid((char)code) == true) {
+					this.table[code] = transfer;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 입력 문자에 매치되는 전이 함수 반환
+	 *
+	 * @param ch 입력 문자
+	 * @return 매치되는 전이 함수, 없을 경우 null
+	 */
+	Transfer find(char ch) {
+
+		if(ch < TABLE_SIZE) {
+			return this.table[ch];
+		}
+
+		for(Transfer transfer: this.transfers) {
+			if(transfer.isValid(ch) == true) {
+				return transfer;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * 주어진 전이 함수 목록과 테이블의 전이 함수 목록의 명세가 같은지 여부 반환
+	 *
+	 * @param transfers 비교할 전이 함수 목록
+	 * @return 명세가 같은지 여부
+	 */
+	boolean isSameSpec(List<Transfer> transfers) {
+
+		if(transfers == null || transfers.size() != this.transfers.length) {
+			return false;
+		}
+
+		for(int index = 0; index < this.transfers.length; index++) {
+			if(this.transfers[index].isSameSpec(transfers.get(index)) == false) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -1,14 +1,21 @@
 package com.jutools.script.pipescript;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 
 import com.jutools.StringUtil;
 import com.jutools.script.olexp.OLExp;
@@ -17,7 +24,17 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * 파이프 스크립트<br>
- * ex) type=='cpu' and host=='server1' | stat(usage) | print()
+ * ex) type=='cpu' and host=='server1' | stat(usage) | print()<br>
+ * -> 각 단계(stage)는 설정된 개수의 worker thread 에서 병렬로 실행됨<br>
+ * -> 순서 유지(ordered) 설정 시, 각 단계는 입력 순서대로 다음 단계에 전달함<br>
+ * -> 단계 별 Heap 은 같은 단계의 worker 들이 공유하는 ConcurrentHashMap 임<br>
+ *    읽고-수정-쓰기는 updateHeap(또는 Heap 의 compute/merge)으로 원자적으로 수행해야 하며,
+ *    worker 가 여러 개인 단계에서 put/remove 로 직접 쓰면 경고를 한번 기록함<br>
+ * -> 단계 별 입력 큐의 크기를 제한할 수 있으며,
+ *    큐가 가득 찼을 경우 처리 방식(대기/버림/임시 파일 저장)을 설정할 수 있음<br>
+ * -> 배치 크기 설정 시, 입력 큐에서 한번에 여러 개의 데이터를 꺼내어 처리함<br>
+ * -> end 메소드 호출 시 스트림 종료 표시(END_OF_STREAM)가 모든 단계를 순서대로 통과하며,
+ *    마지막 단계까지 처리가 완료되면 run 메소드가 반환한 CompletableFuture 가 완료됨
  *
  * @author jmsohn
  */
@@ -30,6 +47,9 @@ public class PipeScript {
 	/** 출력 큐 */
 	public static final String OUT_Q = "<out_queue>";
 	
+	/** 스트림 종료 표시 - 객체 동일성(==)으로 비교함 */
+	public static final Map<String, Object> END_OF_STREAM = Collections.unmodifiableMap(new HashMap<String, Object>());
+	
 	
 	/** 중단 여부 */
 	private volatile boolean stop;
@@ -39,6 +59,12 @@ public class PipeScript {
 
 	/** 각 파이프 스크립트를 실행하는 실행자 */
 	private ExecutorService executor;
+	
+	/** 입력 순서 유지 여부 */
+	private boolean ordered = false;
+	
+	/** 처리 완료 객체 - 마지막 단계가 스트림 종료 표시를 처리하면 완료됨 */
+	private volatile CompletableFuture<Void> completion;
 
 	
 	/**
@@ -93,10 +119,243 @@ public class PipeScript {
 		return new PipeScript(pipeScript, methodClassAry);
 	}
 
+	/**
+	 * 모든 단계의 worker 개수 설정
+	 * 
+	 * @param workers worker 개수
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setWorkers(int workers) {
+		
+		for(int stage = 0; stage < this.scriptRunnerList.size(); stage++) {
+			this.setWorkers(stage, workers);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 worker 개수 설정
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @param workers worker 개수
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setWorkers(int stage, int workers) {
+		
+		this.checkNotStarted();
+		this.checkStage(stage);
+		
+		if(workers < 1) {
+			throw new IllegalArgumentException("workers must be greater than 0: " + workers);
+		}
+		
+		this.scriptRunnerList.get(stage).workers = workers;
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 worker 개수 반환
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @return worker 개수
+	 */
+	public int getWorkers(int stage) {
+		return this.scriptRunnerList.get(stage).workers;
+	}
+	
+	/**
+	 * 단계 개수 반환
+	 * 
+	 * @return 단계 개수
+	 */
+	public int getStageCount() {
+		return this.scriptRunnerList.size();
+	}
+	
+	/**
+	 * 모든 단계의 입력 큐 최대 크기 설정
+	 * 
+	 * @param capacity 입력 큐 최대 크기
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setQueueCapacity(int capacity) {
+		
+		for(int stage = 0; stage < this.scriptRunnerList.size(); stage++) {
+			this.setQueueCapacity(stage, capacity);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 입력 큐 최대 크기 설정<br>
+	 * 기본값은 Integer.MAX_VALUE(제한 없음)이며, 설정 시 입력 큐를 새로 생성함
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @param capacity 입력 큐 최대 크기
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setQueueCapacity(int stage, int capacity) {
+		
+		this.checkNotStarted();
+		this.checkStage(stage);
+		
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity must be greater than 0: " + capacity);
+		}
+		
+		this.scriptRunnerList.get(stage).inQ = new LinkedBlockingQueue<>(capacity);
+		
+		return this;
+	}
+	
+	/**
+	 * 모든 단계의 입력 큐가 가득 찼을 경우 처리 방식 설정
+	 * 
+	 * @param policy 처리 방식
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setQueuePolicy(QueuePolicy policy) {
+		
+		for(int stage = 0; stage < this.scriptRunnerList.size(); stage++) {
+			this.setQueuePolicy(stage, policy);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 입력 큐가 가득 찼을 경우 처리 방식 설정<br>
+	 * 기본값은 BLOCK 임
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @param policy 처리 방식
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setQueuePolicy(int stage, QueuePolicy policy) {
+		
+		this.checkNotStarted();
+		this.checkStage(stage);
+		
+		if(policy == null) {
+			throw new NullPointerException("policy is null");
+		}
+		
+		this.scriptRunnerList.get(stage).policy = policy;
+		
+		return this;
+	}
+	
+	/**
+	 * 모든 단계의 배치 크기 설정
+	 * 
+	 * @param batchSize 배치 크기
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setBatchSize(int batchSize) {
+		
+		for(int stage = 0; stage < this.scriptRunnerList.size(); stage++) {
+			this.setBatchSize(stage, batchSize);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 배치 크기 설정<br>
+	 * worker 는 입력 큐에서 최대 배치 크기 만큼의 데이터를 한번에 꺼내어(drainTo) 처리함<br>
+	 * 기본값은 1 임
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @param batchSize 배치 크기
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setBatchSize(int stage, int batchSize) {
+		
+		this.checkNotStarted();
+		this.checkStage(stage);
+		
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be greater than 0: " + batchSize);
+		}
+		
+		this.scriptRunnerList.get(stage).batchSize = batchSize;
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 별 처리 현황 반환
+	 * 
+	 * @param stage 단계 번호(0 부터 시작)
+	 * @return 처리 현황
+	 */
+	public StageMetrics getMetrics(int stage) {
+		
+		this.checkStage(stage);
+		return this.scriptRunnerList.get(stage).metrics;
+	}
+	
+	/**
+	 * 입력 순서 유지 여부 설정<br>
+	 * 설정 시 worker 가 여러 개인 단계는 입력 순서 번호를 부여하고,
+	 * 처리가 끝난 데이터를 재정렬 버퍼에 모아 입력 순서대로 다음 단계에 전달함
+	 * 
+	 * @param ordered 입력 순서 유지 여부
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setOrdered(boolean ordered) {
+		
+		this.checkNotStarted();
+		this.ordered = ordered;
+		
+		return this;
+	}
+	
+	/**
+	 * 마지막 단계의 출력 큐 설정<br>
+	 * 설정하지 않을 경우 마지막 단계의 출력은 버려짐<br>
+	 * 스트림 종료 시 마지막에 END_OF_STREAM 이 추가됨
+	 * 
+	 * @param outQ 출력 큐
+	 * @return 현재 객체(fluent 코딩용)
+	 */
+	public PipeScript setOutQueue(BlockingQueue<Map<String, Object>> outQ) {
+		
+		this.checkNotStarted();
+		this.scriptRunnerList.get(this.scriptRunnerList.size() - 1).outQ = outQ;
+		
+		return this;
+	}
+	
+	/**
+	 * 단계 번호가 유효하지 않을 경우 예외 발생
+	 * 
+	 * @param stage 단계 번호
+	 */
+	private void checkStage(int stage) {
+		if(stage < 0 || stage >= this.scriptRunnerList.size()) {
+			throw new IllegalArgumentException("invalid stage: " + stage);
+		}
+	}
+	
+	/**
+	 * 실행 중일 경우 예외 발생
+	 */
+	private void checkNotStarted() {
+		if(this.stop == false) {
+			throw new IllegalStateException("pipe script is already started.");
+		}
+	}
+
 	/**
  	 * 파이프 스크립트 실행
+ 	 * 
+ 	 * @return 처리 완료 객체 - 스트림 종료 표시가 마지막 단계까지 처리되면 완료되고, 중단 시 취소됨
    	 */
-	public void run() throws Exception {
+	public CompletableFuture<Void> run() throws Exception {
 
 		if(this.stop == false) {
 			throw new IllegalStateException("pipe script is already started.");
@@ -105,17 +364,65 @@ public class PipeScript {
 		if(this.scriptRunnerList == null || this.scriptRunnerList.size() == 0) {
 			throw new IllegalStateException("pipe script is not set.");
 		}
-			
-		this.executor = Executors.newFixedThreadPool(this.scriptRunnerList.size());
+		
+		// 전체 worker 개수 계산
+		int totalWorkers = 0;
+		for(ScriptRunner scriptRunner: this.scriptRunnerList) {
+			totalWorkers += scriptRunner.workers;
+		}
+		
+		// 처리 완료 객체 생성
+		CompletableFuture<Void> completion = new CompletableFuture<>();
+		this.completion = completion;
+		
+		// 단계 별 worker 개수 만큼 실행
+		this.executor = Executors.newFixedThreadPool(totalWorkers);
 		for(ScriptRunner scriptRunner: this.scriptRunnerList) {
-			this.executor.submit(scriptRunner);
+			
+			scriptRunner.reset(this.ordered == true && scriptRunner.workers > 1);
+			
+			for(int index = 0; index < scriptRunner.workers; index++) {
+				this.executor.submit(scriptRunner);
+			}
 		}
 
 		this.stop = false;
+		
+		return completion;
+	}
+	
+	/**
+	 * 스트림 종료 표시를 첫번째 단계에 입력함<br>
+	 * 이전에 입력된 데이터가 모두 처리된 후 처리 완료 객체가 완료됨<br>
+	 * 입력 큐가 가득 찼을 경우 처리 방식과 상관없이 버리지 않음
+	 */
+	public void end() throws InterruptedException {
+		this.scriptRunnerList.get(0).accept(END_OF_STREAM);
+	}
+	
+	/**
+	 * 처리 완료 객체 반환
+	 * 
+	 * @return 처리 완료 객체, 실행 전에는 null
+	 */
+	public CompletableFuture<Void> getCompletion() {
+		return this.completion;
+	}
+	
+	/**
+	 * 마지막 단계에서 스트림 종료 표시를 처리했을 때 호출됨
+	 */
+	private void complete() {
+		
+		this.stop = true;
+		this.executor.shutdown();
+		
+		this.completion.complete(null);
 	}
 
 	/**
- 	 * 파이프 스크립트 실행 중단
+ 	 * 파이프 스크립트 실행 중단<br>
+ 	 * 각 worker 는 처리 중인 데이터를 처리한 후 종료되며, 대기 중인 데이터는 처리하지 않음
    	 */
 	public void stop() {
 
@@ -124,13 +431,76 @@ public class PipeScript {
 		if(this.executor == null || this.executor.isShutdown() == true) {
 			return;
 		}
+		
+		for(ScriptRunner scriptRunner: this.scriptRunnerList) {
+			scriptRunner.stop = true;
+		}
 
 		this.executor.shutdown();
 		this.stop = true;
+		
+		this.completion.cancel(false);
+	}
+	
+	/**
+	 * 파이프 스크립트 실행 중단 후 종료 대기<br>
+	 * 대기 시간 내에 종료되지 않은 worker 는 interrupt 함<br>
+	 * 처리하지 못한 데이터(입력 큐, 임시 파일, 처리 중, 재정렬 버퍼)는 버리고 그 개수를 반환함
+	 * 
+	 * @param timeout 최대 대기 시간
+	 * @param unit 대기 시간 단위
+	 * @return 버려진 데이터 개수
+	 */
+	public long stop(long timeout, TimeUnit unit) throws InterruptedException {
+		
+		if(unit == null) {
+			throw new NullPointerException("time unit is null");
+		}
+		
+		if(this.executor == null) {
+			return 0;
+		}
+		
+		// 중단 요청
+		this.stop();
+		
+		// 종료 대기 후 종료되지 않으면 interrupt 수행
+		if(this.executor.awaitTermination(timeout, unit) == false) {
+			
+			this.executor.shutdownNow();
+			
+			if(this.executor.awaitTermination(1, TimeUnit.SECONDS) == false) {
+				log.error("pipe script is not terminated.");
+			}
+		}
+		
+		// 처리하지 못한 데이터 개수 계산 및 제거
+		long dropped = 0;
+		for(ScriptRunner scriptRunner: this.scriptRunnerList) {
+			dropped += scriptRunner.discard();
+		}
+		
+		return dropped;
 	}
 	
 	/**
-	 * 파이프 스크립트의 입력 큐 반환
+	 * 파이프 스크립트에 데이터 입력<br>
+	 * 첫번째 단계의 입력 큐가 가득 찼을 경우, 설정된 처리 방식에 따라 처리함
+	 * 
+	 * @param values 입력 데이터
+	 */
+	public void put(Map<String, Object> values) throws InterruptedException {
+		
+		if(values == null) {
+			throw new NullPointerException("values is null");
+		}
+		
+		this.scriptRunnerList.get(0).accept(values);
+	}
+	
+	/**
+	 * 파이프 스크립트의 입력 큐 반환<br>
+	 * 입력 큐에 직접 넣을 경우 큐가 가득 찼을 경우의 처리 방식은 적용되지 않음
 	 * 
 	 * @return 파이프 스크립트 입력 큐
 	 */
@@ -139,7 +509,8 @@ public class PipeScript {
 	}
 	
 	/**
-	 * 변수 컨테이너의 Heap 객체를 반환
+	 * 변수 컨테이너의 Heap 객체를 반환<br>
+	 * 같은 단계의 worker 간 공유되므로, 읽고-수정-쓰기는 updateHeap 으로 수행해야 함
 	 * 
 	 * @param values 변수 컨테이너
 	 * @return Heap 객체
@@ -154,9 +525,90 @@ public class PipeScript {
 		return (Map<String, Object>)values.get(HEAP_KEY);
 	}
 	
+	/**
+	 * 변수 컨테이너의 Heap 에서 key 의 값을 원자적으로 변경<br>
+	 * -> 같은 단계의 다른 worker 의 변경과 겹치지 않으므로, 카운터/집계 등 읽고-수정-쓰기에 사용함<br>
+	 * -> update 가 null 을 반환하면 key 를 삭제함
+	 * 
+	 * @param values 변수 컨테이너
+	 * @param key 변경할 key
+	 * @param update 변경 함수(key, 현재 값 - 없을 경우 null) - 변경된 값을 반환
+	 * @return 변경된 값
+	 */
+	public static Object updateHeap(Map<String, ?> values, String key, BiFunction<String, Object, Object> update) {
+		
+		Map<String, Object> heap = getHeap(values);
+		if(heap == null) {
+			throw new NullPointerException("heap is not found.");
+		}
+		
+		return heap.compute(key, update);
+	}
+	
+	/**
+	 * 단계 별 Heap<br>
+	 * worker 가 여러 개인 단계에서 원자적이지 않은 쓰기(put/putAll/remove)를 하면 경고를 한번 기록함
+	 * 
+	 * @author jmsohn
+	 */
+	private static class StageHeap extends ConcurrentHashMap<String, Object> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/** 같은 단계의 worker 간 공유 여부(worker 가 여러 개인지 여부) */
+		private volatile boolean shared = false;
+		
+		/** 경고 기록 여부 */
+		private AtomicBoolean warned = new AtomicBoolean(false);
+		
+		/** 단계의 스크립트 - 경고 기록용 */
+		private String script;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param script 단계의 스크립트
+		 */
+		private StageHeap(String script) {
+			this.script = script;
+		}
+		
+		@Override
+		public Object put(String key, Object value) {
+			
+			this.warnIfShared();
+			return super.put(key, value);
+		}
+		
+		@Override
+		public void putAll(Map<? extends String, ? extends Object> map) {
+			
+			this.warnIfShared();
+			super.putAll(map);
+		}
+		
+		@Override
+		public Object remove(Object key) {
+			
+			this.warnIfShared();
+			return super.remove(key);
+		}
+		
+		/**
+		 * worker 가 여러 개인 경우 경고를 한번 기록
+		 */
+		private void warnIfShared() {
+			
+			if(this.shared == true && this.warned.compareAndSet(false, true) == true) {
+				log.warn("heap is written by put/remove in a multi-worker stage, use updateHeap(compute/merge) for read-modify-write: " + this.script);
+			}
+		}
+	}
+	
 	/**
 	 * 파이프 스크립트의 실행 객체<br>
-  	 * 파이프로 연결된 하나의 스크립트 실행 객체임
+  	 * 파이프로 연결된 하나의 스크립트 실행 객체임<br>
+  	 * -> worker 개수 만큼 실행자에 제출되어 동시에 실행됨
   	 *
 	 * @author jmsohn
 	 */
@@ -168,14 +620,62 @@ public class PipeScript {
 		/** 파이프 입력 큐 */
 		private BlockingQueue<Map<String, Object>> inQ;
 		
-		/** 파이프 출력 큐 */
+		/** 파이프 출력 큐 - 마지막 단계에서만 사용 */
 		private BlockingQueue<Map<String, Object>> outQ;
 		
+		/** 파이프로 연결된 다음 단계 */
+		private ScriptRunner next;
+		
+		/** 입력 큐가 가득 찼을 경우 처리 방식 */
+		private QueuePolicy policy = QueuePolicy.BLOCK;
+		
+		/** 한번에 입력 큐에서 꺼낼 최대 개수 */
+		private int batchSize = 1;
+		
+		/** 입력 큐가 가득 찼을 경우 데이터를 저장할 임시 파일 큐 */
+		private SpillQueue spillQ = new SpillQueue();
+		
+		/** 임시 파일 큐 사용 중 여부 - spillLock 으로 보호됨 */
+		private boolean spilling = false;
+		
+		/** 임시 파일 큐 사용 여부 변경용 lock */
+		private Object spillLock = new Object();
+		
+		/** 처리 현황 */
+		private StageMetrics metrics = new StageMetrics(() -> this.inQ.size() + this.spillQ.size());
+		
 		/** 실행할 스크립트 객체 */
 		private OLExp script;
 
-		/** 스크립트 Heap - 상태 저장용 */
-		private Map<String, Object> heap;
+		/** 스크립트 Heap - 상태 저장용, 같은 단계의 worker 간 공유됨 */
+		private StageHeap heap;
+		
+		/** worker 개수 */
+		private int workers = 1;
+		
+		/** 입력 순서대로 재정렬 후 전달 여부 */
+		private volatile boolean reorder = false;
+		
+		/** 입력 순서 번호 부여용 lock */
+		private Object inLock = new Object();
+		
+		/** 다음 입력 순서 번호 - inLock 으로 보호됨 */
+		private long inSeq = 0;
+		
+		/** 다음 출력 순서 번호 - reorderBuffer 로 보호됨 */
+		private long outSeq = 0;
+		
+		/** 재정렬 버퍼 - Key: 입력 순서 번호, Value: 처리 결과(필터링된 경우 null) */
+		private HashMap<Long, Map<String, Object>> reorderBuffer = new HashMap<>();
+		
+		/** 스트림 종료 표시를 받아 종료한 worker 개수 */
+		private AtomicInteger finishedWorkers = new AtomicInteger(0);
+		
+		/** 입력 큐에서 꺼내어 처리 중인 데이터 개수 */
+		private AtomicInteger inFlight = new AtomicInteger(0);
+		
+		/** 임시 파일 큐 사용 중 스트림 종료 표시를 받았는지 여부 - spillLock 으로 보호됨 */
+		private boolean pendingEnd = false;
 
 
 		/**
@@ -194,45 +694,118 @@ public class PipeScript {
 			this.outQ = null;
 			
 			// Heap 생성
-			this.heap = new ConcurrentHashMap<>(); // Thread Safe
+			this.heap = new StageHeap(scriptStr); // Thread Safe
+		}
+
+		/**
+		 * 실행 전 상태 초기화
+		 * 
+		 * @param reorder 입력 순서대로 재정렬 후 전달 여부
+		 */
+		void reset(boolean reorder) {
+			
+			this.stop = false;
+			this.reorder = reorder;
+			this.heap.shared = this.workers > 1;
+			
+			this.inSeq = 0;
+			this.outSeq = 0;
+			this.reorderBuffer.clear();
+			
+			this.finishedWorkers.set(0);
+			this.inFlight.set(0);
+			
+			this.metrics.start();
 		}
 
 		/**
   		 * 실행 메소드
    		 */
-		@SuppressWarnings("unchecked")
 		@Override
 		public void run() {
 
-			this.stop = false;
+			// 입력 큐에서 꺼낸 데이터 목록
+			ArrayList<Map<String, Object>> batch = new ArrayList<>(this.batchSize);
+			
+			// 스트림 종료 표시를 받았는지 여부
+			boolean end = false;
 
-			while(this.stop == false) {
+			while(this.stop == false && end == false) {
+				
+				// 배치의 첫번째 입력 순서 번호 - 재정렬하지 않을 경우 -1
+				long seq = -1;
 
 				try {
 					
 					// 1. 큐에서 값을 전달 받음
-					Map<String, Object> values = this.inQ.poll(1, TimeUnit.SECONDS);;
-					if(values == null) {
+					//    재정렬할 경우 큐에서 꺼낸 순서대로 순서 번호를 부여함
+					batch.clear();
+					
+					if(this.reorder == true) {
+						synchronized(this.inLock) {
+							this.take(batch);
+							seq = this.inSeq;
+							this.inSeq += batch.size();
+						}
+					} else {
+						this.take(batch);
+					}
+					
+					if(batch.size() == 0) {
 						continue;
 					}
 					
-					// 2. script 수행
-					values.put(HEAP_KEY, this.heap);
-					Object result = this.script.execute(values).pop(Object.class);
-					values.remove(HEAP_KEY);
+					this.inFlight.addAndGet(batch.size());
 					
-					// 3. 결괏값의 종류에 처리 수행
-					if(result instanceof Boolean) {
-						if(((Boolean)result) == false) {
+					for(int index = 0; index < batch.size(); index++) {
+						
+						Map<String, Object> values = batch.get(index);
+						
+						// 스트림 종료 표시 이후의 데이터는 버림
+						if(end == true) {
+							
+							this.metrics.droppedCount.incrementAndGet();
+							this.emit((seq < 0)?-1:seq + index, null);
+							this.inFlight.decrementAndGet();
+							
+							continue;
+						}
+						
+						// 스트림 종료 표시인 경우, 순서 번호만 소비함
+						if(values == END_OF_STREAM) {
+							
+							end = true;
+							this.emit((seq < 0)?-1:seq + index, null);
+							this.inFlight.decrementAndGet();
+							
 							continue;
 						}
-					} else if(result instanceof Map) {
-						values.putAll((Map<String, Object>)result);
+						
+						this.metrics.inCount.incrementAndGet();
+						
+						// 2. script 수행
+						Map<String, Object> result = null;
+						
+						try {
+							
+							result = this.process(values);
+							if(result == null) {
+								this.metrics.filteredCount.incrementAndGet();
+							}
+							
+						} catch(Exception ex) {
+							this.metrics.errorCount.incrementAndGet();
+							log.error("script error: " + script.getScript(), ex);
+						}
+						
+						// 3. 다음 컴포넌트로 데이터 전달
+						this.emit((seq < 0)?-1:seq + index, result);
+						this.inFlight.decrementAndGet();
 					}
 					
-					// 4. 다음 컴포넌트로 데이터 전달
-					if(this.outQ != null) {
-						this.outQ.put(values);
+					// 4. 스트림 종료 처리
+					if(end == true) {
+						this.finish();
 					}
 					
 				} catch(InterruptedException iex) {
@@ -243,6 +816,328 @@ public class PipeScript {
 				}
 			}
 		}
+		
+		/**
+		 * 스트림 종료 표시를 받은 worker 의 종료 처리<br>
+		 * 같은 단계의 다른 worker 에게 스트림 종료 표시를 다시 전달하고,
+		 * 마지막으로 종료하는 worker 는 다음 단계에 전달하거나 처리 완료 처리함<br>
+		 * -> 각 worker 는 처리 중인 데이터를 모두 전달한 후 종료하므로,
+		 *    마지막 worker 가 종료할 때에는 이 단계의 모든 데이터가 전달된 상태임
+		 */
+		private void finish() throws InterruptedException {
+			
+			if(this.finishedWorkers.incrementAndGet() < this.workers) {
+				this.inQ.put(END_OF_STREAM);
+				return;
+			}
+			
+			if(this.next != null) {
+				this.next.accept(END_OF_STREAM);
+			} else {
+				
+				if(this.outQ != null) {
+					this.outQ.put(END_OF_STREAM);
+				}
+				
+				PipeScript.this.complete();
+			}
+		}
+		
+		/**
+		 * 처리하지 못한 데이터(입력 큐, 임시 파일, 처리 중, 재정렬 버퍼)를 버리고 개수를 반환함
+		 * 
+		 * @return 버려진 데이터 개수
+		 */
+		long discard() {
+			
+			long dropped = 0;
+			
+			// 입력 큐
+			ArrayList<Map<String, Object>> remains = new ArrayList<>();
+			this.inQ.drainTo(remains);
+			
+			for(Map<String, Object> values: remains) {
+				if(values != END_OF_STREAM) {
+					dropped++;
+				}
+			}
+			
+			// 임시 파일
+			synchronized(this.spillLock) {
+				
+				dropped += this.spillQ.size();
+				this.spillQ.close();
+				
+				this.spilling = false;
+				this.pendingEnd = false;
+			}
+			
+			// 처리 중
+			dropped += this.inFlight.getAndSet(0);
+			
+			// 재정렬 버퍼
+			synchronized(this.reorderBuffer) {
+				
+				for(Map<String, Object> values: this.reorderBuffer.values()) {
+					if(values != null) {
+						dropped++;
+					}
+				}
+				
+				this.reorderBuffer.clear();
+			}
+			
+			this.metrics.droppedCount.addAndGet(dropped);
+			
+			return dropped;
+		}
+		
+		/**
+		 * 입력 데이터 추가<br>
+		 * 입력 큐가 가득 찼을 경우 설정된 처리 방식에 따라 처리함
+		 * 
+		 * @param values 입력 데이터
+		 */
+		void accept(Map<String, Object> values) throws InterruptedException {
+			
+			// 스트림 종료 표시는 버리지 않음
+			if(values == END_OF_STREAM) {
+				this.acceptEnd();
+				return;
+			}
+			
+			switch(this.policy) {
+			case DROP:
+				
+				if(this.inQ.offer(values) == false) {
+					this.metrics.droppedCount.incrementAndGet();
+				}
+				
+				break;
+				
+			case SPILL:
+				
+				// 임시 파일 큐 사용 중에는 순서 유지를 위해 임시 파일 큐에 저장함
+				synchronized(this.spillLock) {
+					
+					if(this.spilling == false && this.inQ.offer(values) == true) {
+						break;
+					}
+					
+					try {
+						
+						this.spillQ.write(values);
+						this.spilling = true;
+						this.metrics.spilledCount.incrementAndGet();
+						
+					} catch(IOException ioex) {
+						
+						this.metrics.droppedCount.incrementAndGet();
+						log.error("spill error: " + script.getScript(), ioex);
+					}
+				}
+				
+				break;
+				
+			default: // BLOCK
+				this.inQ.put(values);
+				break;
+			}
+		}
+		
+		/**
+		 * 스트림 종료 표시 추가<br>
+		 * 임시 파일 큐 사용 중일 경우, 임시 파일 큐의 데이터를 모두 처리한 후 입력 큐에 추가함
+		 */
+		private void acceptEnd() throws InterruptedException {
+			
+			if(this.policy == QueuePolicy.SPILL) {
+				synchronized(this.spillLock) {
+					if(this.spilling == true) {
+						this.pendingEnd = true;
+						return;
+					}
+				}
+			}
+			
+			this.inQ.put(END_OF_STREAM);
+		}
+		
+		/**
+		 * 입력 큐에서 최대 배치 크기 만큼 데이터를 꺼내어 목록에 추가<br>
+		 * 입력 큐가 비어 있을 경우 임시 파일 큐에서 꺼내고,
+		 * 둘 다 비어 있을 경우 1초간 대기함
+		 * 
+		 * @param batch 꺼낸 데이터를 추가할 목록
+		 */
+		private void take(List<Map<String, Object>> batch) throws InterruptedException {
+			
+			// 입력 큐에서 꺼냄
+			Map<String, Object> values = this.inQ.poll();
+			
+			// 입력 큐가 비어 있을 경우 임시 파일 큐에서 꺼냄
+			// 임시 파일 큐 사용 중에는 신규 데이터가 임시 파일 큐에 저장되므로 순서가 유지됨
+			if(values == null && this.policy == QueuePolicy.SPILL) {
+				
+				values = this.readSpill();
+				while(values != null) {
+					
+					batch.add(values);
+					if(batch.size() >= this.batchSize) {
+						break;
+					}
+					
+					values = this.readSpill();
+				}
+				
+				if(batch.size() != 0) {
+					return;
+				}
+			}
+			
+			// 입력 큐에서 대기
+			if(values == null) {
+				values = this.inQ.poll(1, TimeUnit.SECONDS);
+			}
+			
+			if(values == null) {
+				return;
+			}
+			
+			batch.add(values);
+			
+			// 나머지는 한번에 꺼냄
+			if(this.batchSize > 1) {
+				this.inQ.drainTo(batch, this.batchSize - 1);
+			}
+		}
+		
+		/**
+		 * 임시 파일 큐에서 데이터를 꺼냄
+		 * 
+		 * @return 꺼낸 데이터, 없을 경우 null
+		 */
+		private Map<String, Object> readSpill() {
+			
+			synchronized(this.spillLock) {
+				
+				// 임시 파일 큐 사용 중에는 입력 큐에 신규 데이터가 추가되지 않으므로
+				// 입력 큐에 남은 데이터(임시 파일 큐 보다 먼저 들어온 데이터)를 먼저 처리해야 함
+				if(this.spilling == false || this.inQ.isEmpty() == false) {
+					return null;
+				}
+				
+				try {
+					
+					return this.spillQ.read();
+					
+				} catch(Exception ex) {
+					
+					this.metrics.droppedCount.incrementAndGet();
+					log.error("spill error: " + script.getScript(), ex);
+					
+					return null;
+					
+				} finally {
+					
+					// 임시 파일 큐가 비었을 경우 입력 큐를 다시 사용함
+					// 대기 중인 스트림 종료 표시는 이때 입력 큐에 추가함
+					// (입력 큐는 비어 있고, 임시 파일 큐 사용 중에는 입력 큐에 추가되지 않으므로 항상 성공함)
+					if(this.spillQ.size() == 0) {
+						
+						this.spilling = false;
+						
+						if(this.pendingEnd == true) {
+							this.pendingEnd = false;
+							this.inQ.offer(END_OF_STREAM);
+						}
+					}
+				}
+			}
+		}
+		
+		/**
+		 * 스크립트 수행 후 다음 단계로 전달할 데이터 반환
+		 * 
+		 * @param values 입력 데이터
+		 * @return 다음 단계로 전달할 데이터, 필터링된 경우 null
+		 */
+		@SuppressWarnings("unchecked")
+		private Map<String, Object> process(Map<String, Object> values) throws Exception {
+			
+			// script 수행
+			values.put(HEAP_KEY, this.heap);
+			
+			Object result = null;
+			
+			try {
+				result = this.script.execute(values).pop(Object.class);
+			} finally {
+				values.remove(HEAP_KEY);
+			}
+			
+			// 결괏값의 종류에 처리 수행
+			if(result instanceof Boolean) {
+				if(((Boolean)result) == false) {
+					return null;
+				}
+			} else if(result instanceof Map) {
+				values.putAll((Map<String, Object>)result);
+			}
+			
+			return values;
+		}
+		
+		/**
+		 * 다음 단계로 데이터 전달<br>
+		 * 재정렬할 경우 재정렬 버퍼에 저장 후 순서가 된 데이터를 모두 전달함
+		 * 
+		 * @param seq 입력 순서 번호, 재정렬하지 않을 경우 -1
+		 * @param values 전달할 데이터, 필터링된 경우 null
+		 */
+		private void emit(long seq, Map<String, Object> values) throws InterruptedException {
+			
+			// 재정렬하지 않는 경우
+			if(seq < 0) {
+				this.send(values);
+				return;
+			}
+			
+			// 재정렬하는 경우
+			// 필터링된 데이터도 순서 번호를 소비하기 위해 버퍼에 저장함
+			synchronized(this.reorderBuffer) {
+				
+				this.reorderBuffer.put(seq, values);
+				
+				while(this.reorderBuffer.containsKey(this.outSeq) == true) {
+					
+					Map<String, Object> next = this.reorderBuffer.remove(this.outSeq);
+					this.outSeq++;
+					
+					this.send(next);
+				}
+			}
+		}
+		
+		/**
+		 * 다음 단계 또는 출력 큐로 데이터 전달
+		 * 
+		 * @param values 전달할 데이터, 필터링된 경우 null
+		 */
+		private void send(Map<String, Object> values) throws InterruptedException {
+			
+			if(values == null) {
+				return;
+			}
+			
+			this.metrics.outCount.incrementAndGet();
+			
+			if(this.next != null) {
+				this.next.accept(values);
+			} else if(this.outQ != null) {
+				this.outQ.put(values);
+			}
+		}
 
 		/**
 		 * 파이프를 통해 연결될 다음 스크립트 객체 설정
@@ -256,7 +1151,7 @@ public class PipeScript {
 				throw new IllegalArgumentException("next component is null.");
 			}
 
-			this.outQ = next.inQ;
+			this.next = next;
 
 			return this;
 		}
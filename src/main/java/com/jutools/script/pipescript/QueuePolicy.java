@@ -0,0 +1,18 @@
+package com.jutools.script.pipescript;
+
+/**
+ * 파이프 스크립트 단계의 입력 큐가 가득 찼을 경우 처리 방식
+ *
+ * @author jmsohn
+ */
+public enum QueuePolicy {
+	
+	/** 큐에 공간이 생길 때까지 대기함 - 이전 단계가 느려짐(backpressure) */
+	BLOCK,
+	
+	/** 입력 데이터를 버림 */
+	DROP,
+	
+	/** 입력 데이터를 임시 파일에 저장 후, 큐가 비면 순서대로 처리함 - 데이터는 Serializable 이어야 함 */
+	SPILL
+}
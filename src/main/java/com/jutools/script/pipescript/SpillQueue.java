@@ -0,0 +1,136 @@
+package com.jutools.script.pipescript;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 파이프 스크립트 단계의 입력 큐가 가득 찼을 때 데이터를 임시 파일에 저장하는 큐<br>
+ * -> 파일에는 "길이(int) + 직렬화된 데이터" 형태로 순서대로 기록함<br>
+ * -> 모두 읽으면 파일을 비워서 재사용함
+ *
+ * @author jmsohn
+ */
+class SpillQueue {
+	
+	/** 임시 파일 */
+	private File file;
+	
+	/** 임시 파일 접근 객체 - 최초 기록 시 생성됨 */
+	private RandomAccessFile raf;
+	
+	/** 다음 읽을 위치 */
+	private long readPos = 0;
+	
+	/** 다음 기록할 위치 */
+	private long writePos = 0;
+	
+	/** 저장된 데이터 개수 */
+	private int size = 0;
+	
+	/**
+	 * 데이터 저장
+	 * 
+	 * @param values 저장할 데이터
+	 */
+	synchronized void write(Map<String, Object> values) throws IOException {
+		
+		// 데이터 직렬화
+		ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+		try(ObjectOutputStream out = new ObjectOutputStream(bytesOut)) {
+			out.writeObject(new HashMap<String, Object>(values));
+		}
+		
+		byte[] bytes = bytesOut.toByteArray();
+		
+		// 임시 파일 생성
+		if(this.raf == null) {
+			
+			this.file = File.createTempFile("pipescript", ".spill");
+			this.file.deleteOnExit();
+			
+			this.raf = new RandomAccessFile(this.file, "rw");
+		}
+		
+		// 파일에 기록
+		this.raf.seek(this.writePos);
+		this.raf.writeInt(bytes.length);
+		this.raf.write(bytes);
+		
+		this.writePos += 4 + bytes.length;
+		this.size++;
+	}
+	
+	/**
+	 * 가장 먼저 저장된 데이터를 읽어서 반환
+	 * 
+	 * @return 읽은 데이터, 없을 경우 null
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized Map<String, Object> read() throws IOException, ClassNotFoundException {
+		
+		if(this.size == 0) {
+			return null;
+		}
+		
+		// 파일에서 읽기
+		this.raf.seek(this.readPos);
+		
+		byte[] bytes = new byte[this.raf.readInt()];
+		this.raf.readFully(bytes);
+		
+		this.readPos += 4 + bytes.length;
+		this.size--;
+		
+		// 모두 읽었을 경우 파일을 비움
+		if(this.size == 0) {
+			this.readPos = 0;
+			this.writePos = 0;
+			this.raf.setLength(0);
+		}
+		
+		// 역직렬화
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (Map<String, Object>)in.readObject();
+		}
+	}
+	
+	/**
+	 * 저장된 데이터 개수 반환
+	 * 
+	 * @return 저장된 데이터 개수
+	 */
+	synchronized int size() {
+		return this.size;
+	}
+	
+	/**
+	 * 임시 파일을 닫고 삭제함
+	 */
+	synchronized void close() {
+		
+		if(this.raf == null) {
+			return;
+		}
+		
+		try {
+			this.raf.close();
+		} catch(IOException ioex) {
+			// Do Nothing
+		}
+		
+		this.file.delete();
+		
+		this.raf = null;
+		this.file = null;
+		this.readPos = 0;
+		this.writePos = 0;
+		this.size = 0;
+	}
+}
@@ -0,0 +1,146 @@
+package com.jutools.script.pipescript;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * 파이프 스크립트 단계 별 처리 현황
+ *
+ * @author jmsohn
+ */
+public class StageMetrics {
+	
+	/** 입력 큐 깊이 조회 함수 */
+	private IntSupplier depthSupplier;
+	
+	/** 처리 시작 시간(nano second) - 실행 전에는 0 */
+	private volatile long startTime = 0;
+	
+	/** 입력 큐에서 꺼내어 처리한 개수 */
+	AtomicLong inCount = new AtomicLong(0);
+	
+	/** 다음 단계로 출력한 개수 */
+	AtomicLong outCount = new AtomicLong(0);
+	
+	/** 스크립트 결과에 의해 필터링된 개수 */
+	AtomicLong filteredCount = new AtomicLong(0);
+	
+	/** 스크립트 오류 개수 */
+	AtomicLong errorCount = new AtomicLong(0);
+	
+	/** 입력 큐가 가득 차서 버려진 개수 */
+	AtomicLong droppedCount = new AtomicLong(0);
+	
+	/** 입력 큐가 가득 차서 임시 파일에 저장된 개수 */
+	AtomicLong spilledCount = new AtomicLong(0);
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param depthSupplier 입력 큐 깊이 조회 함수
+	 */
+	StageMetrics(IntSupplier depthSupplier) {
+		this.depthSupplier = depthSupplier;
+	}
+	
+	/**
+	 * 처리 시작 시간 설정
+	 */
+	void start() {
+		this.startTime = System.nanoTime();
+	}
+	
+	/**
+	 * 입력 큐에 대기 중인 데이터 개수 반환(임시 파일에 저장된 데이터 포함)
+	 * 
+	 * @return 입력 큐 깊이
+	 */
+	public int getQueueDepth() {
+		return this.depthSupplier.getAsInt();
+	}
+	
+	/**
+	 * 초당 처리 개수 반환 - 시작 후 입력 큐에서 꺼내어 처리한 개수 기준
+	 * 
+	 * @return 초당 처리 개수
+	 */
+	public double getThroughput() {
+		
+		long startTime = this.startTime;
+		if(startTime == 0) {
+			return 0;
+		}
+		
+		double elapsed = (System.nanoTime() - startTime) / 1000000000.0;
+		if(elapsed <= 0) {
+			return 0;
+		}
+		
+		return this.inCount.get() / elapsed;
+	}
+	
+	/**
+	 * 입력 큐에서 꺼내어 처리한 개수 반환
+	 * 
+	 * @return 처리한 개수
+	 */
+	public long getInCount() {
+		return this.inCount.get();
+	}
+	
+	/**
+	 * 다음 단계로 출력한 개수 반환
+	 * 
+	 * @return 출력 개수
+	 */
+	public long getOutCount() {
+		return this.outCount.get();
+	}
+	
+	/**
+	 * 필터링된 개수 반환
+	 * 
+	 * @return 필터링된 개수
+	 */
+	public long getFilteredCount() {
+		return this.filteredCount.get();
+	}
+	
+	/**
+	 * 스크립트 오류 개수 반환
+	 * 
+	 * @return 스크립트 오류 개수
+	 */
+	public long getErrorCount() {
+		return this.errorCount.get();
+	}
+	
+	/**
+	 * 입력 큐가 가득 차서 버려진 개수 반환
+	 * 
+	 * @return 버려진 개수
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+	
+	/**
+	 * 입력 큐가 가득 차서 임시 파일에 저장된 개수 반환
+	 * 
+	 * @return 임시 파일에 저장된 개수
+	 */
+	public long getSpilledCount() {
+		return this.spilledCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "in=" + this.getInCount()
+			+ ", out=" + this.getOutCount()
+			+ ", filtered=" + this.getFilteredCount()
+			+ ", error=" + this.getErrorCount()
+			+ ", dropped=" + this.getDroppedCount()
+			+ ", spilled=" + this.getSpilledCount()
+			+ ", depth=" + this.getQueueDepth();
+	}
+}
@@ -1,14 +1,37 @@
 package com.jutools.thread;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
- * List형 데이터를 분할하여 스레드로 처리하는 클래스
+ * List형 데이터를 분할하여 스레드로 처리하는 클래스<br>
+ * -> run/join: 스레드 개수 만큼 스레드를 생성하여, 목록을 같은 크기로 나누어 처리함<br>
+ * -> submit: ForkJoinPool 에서 목록을 작은 묶음(chunk)으로 나누어 처리함<br>
+ *    쉬는 스레드가 다른 스레드의 묶음을 가져가서(work stealing) 처리하므로
+ *    묶음별 처리 시간이 고르지 않아도 모든 스레드가 사용되며, 스레드를 매번 생성하지 않음<br>
+ * -> mapReduce: submit 과 같이 나누어 묶음별 결과를 만든 후(map), 목록의 순서대로 합침(reduce)<br>
+ *    결합 함수는 결합 법칙이 성립해야 하나, 교환 법칙은 성립하지 않아도 됨<br>
+ *    묶음별 결과는 각 스레드에서만 사용되므로 공유 객체의 동기화가 필요 없음
  * 
  * @author jmsohn
  */
 public class BundleExecutor {
 	
+	/** submit 시 스레드 당 기본 묶음 개수 */
+	private static final int CHUNKS_PER_WORKER = 4;
+	
+	/** 크기를 알 수 없는 Spliterator 의 기본 묶음 크기 */
+	private static final int DEFAULT_CHUNK_SIZE = 1024;
+	
 	/** 분할 처리할 스레드 목록 */
 	private Thread[] workers;
 	
@@ -18,6 +41,12 @@ public class BundleExecutor {
 	/** 스레드의 daemon 설정 여부 */
 	private boolean isDaemon = true;
 	
+	/** submit 시 사용할 ForkJoinPool - 기본값은 공용 pool */
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	
+	/** submit 시 묶음의 크기 - 0 일 경우 pool 의 스레드 수에 따라 계산함 */
+	private int chunkSize = 0;
+	
 	/**
 	 * 생성자
 	 * 
@@ -42,6 +71,13 @@ public class BundleExecutor {
 		this.task = task;
 		
 	}
+	
+	/**
+	 * 생성자 - mapReduce 전용
+	 */
+	public BundleExecutor() {
+		this.workers = new Thread[1];
+	}
 
 	/**
 	 * 주어진 목록을 분할된 스레드로 실행
@@ -50,6 +86,10 @@ public class BundleExecutor {
 	 */
 	public BundleExecutor run(List<?> list) throws Exception {
 		
+		if(this.task == null) {
+			throw new NullPointerException("task obj is null.");
+		}
+		
 		// 목록이 null 이거나 데이터가 없는 경우 즉시 반환
 		if(list == null || list.size() == 0) {
 			return this;
@@ -89,6 +129,178 @@ public class BundleExecutor {
 		
 	} // end of run
 	
+	/**
+	 * 주어진 목록을 ForkJoinPool 에서 분할 실행<br>
+	 * 묶음의 번호(bundleId)는 묶음의 순번(시작 번호 / 묶음의 크기)임<br>
+	 * 처리 중 예외 발생 시 반환된 future 가 예외로 완료됨
+	 * 
+	 * @param list 분할 실행할 목록
+	 * @return 처리 완료 future
+	 */
+	public CompletableFuture<Void> submit(List<?> list) {
+		
+		if(this.task == null) {
+			throw new NullPointerException("task obj is null.");
+		}
+		
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		
+		// 목록이 null 이거나 데이터가 없는 경우 즉시 완료
+		if(list == null || list.size() == 0) {
+			future.complete(null);
+			return future;
+		}
+		
+		// 묶음의 크기 및 개수 계산
+		int chunkSize = this.getChunkSize(list.size());
+		int chunkCount = (int)(((long)list.size() + chunkSize - 1) / chunkSize);
+		
+		// 실행
+		BundleAction action = new BundleAction(list, chunkSize, 0, chunkCount);
+		
+		this.pool.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				
+				try {
+					action.invoke();
+					future.complete(null);
+				} catch(Throwable ex) {
+					future.completeExceptionally(ex);
+				}
+			}
+		});
+		
+		return future;
+	}
+	
+	/**
+	 * 주어진 목록을 ForkJoinPool 에서 분할하여 묶음별 결과를 만들고(map), 합쳐서(reduce) 반환<br>
+	 * 결과는 목록의 순서대로 합쳐지므로, 결합 함수는 교환 법칙이 성립하지 않아도 됨(결합 법칙은 성립해야 함)<br>
+	 * 묶음별 결과가 null 인 경우 결과가 없는 것으로 보고 결합하지 않음(결합 함수에는 null 이 전달되지 않음)<br>
+	 * 처리 중 예외 발생 시 반환된 future 가 예외로 완료됨
+	 * 
+	 * @param list 분할 실행할 목록
+	 * @param mapper 묶음별 결과 생성 함수
+	 * @param combiner 묶음별 결과 결합 함수
+	 * @return 결과 future - 목록이 비어 있거나 묶음별 결과가 모두 null 일 경우 null 로 완료됨
+	 */
+	public <T, R> CompletableFuture<R> mapReduce(List<T> list, Function<Range<T>, R> mapper, BinaryOperator<R> combiner) {
+		
+		if(mapper == null) {
+			throw new NullPointerException("mapper is null.");
+		}
+		
+		if(combiner == null) {
+			throw new NullPointerException("combiner is null.");
+		}
+		
+		// 목록이 null 이거나 데이터가 없는 경우 즉시 완료
+		if(list == null || list.size() == 0) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		// 묶음의 크기 및 개수 계산
+		int chunkSize = this.getChunkSize(list.size());
+		int chunkCount = (int)(((long)list.size() + chunkSize - 1) / chunkSize);
+		
+		return this.execute(new ListReduceTask<>(list, chunkSize, 0, chunkCount, mapper, combiner));
+	}
+	
+	/**
+	 * 주어진 Spliterator 를 ForkJoinPool 에서 분할하여 묶음별 결과를 만들고(map), 합쳐서(reduce) 반환<br>
+	 * 전체 데이터를 목록으로 만들지 않고, 스레드 별로 묶음의 크기 만큼만 읽어서 처리함<br>
+	 * 묶음의 번호(bundleId)는 묶음을 읽은 순서이며, Range 의 목록은 해당 묶음의 데이터만 가짐<br>
+	 * 묶음별 결과가 null 인 경우 목록의 경우와 같이 결과가 없는 것으로 보고 결합하지 않음
+	 * 
+	 * @param source 분할 실행할 데이터
+	 * @param mapper 묶음별 결과 생성 함수
+	 * @param combiner 묶음별 결과 결합 함수
+	 * @return 결과 future - 데이터가 없거나 묶음별 결과가 모두 null 일 경우 null 로 완료됨
+	 */
+	public <T, R> CompletableFuture<R> mapReduce(Spliterator<T> source, Function<Range<T>, R> mapper, BinaryOperator<R> combiner) {
+		
+		if(source == null) {
+			throw new NullPointerException("source is null.");
+		}
+		
+		if(mapper == null) {
+			throw new NullPointerException("mapper is null.");
+		}
+		
+		if(combiner == null) {
+			throw new NullPointerException("combiner is null.");
+		}
+		
+		// 묶음의 크기 계산
+		long size = source.getExactSizeIfKnown();
+		int chunkSize = (size < 0)?((this.chunkSize == 0)?DEFAULT_CHUNK_SIZE:this.chunkSize):this.getChunkSize(size);
+		
+		return this.execute(new SpliteratorReduceTask<>(source, chunkSize, new AtomicInteger(0), mapper, combiner));
+	}
+	
+	/**
+	 * 주어진 Stream 을 ForkJoinPool 에서 분할하여 묶음별 결과를 만들고(map), 합쳐서(reduce) 반환
+	 * 
+	 * @param source 분할 실행할 데이터
+	 * @param mapper 묶음별 결과 생성 함수
+	 * @param combiner 묶음별 결과 결합 함수
+	 * @return 결과 future - 데이터가 없거나 묶음별 결과가 모두 null 일 경우 null 로 완료됨
+	 * @see #mapReduce(Spliterator, Function, BinaryOperator)
+	 */
+	public <T, R> CompletableFuture<R> mapReduce(Stream<T> source, Function<Range<T>, R> mapper, BinaryOperator<R> combiner) {
+		
+		if(source == null) {
+			throw new NullPointerException("source is null.");
+		}
+		
+		return this.mapReduce(source.spliterator(), mapper, combiner);
+	}
+	
+	/**
+	 * ForkJoin 작업을 pool 에서 실행하고 결과 future 반환
+	 * 
+	 * @param reduceTask 실행할 작업
+	 * @return 결과 future
+	 */
+	private <R> CompletableFuture<R> execute(RecursiveTask<R> reduceTask) {
+		
+		CompletableFuture<R> future = new CompletableFuture<>();
+		
+		this.pool.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				
+				try {
+					future.complete(reduceTask.invoke());
+				} catch(Throwable ex) {
+					future.completeExceptionally(ex);
+				}
+			}
+		});
+		
+		return future;
+	}
+	
+	/**
+	 * 데이터 개수에 따른 묶음의 크기 반환<br>
+	 * 묶음의 크기가 설정되지 않은 경우 pool 의 스레드 당 4개의 묶음이 되도록 계산함
+	 * 
+	 * @param size 데이터 개수
+	 * @return 묶음의 크기
+	 */
+	private int getChunkSize(long size) {
+		
+		if(this.chunkSize != 0) {
+			return this.chunkSize;
+		}
+		
+		long chunkCount = (long)this.pool.getParallelism() * CHUNKS_PER_WORKER;
+		return (int)Math.min(Integer.MAX_VALUE, Math.max(1, (size + chunkCount - 1) / chunkCount));
+	}
+	
 	/**
 	 * 모든 분할 스레드가 완료될 때까지 대기 
 	 * 
@@ -123,4 +335,283 @@ public class BundleExecutor {
 		
 		return this;
 	}
+	
+	/**
+	 * submit 시 사용할 ForkJoinPool 설정
+	 * 
+	 * @param pool ForkJoinPool
+	 * @return 현재 객체
+	 */
+	public BundleExecutor setPool(ForkJoinPool pool) {
+		
+		if(pool == null) {
+			throw new NullPointerException("pool is null.");
+		}
+		
+		this.pool = pool;
+		
+		return this;
+	}
+	
+	/**
+	 * submit 시 묶음의 크기 설정
+	 * 
+	 * @param chunkSize 묶음의 크기, 0 일 경우 pool 의 스레드 수에 따라 계산함
+	 * @return 현재 객체
+	 */
+	public BundleExecutor setChunkSize(int chunkSize) {
+		
+		if(chunkSize < 0) {
+			throw new IllegalArgumentException("chunk size must be greater than or equal to 0:" + chunkSize);
+		}
+		
+		this.chunkSize = chunkSize;
+		
+		return this;
+	}
+	
+	/**
+	 * 묶음 번호 범위를 반으로 나누어 처리하는 ForkJoin 작업
+	 * 
+	 * @author jmsohn
+	 */
+	private class BundleAction extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/** 전체 데이터 목록 */
+		private List<?> list;
+		
+		/** 묶음의 크기 */
+		private int chunkSize;
+		
+		/** 시작 묶음 번호 */
+		private int from;
+		
+		/** 끝 묶음 번호(미포함) */
+		private int to;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param list 전체 데이터 목록
+		 * @param chunkSize 묶음의 크기
+		 * @param from 시작 묶음 번호
+		 * @param to 끝 묶음 번호(미포함)
+		 */
+		private BundleAction(List<?> list, int chunkSize, int from, int to) {
+			this.list = list;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			
+			// 묶음이 하나일 경우 처리
+			if(this.to - this.from == 1) {
+				
+				int start = this.from * this.chunkSize;
+				int end = (int)Math.min((long)start + this.chunkSize, this.list.size());
+				
+				task.consume(this.list, this.from, start, end);
+				
+				return;
+			}
+			
+			// 반으로 나누어 처리 - 나머지 반은 다른 스레드가 가져갈 수 있음
+			int mid = (this.from + this.to) >>> 1;
+			
+			invokeAll(
+				new BundleAction(this.list, this.chunkSize, this.from, mid),
+				new BundleAction(this.list, this.chunkSize, mid, this.to)
+			);
+		}
+	}
+	
+	/**
+	 * 묶음 번호 범위를 반으로 나누어 결과를 만들고 합치는 ForkJoin 작업
+	 * 
+	 * @author jmsohn
+	 */
+	private static class ListReduceTask<T, R> extends RecursiveTask<R> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/** 전체 데이터 목록 */
+		private List<T> list;
+		
+		/** 묶음의 크기 */
+		private int chunkSize;
+		
+		/** 시작 묶음 번호 */
+		private int from;
+		
+		/** 끝 묶음 번호(미포함) */
+		private int to;
+		
+		/** 묶음별 결과 생성 함수 */
+		private Function<Range<T>, R> mapper;
+		
+		/** 묶음별 결과 결합 함수 */
+		private BinaryOperator<R> combiner;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param list 전체 데이터 목록
+		 * @param chunkSize 묶음의 크기
+		 * @param from 시작 묶음 번호
+		 * @param to 끝 묶음 번호(미포함)
+		 * @param mapper 묶음별 결과 생성 함수
+		 * @param combiner 묶음별 결과 결합 함수
+		 */
+		private ListReduceTask(List<T> list, int chunkSize, int from, int to, Function<Range<T>, R> mapper, BinaryOperator<R> combiner) {
+			this.list = list;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+			this.mapper = mapper;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected R compute() {
+			
+			// 묶음이 하나일 경우 결과 생성
+			if(this.to - this.from == 1) {
+				
+				int start = this.from * this.chunkSize;
+				int end = (int)Math.min((long)start + this.chunkSize, this.list.size());
+				
+				return this.mapper.apply(new Range<>(this.list, this.from, start, end));
+			}
+			
+			// 반으로 나누어 처리 후 순서대로 합침
+			int mid = (this.from + this.to) >>> 1;
+			
+			ListReduceTask<T, R> left = new ListReduceTask<>(this.list, this.chunkSize, this.from, mid, this.mapper, this.combiner);
+			ListReduceTask<T, R> right = new ListReduceTask<>(this.list, this.chunkSize, mid, this.to, this.mapper, this.combiner);
+			
+			right.fork();
+			R leftResult = left.compute();
+			
+			return combine(this.combiner, leftResult, right.join());
+		}
+	}
+	
+	/**
+	 * Spliterator 를 나누어 결과를 만들고 합치는 ForkJoin 작업<br>
+	 * 묶음의 크기 이하가 되거나 더 나눌 수 없을 때까지 나눈 후,
+	 * 묶음의 크기 만큼씩 읽어서 결과를 만들고 합침
+	 * 
+	 * @author jmsohn
+	 */
+	private static class SpliteratorReduceTask<T, R> extends RecursiveTask<R> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/** 처리할 데이터 */
+		private Spliterator<T> source;
+		
+		/** 묶음의 크기 */
+		private int chunkSize;
+		
+		/** 다음 묶음 번호 */
+		private AtomicInteger nextBundleId;
+		
+		/** 묶음별 결과 생성 함수 */
+		private Function<Range<T>, R> mapper;
+		
+		/** 묶음별 결과 결합 함수 */
+		private BinaryOperator<R> combiner;
+		
+		/**
+		 * 생성자
+		 * 
+		 * @param source 처리할 데이터
+		 * @param chunkSize 묶음의 크기
+		 * @param nextBundleId 다음 묶음 번호
+		 * @param mapper 묶음별 결과 생성 함수
+		 * @param combiner 묶음별 결과 결합 함수
+		 */
+		private SpliteratorReduceTask(Spliterator<T> source, int chunkSize, AtomicInteger nextBundleId, Function<Range<T>, R> mapper, BinaryOperator<R> combiner) {
+			this.source = source;
+			this.chunkSize = chunkSize;
+			this.nextBundleId = nextBundleId;
+			this.mapper = mapper;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected R compute() {
+			
+			// 묶음의 크기보다 클 경우 앞부분을 나누어 다른 스레드에서 처리할 수 있도록 함
+			List<SpliteratorReduceTask<T, R>> prefixTasks = new ArrayList<>();
+			
+			while(this.source.estimateSize() > this.chunkSize) {
+				
+				Spliterator<T> prefix = this.source.trySplit();
+				if(prefix == null) {
+					break;
+				}
+				
+				SpliteratorReduceTask<T, R> prefixTask = new SpliteratorReduceTask<>(prefix, this.chunkSize, this.nextBundleId, this.mapper, this.combiner);
+				prefixTask.fork();
+				
+				prefixTasks.add(prefixTask);
+			}
+			
+			// 남은 데이터는 묶음의 크기 만큼씩 읽어서 결과를 만들고 합침
+			R restResult = null;
+			
+			while(true) {
+				
+				List<T> chunk = new ArrayList<>(this.chunkSize);
+				while(chunk.size() < this.chunkSize && this.source.tryAdvance(chunk::add) == true);
+				
+				if(chunk.size() == 0) {
+					break;
+				}
+				
+				R chunkResult = this.mapper.apply(new Range<>(chunk, this.nextBundleId.getAndIncrement(), 0, chunk.size()));
+				restResult = combine(this.combiner, restResult, chunkResult);
+				
+				if(chunk.size() < this.chunkSize) {
+					break;
+				}
+			}
+			
+			// 앞부분부터 순서대로 합침
+			R result = null;
+			for(SpliteratorReduceTask<T, R> prefixTask: prefixTasks) {
+				result = combine(this.combiner, result, prefixTask.join());
+			}
+			
+			return combine(this.combiner, result, restResult);
+		}
+	}
+	
+	/**
+	 * mapReduce 결과 결합<br>
+	 * 한쪽 결과가 없는 경우(데이터가 없거나 묶음별 결과가 null 인 경우) 다른 쪽 결과를 반환함
+	 * 
+	 * @param combiner 묶음별 결과 결합 함수
+	 * @param left 앞쪽 결과
+	 * @param right 뒤쪽 결과
+	 * @return 결합된 결과
+	 */
+	private static <R> R combine(BinaryOperator<R> combiner, R left, R right) {
+		
+		if(left == null) {
+			return right;
+		}
+		
+		if(right == null) {
+			return left;
+		}
+		
+		return combiner.apply(left, right);
+	}
 }
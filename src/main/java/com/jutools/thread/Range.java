@@ -0,0 +1,102 @@
+package com.jutools.thread;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import lombok.Getter;
+
+/**
+ * mapReduce 시 하나의 묶음에서 처리할 데이터 범위<br>
+ * -> 전체 데이터 목록의 start(포함) ~ end(미포함) 범위를 나타냄
+ * 
+ * @param <T> 데이터 타입
+ * @author jmsohn
+ */
+public class Range<T> implements Iterable<T> {
+	
+	/** 전체 데이터 목록 */
+	@Getter
+	private List<T> list;
+	
+	/** 묶음의 번호 */
+	@Getter
+	private int bundleId;
+	
+	/** 시작 번호(포함) */
+	@Getter
+	private int start;
+	
+	/** 끝 번호(미포함) */
+	@Getter
+	private int end;
+	
+	/**
+	 * 생성자
+	 * 
+	 * @param list 전체 데이터 목록
+	 * @param bundleId 묶음의 번호
+	 * @param start 시작 번호(포함)
+	 * @param end 끝 번호(미포함)
+	 */
+	Range(List<T> list, int bundleId, int start, int end) {
+		this.list = list;
+		this.bundleId = bundleId;
+		this.start = start;
+		this.end = end;
+	}
+	
+	/**
+	 * 범위 내 데이터 개수 반환
+	 * 
+	 * @return 데이터 개수
+	 */
+	public int size() {
+		return this.end - this.start;
+	}
+	
+	/**
+	 * 범위 내 index 번째 데이터 반환
+	 * 
+	 * @param index 범위 내 번호(0 부터 시작)
+	 * @return 데이터
+	 */
+	public T get(int index) {
+		
+		if(index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException("index is out of range:" + index);
+		}
+		
+		return this.list.get(this.start + index);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		
+		return new Iterator<T>() {
+			
+			/** 다음 데이터 번호 */
+			private int cursor = start;
+
+			@Override
+			public boolean hasNext() {
+				return this.cursor < end;
+			}
+
+			@Override
+			public T next() {
+				
+				if(this.hasNext() == false) {
+					throw new NoSuchElementException();
+				}
+				
+				return list.get(this.cursor++);
+			}
+		};
+	}
+	
+	@Override
+	public String toString() {
+		return "Range[bundleId=" + this.bundleId + ", start=" + this.start + ", end=" + this.end + "]";
+	}
+}
@@ -5,11 +5,20 @@ import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import org.junit.Test;
 
 import com.jutools.thread.BundleExecutor;
+import com.jutools.thread.Range;
 
 /**
  * 분할 처리 테스트 클래스
@@ -56,4 +65,235 @@ public class BundleExecutorTest {
 		// 결과 확인
 		assertEquals(5000000050000000L, total); 
 	}
+	
+	@Test
+	public void testSubmit1() throws Exception {
+		
+		// 결과를 넣을 객체 생성
+		AtomicLong total = new AtomicLong(0);
+		
+		// 분할 처리 객체 생성
+		BundleExecutor executor = new BundleExecutor(8, (list, bundleId, start, end) -> {
+			
+			long sum = 0;
+			
+			for(int index = start; index < end; index++) {
+				sum += (Long)list.get(index);
+			}
+			
+			total.addAndGet(sum);
+		});
+		
+		// 1 ~ 1000000 까지 더할 데이터 생성
+		List<Long> data = new ArrayList<>();
+		for(long index = 1; index <= 1000000; index++) {
+			data.add(index);
+		}
+		
+		// 합계 실행
+		executor.submit(data).get();
+		
+		// 결과 확인
+		assertEquals(500000500000L, total.get());
+	}
+	
+	@Test
+	public void testSubmit2() throws Exception {
+		
+		List<Integer> data = new ArrayList<>();
+		for(int index = 0; index < 1003; index++) {
+			data.add(index);
+		}
+		
+		// 묶음별 처리 횟수 기록
+		AtomicIntegerArray counts = new AtomicIntegerArray(data.size());
+		AtomicIntegerArray bundles = new AtomicIntegerArray(101);
+		
+		BundleExecutor executor = new BundleExecutor(1, (list, bundleId, start, end) -> {
+			
+			bundles.incrementAndGet(bundleId);
+			
+			for(int index = start; index < end; index++) {
+				counts.incrementAndGet((Integer)list.get(index));
+			}
+			
+		}).setPool(new ForkJoinPool(4)).setChunkSize(10);
+		
+		executor.submit(data).get();
+		
+		// 모든 데이터는 한번씩 처리되고, 묶음은 101개로 나누어짐
+		for(int index = 0; index < counts.length(); index++) {
+			assertEquals(1, counts.get(index));
+		}
+		
+		for(int index = 0; index < bundles.length(); index++) {
+			assertEquals(1, bundles.get(index));
+		}
+	}
+	
+	@Test
+	public void testSubmit3() throws Exception {
+		
+		List<Integer> data = new ArrayList<>();
+		for(int index = 0; index < 100; index++) {
+			data.add(index);
+		}
+		
+		// 처리 중 예외 발생 시 future 가 예외로 완료됨
+		BundleExecutor executor = new BundleExecutor(1, (list, bundleId, start, end) -> {
+			
+			for(int index = start; index < end; index++) {
+				if((Integer)list.get(index) == 50) {
+					throw new IllegalStateException("test error");
+				}
+			}
+		});
+		
+		try {
+			executor.submit(data).join();
+			fail("exception is expected.");
+		} catch(CompletionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+			assertEquals("test error", ex.getCause().getMessage());
+		}
+	}
+	
+	@Test
+	public void testMapReduce1() throws Exception {
+		
+		// 1 ~ 1000000 까지 더할 데이터 생성
+		List<Long> data = new ArrayList<>();
+		for(long index = 1; index <= 1000000; index++) {
+			data.add(index);
+		}
+		
+		// 묶음별 합계 후 합침
+		long total = new BundleExecutor().mapReduce(data, (Range<Long> range) -> {
+			
+			long sum = 0;
+			for(long value: range) {
+				sum += value;
+			}
+			
+			return sum;
+			
+		}, Long::sum).get();
+		
+		assertEquals(500000500000L, total);
+	}
+	
+	@Test
+	public void testMapReduce2() throws Exception {
+		
+		List<Integer> data = new ArrayList<>();
+		for(int index = 0; index < 1000; index++) {
+			data.add(index);
+		}
+		
+		// 결과는 목록의 순서대로 합쳐져야 함
+		BundleExecutor executor = new BundleExecutor().setPool(new ForkJoinPool(4)).setChunkSize(7);
+		
+		List<Integer> result = executor.mapReduce(data, (Range<Integer> range) -> {
+			
+			List<Integer> part = new ArrayList<>();
+			for(int index = 0; index < range.size(); index++) {
+				part.add(range.get(index));
+			}
+			
+			return part;
+			
+		}, (left, right) -> {
+			
+			List<Integer> merged = new ArrayList<>(left);
+			merged.addAll(right);
+			
+			return merged;
+			
+		}).get();
+		
+		assertEquals(data, result);
+	}
+	
+	@Test
+	public void testMapReduce3() throws Exception {
+		
+		BundleExecutor executor = new BundleExecutor().setChunkSize(1000);
+		
+		// 크기를 알 수 없는 Stream - 목록으로 만들지 않고 처리
+		long total = executor.mapReduce(LongStream.rangeClosed(1, 1000000).boxed().filter(value -> value % 2 == 0), (Range<Long> range) -> {
+			
+			long sum = 0;
+			for(long value: range) {
+				sum += value;
+			}
+			
+			return sum;
+			
+		}, Long::sum).get();
+		
+		assertEquals(250000500000L, total);
+		
+		// 순서 유지 확인
+		String text = executor.mapReduce(IntStream.range(0, 3000).mapToObj(value -> Integer.toString(value % 10)).spliterator(), (Range<String> range) -> {
+			
+			StringBuilder builder = new StringBuilder();
+			for(String value: range) {
+				builder.append(value);
+			}
+			
+			return builder.toString();
+			
+		}, String::concat).get();
+		
+		StringBuilder expected = new StringBuilder();
+		for(int index = 0; index < 3000; index++) {
+			expected.append(index % 10);
+		}
+		
+		assertEquals(expected.toString(), text);
+		
+		// 데이터가 없는 경우
+		assertNull(executor.mapReduce(new ArrayList<Long>(), (Range<Long> range) -> 1L, Long::sum).get());
+	}
+	
+	@Test
+	public void testMapReduce4() throws Exception {
+		
+		List<Long> data = new ArrayList<>();
+		for(long index = 0; index < 1000; index++) {
+			data.add(index);
+		}
+		
+		BundleExecutor executor = new BundleExecutor().setPool(new ForkJoinPool(4)).setChunkSize(10);
+		
+		// 묶음별 결과가 null 인 경우 목록과 Stream 모두 결합하지 않음
+		Function<Range<Long>, Long> mapper = (Range<Long> range) -> {
+			
+			if(range.get(0) >= 500) {
+				return null;
+			}
+			
+			long sum = 0;
+			for(long value: range) {
+				sum += value;
+			}
+			
+			return sum;
+		};
+		
+		BinaryOperator<Long> combiner = (left, right) -> {
+			
+			assertNotNull(left);
+			assertNotNull(right);
+			
+			return left + right;
+		};
+		
+		assertEquals(124750L, (long)executor.mapReduce(data, mapper, combiner).get());
+		assertEquals(124750L, (long)executor.mapReduce(data.stream(), mapper, combiner).get());
+		
+		// 묶음별 결과가 모두 null 인 경우
+		assertNull(executor.mapReduce(data, (Range<Long> range) -> null, combiner).get());
+		assertNull(executor.mapReduce(data.stream(), (Range<Long> range) -> null, combiner).get());
+	}
 }
@@ -2,12 +2,32 @@ package com.jutools;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import com.jutools.cache.Cache;
+import com.jutools.cache.CacheStats;
+import com.jutools.cache.JavaSerializer;
 import com.jutools.cache.Loader;
+import com.jutools.cache.OffHeapStore;
+import com.jutools.cache.RemovalCause;
+import com.jutools.cache.Serializer;
 
 /**
  * 캐시 테스트 클래스
@@ -56,4 +76,596 @@ public class CacheTest {
 		Thread.sleep(800);
 		assertEquals(1, cache.size());
 	}
+	
+	@Test
+	public void testMaximumSize1() throws Exception {
+		
+		Cache<String> cache = CacheService.create((key) -> key + " value", 60 * 1000, "*/10 * * * *", 100);
+		
+		for(int index = 0; index < 1000; index++) {
+			assertEquals("key" + index + " value", cache.get("key" + index));
+		}
+		
+		assertEquals(100, cache.getMaximumWeight());
+		assertTrue(cache.size() <= 100);
+		assertEquals(cache.size(), cache.getWeight());
+	}
+	
+	@Test
+	public void testMaximumWeight1() throws Exception {
+		
+		// 문자열 길이를 무게로 사용
+		Cache<String> cache = CacheService.create(
+			(key) -> key,
+			60 * 1000, "*/10 * * * *",
+			100, (key, value) -> value.length()
+		);
+		
+		for(int index = 0; index < 100; index++) {
+			cache.put("key" + index, "0123456789");
+		}
+		
+		assertTrue(cache.getWeight() <= 100);
+		assertEquals(cache.size() * 10, cache.getWeight());
+		
+		// 최대 무게를 넘는 데이터는 저장되지 않음
+		cache.put("big", String.format("%200s", "big"));
+		assertTrue(cache.getWeight() <= 100);
+	}
+	
+	@Test
+	public void testHitRate1() throws Exception {
+		
+		// Zipf 분포의 접근 순서 생성
+		int keyCount = 10000;
+		int cacheSize = 500;
+		int accessCount = 200000;
+		
+		int[] trace = zipfTrace(keyCount, 0.9, accessCount, 1234L);
+		
+		// W-TinyLFU 캐시
+		long[] loadCount = new long[1];
+		Cache<String> cache = CacheService.create((key) -> {
+			loadCount[0]++;
+			return key;
+		}, 60 * 1000, "*/10 * * * *", cacheSize);
+		
+		for(int key: trace) {
+			cache.get(Integer.toString(key));
+		}
+		
+		double tinyLfuHitRate = 1 - (double)loadCount[0] / accessCount;
+		
+		// 비교용 LRU 캐시
+		LinkedHashMap<String, String> lru = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return this.size() > cacheSize;
+			}
+		};
+		
+		long lruMiss = 0;
+		for(int key: trace) {
+			
+			String keyStr = Integer.toString(key);
+			
+			if(lru.get(keyStr) == null) {
+				lruMiss++;
+				lru.put(keyStr, keyStr);
+			}
+		}
+		
+		double lruHitRate = 1 - (double)lruMiss / accessCount;
+		
+		System.out.println("DEBUG: W-TinyLFU hit rate:" + tinyLfuHitRate + ", LRU hit rate:" + lruHitRate);
+		
+		assertTrue(cache.size() <= cacheSize);
+		assertTrue(tinyLfuHitRate > lruHitRate);
+	}
+	
+	@Test
+	public void testSingleFlight1() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			loadCount.incrementAndGet();
+			Thread.sleep(200);
+			
+			return key + " value";
+		});
+		
+		// 동시에 같은 키를 조회하여도 로드는 한번만 수행됨
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		
+		try {
+			
+			List<Future<String>> results = new ArrayList<>();
+			for(int index = 0; index < 10; index++) {
+				results.add(executor.submit(() -> cache.get("hot")));
+			}
+			
+			for(Future<String> result: results) {
+				assertEquals("hot value", result.get());
+			}
+			
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals(1, loadCount.get());
+	}
+	
+	@Test
+	public void testSingleFlight2() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			loadCount.incrementAndGet();
+			Thread.sleep(200);
+			
+			throw new IllegalStateException("load fail");
+		});
+		
+		// 로드 실패 시 기다리던 thread 에도 같은 예외가 전달됨
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		
+		try {
+			
+			List<Future<String>> results = new ArrayList<>();
+			for(int index = 0; index < 5; index++) {
+				results.add(executor.submit(() -> cache.get("fail")));
+			}
+			
+			for(Future<String> result: results) {
+				try {
+					result.get();
+					fail("exception is expected");
+				} catch(ExecutionException exex) {
+					assertTrue(exex.getCause() instanceof IllegalStateException);
+				}
+			}
+			
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals(1, loadCount.get());
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testSingleFlight3() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			loadCount.incrementAndGet();
+			Thread.sleep(200);
+			
+			throw new AssertionError("load error");
+		});
+		
+		// 로드 중 Error 가 발생한 경우에도 기다리던 thread 가 멈추지 않고 같은 Error 를 받음
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		try {
+			
+			List<Future<String>> results = new ArrayList<>();
+			for(int index = 0; index < 2; index++) {
+				results.add(executor.submit(() -> cache.get("error")));
+			}
+			
+			for(Future<String> result: results) {
+				try {
+					result.get(5, TimeUnit.SECONDS);
+					fail("error is expected");
+				} catch(ExecutionException exex) {
+					assertTrue(exex.getCause() instanceof AssertionError);
+					assertEquals("load error", exex.getCause().getMessage());
+				}
+			}
+			
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		assertEquals(1, loadCount.get());
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testGetAll1() throws Exception {
+		
+		List<Collection<String>> batches = new ArrayList<>();
+		
+		Loader<String> loader = new Loader<String>() {
+			
+			@Override
+			public String get(String key) throws Exception {
+				return key + " value";
+			}
+			
+			@Override
+			public Map<String, String> getAll(Collection<String> keys) throws Exception {
+				
+				batches.add(keys);
+				
+				Map<String, String> values = new HashMap<>();
+				for(String key: keys) {
+					if(key.equals("none") == false) {
+						values.put(key, key + " value");
+					}
+				}
+				
+				return values;
+			}
+		};
+		
+		Cache<String> cache = CacheService.create(loader);
+		cache.put("a", "a cached");
+		
+		Map<String, String> result = cache.getAll(Arrays.asList("c", "a", "b", "none", "c"));
+		
+		// 캐시에 없는 키만 한번에 로드함
+		assertEquals(1, batches.size());
+		assertEquals(Arrays.asList("c", "b", "none"), new ArrayList<>(batches.get(0)));
+		
+		// 키 목록 순서대로 반환하고, 로드되지 않은 키는 제외함
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(result.keySet()));
+		assertEquals("a cached", result.get("a"));
+		assertEquals("b value", result.get("b"));
+		assertEquals(3, cache.size());
+		
+		// 모두 캐시에 있을 경우 로드하지 않음
+		cache.getAll(Arrays.asList("a", "b"));
+		assertEquals(1, batches.size());
+	}
+	
+	@Test
+	public void testExpireAfterWrite1() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			return key + loadCount.incrementAndGet();
+		}, 10 * 1000).setExpireAfterWrite(300);
+		
+		// 참조하더라도 저장 후 만료기간이 지나면 다시 로드함
+		assertEquals("test1", cache.get("test"));
+		Thread.sleep(200);
+		assertEquals("test1", cache.get("test"));
+		Thread.sleep(200);
+		assertEquals("test2", cache.get("test"));
+		
+		assertEquals(2, loadCount.get());
+	}
+	
+	@Test
+	public void testRefreshAfterWrite1() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			// 갱신 로드는 느리게 수행됨
+			int count = loadCount.incrementAndGet();
+			if(count > 1) {
+				Thread.sleep(200);
+			}
+			
+			return key + count;
+		}, 10 * 1000).setRefreshAfterWrite(400);
+		
+		assertEquals("test1", cache.get("test"));
+		Thread.sleep(500);
+		
+		// 갱신기간이 지나면 기존 데이터를 바로 반환하고 비동기로 갱신함
+		long start = System.currentTimeMillis();
+		assertEquals("test1", cache.get("test"));
+		assertEquals("test1", cache.get("test"));
+		assertTrue(System.currentTimeMillis() - start < 100);
+		
+		// 갱신 완료(약 200ms 후) 이후, 갱신된 데이터의 갱신기간 전에 조회함
+		Thread.sleep(400);
+		
+		assertEquals("test2", cache.get("test"));
+		assertEquals(2, loadCount.get());
+	}
+	
+	@Test
+	public void testStats1() throws Exception {
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			if(key.equals("error") == true) {
+				throw new Exception("load error");
+			}
+			
+			return key.toUpperCase();
+		}, 10 * 1000, "*/10 * * * *", 2);
+		
+		// 미스 후 로드, 히트
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		assertNull(cache.getIfPresent("c"));
+		
+		// 로드 실패
+		try {
+			cache.get("error");
+			fail("exception is expected.");
+		} catch(Exception ex) {
+			assertEquals("load error", ex.getMessage());
+		}
+		
+		// 최대 개수 초과로 제거
+		cache.get("c");
+		
+		CacheStats stats = cache.getStats();
+		
+		assertEquals(1, stats.getHitCount());
+		assertEquals(5, stats.getMissCount());
+		assertEquals(1.0 / 6, stats.getHitRate(), 0.0001);
+		assertEquals(3, stats.getLoadSuccessCount());
+		assertEquals(1, stats.getLoadFailureCount());
+		assertTrue(stats.getTotalLoadTime() > 0);
+		assertEquals(1, stats.getEvictionCount(RemovalCause.SIZE));
+		assertEquals(0, stats.getEvictionCount(RemovalCause.EXPIRED));
+		assertEquals(2, stats.getWeight());
+		
+		cache.resetStats();
+		assertEquals(0, cache.getStats().getRequestCount());
+	}
+	
+	@Test
+	public void testStats2() throws Exception {
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			return key.toUpperCase();
+		}, 100);
+		
+		cache.put("a", "A").put("b", "B");
+		
+		// 만료로 제거
+		Thread.sleep(300);
+		assertEquals(0, cache.size());
+		
+		assertEquals(2, cache.getStats().getEvictionCount(RemovalCause.EXPIRED));
+	}
+	
+	@Test
+	public void testStatsMBean1() throws Exception {
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			return key.toUpperCase();
+		}).setName("test cache");
+		
+		cache.get("a");
+		cache.get("a");
+		
+		String objectName = Cache.getObjectName("test cache");
+		
+		assertEquals(1L, (long)JMXUtil.getAttribute(ManagementFactory.getPlatformMBeanServer(), objectName, "HitCount", Long.class));
+		assertEquals(1L, (long)JMXUtil.getAttribute(ManagementFactory.getPlatformMBeanServer(), objectName, "MissCount", Long.class));
+		assertEquals(1, (int)JMXUtil.getAttribute(ManagementFactory.getPlatformMBeanServer(), objectName, "Size", Integer.class));
+		
+		// 이름 제거 시 등록 취소
+		cache.setName(null);
+		assertFalse(JMXUtil.unregisterMBean(objectName));
+	}
+	
+	@Test
+	public void testOffHeap1() throws Exception {
+		
+		AtomicInteger loadCount = new AtomicInteger(0);
+		
+		OffHeapStore store = OffHeapStore.allocateDirect(1024 * 1024, 1024);
+		
+		Cache<String> cache = CacheService.create((key) -> {
+			
+			loadCount.incrementAndGet();
+			
+			// 여러 블록에 나누어 저장되도록 큰 데이터 생성
+			StringBuilder value = new StringBuilder();
+			for(int index = 0; index < 1000; index++) {
+				value.append(key);
+			}
+			
+			return value.toString();
+			
+		}, 10 * 1000, "*/10 * * * *", 10).setOffHeapStore(store, new JavaSerializer<>(String.class));
+		
+		// 최대 개수를 넘는 데이터는 off-heap 저장소로 이동
+		for(int index = 0; index < 100; index++) {
+			cache.get("key" + index);
+		}
+		
+		assertEquals(100, loadCount.get());
+		assertEquals(10, cache.size());
+		assertEquals(90, store.size());
+		
+		// off-heap 저장소의 데이터는 로드하지 않고 heap 으로 이동함
+		for(int index = 0; index < 100; index++) {
+			assertTrue(cache.get("key" + index).startsWith("key" + index + "key" + index));
+		}
+		
+		assertEquals(100, loadCount.get());
+		assertEquals(100, cache.size() + store.size());
+		
+		// 저장 시 off-heap 저장소의 이전 데이터 삭제
+		cache.put("key0", "new value");
+		assertFalse(store.containsKey("key0"));
+		assertEquals("new value", cache.get("key0"));
+	}
+	
+	@Test
+	public void testOffHeap3() throws Exception {
+		
+		OffHeapStore store = OffHeapStore.allocateDirect(1024 * 1024, 1024);
+		
+		// "bad" 로 시작하는 데이터는 직렬화 실패
+		JavaSerializer<String> javaSerializer = new JavaSerializer<>(String.class);
+		
+		Cache<String> cache = CacheService.create((key) -> key + " value", 10 * 1000, "*/10 * * * *", 2)
+			.setOffHeapStore(store, new Serializer<String>() {
+				
+				@Override
+				public byte[] serialize(String value) throws Exception {
+					
+					if(value.startsWith("bad") == true) {
+						throw new Exception("can't serialize:" + value);
+					}
+					
+					return javaSerializer.serialize(value);
+				}
+				
+				@Override
+				public String deserialize(byte[] bytes) throws Exception {
+					return javaSerializer.deserialize(bytes);
+				}
+			});
+		
+		for(int index = 0; index < 10; index++) {
+			cache.put("key" + index, "bad" + index);
+		}
+		
+		// 직렬화에 실패한 데이터는 off-heap 저장소에 저장되지 않고 실패 횟수가 기록됨
+		assertEquals(8, cache.getStats().getOffHeapFailureCount());
+		assertEquals(0, store.size());
+		
+		// 전체 삭제 후에는 두 저장소 모두 비어 있음
+		for(int index = 0; index < 10; index++) {
+			cache.put("key" + index, "good" + index);
+		}
+		
+		assertEquals(8, store.size());
+		
+		cache.clear();
+		
+		assertEquals(0, cache.size());
+		assertEquals(0, store.size());
+	}
+	
+	@Test
+	public void testOffHeap4() throws Exception {
+		
+		OffHeapStore store = OffHeapStore.allocateDirect(1024 * 1024, 1024);
+		
+		Cache<String> cache = CacheService.create((key) -> "loaded", 10 * 1000, "*/10 * * * *", 4)
+			.setOffHeapStore(store, new JavaSerializer<>(String.class));
+		
+		// 스레드 별로 자신의 키만 저장하므로, 조회한 데이터는 마지막으로 저장한 데이터 이거나 로드한 데이터이어야 함
+		// -> 이전 데이터가 off-heap 저장소에 늦게 저장되어 다시 나타나면 안됨
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> futures = new ArrayList<>();
+		
+		for(int thread = 0; thread < 4; thread++) {
+			
+			String prefix = "t" + thread + "-";
+			
+			futures.add(executor.submit(() -> {
+				
+				for(int version = 0; version < 2000; version++) {
+					for(int index = 0; index < 5; index++) {
+						
+						String key = prefix + index;
+						String value = key + ":" + version;
+						
+						cache.put(key, value);
+						
+						String read = cache.get(key);
+						if(read.equals(value) == false && read.equals("loaded") == false) {
+							throw new AssertionError("stale value:" + read + ", expected:" + value);
+						}
+					}
+				}
+				
+				return null;
+			}));
+		}
+		
+		try {
+			for(Future<?> future: futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testOffHeap2() throws Exception {
+		
+		File file = File.createTempFile("offheap", ".dat");
+		file.deleteOnExit();
+		new File(file.getPath() + ".idx").deleteOnExit();
+		
+		// 저장 후 종료
+		OffHeapStore store = OffHeapStore.map(file, 64 * 1024, 100);
+		
+		assertTrue(store.put("a", "hello".getBytes()));
+		assertTrue(store.put("b", new byte[250]));
+		assertTrue(store.put("empty", new byte[0]));
+		assertFalse(store.put("too large", new byte[64 * 1024 + 1]));
+		
+		store.close();
+		
+		// 다시 열면 저장된 데이터를 사용함
+		store = OffHeapStore.map(file, 64 * 1024, 100);
+		
+		assertEquals(3, store.size());
+		assertEquals("hello", new String(store.get("a")));
+		assertEquals(250, store.get("b").length);
+		assertEquals(0, store.get("empty").length);
+		assertEquals(255, store.getUsedBytes());
+		
+		// 공간이 부족할 경우 오래 사용하지 않은 데이터 제거
+		assertTrue(store.put("c", new byte[64 * 1024 - 300]));
+		assertFalse(store.containsKey("a"));
+		assertFalse(store.containsKey("b"));
+		assertTrue(store.containsKey("empty"));
+		
+		store.close();
+	}
+	
+	/**
+	 * Zipf 분포의 접근 순서 생성
+	 * 
+	 * @param keyCount 키 개수
+	 * @param skew 분포 기울기
+	 * @param length 접근 순서 길이
+	 * @param seed 난수 seed
+	 * @return 접근 순서(키 번호 목록)
+	 */
+	private static int[] zipfTrace(int keyCount, double skew, int length, long seed) {
+		
+		// 누적 분포 계산
+		double[] cdf = new double[keyCount];
+		double sum = 0;
+		
+		for(int rank = 0; rank < keyCount; rank++) {
+			sum += 1 / Math.pow(rank + 1, skew);
+			cdf[rank] = sum;
+		}
+		
+		// 누적 분포에서 키 선택
+		Random random = new Random(seed);
+		int[] trace = new int[length];
+		
+		for(int index = 0; index < length; index++) {
+			
+			int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+			trace[index] = (rank < 0)?-rank - 1:rank;
+		}
+		
+		return trace;
+	}
 }
@@ -3,12 +3,20 @@ package com.jutools;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 import com.jutools.CronJob.CronExp;
+import com.jutools.CronJob.MisfirePolicy;
+import com.jutools.CronJob.OverlapPolicy;
 
 /**
  * CronJob 클래스의 테스트 케이스
@@ -45,6 +53,185 @@ public class CronJobTest {
 		assertTrue(true);
 	}
 	
+	@Test
+	public void testScheduler1() throws Exception {
+		
+		CronScheduler scheduler = new CronScheduler(2);
+		
+		// 여러 크론잡을 하나의 타이머 스레드에서 수행
+		AtomicInteger count = new AtomicInteger(0);
+		
+		CronJob[] jobs = new CronJob[10];
+		for(int index = 0; index < jobs.length; index++) {
+			jobs[index] = new CronJob("* * * * * *", () -> count.incrementAndGet());
+			jobs[index].run(scheduler);
+		}
+		
+		assertEquals(10, scheduler.size());
+		
+		Thread.sleep(2500);
+		
+		int timerCount = 0;
+		for(Thread thread: Thread.getAllStackTraces().keySet()) {
+			if(thread.getName().equals(scheduler.getName() + "-timer") == true) {
+				timerCount++;
+			}
+		}
+		
+		assertEquals(1, timerCount);
+		
+		for(CronJob job: jobs) {
+			assertTrue(job.getMetrics().getRunCount() >= 2);
+			job.stop();
+		}
+		
+		assertEquals(0, scheduler.size());
+		assertTrue(count.get() >= 20);
+		
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testScheduler2() throws Exception {
+		
+		CronScheduler scheduler = new CronScheduler(8);
+		
+		// 수행 시간이 1.5초인 잡을 1초 마다 수행
+		OverlapPolicy[] policies = {OverlapPolicy.SKIP, OverlapPolicy.QUEUE, OverlapPolicy.CONCURRENT};
+		CronJob[] jobs = new CronJob[policies.length];
+		AtomicInteger[] maxConcurrent = new AtomicInteger[policies.length];
+		
+		for(int index = 0; index < policies.length; index++) {
+			
+			AtomicInteger concurrent = new AtomicInteger(0);
+			AtomicInteger max = new AtomicInteger(0);
+			
+			jobs[index] = new CronJob("* * * * * *", () -> {
+				
+				max.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+				
+				try {
+					Thread.sleep(1500);
+				} catch(InterruptedException iex) {
+					// 중지됨
+				} finally {
+					concurrent.decrementAndGet();
+				}
+			});
+			
+			jobs[index].setOverlapPolicy(policies[index]);
+			jobs[index].run(scheduler);
+			
+			maxConcurrent[index] = max;
+		}
+		
+		Thread.sleep(4200);
+		
+		for(CronJob job: jobs) {
+			job.stop();
+		}
+		
+		// SKIP: 동시 수행 없이 건너뜀
+		assertEquals(1, maxConcurrent[0].get());
+		assertTrue(jobs[0].getMetrics().getSkipCount() >= 1);
+		
+		// QUEUE: 동시 수행 없이 이전 수행 후 이어서 수행
+		assertEquals(1, maxConcurrent[1].get());
+		assertTrue(jobs[1].getMetrics().getRunCount() >= 2);
+		
+		// CONCURRENT: 동시 수행
+		assertEquals(2, maxConcurrent[2].get());
+		
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testScheduler3() throws Exception {
+		
+		CronScheduler scheduler = new CronScheduler(1);
+		
+		AtomicInteger count = new AtomicInteger(0);
+		CronJob job = new CronJob("0 0 1 1 *", () -> {
+			
+			// 예외 발생 시 실패 횟수 기록
+			if(count.incrementAndGet() == 2) {
+				throw new IllegalStateException("test error");
+			}
+		});
+		
+		// 예외는 오류 처리 객체에 전달됨
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		job.setErrorHandler((thread, ex) -> error.set(ex));
+		
+		job.run(scheduler);
+		
+		// 늦게 수행되는 경우 - SKIP
+		job.setMisfirePolicy(MisfirePolicy.SKIP);
+		job.fire(scheduler, System.currentTimeMillis() - 5000, true);
+		
+		Thread.sleep(100);
+		assertEquals(0, count.get());
+		assertEquals(1, job.getMetrics().getMisfireCount());
+		
+		// 늦게 수행되는 경우 - FIRE_NOW
+		job.setMisfirePolicy(MisfirePolicy.FIRE_NOW);
+		job.fire(scheduler, System.currentTimeMillis() - 5000, true);
+		job.fire(scheduler, System.currentTimeMillis(), false);
+		
+		Thread.sleep(100);
+		assertEquals(2, count.get());
+		assertEquals(2, job.getMetrics().getMisfireCount());
+		assertEquals(2, job.getMetrics().getRunCount());
+		assertEquals(1, job.getMetrics().getFailureCount());
+		assertTrue(error.get() instanceof IllegalStateException);
+		assertEquals("test error", error.get().getMessage());
+		
+		job.stop();
+		scheduler.shutdown();
+	}
+	
+	@Test
+	public void testScheduler4() throws Exception {
+		
+		// 스레드 1개, 대기 큐 크기 1
+		CronScheduler scheduler = new CronScheduler(1, 1);
+		
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger count = new AtomicInteger(0);
+		
+		CronJob job = new CronJob("0 0 1 1 *", () -> {
+			
+			count.incrementAndGet();
+			
+			try {
+				latch.await();
+			} catch(InterruptedException iex) {
+				// 중지됨
+			}
+		});
+		
+		job.setOverlapPolicy(OverlapPolicy.CONCURRENT);
+		job.run(scheduler);
+		
+		// 수행 중 1개, 대기 1개를 넘는 수행은 거부되어 skipCount 로 기록됨
+		for(int index = 0; index < 5; index++) {
+			job.fire(scheduler, System.currentTimeMillis(), false);
+			Thread.sleep(20);
+		}
+		
+		assertEquals(1, scheduler.getQueuedCount());
+		assertEquals(3, job.getMetrics().getSkipCount());
+		
+		latch.countDown();
+		Thread.sleep(100);
+		
+		assertEquals(2, count.get());
+		assertEquals(2, job.getMetrics().getRunCount());
+		
+		job.stop();
+		scheduler.shutdown();
+	}
+	
 	@Test
 	public void testCronExp1_1() throws Exception {
 		
@@ -188,4 +375,100 @@ public class CronJobTest {
 		assertEquals("2023-06-01", DateUtil.getDateStr(nextTime));
 		assertEquals("00:15:00", DateUtil.getTimeStr(nextTime));
 	}
+	
+	@Test
+	public void testCronExpPrev1() throws Exception {
+		
+		ZonedDateTime baseTime = ZonedDateTime.of(2023, 5, 10, 14, 16, 40, 0, ZoneId.of("Asia/Seoul"));
+		
+		// 평일 9 ~ 17 시 15분 마다
+		CronExp exp = CronExp.create("*/15 9-17 * * 1-5");
+		
+		assertEquals(ZonedDateTime.of(2023, 5, 10, 14, 30, 0, 0, ZoneId.of("Asia/Seoul")), exp.getNextTime(baseTime));
+		assertEquals(ZonedDateTime.of(2023, 5, 10, 14, 15, 0, 0, ZoneId.of("Asia/Seoul")), exp.getPrevTime(baseTime));
+		
+		// 2023-05-13 은 토요일이므로 이전 실행 시간은 금요일 마지막 시간
+		baseTime = ZonedDateTime.of(2023, 5, 13, 10, 0, 0, 0, ZoneId.of("Asia/Seoul"));
+		
+		assertEquals(ZonedDateTime.of(2023, 5, 15, 9, 0, 0, 0, ZoneId.of("Asia/Seoul")), exp.getNextTime(baseTime));
+		assertEquals(ZonedDateTime.of(2023, 5, 12, 17, 45, 0, 0, ZoneId.of("Asia/Seoul")), exp.getPrevTime(baseTime));
+		
+		// 실행 시간과 같은 경우 다음/이전 실행 시간은 포함하지 않음
+		baseTime = ZonedDateTime.of(2023, 5, 10, 14, 15, 0, 0, ZoneId.of("Asia/Seoul"));
+		
+		assertEquals(ZonedDateTime.of(2023, 5, 10, 14, 30, 0, 0, ZoneId.of("Asia/Seoul")), exp.getNextTime(baseTime));
+		assertEquals(ZonedDateTime.of(2023, 5, 10, 14, 0, 0, 0, ZoneId.of("Asia/Seoul")), exp.getPrevTime(baseTime));
+	}
+	
+	@Test
+	public void testCronExpPrev2() throws Exception {
+		
+		// 윤년 2월 29일
+		CronExp exp = CronExp.create("0 0 29 2 *");
+		ZonedDateTime baseTime = ZonedDateTime.of(2023, 5, 10, 0, 0, 0, 0, ZoneId.of("UTC"));
+		
+		assertEquals(ZonedDateTime.of(2024, 2, 29, 0, 0, 0, 0, ZoneId.of("UTC")), exp.getNextTime(baseTime));
+		assertEquals(ZonedDateTime.of(2020, 2, 29, 0, 0, 0, 0, ZoneId.of("UTC")), exp.getPrevTime(baseTime));
+		
+		// 실행 시간이 없는 경우
+		exp = CronExp.create("0 0 30 2 *");
+		
+		assertEquals(null, exp.getNextTime(baseTime));
+		assertEquals(-1, exp.getNextTimeInMillis(System.currentTimeMillis()));
+	}
+	
+	@Test
+	public void testCronExpNextN1() throws Exception {
+		
+		CronExp exp = CronExp.create("0 0 1,15 * *");
+		ZonedDateTime baseTime = ZonedDateTime.of(2023, 12, 20, 0, 0, 0, 0, ZoneId.of("UTC"));
+		
+		List<ZonedDateTime> times = exp.nextN(baseTime, 4);
+		
+		assertEquals(4, times.size());
+		assertEquals(ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC")), times.get(0));
+		assertEquals(ZonedDateTime.of(2024, 1, 15, 0, 0, 0, 0, ZoneId.of("UTC")), times.get(1));
+		assertEquals(ZonedDateTime.of(2024, 2, 1, 0, 0, 0, 0, ZoneId.of("UTC")), times.get(2));
+		assertEquals(ZonedDateTime.of(2024, 2, 15, 0, 0, 0, 0, ZoneId.of("UTC")), times.get(3));
+		
+		// ms 단위
+		long[] millis = exp.nextN(baseTime.toInstant().toEpochMilli(), 4);
+		
+		assertEquals(4, millis.length);
+		for(int index = 0; index < millis.length; index++) {
+			assertEquals(times.get(index).toInstant().toEpochMilli(), millis[index]);
+		}
+	}
+	
+	@Test
+	public void testCronExpFiresBetween1() throws Exception {
+		
+		CronExp exp = CronExp.create("*/10 * * * * *");
+		
+		// 시작 시간은 포함, 끝 시간은 포함하지 않음
+		ZonedDateTime from = ZonedDateTime.of(2023, 5, 10, 14, 0, 0, 0, ZoneId.of("UTC"));
+		ZonedDateTime to = ZonedDateTime.of(2023, 5, 10, 14, 1, 0, 0, ZoneId.of("UTC"));
+		
+		List<ZonedDateTime> times = exp.firesBetween(from, to);
+		
+		assertEquals(6, times.size());
+		assertEquals(from, times.get(0));
+		assertEquals(ZonedDateTime.of(2023, 5, 10, 14, 0, 50, 0, ZoneId.of("UTC")), times.get(5));
+		
+		long[] millis = exp.firesBetween(from.toInstant().toEpochMilli(), from.plusDays(1).toInstant().toEpochMilli());
+		assertEquals(6 * 60 * 24, millis.length);
+	}
+	
+	@Test
+	public void testCronExpDST1() throws Exception {
+		
+		// 일광 절약 시간 시작일(2023-03-12 02:00 -> 03:00)
+		CronExp exp = CronExp.create("30 2 * * *");
+		ZonedDateTime baseTime = ZonedDateTime.of(2023, 3, 11, 12, 0, 0, 0, ZoneId.of("America/New_York"));
+		
+		List<ZonedDateTime> times = exp.nextN(baseTime, 3);
+		
+		assertEquals(ZonedDateTime.of(2023, 3, 12, 3, 30, 0, 0, ZoneId.of("America/New_York")), times.get(0));
+		assertEquals(ZonedDateTime.of(2023, 3, 13, 2, 30, 0, 0, ZoneId.of("America/New_York")), times.get(1));
+	}
 }
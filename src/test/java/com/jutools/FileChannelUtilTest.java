@@ -1,16 +1,28 @@
 package com.jutools;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
+import com.jutools.channel.BatchWriter;
+import com.jutools.channel.ChannelWrapper;
 import com.jutools.channel.FileChannelWrapper;
 
 /**
@@ -174,4 +186,357 @@ public class FileChannelUtilTest {
 		}
 	}
 	
+	@Test
+	public void testRead6() throws Exception {
+		
+		// 버퍼 경계에 걸친 다중 byte 구분자 및 버퍼보다 긴 줄
+		File file = File.createTempFile("read_test", ".txt");
+		file.deleteOnExit();
+		
+		List<String> expected = new ArrayList<>();
+		StringBuilder data = new StringBuilder();
+		
+		for(int index = 0; index < 200; index++) {
+			
+			StringBuilder line = new StringBuilder();
+			for(int count = 0; count < index % 37; count++) {
+				line.append((count % 2 == 0)?"가":"a");
+			}
+			line.append("\r\n");
+			
+			expected.add(line.toString());
+			data.append(line);
+		}
+		
+		// 마지막 줄은 구분자 없음
+		expected.add("끝");
+		data.append("끝");
+		
+		Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.UTF_8));
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 7, StandardCharsets.UTF_8, StandardOpenOption.READ);
+		) {
+			
+			List<String> lines = new ArrayList<>();
+			
+			String line = null;
+			while((line = util.readLine("\r\n")) != null) {
+				lines.add(line);
+			}
+			
+			assertEquals(expected, lines);
+			assertNull(util.readLine("\r\n"));
+		}
+	}
+	
+	@Test
+	public void testRead7() throws Exception {
+		
+		File file = File.createTempFile("read_test", ".txt");
+		file.deleteOnExit();
+		
+		Files.write(file.toPath(), "하나\n둘\n\n셋".getBytes(StandardCharsets.UTF_8));
+		
+		// byte buffer로 전달
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 4, StandardCharsets.UTF_8, StandardOpenOption.READ);
+		) {
+			
+			List<Integer> lengths = new ArrayList<>();
+			util.readLineBytes("\n", bytes -> lengths.add(bytes.remaining()));
+			
+			assertEquals(Arrays.asList(7, 4, 1, 3), lengths);
+		}
+		
+		// CharSequence로 전달
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 4, StandardCharsets.UTF_8, StandardOpenOption.READ);
+		) {
+			
+			List<String> lines = new ArrayList<>();
+			util.readLineChars("\n", chars -> lines.add(chars.toString()));
+			
+			assertEquals(Arrays.asList("하나\n", "둘\n", "\n", "셋"), lines);
+		}
+	}
+	
+	@Test
+	public void testMapped1() throws Exception {
+		
+		File file = new File("resources/read_test.txt");
+		List<String> expected = new ArrayList<>();
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, StandardOpenOption.READ);
+		) {
+			util.readLine("\n", line -> expected.add(line));
+		}
+		
+		assertEquals(46, expected.size());
+		
+		// 한줄 보다 작은 map 크기로 읽음
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, StandardOpenOption.READ).setMapSize(16);
+		) {
+			
+			List<String> lines = new ArrayList<>();
+			util.readLine("\n", line -> lines.add(line));
+			
+			assertEquals(expected, lines);
+		}
+	}
+	
+	@Test
+	public void testMapped2() throws Exception {
+		
+		File file = File.createTempFile("read_test", ".txt");
+		file.deleteOnExit();
+		
+		Files.write(file.toPath(), "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, StandardOpenOption.READ).setMapSize(4);
+		) {
+			
+			ByteBuffer read = util.read(2, 3);
+			byte[] bytes = new byte[read.remaining()];
+			read.get(bytes);
+			
+			assertEquals("234", new String(bytes, StandardCharsets.UTF_8));
+			
+			// map 영역을 벗어나는 위치
+			read = util.read(10, 4);
+			bytes = new byte[read.remaining()];
+			read.get(bytes);
+			
+			assertEquals("abcd", new String(bytes, StandardCharsets.UTF_8));
+			
+			// 파일 끝을 넘는 경우
+			assertEquals(2, util.read(14, 10).remaining());
+			assertEquals(0, util.read(20, 10).remaining());
+		}
+	}
+	
+	@Test
+	public void testMapped3() throws Exception {
+		
+		File file = File.createTempFile("read_test", ".txt");
+		file.deleteOnExit();
+		
+		List<String> expected = new ArrayList<>();
+		StringBuilder data = new StringBuilder();
+		
+		for(int index = 0; index < 1000; index++) {
+			
+			String line = "line-" + index + "-" + StringUtil.class.getSimpleName().substring(0, index % 10) + "\n";
+			
+			expected.add(line);
+			data.append(line);
+		}
+		
+		Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.UTF_8));
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, StandardOpenOption.READ);
+		) {
+			
+			List<FileChannelWrapper> regions = util.split(7, "\n");
+			assertEquals(7, regions.size());
+			
+			// 각 영역을 별도 스레드에서 읽음
+			List<List<String>> results = new ArrayList<>();
+			List<Thread> threads = new ArrayList<>();
+			
+			for(FileChannelWrapper region: regions) {
+				
+				List<String> lines = new ArrayList<>();
+				results.add(lines);
+				
+				Thread thread = new Thread(() -> {
+					try(FileChannelWrapper reader = region) {
+						reader.readLine("\n", line -> lines.add(line));
+					} catch(Exception ex) {
+						ex.printStackTrace();
+					}
+				});
+				
+				threads.add(thread);
+				thread.start();
+			}
+			
+			for(Thread thread: threads) {
+				thread.join();
+			}
+			
+			// 영역의 순서대로 합치면 전체 줄과 같음
+			List<String> lines = new ArrayList<>();
+			for(List<String> result: results) {
+				assertTrue(result.size() > 0);
+				lines.addAll(result);
+			}
+			
+			assertEquals(expected, lines);
+			
+			// 분할 영역을 닫아도 channel 은 열려 있음
+			assertEquals("line-0-\n", util.readLine("\n"));
+		}
+	}
+	
+	@Test
+	public void testWrite3() throws Exception {
+		
+		File file = File.createTempFile("write_test", ".txt");
+		file.deleteOnExit();
+		
+		// 설정된 character set 으로 쓰고, buffer 보다 긴 문자열을 씀
+		StringBuilder msg = new StringBuilder();
+		for(int index = 0; index < 100; index++) {
+			msg.append("안녕하세요.");
+		}
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 16, StandardCharsets.UTF_16LE, StandardOpenOption.WRITE);
+		) {
+			util.write(msg.toString());
+		}
+		
+		assertEquals(msg.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_16LE));
+	}
+	
+	@Test
+	public void testBatchWrite1() throws Exception {
+		
+		File file = File.createTempFile("write_test", ".txt");
+		file.deleteOnExit();
+		
+		StringBuilder expected = new StringBuilder();
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 1024, StandardCharsets.UTF_8, StandardOpenOption.WRITE);
+		) {
+			
+			BatchWriter writer = new BatchWriter(util, 4096, 0, 64);
+			
+			for(int index = 0; index < 1000; index++) {
+				
+				String msg = "로그 메시지-" + index + "\n";
+				
+				writer.write(msg);
+				expected.append(msg);
+			}
+			
+			// 모인 데이터는 batch 크기 단위로 한번에 씀
+			writer.force(false);
+			
+			assertEquals(0, writer.getPendingBytes());
+			assertEquals(expected.toString().getBytes(StandardCharsets.UTF_8).length, writer.getWrittenBytes());
+			assertTrue(writer.getFlushCount() < 20);
+		}
+		
+		assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testBatchWrite2() throws Exception {
+		
+		File file = File.createTempFile("write_test", ".txt");
+		file.deleteOnExit();
+		
+		try(
+			FileChannelWrapper util = ChannelUtil.create(file, 1024, StandardCharsets.UTF_8, StandardOpenOption.WRITE);
+			BatchWriter writer = new BatchWriter(util, 1024 * 1024, 50);
+		) {
+			
+			writer.write("first\n");
+			assertEquals(6, writer.getPendingBytes());
+			
+			// 이후 쓰지 않아도 최대 대기 시간이 지나면 모인 데이터를 씀
+			Thread.sleep(300);
+			
+			assertEquals(0, writer.getPendingBytes());
+			assertEquals(1, writer.getFlushCount());
+			assertEquals("first\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			
+			writer.write("second\n");
+			assertEquals(7, writer.getPendingBytes());
+		}
+		
+		assertEquals("first\nsecond\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testBatchWrite3() throws Exception {
+		
+		File file = File.createTempFile("write_test", ".txt");
+		file.deleteOnExit();
+		
+		AtomicBoolean failOnce = new AtomicBoolean(true);
+		StringBuilder expected = new StringBuilder();
+		
+		try(FileChannel chnl = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			
+			// 처음 쓸 때 10 byte 만 쓰고 오류가 발생하는 channel wrapper
+			ChannelWrapper wrapper = new ChannelWrapper(chnl, ByteBuffer.allocate(1024), StandardCharsets.UTF_8) {
+				
+				@Override
+				protected int write(ByteBuffer src) throws IOException {
+					return chnl.write(src);
+				}
+				
+				@Override
+				protected int read(ByteBuffer dst) throws IOException {
+					return chnl.read(dst);
+				}
+				
+				@Override
+				protected long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+					
+					if(failOnce.compareAndSet(true, false) == true) {
+						
+						ByteBuffer part = srcs[offset].duplicate();
+						((Buffer)part).limit(part.position() + 10);
+						
+						int written = chnl.write(part);
+						((Buffer)srcs[offset]).position(srcs[offset].position() + written);
+						
+						throw new IOException("test error");
+					}
+					
+					return super.write(srcs, offset, length);
+				}
+			};
+			
+			BatchWriter writer = new BatchWriter(wrapper, 1024 * 1024, 0, 16);
+			
+			for(int index = 0; index < 10; index++) {
+				
+				String msg = "message-" + index + "\n";
+				
+				writer.write(msg);
+				expected.append(msg);
+			}
+			
+			// 오류 발생 시 쓰지 못한 데이터는 남아 있음
+			long pending = writer.getPendingBytes();
+			
+			try {
+				writer.flush();
+				fail("exception is expected");
+			} catch(IOException ioex) {
+				assertEquals(pending - 10, writer.getPendingBytes());
+			}
+			
+			// 이후 쓰기는 남은 데이터에 이어서 씀
+			writer.write("last\n");
+			expected.append("last\n");
+			
+			writer.flush();
+			
+			assertEquals(0, writer.getPendingBytes());
+			assertEquals(expected.toString().length(), writer.getWrittenBytes());
+		}
+		
+		assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
 }
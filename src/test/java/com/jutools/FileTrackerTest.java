@@ -2,8 +2,22 @@ package com.jutools;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.junit.Test;
 
+import com.jutools.filetracker.LineSplitReader;
+
 /**
  * FileTracker 클래스의 테스트 케이스
  * 
@@ -26,5 +40,111 @@ public class FileTrackerTest {
 			fail("exception is occured");
 		}
 	}
-
+	
+	@Test
+	public void testGroup1() throws Exception {
+		
+		Path dir = Files.createTempDirectory("tracker");
+		
+		Path a = dir.resolve("a.log");
+		Path b = dir.resolve("b.log");
+		Path c = dir.resolve("c.txt");
+		
+		// 이미 있는 파일은 끝부터 추적함
+		Files.write(a, "old\n".getBytes(StandardCharsets.UTF_8));
+		
+		Map<String, List<String>> read = new ConcurrentHashMap<>();
+		
+		FileTrackerGroup group = FileTrackerGroup.create(() -> new LineSplitReader(StandardCharsets.UTF_8))
+			.setPollingTime(100)
+			.add(dir.toString() + File.separator + "*.log");
+		
+		assertEquals(1, group.getFiles().size());
+		
+		group.start((path, line) -> {
+			read.computeIfAbsent(path.getFileName().toString(), key -> new CopyOnWriteArrayList<>()).add(line);
+		});
+		
+		try {
+			
+			Files.write(a, "a1\na2\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+			
+			// 새로 생성된 파일은 처음부터 추적함
+			Files.write(b, "b1\n".getBytes(StandardCharsets.UTF_8));
+			
+			// 패턴에 맞지 않는 파일은 추적하지 않음
+			Files.write(c, "c1\n".getBytes(StandardCharsets.UTF_8));
+			
+			// 이벤트 처리 대기
+			long end = System.currentTimeMillis() + 10000;
+			while(System.currentTimeMillis() < end
+				&& (read.getOrDefault("a.log", new ArrayList<>()).size() < 2
+				|| read.getOrDefault("b.log", new ArrayList<>()).size() < 1)) {
+				Thread.sleep(50);
+			}
+			
+			assertEquals(Arrays.asList("a1", "a2"), read.get("a.log"));
+			assertEquals(Arrays.asList("b1"), read.get("b.log"));
+			assertFalse(read.containsKey("c.txt"));
+			
+			assertEquals(2, group.getFiles().size());
+			
+		} finally {
+			
+			group.stop();
+			
+			Files.deleteIfExists(a);
+			Files.deleteIfExists(b);
+			Files.deleteIfExists(c);
+			Files.deleteIfExists(dir);
+		}
+	}
+	
+	@Test
+	public void testGroup2() throws Exception {
+		
+		Path dir = Files.createTempDirectory("tracker");
+		Path a = dir.resolve("a.log");
+		
+		List<String> read = new CopyOnWriteArrayList<>();
+		List<Path> failed = new CopyOnWriteArrayList<>();
+		
+		// buffer 크기보다 긴 줄도 파일 별 buffer 로 나누어 읽음
+		FileTrackerGroup group = FileTrackerGroup.create(() -> new LineSplitReader(StandardCharsets.UTF_8))
+			.setPollingTime(100)
+			.setBufferSize(4)
+			.setErrorHandler((path, ex) -> failed.add(path))
+			.add(dir.toString() + File.separator + "*.log");
+		
+		group.start((path, line) -> {
+			
+			if(line.equals("error") == true) {
+				throw new IllegalStateException("test error");
+			}
+			
+			read.add(line);
+		});
+		
+		try {
+			
+			Files.write(a, "line1\nlong line2\nerror\n".getBytes(StandardCharsets.UTF_8));
+			
+			// 이벤트 처리 대기
+			long end = System.currentTimeMillis() + 10000;
+			while(System.currentTimeMillis() < end && failed.isEmpty() == true) {
+				Thread.sleep(50);
+			}
+			
+			assertEquals(Arrays.asList("line1", "long line2"), read);
+			assertEquals(a, failed.get(0));
+			assertNull(group.getFailure());
+			
+		} finally {
+			
+			group.stop();
+			
+			Files.deleteIfExists(a);
+			Files.deleteIfExists(dir);
+		}
+	}
 }
@@ -8,7 +8,10 @@ import java.util.HashMap;
 
 import org.junit.Test;
 
+import com.jutools.script.engine.ScriptCache;
+import com.jutools.script.mathexp.MathExp;
 import com.jutools.script.mathexp.MathResult;
+import com.jutools.script.mathexp.parser.UnitParser;
 
 /**
  * MathUtil 클래스의 테스트 케이스
@@ -660,4 +663,50 @@ public class MathUtilTest {
 		// 35!
 		assertEquals("10333147966386144929666651337523200000000", MathUtil.factorial(35).toString());
 	}
+	
+	@Test
+	public void testCalculateCache1() throws Exception {
+		
+		ScriptCache<MathExp> cache = MathExp.getCache();
+		
+		long hitCount = cache.getHitCount();
+		long missCount = cache.getMissCount();
+		
+		String exp = "(10 + 20) * 3.5 / 7 + 0.1234";
+		
+		double result1 = MathUtil.calculate(exp);
+		double result2 = MathUtil.calculate(exp);
+		
+		assertEquals(result1, result2, 0.0);
+		assertEquals(15.1234, result2, 0.0001);
+		
+		assertTrue(cache.getMissCount() - missCount <= 1);
+		assertTrue(cache.getHitCount() - hitCount >= 1);
+		
+		// 단위 포함 수식
+		for(int index = 0; index < 2; index++) {
+			
+			MathResult unitResult = MathUtil.calculateWithUnit("3*4/ 2 + -2 * 2.5 MiB");
+			
+			assertEquals(1048576, unitResult.getValue(), 0);
+			assertEquals("B", unitResult.getBaseUnit());
+		}
+	}
+	
+	@Test
+	public void testParse1() throws Exception {
+		
+		// 단위 포함 수식 반복 파싱
+		String exp = "(10 + 20) * 3.5 / 7 + -2 * 2.5 MiB";
+		
+		long start = System.nanoTime();
+		int count = 20000;
+		
+		for(int index = 0; index < count; index++) {
+			assertTrue(new UnitParser().parse(exp).travelPostOrder().size() > 0);
+		}
+		
+		long parseTime = (System.nanoTime() - start)/1000000;
+		System.out.println("DEBUG: PARSE " + count + " times(ms):" + parseTime);
+	}
 }
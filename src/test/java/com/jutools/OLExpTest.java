@@ -2,6 +2,8 @@ package com.jutools;
 
 import static org.junit.Assert.*;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -11,7 +13,14 @@ import java.util.Map;
 
 import org.junit.Test;
 
+import com.jutools.script.engine.Bindings;
+import com.jutools.script.engine.ExecuteMode;
+import com.jutools.script.engine.ScriptCache;
+import com.jutools.script.engine.VarLayout;
+import com.jutools.script.engine.instructions.Instruction;
+import com.jutools.script.engine.instructions.MethodAlias;
 import com.jutools.script.olexp.OLExp;
+import com.jutools.script.olexp.parser.StoreParser;
 import com.jutools.script.parser.exception.ParseException;
 import com.jutools.script.parser.exception.UnexpectedEndException;
 
@@ -993,4 +1002,677 @@ public class OLExpTest {
 		assertEquals("10.0", list.get(1).toString());
 		assertEquals("11.0", list.get(2).toString());
 	}
+	
+	@Test
+	public void testBytecode1() throws Exception {
+		
+		String[] scripts = {
+			"1 + 2 * 3 - 4 / 2",
+			"(a + b) * c % 7",
+			"a / 0",
+			"(0 - a) / 0",
+			"a > b and b <= c or a == c",
+			"(a != b) == (c >= 3)",
+			"false and 1 == 1 or true",
+			"round(a * 1.5) + pow(b, 2)",
+			"'test' == 'test'",
+			"r = a * b + c"
+		};
+		
+		for(String script: scripts) {
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("a", 3);
+			values.put("b", 4.5);
+			values.put("c", 7L);
+			
+			Object expected = OLExp.compile(script)
+				.execute(values)
+				.pop(Object.class);
+			
+			OLExp exp = OLExp.compile(script);
+			exp.setExecuteMode(ExecuteMode.BYTECODE);
+			
+			assertTrue(script, exp.isCompiled());
+			
+			Map<String, Object> bytecodeValues = new HashMap<>();
+			bytecodeValues.put("a", 3);
+			bytecodeValues.put("b", 4.5);
+			bytecodeValues.put("c", 7L);
+			
+			Object result = exp.execute(bytecodeValues).pop(Object.class);
+			
+			assertEquals(script, expected, result);
+			assertEquals(script, values, bytecodeValues);
+		}
+	}
+	
+	@Test
+	public void testBytecode2() throws Exception {
+		
+		// 문자열 변수는 STACK 모드로 수행
+		OLExp exp = OLExp.compile("a == 'test'");
+		exp.setExecuteMode(ExecuteMode.BYTECODE);
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", "test");
+		
+		Boolean result = exp.execute(values).pop(Boolean.class);
+		assertTrue(result);
+		
+		// 컴파일할 수 없는 스크립트는 STACK 모드로 수행
+		exp = OLExp.compile("'a' + b");
+		exp.setExecuteMode(ExecuteMode.BYTECODE);
+		
+		values.put("b", 10);
+		
+		assertFalse(exp.isCompiled());
+		assertEquals("a10", exp.execute(values).pop(String.class));
+	}
+	
+	@Test
+	public void testBytecode3() throws Exception {
+		
+		String script = "(a + b) * 2 > c and a % 3 == 1 or pow(b, 2) < c";
+		int count = 1000000;
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", 10);
+		values.put("b", 2.5);
+		values.put("c", 30);
+		
+		OLExp stackExp = OLExp.compile(script);
+		OLExp bytecodeExp = OLExp.compile(script);
+		bytecodeExp.setExecuteMode(ExecuteMode.BYTECODE);
+		
+		// warm up
+		for(int index = 0; index < count; index++) {
+			stackExp.execute(values).pop(Boolean.class);
+			bytecodeExp.execute(values).pop(Boolean.class);
+		}
+		
+		long start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			stackExp.execute(values).pop(Boolean.class);
+		}
+		long stackTime = System.currentTimeMillis() - start;
+		
+		start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			bytecodeExp.execute(values).pop(Boolean.class);
+		}
+		long bytecodeTime = System.currentTimeMillis() - start;
+		
+		System.out.println("DEBUG: STACK(ms):" + stackTime + ", BYTECODE(ms):" + bytecodeTime);
+		
+		assertEquals(stackExp.execute(values).pop(Boolean.class), bytecodeExp.execute(values).pop(Boolean.class));
+	}
+	
+	@Test
+	public void testOperandStack1() throws Exception {
+		
+		String[] scripts = {
+			"1 + 2 * 3 - 4 / 2",
+			"(a + b) * c % 7",
+			"a / 0",
+			"a > b and b <= c or a == c",
+			"false and 1 == 1 or true",
+			"round(a * 1.5) + pow(b, 2)",
+			"'subject: ' + message.subject + ', ' + a",
+			"'receiver: ' + message.receivers[a - 1]",
+			"message.map['test1'] == 'test1 입니다.'",
+			"[a, 'test', b + c]",
+			"value == null",
+			"r = a * b + c"
+		};
+		
+		for(String script: scripts) {
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("a", 3);
+			values.put("b", 4.5);
+			values.put("c", 7L);
+			values.put("message", new TestVO());
+			
+			Object expected = OLExp.compile(script)
+				.execute(values)
+				.pop(Object.class);
+			
+			values.remove("r");
+			
+			OLExp exp = OLExp.compile(script);
+			exp.setExecuteMode(ExecuteMode.OPERAND_STACK);
+			
+			Object result = exp.execute(values).pop(Object.class);
+			
+			assertEquals(script, expected, result);
+		}
+	}
+	
+	@Test
+	public void testOperandStack2() throws Exception {
+		
+		OLExp exp = OLExp.compile("(a + b) * 2 > c and a % 3 == 1 or pow(b, 2) < c");
+		exp.setExecuteMode(ExecuteMode.OPERAND_STACK);
+		
+		// 점프를 고려하지 않은 최대 스택 깊이
+		assertEquals(3, exp.getMaxStackSize());
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", 10);
+		values.put("b", 2.5);
+		values.put("c", 30);
+		
+		assertTrue(exp.execute(values).pop(Boolean.class));
+		
+		exp = OLExp.compile("(a + b) * 2 - c % 3");
+		exp.setExecuteMode(ExecuteMode.OPERAND_STACK);
+		
+		assertEquals(25.0, exp.execute(values).popNumber(), 0.0001);
+	}
+	
+	@Test
+	public void testOperandStack3() throws Exception {
+		
+		String script = "(a + b) * 2 > c and a % 3 == 1 or b * b < c";
+		int count = 1000000;
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", 10.0);
+		values.put("b", 2.5);
+		values.put("c", 30.0);
+		
+		OLExp stackExp = OLExp.compile(script);
+		OLExp operandExp = OLExp.compile(script);
+		operandExp.setExecuteMode(ExecuteMode.OPERAND_STACK);
+		
+		// warm up
+		for(int index = 0; index < count; index++) {
+			stackExp.execute(values).pop(Boolean.class);
+			operandExp.execute(values).pop(Boolean.class);
+		}
+		
+		long start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			stackExp.execute(values).pop(Boolean.class);
+		}
+		long stackTime = System.currentTimeMillis() - start;
+		
+		start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			operandExp.execute(values).pop(Boolean.class);
+		}
+		long operandTime = System.currentTimeMillis() - start;
+		
+		System.out.println("DEBUG: STACK(ms):" + stackTime + ", OPERAND_STACK(ms):" + operandTime);
+		
+		assertEquals(stackExp.execute(values).pop(Boolean.class), operandExp.execute(values).pop(Boolean.class));
+	}
+	
+	@Test
+	public void testBindings1() throws Exception {
+		
+		OLExp exp = OLExp.compile("r = (a + b) * a - c");
+		
+		VarLayout layout = exp.getVarLayout();
+		assertEquals(4, layout.size());
+		assertEquals(0, layout.indexOf("a"));
+		assertEquals(1, layout.indexOf("b"));
+		assertEquals(2, layout.indexOf("c"));
+		assertEquals(3, layout.indexOf("r"));
+		assertEquals(-1, layout.indexOf("d"));
+		
+		Bindings bindings = exp.newBindings();
+		
+		for(ExecuteMode mode: ExecuteMode.values()) {
+			
+			exp.setExecuteMode(mode);
+			
+			bindings
+				.set(layout.indexOf("a"), 2)
+				.set(layout.indexOf("b"), 3.0)
+				.set("c", 1L);
+			
+			exp.execute(bindings);
+			
+			assertEquals(mode.toString(), 9.0, (Double)bindings.get("r"), 0.0001);
+			assertEquals(mode.toString(), 9.0, (Double)bindings.get(layout.indexOf("r")), 0.0001);
+		}
+		
+		// 배치 정보에 없는 변수
+		bindings.put("<heap>", "heap");
+		
+		assertEquals("heap", bindings.get("<heap>"));
+		assertEquals(5, bindings.size());
+		
+		bindings.clear();
+		assertTrue(bindings.isEmpty());
+	}
+	
+	@Test
+	public void testBindings2() throws Exception {
+		
+		OLExp exp = OLExp.compile("a * b + message.subject");
+		
+		Object[] slots = new Object[exp.getVarLayout().size()];
+		slots[exp.getVarLayout().indexOf("a")] = 2;
+		slots[exp.getVarLayout().indexOf("b")] = 2.5;
+		slots[exp.getVarLayout().indexOf("message")] = new TestVO();
+		
+		assertEquals("5subject 입니다.", exp.execute(slots).pop(String.class));
+		
+		// 다른 스크립트의 Bindings 는 변수명으로 처리
+		Bindings bindings = OLExp.compile("message = a").newBindings();
+		bindings.put("a", 3);
+		bindings.put("b", 1);
+		bindings.put("message", new TestVO());
+		
+		assertEquals("3subject 입니다.", exp.execute(bindings).pop(String.class));
+		
+		// 슬롯 크기 오류
+		try {
+			exp.execute(new Object[1]);
+			fail("exception is expected");
+		} catch(IllegalArgumentException iaex) {
+			// Do nothing
+		}
+	}
+	
+	@Test
+	public void testOptimize1() throws Exception {
+		
+		// 상수 연산
+		OLExp exp = OLExp.compile("x * (60 * 60 * 1000)");
+		
+		assertEquals(3, exp.getInstCount());
+		assertTrue(exp.getParsedInstCount() > exp.getInstCount());
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("x", 2);
+		
+		assertEquals(7200000.0, exp.execute(values).pop(Double.class), 0.0001);
+		
+		// 문자열 덧셈
+		exp = OLExp.compile("'a' + 'b' + 10");
+		
+		assertEquals(1, exp.getInstCount());
+		assertEquals("ab10", exp.execute().pop(String.class));
+		
+		// 결정적 메소드 호출
+		exp = OLExp.compile("pow(2, 10) + x");
+		
+		assertEquals(3, exp.getInstCount());
+		assertEquals(1026.0, exp.execute(values).pop(Double.class), 0.0001);
+		
+		// 결정적이지 않은 메소드 호출
+		exp = OLExp.compile("now('yyyy')");
+		assertEquals(2, exp.getInstCount());
+	}
+	
+	@Test
+	public void testOptimize2() throws Exception {
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("x", 2);
+		
+		// 상수 조건 분기
+		OLExp exp = OLExp.compile("1 > 2 and x > 1");
+		
+		assertEquals(1, exp.getInstCount());
+		assertFalse(exp.execute(values).pop(Boolean.class));
+		
+		exp = OLExp.compile("1 < 2 and x > 1");
+		
+		assertEquals(5, exp.getInstCount());
+		assertTrue(exp.execute(values).pop(Boolean.class));
+		
+		exp = OLExp.compile("x > 1 or 1 == 1");
+		assertTrue(exp.execute(values).pop(Boolean.class));
+		
+		exp = OLExp.compile("x < 1 or 2 == 1 or x == 2");
+		assertTrue(exp.execute(values).pop(Boolean.class));
+		
+		exp = OLExp.compile("x > 1 and (1 == 1 or x == 3)");
+		assertTrue(exp.execute(values).pop(Boolean.class));
+		
+		// 수행 중 예외가 발생하는 상수 연산은 최적화 하지 않음
+		exp = OLExp.compile("10 - 'a'");
+		
+		try {
+			exp.execute();
+			fail("exception is expected");
+		} catch(Exception ex) {
+			// Do nothing
+		}
+	}
+	
+	@Test
+	public void testBatch1() throws Exception {
+		
+		String[] scripts = {
+			"(a + b) * 2 - c / 4",
+			"a % 3 + b / 0",
+			"a > b and b <= c or a == c",
+			"(a > 10) == (b > 10) or a != 3",
+			"round(a * 1.5) + pow(b, 2)",
+			"matchW('1*', '' + 1) and a > 5"
+		};
+		
+		int size = 100;
+		
+		Map<String, double[]> columns = new HashMap<>();
+		columns.put("a", new double[size]);
+		columns.put("b", new double[size]);
+		columns.put("c", new double[size]);
+		
+		for(int row = 0; row < size; row++) {
+			columns.get("a")[row] = row % 13;
+			columns.get("b")[row] = (row * 7) % 11 - 3.5;
+			columns.get("c")[row] = row;
+		}
+		
+		for(String script: scripts) {
+			
+			OLExp exp = OLExp.compile(script);
+			Object result = exp.evaluateBatch(columns);
+			
+			for(int row = 0; row < size; row++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("a", columns.get("a")[row]);
+				values.put("b", columns.get("b")[row]);
+				values.put("c", columns.get("c")[row]);
+				
+				Object expected = exp.execute(values).pop(Object.class);
+				
+				if(result instanceof double[]) {
+					assertEquals(script, (Double)expected, ((double[])result)[row], 0.0);
+				} else {
+					assertEquals(script, expected, ((boolean[])result)[row]);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testBatch2() throws Exception {
+		
+		List<Map<String, Object>> rows = new ArrayList<>();
+		
+		for(int row = 0; row < 10; row++) {
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("usage", row * 10);
+			values.put("limit", 50L);
+			
+			rows.add(values);
+		}
+		
+		OLExp exp = OLExp.compile("usage > limit");
+		boolean[] result = exp.evaluateBooleanBatch(rows, "usage", "limit");
+		
+		assertEquals(10, result.length);
+		for(int row = 0; row < result.length; row++) {
+			assertEquals(row > 5, result[row]);
+		}
+		
+		double[] numbers = OLExp.compile("usage / limit * 100").evaluateNumberBatch(rows, "usage", "limit");
+		assertEquals(180.0, numbers[9], 0.0001);
+		
+		// 문자열 연산은 지원하지 않음
+		try {
+			OLExp.compile("'usage:' + usage").evaluateBatch(rows, "usage");
+			fail("exception is expected");
+		} catch(Exception ex) {
+			// Do nothing
+		}
+	}
+	
+	@Test
+	public void testBatch3() throws Exception {
+		
+		String script = "(a + b) * 2 > c and a % 3 == 1 or b * b < c";
+		int size = 100000;
+		int count = 20;
+		
+		Map<String, double[]> columns = new HashMap<>();
+		columns.put("a", new double[size]);
+		columns.put("b", new double[size]);
+		columns.put("c", new double[size]);
+		
+		List<Map<String, Object>> rows = new ArrayList<>();
+		
+		for(int row = 0; row < size; row++) {
+			
+			columns.get("a")[row] = row % 17;
+			columns.get("b")[row] = row % 5;
+			columns.get("c")[row] = row % 31;
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("a", columns.get("a")[row]);
+			values.put("b", columns.get("b")[row]);
+			values.put("c", columns.get("c")[row]);
+			
+			rows.add(values);
+		}
+		
+		OLExp exp = OLExp.compile(script);
+		
+		long start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			for(Map<String, Object> values: rows) {
+				exp.execute(values).pop(Boolean.class);
+			}
+		}
+		long rowTime = System.currentTimeMillis() - start;
+		
+		boolean[] result = null;
+		
+		start = System.currentTimeMillis();
+		for(int index = 0; index < count; index++) {
+			result = exp.evaluateBooleanBatch(columns);
+		}
+		long batchTime = System.currentTimeMillis() - start;
+		
+		System.out.println("DEBUG: ROW(ms):" + rowTime + ", BATCH(ms):" + batchTime);
+		
+		for(int row = 0; row < size; row += 997) {
+			assertEquals(exp.execute(rows.get(row)).pop(Boolean.class), result[row]);
+		}
+	}
+	
+	@Test
+	public void testBatch4() throws Exception {
+		
+		// 일괄 수행 시 메소드의 values 파라미터에도 행 단위 수행과 같이 해당 행의 값이 전달됨
+		int size = 10;
+		
+		Map<String, double[]> columns = new HashMap<>();
+		columns.put("a", new double[size]);
+		
+		List<Map<String, Object>> rows = new ArrayList<>();
+		
+		for(int row = 0; row < size; row++) {
+			
+			columns.get("a")[row] = row;
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("a", (double)row);
+			
+			rows.add(values);
+		}
+		
+		OLExp exp = OLExp.compile("valueA(2) + a", BatchMethods.class);
+		
+		double[] columnResult = exp.evaluateNumberBatch(columns);
+		double[] rowResult = exp.evaluateNumberBatch(rows, "a");
+		
+		for(int row = 0; row < size; row++) {
+			
+			double expected = exp.execute(rows.get(row)).pop(Double.class);
+			
+			assertEquals(row * 3, expected, 0.0);
+			assertEquals(expected, columnResult[row], 0.0);
+			assertEquals(expected, rowResult[row], 0.0);
+		}
+		
+		// 메소드에서 발생한 Error 는 그대로 전달됨
+		try {
+			OLExp.compile("batchError(a)", BatchMethods.class).evaluateBatch(columns);
+			fail("error is expected");
+		} catch(AssertionError err) {
+			assertEquals("batch error", err.getMessage());
+		}
+	}
+	
+	@Test
+	public void testCache1() throws Exception {
+		
+		ScriptCache<OLExp> cache = OLExp.getCache();
+		
+		String script = "cache_a * 10 + 1 > cache_b";
+		
+		long hitCount = cache.getHitCount();
+		
+		OLExp exp1 = OLExp.compile(script);
+		OLExp exp2 = OLExp.compile(script);
+		
+		assertEquals(hitCount + 1, cache.getHitCount());
+		
+		// 캐시된 스크립트를 복사하여 반환하기 때문에 실행 모드는 공유하지 않음
+		assertTrue(exp1 != exp2);
+		
+		exp1.setExecuteMode(ExecuteMode.BYTECODE);
+		assertEquals(ExecuteMode.STACK, exp2.getExecuteMode());
+		
+		Map<String, Object> values = new HashMap<>();
+		values.put("cache_a", 3);
+		values.put("cache_b", 30);
+		
+		assertTrue(exp1.execute(values).pop(Boolean.class));
+		assertTrue(exp2.execute(values).pop(Boolean.class));
+		
+		// 메소드 클래스가 다르면 다른 스크립트
+		long missCount = cache.getMissCount();
+		OLExp.compile(script, TestVO.class);
+		
+		assertEquals(missCount + 1, cache.getMissCount());
+	}
+	
+	@Test
+	public void testCache2() throws Exception {
+		
+		ScriptCache<OLExp> cache = new ScriptCache<>(2);
+		
+		cache.get("1 + 1", null, () -> OLExp.compile("1 + 1"));
+		cache.get("1 + 2", null, () -> OLExp.compile("1 + 2"));
+		cache.get("1 + 1", null, () -> OLExp.compile("1 + 1"));
+		cache.get("1 + 3", null, () -> OLExp.compile("1 + 3"));
+		
+		// 가장 오래 사용하지 않은 "1 + 2" 가 제거됨
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHitCount());
+		
+		cache.get("1 + 1", null, () -> OLExp.compile("1 + 1"));
+		assertEquals(2, cache.getHitCount());
+		
+		cache.get("1 + 2", null, () -> OLExp.compile("1 + 2"));
+		assertEquals(4, cache.getMissCount());
+		
+		// 캐시 사용 중지
+		cache.setEnabled(false);
+		
+		assertEquals(0, cache.size());
+		
+		cache.get("1 + 1", null, () -> OLExp.compile("1 + 1"));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testCache3() throws Exception {
+		
+		ScriptCache<OLExp> cache = new ScriptCache<>();
+		
+		// 다른 class loader 에서 로딩한 같은 이름의 클래스
+		URL location = TestVO.class.getProtectionDomain().getCodeSource().getLocation();
+		
+		try(URLClassLoader loader = new URLClassLoader(new URL[] {location}, null)) {
+			
+			Class<?> otherCls = loader.loadClass(TestVO.class.getName());
+			
+			assertEquals(TestVO.class.getName(), otherCls.getName());
+			assertTrue(TestVO.class != otherCls);
+			
+			cache.get("1 + 1", new Class<?>[] {TestVO.class}, () -> OLExp.compile("1 + 1"));
+			cache.get("1 + 1", new Class<?>[] {otherCls}, () -> OLExp.compile("1 + 1"));
+			cache.get("1 + 1", new Class<?>[] {TestVO.class}, () -> OLExp.compile("1 + 1"));
+			
+			// 클래스 이름이 같아도 다른 키로 저장됨
+			assertEquals(2, cache.size());
+			assertEquals(2, cache.getMissCount());
+			assertEquals(1, cache.getHitCount());
+		}
+	}
+	
+	@Test
+	public void testParse1() throws Exception {
+		
+		// 파싱 결과(명령어 목록)가 파서 재사용 및 반복 파싱에도 같아야 함
+		String script = "x = (a.b + 10 * 2) >= 30 and c != 'test' or matchW(d, '*st')";
+		
+		List<Instruction> expected = new StoreParser().parse(script).travelPostOrder();
+		
+		long start = System.nanoTime();
+		int count = 20000;
+		
+		for(int index = 0; index < count; index++) {
+			
+			List<Instruction> insts = new StoreParser().parse(script).travelPostOrder();
+			assertEquals(expected.size(), insts.size());
+		}
+		
+		long parseTime = (System.nanoTime() - start)/1000000;
+		System.out.println("DEBUG: PARSE " + count + " times(ms):" + parseTime);
+		
+		for(int index = 0; index < expected.size(); index++) {
+			assertEquals(expected.get(index).toString(), new StoreParser().parse(script).travelPostOrder().get(index).toString());
+		}
+	}
+	
+	/**
+	 * 일괄 수행 테스트용 메소드
+	 */
+	public static class BatchMethods {
+		
+		/**
+		 * values 의 a 값에 주어진 값을 곱하여 반환
+		 * 
+		 * @param values 변수 저장 객체
+		 * @param scale 곱할 값
+		 * @return a 값 * scale, a 값이 숫자가 아닐 경우 -1
+		 */
+		@MethodAlias(alias = "valueA")
+		public static double valueA(Map<String, ?> values, double scale) {
+			
+			Object a = values.get("a");
+			if(a instanceof Number == false) {
+				return -1;
+			}
+			
+			return ((Number)a).doubleValue() * scale;
+		}
+		
+		/**
+		 * 항상 Error 발생
+		 * 
+		 * @param values 변수 저장 객체
+		 * @param value 값
+		 * @return 반환하지 않음
+		 */
+		@MethodAlias(alias = "batchError")
+		public static double batchError(Map<String, ?> values, double value) {
+			throw new AssertionError("batch error");
+		}
+	}
 }
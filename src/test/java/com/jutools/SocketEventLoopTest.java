@@ -0,0 +1,203 @@
+package com.jutools;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.jutools.channel.SocketChannelWrapper;
+import com.jutools.channel.SocketEventLoop;
+
+/**
+ * Selector 기반 socket channel event loop 테스트 클래스
+ * 
+ * @author jmsohn
+ */
+public class SocketEventLoopTest {
+	
+	/**
+	 * 테스트용 echo 서버 시작
+	 * 
+	 * @param server 서버 소켓
+	 */
+	private static void startEchoServer(ServerSocket server) {
+		
+		Thread acceptor = new Thread(() -> {
+			
+			while(server.isClosed() == false) {
+				
+				try {
+					
+					Socket socket = server.accept();
+					
+					Thread echo = new Thread(() -> {
+						
+						try(
+							Socket s = socket;
+							InputStream in = s.getInputStream();
+							OutputStream out = s.getOutputStream();
+						) {
+							
+							byte[] buffer = new byte[1024];
+							int read = 0;
+							
+							while((read = in.read(buffer)) != -1) {
+								out.write(buffer, 0, read);
+							}
+							
+						} catch(Exception ex) {
+							// 연결 종료
+						}
+					});
+					
+					echo.setDaemon(true);
+					echo.start();
+					
+				} catch(Exception ex) {
+					// 서버 종료
+				}
+			}
+		});
+		
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	@Test
+	public void testAsync1() throws Exception {
+		
+		try(
+			ServerSocket server = new ServerSocket();
+			SocketEventLoop loop = new SocketEventLoop(2);
+		) {
+			
+			server.bind(new InetSocketAddress("127.0.0.1", 0));
+			startEchoServer(server);
+			
+			// 여러 연결을 2개의 I/O 스레드에서 처리
+			List<SocketChannelWrapper> wrappers = new ArrayList<>();
+			for(int index = 0; index < 20; index++) {
+				wrappers.add(loop.connect("127.0.0.1", server.getLocalPort(), 16, StandardCharsets.UTF_8).get(5, TimeUnit.SECONDS));
+			}
+			
+			// 연결 별로 여러 줄을 비동기로 쓰고 읽음
+			List<CompletableFuture<String>> reads = new ArrayList<>();
+			List<String> expected = new ArrayList<>();
+			
+			for(int count = 0; count < 50; count++) {
+				for(int index = 0; index < wrappers.size(); index++) {
+					
+					SocketChannelWrapper wrapper = wrappers.get(index);
+					String line = "연결-" + index + "-" + count + "\n";
+					
+					wrapper.writeAsync(line);
+					reads.add(wrapper.readLineAsync("\n"));
+					expected.add(line);
+				}
+			}
+			
+			for(int index = 0; index < reads.size(); index++) {
+				assertEquals(expected.get(index), reads.get(index).get(5, TimeUnit.SECONDS));
+			}
+			
+			for(SocketChannelWrapper wrapper: wrappers) {
+				wrapper.close();
+			}
+		}
+	}
+	
+	@Test
+	public void testAsync2() throws Exception {
+		
+		try(
+			ServerSocket server = new ServerSocket();
+			SocketEventLoop loop = new SocketEventLoop(1);
+		) {
+			
+			server.bind(new InetSocketAddress("127.0.0.1", 0));
+			startEchoServer(server);
+			
+			SocketChannelWrapper wrapper = loop.connect("127.0.0.1", server.getLocalPort()).get(5, TimeUnit.SECONDS);
+			assertTrue(wrapper.isAsync());
+			
+			// gathering write - 여러 buffer 를 한번에 씀
+			ByteBuffer[] srcs = new ByteBuffer[200];
+			StringBuilder expected = new StringBuilder();
+			
+			for(int index = 0; index < srcs.length; index++) {
+				
+				String part = (index % 10 == 9)?index + "\n":index + ",";
+				
+				srcs[index] = ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8));
+				expected.append(part);
+			}
+			
+			wrapper.writeAsync(srcs).get(5, TimeUnit.SECONDS);
+			
+			StringBuilder read = new StringBuilder();
+			for(int index = 0; index < 20; index++) {
+				read.append(wrapper.readLineAsync("\n").get(5, TimeUnit.SECONDS));
+			}
+			
+			assertEquals(expected.toString(), read.toString());
+			
+			// 닫힌 후 완료되지 않은 읽기 요청은 오류로 완료됨
+			CompletableFuture<String> pending = wrapper.readLineAsync("\n");
+			wrapper.close();
+			
+			try {
+				pending.get(5, TimeUnit.SECONDS);
+				fail("exception is expected");
+			} catch(ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof ClosedChannelException);
+			}
+		}
+	}
+	
+	@Test
+	public void testAsync3() throws Exception {
+		
+		try(ServerSocket server = new ServerSocket()) {
+			
+			server.bind(new InetSocketAddress("127.0.0.1", 0));
+			startEchoServer(server);
+			
+			SocketEventLoop loop = new SocketEventLoop(1);
+			SocketChannelWrapper wrapper = loop.connect("127.0.0.1", server.getLocalPort()).get(5, TimeUnit.SECONDS);
+			
+			// event loop 중단 시 완료되지 않은 요청은 오류로 완료됨
+			CompletableFuture<String> pending = wrapper.readLineAsync("\n");
+			loop.close();
+			
+			try {
+				pending.get(5, TimeUnit.SECONDS);
+				fail("exception is expected");
+			} catch(ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof ClosedChannelException);
+			}
+			
+			// 중단 후의 요청도 오류로 완료됨
+			try {
+				wrapper.writeAsync("after close\n").get(5, TimeUnit.SECONDS);
+				fail("exception is expected");
+			} catch(ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof ClosedChannelException);
+			}
+			
+			wrapper.close();
+		}
+	}
+}
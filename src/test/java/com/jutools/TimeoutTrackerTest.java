@@ -0,0 +1,134 @@
+package com.jutools;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.jutools.event.KeyTimeoutEvent;
+import com.jutools.event.TimeoutTracker;
+
+/**
+ * 키 별 타임아웃 감시 테스트 클래스
+ * 
+ * @author jmsohn
+ */
+public class TimeoutTrackerTest {
+
+	@Test
+	public void testTouch1() throws Exception {
+		
+		Set<Integer> expired = new HashSet<>();
+		AtomicInteger batchCount = new AtomicInteger(0);
+		
+		TimeoutTracker<Integer> tracker = new TimeoutTracker<Integer>(300, 10)
+			.add(events -> {
+				
+				batchCount.incrementAndGet();
+				
+				synchronized(expired) {
+					for(KeyTimeoutEvent<Integer> event: events) {
+						
+						assertTrue(event.getTimestamp() - event.getLastTouched() >= 300);
+						expired.add(event.getKey());
+					}
+				}
+			})
+			.run();
+		
+		try {
+			
+			for(int key = 0; key < 10000; key++) {
+				tracker.touch(key);
+			}
+			
+			assertEquals(10000, tracker.size());
+			
+			// 짝수 키만 계속 touch
+			for(int count = 0; count < 6; count++) {
+				
+				Thread.sleep(100);
+				
+				for(int key = 0; key < 10000; key += 2) {
+					tracker.touch(key);
+				}
+			}
+			
+			// 홀수 키만 만료됨
+			assertEquals(5000, tracker.size());
+			
+			synchronized(expired) {
+				
+				assertEquals(5000, expired.size());
+				
+				for(int key: expired) {
+					assertEquals(1, key % 2);
+				}
+			}
+			
+			// 만료 이벤트는 tick 단위로 묶어서 전달됨
+			assertTrue(batchCount.get() < 100);
+			
+			// 짝수 키도 touch 가 없으면 만료됨
+			Thread.sleep(600);
+			
+			assertEquals(0, tracker.size());
+			
+			synchronized(expired) {
+				assertEquals(10000, expired.size());
+			}
+			
+		} finally {
+			tracker.stop();
+		}
+	}
+	
+	@Test
+	public void testTouch2() throws Exception {
+		
+		Set<String> expired = new HashSet<>();
+		
+		TimeoutTracker<String> tracker = new TimeoutTracker<String>(200)
+			.add(events -> {
+				synchronized(expired) {
+					for(KeyTimeoutEvent<String> event: events) {
+						expired.add(event.getKey());
+					}
+				}
+			})
+			.run();
+		
+		try {
+			
+			tracker.touch("a");
+			tracker.touch("b");
+			
+			assertTrue(tracker.contains("a"));
+			assertTrue(tracker.getLastTouched("a") > 0);
+			
+			// 감시 중단된 키는 만료 이벤트가 발생하지 않음
+			assertTrue(tracker.remove("b"));
+			assertFalse(tracker.remove("b"));
+			
+			Thread.sleep(500);
+			
+			synchronized(expired) {
+				assertEquals(1, expired.size());
+				assertTrue(expired.contains("a"));
+			}
+			
+			assertFalse(tracker.contains("a"));
+			assertEquals(-1, tracker.getLastTouched("a"));
+			
+			// 만료된 키는 다시 touch 하면 새로 감시함
+			tracker.touch("a");
+			assertEquals(1, tracker.size());
+			
+		} finally {
+			tracker.stop();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.jutools;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jutools.event.TimingWheel;
+
+/**
+ * 타이밍 휠 테스트 클래스
+ * 
+ * @author jmsohn
+ */
+public class TimingWheelTest {
+
+	@Test
+	public void testAdvance1() throws Exception {
+		
+		TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+		
+		// 단계 별로 등록되도록 만료 시간 설정
+		wheel.schedule("a", 5);
+		wheel.schedule("b", 100);
+		wheel.schedule("c", 5000);
+		wheel.schedule("d", 300000);
+		wheel.schedule("e", 20000000);
+		
+		assertEquals(5, wheel.size());
+		
+		assertEquals(new ArrayList<>(), wheel.advance(4));
+		assertEquals(Arrays.asList("a"), wheel.advance(5));
+		assertEquals(new ArrayList<>(), wheel.advance(99));
+		assertEquals(Arrays.asList("b"), wheel.advance(100));
+		assertEquals(Arrays.asList("c"), wheel.advance(5000));
+		assertEquals(new ArrayList<>(), wheel.advance(299999));
+		assertEquals(Arrays.asList("d"), wheel.advance(300000));
+		assertEquals(new ArrayList<>(), wheel.advance(19999999));
+		assertEquals(Arrays.asList("e"), wheel.advance(20000000));
+		
+		assertEquals(0, wheel.size());
+	}
+	
+	@Test
+	public void testAdvance2() throws Exception {
+		
+		TimingWheel<Integer> wheel = new TimingWheel<>(10, 0);
+		
+		// 등록 취소 및 만료 시간 변경
+		for(int key = 0; key < 1000; key++) {
+			wheel.schedule(key, key * 10 + 10);
+		}
+		
+		for(int key = 0; key < 1000; key += 2) {
+			assertTrue(wheel.cancel(key));
+		}
+		
+		wheel.schedule(1, 50000);
+		assertEquals(50000, wheel.getDeadline(1));
+		
+		// 만료 시간 순서대로 만료되어야 함
+		List<Integer> expired = wheel.advance(10000);
+		
+		assertEquals(499, expired.size());
+		for(int index = 0; index < expired.size(); index++) {
+			assertEquals(index * 2 + 3, (int)expired.get(index));
+		}
+		
+		assertEquals(1, wheel.size());
+		assertEquals(Arrays.asList(1), wheel.advance(50000));
+		assertFalse(wheel.cancel(1));
+	}
+}
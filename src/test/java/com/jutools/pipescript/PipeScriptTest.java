@@ -1,12 +1,25 @@
 package com.jutools.pipescript;
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import com.jutools.script.engine.instructions.MethodAlias;
 import com.jutools.script.pipescript.PipeScript;
+import com.jutools.script.pipescript.QueuePolicy;
+import com.jutools.script.pipescript.StageMetrics;
 
 public class PipeScriptTest {
 
@@ -25,4 +38,349 @@ public class PipeScriptTest {
 		
 		Thread.sleep(1000);
 	}
+	
+	@Test
+	public void testOrdered1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		// 첫번째 단계는 4개의 worker 에서 처리 시간이 다르게 수행됨
+		PipeScript script = PipeScript.compile("delay(id % 7) | id % 3 != 0", TestMethods.class)
+			.setWorkers(0, 4)
+			.setOrdered(true)
+			.setOutQueue(outQ);
+		
+		assertEquals(2, script.getStageCount());
+		assertEquals(4, script.getWorkers(0));
+		assertEquals(1, script.getWorkers(1));
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 60; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.getInQueue().put(values);
+			}
+			
+			// 3의 배수를 제외한 데이터가 입력 순서대로 출력되어야 함
+			for(int id = 0; id < 60; id++) {
+				
+				if(id % 3 == 0) {
+					continue;
+				}
+				
+				Map<String, Object> values = outQ.poll(10, TimeUnit.SECONDS);
+				
+				assertNotNull(values);
+				assertEquals(id, values.get("id"));
+			}
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	@Test
+	public void testUnordered1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		PipeScript script = PipeScript.compile("delay(id % 5) | id >= 0", TestMethods.class)
+			.setWorkers(3)
+			.setOutQueue(outQ);
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 30; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.getInQueue().put(values);
+			}
+			
+			// 순서와 상관없이 모든 데이터가 출력되어야 함
+			int sum = 0;
+			for(int count = 0; count < 30; count++) {
+				
+				Map<String, Object> values = outQ.poll(10, TimeUnit.SECONDS);
+				
+				assertNotNull(values);
+				sum += (Integer)values.get("id");
+			}
+			
+			assertEquals(435, sum);
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	@Test
+	public void testDrop1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		// 첫번째 단계 처리가 느려 입력 큐가 가득 차면 버림
+		PipeScript script = PipeScript.compile("delay(20) | id >= 0", TestMethods.class)
+			.setQueueCapacity(0, 5)
+			.setQueuePolicy(0, QueuePolicy.DROP)
+			.setOutQueue(outQ);
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 50; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.put(values);
+			}
+			
+			StageMetrics metrics = script.getMetrics(0);
+			assertTrue(metrics.getDroppedCount() > 0);
+			
+			// 버려지지 않은 데이터는 모두 출력되어야 함
+			long expected = 50 - metrics.getDroppedCount();
+			for(int count = 0; count < expected; count++) {
+				assertNotNull(outQ.poll(10, TimeUnit.SECONDS));
+			}
+			
+			assertEquals(expected, metrics.getInCount());
+			assertEquals(expected, script.getMetrics(1).getOutCount());
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	@Test
+	public void testSpill1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		// 입력 큐가 가득 차면 임시 파일에 저장 후 순서대로 처리함
+		PipeScript script = PipeScript.compile("delay(id % 3) | id >= 0", TestMethods.class)
+			.setQueueCapacity(2)
+			.setQueuePolicy(QueuePolicy.SPILL)
+			.setBatchSize(4)
+			.setOutQueue(outQ);
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 40; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.put(values);
+			}
+			
+			for(int id = 0; id < 40; id++) {
+				
+				Map<String, Object> values = outQ.poll(10, TimeUnit.SECONDS);
+				
+				assertNotNull(values);
+				assertEquals(id, values.get("id"));
+			}
+			
+			assertTrue(script.getMetrics(0).getSpilledCount() > 0);
+			assertEquals(0, script.getMetrics(0).getDroppedCount());
+			assertEquals(0, script.getMetrics(0).getQueueDepth());
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	@Test
+	public void testBatch1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		PipeScript script = PipeScript.compile("id % 2 == 0 | id >= 0")
+			.setQueueCapacity(16)
+			.setBatchSize(8)
+			.setOutQueue(outQ);
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 1000; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.put(values);
+			}
+			
+			for(int count = 0; count < 500; count++) {
+				assertNotNull(outQ.poll(10, TimeUnit.SECONDS));
+			}
+			
+			StageMetrics metrics = script.getMetrics(0);
+			
+			assertEquals(1000, metrics.getInCount());
+			assertEquals(500, metrics.getFilteredCount());
+			assertEquals(500, metrics.getOutCount());
+			assertTrue(metrics.getThroughput() > 0);
+			
+			System.out.println("DEBUG: " + metrics);
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	@Test
+	public void testEnd1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		
+		PipeScript script = PipeScript.compile("id >= 0 | delay(id % 4) | id % 5 != 0", TestMethods.class)
+			.setWorkers(1, 3)
+			.setOrdered(true)
+			.setOutQueue(outQ);
+		
+		CompletableFuture<Void> completion = script.run();
+		
+		for(int id = 0; id < 100; id++) {
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("id", id);
+			
+			script.put(values);
+		}
+		
+		// 스트림 종료 후 모든 단계의 처리 완료 대기
+		script.end();
+		completion.get(10, TimeUnit.SECONDS);
+		
+		assertTrue(completion.isDone());
+		assertEquals(80, outQ.size() - 1);
+		
+		// 입력 순서대로 출력되고, 마지막은 스트림 종료 표시임
+		for(int id = 0; id < 100; id++) {
+			
+			if(id % 5 == 0) {
+				continue;
+			}
+			
+			assertEquals(id, outQ.poll().get("id"));
+		}
+		
+		assertSame(PipeScript.END_OF_STREAM, outQ.poll());
+		
+		// 종료 후 중단 시 버려지는 데이터 없음
+		assertEquals(0, script.stop(1, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void testStop1() throws Exception {
+		
+		PipeScript script = PipeScript.compile("delay(500) | id >= 0", TestMethods.class);
+		CompletableFuture<Void> completion = script.run();
+		
+		for(int id = 0; id < 20; id++) {
+			
+			Map<String, Object> values = new HashMap<>();
+			values.put("id", id);
+			
+			script.put(values);
+		}
+		
+		Thread.sleep(100);
+		
+		// 처리 중인 첫번째 단계는 interrupt 되고, 대기 중인 데이터는 버려짐
+		long start = System.currentTimeMillis();
+		long dropped = script.stop(100, TimeUnit.MILLISECONDS);
+		
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertTrue(dropped >= 19);
+		assertTrue(completion.isCancelled());
+	}
+	
+	@Test
+	public void testHeap1() throws Exception {
+		
+		BlockingQueue<Map<String, Object>> outQ = new LinkedBlockingQueue<>();
+		TestMethods.maxCount.set(0);
+		
+		// 여러 worker 에서 Heap 의 카운터를 원자적으로 증가시킴
+		PipeScript script = PipeScript.compile("count(id) > 0", TestMethods.class)
+			.setWorkers(0, 4)
+			.setOutQueue(outQ);
+		
+		script.run();
+		
+		try {
+			
+			for(int id = 0; id < 1000; id++) {
+				
+				Map<String, Object> values = new HashMap<>();
+				values.put("id", id);
+				
+				script.getInQueue().put(values);
+			}
+			
+			for(int count = 0; count < 1000; count++) {
+				assertNotNull(outQ.poll(10, TimeUnit.SECONDS));
+			}
+			
+			// 증가가 유실되지 않아야 함
+			assertEquals(1000, TestMethods.maxCount.get());
+			
+		} finally {
+			script.stop();
+		}
+	}
+	
+	/**
+	 * 테스트용 메소드
+	 */
+	public static class TestMethods {
+		
+		/** count 메소드가 반환한 최대값 */
+		static AtomicInteger maxCount = new AtomicInteger(0);
+		
+		/**
+		 * Heap 의 카운터를 증가시킨 후 반환
+		 * 
+		 * @param values 변수 저장 객체
+		 * @param id 입력 id(사용하지 않음)
+		 * @return 증가된 카운터
+		 */
+		@MethodAlias(alias = "count")
+		public static double count(Map<String, ?> values, double id) {
+			
+			int count = (Integer)PipeScript.updateHeap(values, "count", (key, value) -> (value == null)?1:(Integer)value + 1);
+			maxCount.accumulateAndGet(count, Math::max);
+			
+			return count;
+		}
+		
+		/**
+		 * 주어진 시간(ms) 만큼 대기 후 true 반환
+		 * 
+		 * @param values 변수 저장 객체
+		 * @param millis 대기 시간(ms)
+		 * @return 항상 true
+		 */
+		@MethodAlias(alias = "delay")
+		public static boolean delay(Map<String, ?> values, double millis) throws Exception {
+			Thread.sleep((long)millis);
+			return true;
+		}
+	}
 }